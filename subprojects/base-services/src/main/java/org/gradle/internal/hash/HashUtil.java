@@ -15,18 +15,38 @@
  */
 package org.gradle.internal.hash;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.internal.UncheckedException;
 
 import java.io.*;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
 
 public class HashUtil {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Digests and read buffers are reused by each thread, as creating them shows up when hashing many small files.
+    // An instance is removed from its thread local while in use, so that a nested call on the same thread gets its own.
+    private static final ThreadLocal<Map<String, MessageDigest>> MESSAGE_DIGESTS = new ThreadLocal<Map<String, MessageDigest>>() {
+        @Override
+        protected Map<String, MessageDigest> initialValue() {
+            return new HashMap<String, MessageDigest>();
+        }
+    };
+    private static final ThreadLocal<byte[]> BUFFERS = new ThreadLocal<byte[]>();
+
     public static HashValue createHash(String scriptText, String algorithm) {
-        MessageDigest messageDigest = createMessageDigest(algorithm);
-        messageDigest.update(scriptText.getBytes());
-        return new HashValue(messageDigest.digest());
+        MessageDigest messageDigest = acquireMessageDigest(algorithm);
+        try {
+            messageDigest.update(scriptText.getBytes());
+            return new HashValue(messageDigest.digest());
+        } finally {
+            releaseMessageDigest(algorithm, messageDigest);
+        }
     }
 
     public static HashValue createHash(File file, String algorithm) {
@@ -41,25 +61,76 @@ public class HashUtil {
     }
 
     public static HashValue createHash(InputStream instr, String algorithm) {
-        MessageDigest messageDigest;
+        final MessageDigest messageDigest = acquireMessageDigest(algorithm);
+        try {
+            read(instr, new ByteSink() {
+                public void update(byte[] buffer, int length) {
+                    messageDigest.update(buffer, 0, length);
+                }
+            });
+            return new HashValue(messageDigest.digest());
+        } finally {
+            releaseMessageDigest(algorithm, messageDigest);
+        }
+    }
+
+    /**
+     * Creates a 128 bit hash of the given file using the non-cryptographic Murmur3 hash function. This is considerably faster than MD5 or SHA1,
+     * and is suitable for detecting changes to a file, but not for verifying the integrity of untrusted content.
+     */
+    public static HashValue murmur3(File file) {
+        try {
+            final Hasher hasher = Hashing.murmur3_128().newHasher();
+            read(new FileInputStream(file), new ByteSink() {
+                public void update(byte[] buffer, int length) {
+                    hasher.putBytes(buffer, 0, length);
+                }
+            });
+            return new HashValue(hasher.hash().asBytes());
+        } catch (UncheckedIOException e) {
+            throw new UncheckedIOException(String.format("Failed to create Murmur3 hash for file %s.", file.getAbsolutePath()), e.getCause());
+        } catch (FileNotFoundException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void read(InputStream instr, ByteSink sink) {
+        byte[] buffer = BUFFERS.get();
+        if (buffer == null) {
+            buffer = new byte[BUFFER_SIZE];
+        } else {
+            BUFFERS.remove();
+        }
         try {
-            messageDigest = createMessageDigest(algorithm);
-            byte[] buffer = new byte[4096];
             try {
                 while (true) {
                     int nread = instr.read(buffer);
                     if (nread < 0) {
                         break;
                     }
-                    messageDigest.update(buffer, 0, nread);
+                    sink.update(buffer, nread);
                 }
             } finally {
                 instr.close();
             }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
+        } finally {
+            BUFFERS.set(buffer);
+        }
+    }
+
+    private static MessageDigest acquireMessageDigest(String algorithm) {
+        MessageDigest messageDigest = MESSAGE_DIGESTS.get().remove(algorithm);
+        if (messageDigest == null) {
+            messageDigest = createMessageDigest(algorithm);
         }
-        return new HashValue(messageDigest.digest());
+        return messageDigest;
+    }
+
+    private static void releaseMessageDigest(String algorithm, MessageDigest messageDigest) {
+        messageDigest.reset();
+        MESSAGE_DIGESTS.get().put(algorithm, messageDigest);
     }
 
     private static MessageDigest createMessageDigest(String algorithm) {
@@ -70,6 +141,10 @@ public class HashUtil {
         }
     }
 
+    private interface ByteSink {
+        void update(byte[] buffer, int length);
+    }
+
     public static String createCompactMD5(String scriptText) {
         return createHash(scriptText, "MD5").asCompactString();
     }
@@ -16,6 +16,7 @@
 
 package org.gradle.internal.hash
 
+import com.google.common.hash.Hashing
 import org.gradle.api.UncheckedIOException
 import spock.lang.Issue
 import spock.lang.Specification
@@ -129,4 +130,35 @@ class HashUtilTest extends Specification {
         cleanup:
         file?.delete()
     }
+
+    def "createHash from InputStream returns correct hash after previous hash failed" () {
+        setup:
+        InputStream stubInputStream = Stub(InputStream) {
+            _ * read(_ as byte[]) >> 4 >> { throw new IOException("thrown from stub class") }
+        }
+
+        when:
+        HashUtil.createHash(stubInputStream, "MD5")
+
+        then:
+        thrown(UncheckedIOException)
+
+        when:
+        def hash = HashUtil.createHash(new ByteArrayInputStream(stringToHash.bytes), "MD5")
+
+        then:
+        hash.asHexString() == md5HashString
+    }
+
+    def "murmur3 from File returns Murmur3 128 bit hash" () {
+        setup:
+        File file = File.createTempFile("HashUtilTest", null)
+        file << stringToHash
+
+        expect:
+        HashUtil.murmur3(file) == new HashValue(Hashing.murmur3_128().hashBytes(stringToHash.bytes).asBytes())
+
+        cleanup:
+        file?.delete()
+    }
 }
@@ -17,11 +17,10 @@
 package org.gradle.api.internal;
 
 import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.SetMultimap;
 import groovy.lang.Closure;
 import groovy.lang.GroovyObject;
-import org.apache.commons.collections.map.AbstractReferenceMap;
-import org.apache.commons.collections.map.ReferenceMap;
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
 import org.gradle.api.NonExtensible;
@@ -34,6 +33,10 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -50,32 +53,60 @@ import java.util.concurrent.locks.ReentrantLock;
  * </ul>
  */
 public abstract class AbstractClassGenerator implements ClassGenerator {
-    private static final Map<Class<?>, Map<Class<?>, Class<?>>> GENERATED_CLASSES = new HashMap<Class<?>, Map<Class<?>, Class<?>>>();
-    private static final Lock CACHE_LOCK = new ReentrantLock();
+    private static final ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Class<?>>> GENERATED_CLASSES = new ConcurrentHashMap<Class<?>, ConcurrentMap<Class<?>, Class<?>>>();
+    // Held only while generating a class, cached classes are looked up without locking
+    private static final Lock GENERATION_LOCK = new ReentrantLock();
+    private static final AtomicLong GENERATED_CLASS_COUNT = new AtomicLong();
+    private static final AtomicLong GENERATION_TIME = new AtomicLong();
+    private static final AtomicLong CONTENDED_COUNT = new AtomicLong();
     private static final Collection<String> SKIP_PROPERTIES = Arrays.asList("class", "metaClass", "conventionMapping", "convention", "asDynamicObject", "extensions");
 
     public <T> T newInstance(Class<T> type, Object... parameters) {
         return DirectInstantiator.instantiate(generate(type), parameters);
     }
 
+    /**
+     * Returns statistics about the classes generated by all generators in this process.
+     */
+    public static Statistics getStatistics() {
+        return new Statistics(GENERATED_CLASS_COUNT.get(), GENERATION_TIME.get(), CONTENDED_COUNT.get());
+    }
+
     public <T> Class<? extends T> generate(Class<T> type) {
+        Map<Class<?>, Class<?>> cache = getCache();
+        Class<?> generatedClass = cache.get(type);
+        if (generatedClass != null) {
+            return generatedClass.asSubclass(type);
+        }
+
+        if (!GENERATION_LOCK.tryLock()) {
+            CONTENDED_COUNT.incrementAndGet();
+            GENERATION_LOCK.lock();
+        }
         try {
-            CACHE_LOCK.lock();
-            return generateUnderLock(type);
+            return generateUnderLock(type, cache);
         } finally {
-            CACHE_LOCK.unlock();
+            GENERATION_LOCK.unlock();
         }
     }
 
-    private <T> Class<? extends T> generateUnderLock(Class<T> type) {
-        Map<Class<?>, Class<?>> cache = GENERATED_CLASSES.get(getClass());
+    private Map<Class<?>, Class<?>> getCache() {
+        ConcurrentMap<Class<?>, Class<?>> cache = GENERATED_CLASSES.get(getClass());
         if (cache == null) {
             // WeakHashMap won't work here. It keeps a strong reference to the mapping value, which is the generated class in this case
             // However, the generated class has a strong reference to the source class (by extending it), so the keys will always be
             // strongly reachable while this Class is strongly reachable. Use weak references for both key and value of the mapping instead.
-            cache = new ReferenceMap(AbstractReferenceMap.WEAK, AbstractReferenceMap.WEAK);
-            GENERATED_CLASSES.put(getClass(), cache);
+            ConcurrentMap<Class<?>, Class<?>> newCache = new MapMaker().weakKeys().weakValues().makeMap();
+            cache = GENERATED_CLASSES.putIfAbsent(getClass(), newCache);
+            if (cache == null) {
+                cache = newCache;
+            }
         }
+        return cache;
+    }
+
+    private <T> Class<? extends T> generateUnderLock(Class<T> type, Map<Class<?>, Class<?>> cache) {
+        // Another thread may have generated the class while this thread was waiting for the lock
         Class<?> generatedClass = cache.get(type);
         if (generatedClass != null) {
             return generatedClass.asSubclass(type);
@@ -90,6 +121,7 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
                     type.getSimpleName()));
         }
 
+        long start = System.nanoTime();
         Class<? extends T> subclass;
         try {
             ClassMetaData classMetaData = inspectType(type);
@@ -201,6 +233,9 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
             throw new GradleException(String.format("Could not generate a proxy class for class %s.", type.getName()), e);
         }
 
+        GENERATED_CLASS_COUNT.incrementAndGet();
+        GENERATION_TIME.addAndGet(System.nanoTime() - start);
+
         cache.put(type, subclass);
         cache.put(subclass, subclass);
         return subclass;
@@ -290,6 +325,41 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
         }
     }
 
+    public static class Statistics {
+        private final long generatedClasses;
+        private final long generationTime;
+        private final long contended;
+
+        Statistics(long generatedClasses, long generationTime, long contended) {
+            this.generatedClasses = generatedClasses;
+            this.generationTime = generationTime;
+            this.contended = contended;
+        }
+
+        public long getGeneratedClasses() {
+            return generatedClasses;
+        }
+
+        /**
+         * Returns the total time spent generating classes, in milliseconds.
+         */
+        public long getGenerationTime() {
+            return TimeUnit.NANOSECONDS.toMillis(generationTime);
+        }
+
+        /**
+         * Returns the number of times a class was not cached and another thread was already generating a class.
+         */
+        public long getContended() {
+            return contended;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("generated classes: %d, generation time: %dms, contended: %d", generatedClasses, getGenerationTime(), contended);
+        }
+    }
+
     protected static class ClassMetaData {
         private final Map<String, PropertyMetaData> properties = new LinkedHashMap<String, PropertyMetaData>();
         private final Set<Method> missingOverloads = new LinkedHashSet<Method>();
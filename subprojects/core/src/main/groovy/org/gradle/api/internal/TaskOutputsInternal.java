@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal;
 
+import org.gradle.api.Task;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.TaskOutputs;
@@ -27,4 +28,15 @@ public interface TaskOutputsInternal extends TaskOutputs {
 
     void setHistory(TaskExecutionHistory history);
 
+    /**
+     * Adds a predicate to determine whether the outputs of this task can be stored in and loaded from the task output cache.
+     * The outputs are cached only when all predicates are satisfied.
+     */
+    void cacheIf(Spec<? super Task> spec);
+
+    /**
+     * Returns true if this task declares output files and all of its cache predicates are satisfied.
+     */
+    boolean isCacheAllowed();
+
 }
@@ -16,6 +16,7 @@
 package org.gradle.api.internal.changedetection;
 
 import org.gradle.api.internal.TaskExecutionHistory;
+import org.gradle.api.internal.tasks.cache.TaskCacheKey;
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 
 import java.util.Collection;
@@ -52,4 +53,11 @@ public interface TaskArtifactState {
      * Returns the history for this task.
      */
     TaskExecutionHistory getExecutionHistory();
+
+    /**
+     * Calculates the key to use to store the outputs of this task in a task output cache. Note that {@link #isUpToDate(java.util.Collection)} may not necessarily have been called.
+     *
+     * @return the cache key, or null if the outputs of this task cannot be cached.
+     */
+    TaskCacheKey calculateCacheKey();
 }
@@ -28,6 +28,9 @@ import org.gradle.api.internal.changedetection.state.FileCollectionSnapshotter;
 import org.gradle.api.internal.changedetection.state.TaskExecution;
 import org.gradle.api.internal.changedetection.state.TaskHistoryRepository;
 import org.gradle.api.internal.file.FileCollectionFactory;
+import org.gradle.api.internal.tasks.cache.DefaultTaskCacheKeyBuilder;
+import org.gradle.api.internal.tasks.cache.TaskCacheKey;
+import org.gradle.api.internal.tasks.cache.TaskCacheKeyBuilder;
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.internal.reflect.Instantiator;
 
@@ -135,6 +138,12 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
 
         public void finished() {}
 
+        public TaskCacheKey calculateCacheKey() {
+            TaskCacheKeyBuilder builder = new DefaultTaskCacheKeyBuilder();
+            getStates().appendToCacheKey(builder);
+            return builder.build();
+        }
+
         private TaskUpToDateState getStates() {
             if (states == null) {
                 // Calculate initial state - note this is potentially expensive
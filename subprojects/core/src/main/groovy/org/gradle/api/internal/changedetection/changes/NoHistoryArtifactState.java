@@ -19,6 +19,7 @@ package org.gradle.api.internal.changedetection.changes;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.TaskExecutionHistory;
 import org.gradle.api.internal.changedetection.TaskArtifactState;
+import org.gradle.api.internal.tasks.cache.TaskCacheKey;
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 
 import java.util.Collection;
@@ -46,6 +47,10 @@ class NoHistoryArtifactState implements TaskArtifactState, TaskExecutionHistory
     public void finished() {
     }
 
+    public TaskCacheKey calculateCacheKey() {
+        return null;
+    }
+
     public FileCollection getOutputFiles() {
         throw new UnsupportedOperationException();
     }
@@ -21,6 +21,7 @@ import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.changedetection.TaskArtifactState;
 import org.gradle.api.internal.changedetection.TaskArtifactStateRepository;
 import org.gradle.api.internal.changedetection.state.FilesSnapshotSet;
+import org.gradle.api.internal.tasks.cache.TaskCacheKey;
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.internal.reflect.Instantiator;
 
@@ -92,6 +93,11 @@ public class ShortCircuitTaskArtifactStateRepository implements TaskArtifactStat
         public void finished() {
             delegate.finished();
         }
+
+        public TaskCacheKey calculateCacheKey() {
+            // The task is forced to run, so do not load its outputs from the cache
+            return null;
+        }
     }
 
 }
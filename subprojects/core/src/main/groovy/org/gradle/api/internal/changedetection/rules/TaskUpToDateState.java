@@ -19,6 +19,7 @@ package org.gradle.api.internal.changedetection.rules;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.changedetection.state.*;
 import org.gradle.api.internal.file.FileCollectionFactory;
+import org.gradle.api.internal.tasks.cache.TaskCacheKeyBuilder;
 
 import java.io.File;
 import java.util.Set;
@@ -29,6 +30,8 @@ import java.util.Set;
 public class TaskUpToDateState {
     private static final int MAX_OUT_OF_DATE_MESSAGES = 3;
     private final FilesSnapshotSet inputFilesSnapshot;
+    private final TaskExecution thisExecution;
+    private final FileCollectionSnapshot currentInputFiles;
 
     private TaskStateChanges inputFileChanges;
     private DiscoveredInputsListener discoveredInputsListener;
@@ -38,7 +41,7 @@ public class TaskUpToDateState {
     public TaskUpToDateState(TaskInternal task, TaskHistoryRepository.History history,
                              FileCollectionSnapshotter outputFilesSnapshotter, FileCollectionSnapshotter inputFilesSnapshotter,
                              FileCollectionSnapshotter discoveredInputsSnapshotter, FileCollectionFactory fileCollectionFactory) {
-        TaskExecution thisExecution = history.getCurrentExecution();
+        this.thisExecution = history.getCurrentExecution();
         TaskExecution lastExecution = history.getPreviousExecution();
 
         TaskStateChanges noHistoryState = new NoHistoryTaskStateChanges(lastExecution);
@@ -50,7 +53,8 @@ public class TaskUpToDateState {
 
         // Capture inputs state
         InputFilesTaskStateChanges inputChanges = new InputFilesTaskStateChanges(lastExecution, thisExecution, task, inputFilesSnapshotter);
-        this.inputFilesSnapshot = inputChanges.getCurrent().getSnapshot();
+        this.currentInputFiles = inputChanges.getCurrent();
+        this.inputFilesSnapshot = currentInputFiles.getSnapshot();
         TaskStateChanges inputFileChanges = caching(inputChanges);
 
         // Capture discovered inputs state from previous execution
@@ -83,6 +87,11 @@ public class TaskUpToDateState {
         return inputFilesSnapshot;
     }
 
+    public void appendToCacheKey(TaskCacheKeyBuilder builder) {
+        thisExecution.appendToCacheKey(builder);
+        currentInputFiles.appendToCacheKey(builder);
+    }
+
     public void newInputs(Set<File> discoveredInputs) {
         discoveredInputsListener.newInputs(discoveredInputs);
     }
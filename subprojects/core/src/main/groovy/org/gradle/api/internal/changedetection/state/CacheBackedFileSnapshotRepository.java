@@ -20,6 +20,8 @@ import org.gradle.internal.id.IdGenerator;
 import org.gradle.internal.id.RandomLongIdGenerator;
 import org.gradle.internal.serialize.Serializer;
 
+import java.util.Map;
+
 public class CacheBackedFileSnapshotRepository implements FileSnapshotRepository {
     private final PersistentIndexedCache<Long, FileCollectionSnapshot> cache;
     private IdGenerator<Long> idGenerator = new RandomLongIdGenerator();
@@ -39,6 +41,10 @@ public class CacheBackedFileSnapshotRepository implements FileSnapshotRepository
         return cache.get(id);
     }
 
+    public Map<Long, FileCollectionSnapshot> getAll(Iterable<Long> ids) {
+        return cache.getAll(ids);
+    }
+
     public void remove(Long id) {
         cache.remove(id);
     }
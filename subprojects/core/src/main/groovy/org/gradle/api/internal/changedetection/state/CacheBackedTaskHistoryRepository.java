@@ -211,11 +211,7 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         @Override
         public FileCollectionSnapshot getInputFilesSnapshot() {
             if (inputFilesSnapshot == null) {
-                inputFilesSnapshot = cacheAccess.useCache("fetch input files", new Factory<FileCollectionSnapshot>() {
-                    public FileCollectionSnapshot create() {
-                        return snapshotRepository.get(inputFilesSnapshotId);
-                    }
-                });
+                loadSnapshots();
             }
             return inputFilesSnapshot;
         }
@@ -229,11 +225,7 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         @Override
         public FileCollectionSnapshot getDiscoveredInputFilesSnapshot() {
             if (discoveredFilesSnapshot == null) {
-                discoveredFilesSnapshot = cacheAccess.useCache("fetch discovered input files", new Factory<FileCollectionSnapshot>() {
-                    public FileCollectionSnapshot create() {
-                        return snapshotRepository.get(discoveredFilesSnapshotId);
-                    }
-                });
+                loadSnapshots();
             }
             return discoveredFilesSnapshot;
         }
@@ -247,11 +239,7 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         @Override
         public FileCollectionSnapshot getOutputFilesSnapshot() {
             if (outputFilesSnapshot == null) {
-                outputFilesSnapshot = cacheAccess.useCache("fetch output files", new Factory<FileCollectionSnapshot>() {
-                    public FileCollectionSnapshot create() {
-                        return snapshotRepository.get(outputFilesSnapshotId);
-                    }
-                });
+                loadSnapshots();
             }
             return outputFilesSnapshot;
         }
@@ -262,6 +250,39 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
             outputFilesSnapshotId = null;
         }
 
+        /**
+         * Loads the snapshots that have not been loaded yet using a single cache lookup, as they are usually all needed to check whether the task is up-to-date.
+         */
+        private void loadSnapshots() {
+            final List<Long> ids = new ArrayList<Long>(3);
+            if (inputFilesSnapshot == null && inputFilesSnapshotId != null) {
+                ids.add(inputFilesSnapshotId);
+            }
+            if (outputFilesSnapshot == null && outputFilesSnapshotId != null) {
+                ids.add(outputFilesSnapshotId);
+            }
+            if (discoveredFilesSnapshot == null && discoveredFilesSnapshotId != null) {
+                ids.add(discoveredFilesSnapshotId);
+            }
+            if (ids.isEmpty()) {
+                return;
+            }
+            Map<Long, FileCollectionSnapshot> snapshots = cacheAccess.useCache("fetch file snapshots", new Factory<Map<Long, FileCollectionSnapshot>>() {
+                public Map<Long, FileCollectionSnapshot> create() {
+                    return snapshotRepository.getAll(ids);
+                }
+            });
+            if (inputFilesSnapshot == null && inputFilesSnapshotId != null) {
+                inputFilesSnapshot = snapshots.get(inputFilesSnapshotId);
+            }
+            if (outputFilesSnapshot == null && outputFilesSnapshotId != null) {
+                outputFilesSnapshot = snapshots.get(outputFilesSnapshotId);
+            }
+            if (discoveredFilesSnapshot == null && discoveredFilesSnapshotId != null) {
+                discoveredFilesSnapshot = snapshots.get(discoveredFilesSnapshotId);
+            }
+        }
+
         static class TaskHistorySerializer implements Serializer<LazyTaskExecution> {
             private final InputPropertiesSerializer inputPropertiesSerializer;
             private final StringInterner stringInterner;
@@ -15,27 +15,49 @@
  */
 package org.gradle.api.internal.changedetection.state;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.hash.Hasher;
+import org.gradle.cache.CacheAccess;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.PersistentStore;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.Serializer;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class CachingFileSnapshotter implements FileSnapshotter {
+    // The number of files hashed by a single worker operation
+    static final int HASH_BATCH_SIZE = 64;
+
     private final PersistentIndexedCache<String, FileInfo> cache;
     private final Hasher hasher;
     private final FileInfoSerializer serializer = new FileInfoSerializer();
     private final StringInterner stringInterner;
+    private final BuildOperationProcessor buildOperationProcessor;
 
     public CachingFileSnapshotter(Hasher hasher, PersistentStore store, StringInterner stringInterner) {
+        this(hasher, "fileHashes", store, stringInterner, null);
+    }
+
+    /**
+     * @param cacheName the name of the cache to store the hashes in. Hashes created by different hashers must be kept in different caches.
+     * @param buildOperationProcessor the processor used to hash files in parallel, or null to hash files in the calling thread.
+     */
+    public CachingFileSnapshotter(Hasher hasher, String cacheName, PersistentStore store, StringInterner stringInterner, @Nullable BuildOperationProcessor buildOperationProcessor) {
         this.hasher = hasher;
-        this.cache = store.createCache("fileHashes", String.class, serializer);
+        this.cache = store.createCache(cacheName, String.class, serializer);
         this.stringInterner = stringInterner;
+        this.buildOperationProcessor = buildOperationProcessor;
     }
 
     public FileInfo snapshot(File file) {
@@ -48,18 +70,136 @@ public class CachingFileSnapshotter implements FileSnapshotter {
 
     private FileInfo snapshot(File file, long length, long timestamp) {
         String absolutePath = file.getAbsolutePath();
-        FileInfo info = cache.get(absolutePath);
-
-        if (info != null && length == info.length && timestamp == info.timestamp) {
+        FileInfo info = getCachedSnapshot(absolutePath, length, timestamp);
+        if (info != null) {
             return info;
         }
 
-        byte[] hash = hasher.hash(file);
-        info = new FileInfo(hash, length, timestamp);
+        info = hash(file, length, timestamp);
         cache.put(stringInterner.intern(absolutePath), info);
         return info;
     }
 
+    public List<FileSnapshot> snapshotAll(final List<? extends FileTreeElement> files, CacheAccess cacheAccess) {
+        final FileInfo[] snapshots = new FileInfo[files.size()];
+        final HashingPipeline pipeline = new HashingPipeline(files, snapshots);
+
+        // Look up the cached hashes while holding the lock, and hand the files that need to be hashed to the workers as we go
+        cacheAccess.useCache("Look up file hashes", new Runnable() {
+            public void run() {
+                for (int i = 0; i < snapshots.length; i++) {
+                    FileTreeElement file = files.get(i);
+                    FileInfo info = getCachedSnapshot(file.getFile().getAbsolutePath(), file.getSize(), file.getLastModified());
+                    if (info != null) {
+                        snapshots[i] = info;
+                    } else {
+                        pipeline.add(i);
+                    }
+                }
+            }
+        });
+
+        // Hash the remaining files without holding the lock
+        final int[] hashed = pipeline.complete();
+
+        if (hashed.length > 0) {
+            // Write the new hashes back as a single batch
+            cacheAccess.useCache("Store file hashes", new Runnable() {
+                public void run() {
+                    for (int index : hashed) {
+                        cache.put(stringInterner.intern(files.get(index).getFile().getAbsolutePath()), snapshots[index]);
+                    }
+                }
+            });
+        }
+
+        return Arrays.<FileSnapshot>asList(snapshots);
+    }
+
+    @Nullable
+    private FileInfo getCachedSnapshot(String absolutePath, long length, long timestamp) {
+        FileInfo info = cache.get(absolutePath);
+        if (info != null && length == info.length && timestamp == info.timestamp) {
+            return info;
+        }
+        return null;
+    }
+
+    private FileInfo hash(File file, long length, long timestamp) {
+        return new FileInfo(hasher.hash(file), length, timestamp);
+    }
+
+    /**
+     * Collects the indexes of the files to hash into fixed size batches. Full batches are hashed by the build operation workers as soon as they are
+     * available. Each batch writes its results to its own slots in the snapshot array, so the result does not depend on the order in which batches complete.
+     */
+    private class HashingPipeline implements BuildOperationWorker<HashBatch> {
+        private final List<? extends FileTreeElement> files;
+        private final FileInfo[] snapshots;
+        private final List<Integer> toHash = new ArrayList<Integer>();
+        private BuildOperationQueue<HashBatch> queue;
+        private int batchStart;
+
+        HashingPipeline(List<? extends FileTreeElement> files, FileInfo[] snapshots) {
+            this.files = files;
+            this.snapshots = snapshots;
+        }
+
+        void add(int index) {
+            toHash.add(index);
+            if (buildOperationProcessor != null && toHash.size() - batchStart == HASH_BATCH_SIZE) {
+                if (queue == null) {
+                    queue = buildOperationProcessor.newQueue(this, null);
+                }
+                queue.add(new HashBatch(toHash.subList(batchStart, toHash.size())));
+                batchStart = toHash.size();
+            }
+        }
+
+        int[] complete() {
+            try {
+                // A partial final batch is not worth the hand-off, so hash it in the calling thread
+                execute(new HashBatch(toHash.subList(batchStart, toHash.size())));
+            } finally {
+                // Do not return while the workers are still writing into the snapshot array, even when hashing the final batch failed
+                if (queue != null) {
+                    queue.waitForCompletion();
+                }
+            }
+            int[] indexes = new int[toHash.size()];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = toHash.get(i);
+            }
+            return indexes;
+        }
+
+        public void execute(HashBatch batch) {
+            for (int index : batch.indexes) {
+                FileTreeElement file = files.get(index);
+                snapshots[index] = hash(file.getFile(), file.getSize(), file.getLastModified());
+            }
+        }
+
+        public String getDisplayName() {
+            return "file hasher";
+        }
+    }
+
+    private static class HashBatch implements BuildOperation {
+        private final int[] indexes;
+
+        HashBatch(List<Integer> indexes) {
+            this.indexes = new int[indexes.size()];
+            for (int i = 0; i < this.indexes.length; i++) {
+                this.indexes[i] = indexes.get(i);
+            }
+        }
+
+        public String getDescription() {
+            return "Hash " + indexes.length + " files";
+        }
+    }
+
     public static class FileInfo implements FileSnapshot {
         private final byte[] hash;
         private final long timestamp;
@@ -74,6 +214,14 @@ public class CachingFileSnapshotter implements FileSnapshotter {
         public byte[] getHash() {
             return hash;
         }
+
+        long getLength() {
+            return length;
+        }
+
+        long getTimestamp() {
+            return timestamp;
+        }
     }
 
     private static class FileInfoSerializer implements Serializer<FileInfo> {
@@ -24,6 +24,7 @@ import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.FileTreeInternal;
 import org.gradle.api.internal.file.collections.DefaultFileCollectionResolveContext;
+import org.gradle.api.internal.tasks.cache.TaskCacheKeyBuilder;
 import org.gradle.internal.serialize.SerializerRegistry;
 import org.gradle.util.ChangeListener;
 import org.gradle.util.NoOpChangeListener;
@@ -34,15 +35,21 @@ import java.util.*;
 
 public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshotter {
     private final FileSnapshotter snapshotter;
-    private TaskArtifactStateCacheAccess cacheAccess;
+    private final TaskArtifactStateCacheAccess cacheAccess;
     private final StringInterner stringInterner;
     private final FileResolver fileResolver;
+    private final VirtualFileSystem virtualFileSystem;
 
     public DefaultFileCollectionSnapshotter(FileSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner, FileResolver fileResolver) {
+        this(snapshotter, cacheAccess, stringInterner, fileResolver, VirtualFileSystem.DIRECT);
+    }
+
+    public DefaultFileCollectionSnapshotter(FileSnapshotter snapshotter, TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner, FileResolver fileResolver, VirtualFileSystem virtualFileSystem) {
         this.snapshotter = snapshotter;
         this.cacheAccess = cacheAccess;
         this.stringInterner = stringInterner;
         this.fileResolver = fileResolver;
+        this.virtualFileSystem = virtualFileSystem;
     }
 
     public void registerSerializers(SerializerRegistry<FileCollectionSnapshot> registry) {
@@ -63,28 +70,36 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
             return new FileCollectionSnapshotImpl(Collections.<String, IncrementalFileSnapshot>emptyMap());
         }
 
-        final Map<String, IncrementalFileSnapshot> snapshots = new HashMap<String, IncrementalFileSnapshot>();
-
-        cacheAccess.useCache("Create file snapshot", new Runnable() {
-            public void run() {
-                for (FileVisitDetails fileDetails : allFileVisitDetails) {
-                    final String absolutePath = stringInterner.intern(fileDetails.getFile().getAbsolutePath());
-                    if (!snapshots.containsKey(absolutePath)) {
-                        if (fileDetails.isDirectory()) {
-                            snapshots.put(absolutePath, DirSnapshot.getInstance());
-                        } else {
-                            snapshots.put(absolutePath, new FileHashSnapshot(snapshotter.snapshot(fileDetails).getHash()));
-                        }
-                    }
-                }
-                for (File missingFile : missingFiles) {
-                    final String absolutePath = stringInterner.intern(missingFile.getAbsolutePath());
-                    if (!snapshots.containsKey(absolutePath)) {
-                        snapshots.put(absolutePath, MissingFileSnapshot.getInstance());
-                    }
+        Map<String, IncrementalFileSnapshot> snapshots = new HashMap<String, IncrementalFileSnapshot>();
+        List<String> filePaths = new ArrayList<String>();
+        List<FileVisitDetails> files = new ArrayList<FileVisitDetails>();
+        for (FileVisitDetails fileDetails : allFileVisitDetails) {
+            String absolutePath = stringInterner.intern(fileDetails.getFile().getAbsolutePath());
+            if (!snapshots.containsKey(absolutePath)) {
+                if (fileDetails.isDirectory()) {
+                    snapshots.put(absolutePath, DirSnapshot.getInstance());
+                } else {
+                    // Reserve the path, the hash is filled in below
+                    snapshots.put(absolutePath, null);
+                    filePaths.add(absolutePath);
+                    files.add(fileDetails);
                 }
             }
-        });
+        }
+
+        if (!files.isEmpty()) {
+            List<FileSnapshot> fileSnapshots = snapshotter.snapshotAll(files, cacheAccess);
+            for (int i = 0; i < filePaths.size(); i++) {
+                snapshots.put(filePaths.get(i), new FileHashSnapshot(fileSnapshots.get(i).getHash()));
+            }
+        }
+
+        for (File missingFile : missingFiles) {
+            String absolutePath = stringInterner.intern(missingFile.getAbsolutePath());
+            if (!snapshots.containsKey(absolutePath)) {
+                snapshots.put(absolutePath, MissingFileSnapshot.getInstance());
+            }
+        }
 
         return new FileCollectionSnapshotImpl(snapshots);
     }
@@ -95,7 +110,7 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
         List<FileTreeInternal> fileTrees = context.resolveAsFileTrees();
 
         for (FileTreeInternal fileTree : fileTrees) {
-            fileTree.visitTreeOrBackingFile(new FileVisitor() {
+            virtualFileSystem.visit(fileTree, new FileVisitor() {
                 @Override
                 public void visitDir(FileVisitDetails dirDetails) {
                     allFileVisitDetails.add(dirDetails);
@@ -111,6 +126,8 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
 
     interface IncrementalFileSnapshot {
         boolean isUpToDate(IncrementalFileSnapshot snapshot);
+
+        void appendToCacheKey(TaskCacheKeyBuilder builder);
     }
 
     static class FileHashSnapshot implements IncrementalFileSnapshot, FileSnapshot {
@@ -129,6 +146,10 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
             return Arrays.equals(hash, other.hash);
         }
 
+        public void appendToCacheKey(TaskCacheKeyBuilder builder) {
+            builder.putBytes(hash);
+        }
+
         @Override
         public String toString() {
             return new BigInteger(1, hash).toString(16);
@@ -152,6 +173,10 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
         public boolean isUpToDate(IncrementalFileSnapshot snapshot) {
             return snapshot instanceof DirSnapshot;
         }
+
+        public void appendToCacheKey(TaskCacheKeyBuilder builder) {
+            builder.putString("DIR");
+        }
     }
 
     static class MissingFileSnapshot implements IncrementalFileSnapshot {
@@ -166,6 +191,10 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
         public boolean isUpToDate(IncrementalFileSnapshot snapshot) {
             return snapshot instanceof MissingFileSnapshot;
         }
+
+        public void appendToCacheKey(TaskCacheKeyBuilder builder) {
+            builder.putString("MISSING");
+        }
     }
 
     static class FileCollectionSnapshotImpl implements FileCollectionSnapshot {
@@ -197,6 +226,15 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
             };
         }
 
+        public void appendToCacheKey(TaskCacheKeyBuilder builder) {
+            List<String> sortedPaths = new ArrayList<String>(snapshots.keySet());
+            Collections.sort(sortedPaths);
+            for (String path : sortedPaths) {
+                builder.putString(path);
+                snapshots.get(path).appendToCacheKey(builder);
+            }
+        }
+
         public ChangeIterator<String> iterateChangesSince(FileCollectionSnapshot oldSnapshot) {
             FileCollectionSnapshotImpl other = (FileCollectionSnapshotImpl) oldSnapshot;
             final Map<String, IncrementalFileSnapshot> otherSnapshots = new HashMap<String, IncrementalFileSnapshot>(other.snapshots);
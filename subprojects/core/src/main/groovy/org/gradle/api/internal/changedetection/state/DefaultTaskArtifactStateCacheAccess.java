@@ -26,10 +26,15 @@ import org.gradle.internal.Factory;
 import org.gradle.internal.serialize.Serializer;
 
 import java.io.Closeable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 
 public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCacheAccess, Closeable {
+    // The file hash caches receive an update for each file hashed, so hold these updates and write them in batches
+    private static final Set<String> WRITE_BEHIND_CACHES = new HashSet<String>(Arrays.asList("fileHashes", "fastFileHashes"));
     private final CacheDecorator inMemoryDecorator;
     private final PersistentCache cache;
 
@@ -49,6 +54,9 @@ public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCac
     public <K, V> PersistentIndexedCache<K, V> createCache(final String cacheName, final Class<K> keyType, final Serializer<V> valueSerializer) {
         PersistentIndexedCacheParameters<K, V> parameters = new PersistentIndexedCacheParameters<K, V>(cacheName, keyType, valueSerializer)
                 .cacheDecorator(inMemoryDecorator);
+        if (WRITE_BEHIND_CACHES.contains(cacheName)) {
+            parameters.writeBehind();
+        }
         return cache.createCache(parameters);
     }
 
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.changedetection.state;
 
+import org.gradle.api.internal.tasks.cache.TaskCacheKeyBuilder;
 import org.gradle.util.ChangeListener;
 
 import java.io.File;
@@ -34,6 +35,11 @@ public interface FileCollectionSnapshot {
 
     FilesSnapshotSet getSnapshot();
 
+    /**
+     * Appends the path and content of each file in this snapshot to the given cache key, in a stable order.
+     */
+    void appendToCacheKey(TaskCacheKeyBuilder builder);
+
     interface Diff {
         /**
          * Applies this diff to the given snapshot. Adds any added or changed files in this diff to the given snapshot.
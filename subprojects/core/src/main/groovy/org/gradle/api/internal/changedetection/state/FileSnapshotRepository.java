@@ -15,9 +15,16 @@
  */
 package org.gradle.api.internal.changedetection.state;
 
+import java.util.Map;
+
 public interface FileSnapshotRepository {
     FileCollectionSnapshot get(Long id);
 
+    /**
+     * Fetches the snapshots with the given ids in a single lookup. Ids with no snapshot are not included in the result.
+     */
+    Map<Long, FileCollectionSnapshot> getAll(Iterable<Long> ids);
+
     Long add(FileCollectionSnapshot snapshot);
 
     void remove(Long id);
@@ -17,8 +17,10 @@
 package org.gradle.api.internal.changedetection.state;
 
 import org.gradle.api.file.FileTreeElement;
+import org.gradle.cache.CacheAccess;
 
 import java.io.File;
+import java.util.List;
 
 public interface FileSnapshotter {
     /**
@@ -29,4 +31,9 @@ public interface FileSnapshotter {
 
     FileSnapshot snapshot(FileTreeElement fileDetails);
 
+    /**
+     * Takes snapshots of the given files, which must exist and be files. The snapshots are returned in the same order as the given files.
+     * The given cache access is locked only while cached snapshots are read or written, and not while file content is being hashed.
+     */
+    List<FileSnapshot> snapshotAll(List<? extends FileTreeElement> files, CacheAccess cacheAccess);
 }
@@ -26,10 +26,13 @@ import org.gradle.cache.internal.FileLock;
 import org.gradle.cache.internal.MultiProcessSafePersistentIndexedCache;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class InMemoryTaskArtifactCache implements CacheDecorator {
+    public static final String OFF_HEAP_FILE_HASHES_PROPERTY = "org.gradle.cache.offheap";
     private final static Logger LOG = Logging.getLogger(InMemoryTaskArtifactCache.class);
     private final static Object NULL = new Object();
     private static final Map<String, Integer> CACHE_CAPS = new CacheCapSizer().calculateCaps();
@@ -42,6 +45,7 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
             DEFAULT_CAP_SIZES.put("taskArtifacts", 2000);
             DEFAULT_CAP_SIZES.put("outputFileStates", 3000);
             DEFAULT_CAP_SIZES.put("fileHashes", 400000);
+            DEFAULT_CAP_SIZES.put("fastFileHashes", 400000);
             DEFAULT_CAP_SIZES.put("compilationState", 1000);
         }
 
@@ -70,9 +74,29 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
             .maximumSize(CACHE_CAPS.size() * 2) //X2 to factor in a child build (for example buildSrc)
             .build();
 
+    private final Cache<String, OffHeapFileInfoCache> offHeapCache = CacheBuilder.newBuilder()
+            .maximumSize(4)
+            .build();
+
     private final Map<String, FileLock.State> states = new HashMap<String, FileLock.State>();
+    private final boolean offHeapFileHashes;
+
+    public InMemoryTaskArtifactCache() {
+        this(Boolean.getBoolean(OFF_HEAP_FILE_HASHES_PROPERTY));
+    }
+
+    /**
+     * @param offHeapFileHashes whether to keep the file hashes outside of the Java heap, to reduce the pressure they put on the heap of a long lived daemon.
+     */
+    InMemoryTaskArtifactCache(boolean offHeapFileHashes) {
+        this.offHeapFileHashes = offHeapFileHashes;
+    }
 
     public <K, V> MultiProcessSafePersistentIndexedCache<K, V> decorate(final String cacheId, String cacheName, final MultiProcessSafePersistentIndexedCache<K, V> original) {
+        if (offHeapFileHashes && (cacheName.equals("fileHashes") || cacheName.equals("fastFileHashes"))) {
+            return decorateOffHeap(cacheId, cacheName, original);
+        }
+
         final Cache<Object, Object> data = loadData(cacheId, cacheName);
 
         return new MultiProcessSafePersistentIndexedCache<K, V>() {
@@ -94,6 +118,28 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
                 return out;
             }
 
+            public Map<K, V> getAll(Iterable<? extends K> keys) {
+                Map<K, V> result = new HashMap<K, V>();
+                List<K> missing = new ArrayList<K>();
+                for (K key : keys) {
+                    Object value = data.getIfPresent(key);
+                    if (value == null) {
+                        missing.add(key);
+                    } else if (value != NULL) {
+                        result.put(key, (V) value);
+                    }
+                }
+                if (!missing.isEmpty()) {
+                    Map<K, V> loaded = original.getAll(missing);
+                    for (K key : missing) {
+                        V out = loaded.get(key);
+                        data.put(key, out == null ? NULL : out);
+                    }
+                    result.putAll(loaded);
+                }
+                return result;
+            }
+
             public void put(K key, V value) {
                 original.put(key, value);
                 data.put(key, value);
@@ -125,6 +171,95 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
         };
     }
 
+    private <K, V> MultiProcessSafePersistentIndexedCache<K, V> decorateOffHeap(final String cacheId, String cacheName, final MultiProcessSafePersistentIndexedCache<K, V> original) {
+        final OffHeapFileInfoCache data = loadOffHeapData(cacheId, cacheName);
+
+        return new MultiProcessSafePersistentIndexedCache<K, V>() {
+            public void close() {
+                original.close();
+            }
+
+            public V get(K key) {
+                CachingFileSnapshotter.FileInfo value = data.get((String) key);
+                if (value != null) {
+                    return (V) value;
+                }
+                V out = original.get(key);
+                if (out != null) {
+                    data.put((String) key, (CachingFileSnapshotter.FileInfo) out);
+                }
+                return out;
+            }
+
+            public Map<K, V> getAll(Iterable<? extends K> keys) {
+                Map<K, V> result = new HashMap<K, V>();
+                List<K> missing = new ArrayList<K>();
+                for (K key : keys) {
+                    CachingFileSnapshotter.FileInfo value = data.get((String) key);
+                    if (value == null) {
+                        missing.add(key);
+                    } else {
+                        result.put(key, (V) value);
+                    }
+                }
+                if (!missing.isEmpty()) {
+                    Map<K, V> loaded = original.getAll(missing);
+                    for (Map.Entry<K, V> entry : loaded.entrySet()) {
+                        data.put((String) entry.getKey(), (CachingFileSnapshotter.FileInfo) entry.getValue());
+                    }
+                    result.putAll(loaded);
+                }
+                return result;
+            }
+
+            public void put(K key, V value) {
+                original.put(key, value);
+                data.put((String) key, (CachingFileSnapshotter.FileInfo) value);
+            }
+
+            public void remove(K key) {
+                data.remove((String) key);
+                original.remove(key);
+            }
+
+            public void onStartWork(String operationDisplayName, FileLock.State currentCacheState) {
+                boolean outOfDate;
+                synchronized (lock) {
+                    FileLock.State previousState = states.get(cacheId);
+                    outOfDate = previousState == null || currentCacheState.hasBeenUpdatedSince(previousState);
+                }
+
+                if (outOfDate) {
+                    LOG.info("Invalidating off-heap cache of {}", cacheId);
+                    data.clear();
+                }
+            }
+
+            public void onEndWork(FileLock.State currentCacheState) {
+                synchronized (lock) {
+                    states.put(cacheId, currentCacheState);
+                }
+            }
+        };
+    }
+
+    private OffHeapFileInfoCache loadOffHeapData(String cacheId, String cacheName) {
+        OffHeapFileInfoCache theData;
+        synchronized (lock) {
+            theData = offHeapCache.getIfPresent(cacheId);
+            if (theData != null) {
+                LOG.info("Off-heap cache of {}: {}", cacheId, theData);
+            } else {
+                Integer maxSize = CACHE_CAPS.get(cacheName);
+                assert maxSize != null : "Unknown cache.";
+                LOG.info("Creating off-heap cache of {}: MaxSize{{}}", cacheId, maxSize);
+                theData = new OffHeapFileInfoCache(maxSize);
+                offHeapCache.put(cacheId, theData);
+            }
+        }
+        return theData;
+    }
+
     private Cache<Object, Object> loadData(String cacheId, String cacheName) {
         Cache<Object, Object> theData;
         synchronized (lock) {
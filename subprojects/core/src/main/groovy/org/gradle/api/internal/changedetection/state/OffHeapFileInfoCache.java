@@ -0,0 +1,202 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A fixed capacity map from file path to {@link CachingFileSnapshotter.FileInfo}, held outside of the Java heap.
+ *
+ * <p>Entries are fixed width records in an open addressing table, keyed by a 128 bit hash of the path. A path can live in one of a small
+ * window of slots. When the window is full, the least recently used entry in the window is evicted. Entries whose hash does not fit in a
+ * record are not cached.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ */
+class OffHeapFileInfoCache {
+    private static final HashFunction KEY_HASH = Hashing.murmur3_128();
+    private static final int RECORD_SIZE = 64;
+    private static final int KEY_HIGH = 0;
+    private static final int KEY_LOW = 8;
+    private static final int LENGTH = 16;
+    private static final int TIMESTAMP = 24;
+    private static final int LAST_ACCESS = 32;
+    private static final int HASH_LENGTH = 36;
+    private static final int HASH = 37;
+    static final int MAX_HASH_LENGTH = RECORD_SIZE - HASH;
+    private static final int PROBE_LENGTH = 8;
+
+    private final ByteBuffer table;
+    private final int capacity;
+    private int clock;
+    private int size;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    OffHeapFileInfoCache(int maxEntries) {
+        capacity = Integer.highestOneBit(Math.max(maxEntries, PROBE_LENGTH) - 1) << 1;
+        table = ByteBuffer.allocateDirect(capacity * RECORD_SIZE);
+    }
+
+    public synchronized CachingFileSnapshotter.FileInfo get(String path) {
+        HashCode key = KEY_HASH.hashString(path, Charsets.UTF_8);
+        int record = find(key);
+        if (record < 0) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        table.putInt(record + LAST_ACCESS, ++clock);
+        byte[] hash = new byte[table.get(record + HASH_LENGTH)];
+        for (int i = 0; i < hash.length; i++) {
+            hash[i] = table.get(record + HASH + i);
+        }
+        return new CachingFileSnapshotter.FileInfo(hash, table.getLong(record + LENGTH), table.getLong(record + TIMESTAMP));
+    }
+
+    public synchronized void put(String path, CachingFileSnapshotter.FileInfo value) {
+        HashCode key = KEY_HASH.hashString(path, Charsets.UTF_8);
+        byte[] hash = value.getHash();
+        if (hash.length > MAX_HASH_LENGTH) {
+            remove(key);
+            return;
+        }
+
+        int record = find(key);
+        if (record < 0) {
+            record = allocate(key);
+        }
+        table.putLong(record + LENGTH, value.getLength());
+        table.putLong(record + TIMESTAMP, value.getTimestamp());
+        table.putInt(record + LAST_ACCESS, ++clock);
+        table.put(record + HASH_LENGTH, (byte) hash.length);
+        for (int i = 0; i < hash.length; i++) {
+            table.put(record + HASH + i, hash[i]);
+        }
+    }
+
+    public synchronized void remove(String path) {
+        remove(KEY_HASH.hashString(path, Charsets.UTF_8));
+    }
+
+    public synchronized void clear() {
+        for (int slot = 0; slot < capacity; slot++) {
+            clearRecord(slot * RECORD_SIZE);
+        }
+        size = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("OffHeapFileInfoCache{size=%s, capacity=%s, hitCount=%s, missCount=%s, evictionCount=%s}", size, capacity, hitCount, missCount, evictionCount);
+    }
+
+    private void remove(HashCode key) {
+        int record = find(key);
+        if (record >= 0) {
+            clearRecord(record);
+            size--;
+        }
+    }
+
+    private int find(HashCode key) {
+        long high = high(key);
+        long low = low(key);
+        int start = (int) low & (capacity - 1);
+        for (int i = 0; i < PROBE_LENGTH; i++) {
+            int record = ((start + i) & (capacity - 1)) * RECORD_SIZE;
+            if (table.getLong(record + KEY_HIGH) == high && table.getLong(record + KEY_LOW) == low) {
+                return record;
+            }
+        }
+        return -1;
+    }
+
+    private int allocate(HashCode key) {
+        long high = high(key);
+        long low = low(key);
+        int start = (int) low & (capacity - 1);
+        int victim = -1;
+        int victimAge = -1;
+        for (int i = 0; i < PROBE_LENGTH; i++) {
+            int record = ((start + i) & (capacity - 1)) * RECORD_SIZE;
+            if (isEmpty(record)) {
+                victim = record;
+                break;
+            }
+            // Subtraction keeps the age correct when the clock wraps
+            int age = clock - table.getInt(record + LAST_ACCESS);
+            if (age > victimAge) {
+                victim = record;
+                victimAge = age;
+            }
+        }
+        if (isEmpty(victim)) {
+            size++;
+        } else {
+            evictionCount++;
+        }
+        table.putLong(victim + KEY_HIGH, high);
+        table.putLong(victim + KEY_LOW, low);
+        return victim;
+    }
+
+    private boolean isEmpty(int record) {
+        return table.getLong(record + KEY_HIGH) == 0 && table.getLong(record + KEY_LOW) == 0;
+    }
+
+    private void clearRecord(int record) {
+        table.putLong(record + KEY_HIGH, 0);
+        table.putLong(record + KEY_LOW, 0);
+    }
+
+    private static long high(HashCode key) {
+        return key.asLong();
+    }
+
+    private static long low(HashCode key) {
+        byte[] bytes = key.asBytes();
+        long low = 0;
+        for (int i = 8; i < 16; i++) {
+            low = (low << 8) | (bytes[i] & 0xff);
+        }
+        // An all zero key marks an empty record
+        return low == 0 && high(key) == 0 ? 1 : low;
+    }
+}
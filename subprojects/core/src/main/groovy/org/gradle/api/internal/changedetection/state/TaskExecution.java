@@ -15,8 +15,12 @@
  */
 package org.gradle.api.internal.changedetection.state;
 
-import java.util.Map;
-import java.util.Set;
+import org.gradle.api.internal.tasks.cache.TaskCacheKeyBuilder;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.OutputStreamBackedEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
 
 /**
  * The persistent state for a single task execution.
@@ -50,6 +54,31 @@ public abstract class TaskExecution {
         this.inputProperties = inputProperties;
     }
 
+    /**
+     * Appends the task type, input properties and output files of this execution to the given cache key.
+     */
+    public void appendToCacheKey(TaskCacheKeyBuilder builder) {
+        builder.putString(taskClass);
+
+        // Sort the properties and output files, so that the same inputs always result in the same key
+        Map<String, Object> sortedProperties = new TreeMap<String, Object>(inputProperties);
+        ByteArrayOutputStream properties = new ByteArrayOutputStream();
+        OutputStreamBackedEncoder encoder = new OutputStreamBackedEncoder(properties);
+        try {
+            new InputPropertiesSerializer(getClass().getClassLoader()).write(encoder, sortedProperties);
+            encoder.flush();
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        builder.putBytes(properties.toByteArray());
+
+        List<String> sortedOutputFiles = new ArrayList<String>(outputFiles);
+        Collections.sort(sortedOutputFiles);
+        for (String outputFile : sortedOutputFiles) {
+            builder.putString(outputFile);
+        }
+    }
+
     /**
      * @return May return null.
      */
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.internal.file.FileTreeInternal;
+
+import java.io.File;
+
+/**
+ * Provides access to the contents of the file system for snapshotting. Implementations may retain what they read, and serve later visits from memory.
+ */
+public interface VirtualFileSystem {
+
+    /**
+     * Reads the file system directly on every visit.
+     */
+    VirtualFileSystem DIRECT = new VirtualFileSystem() {
+        @Override
+        public void visit(FileTreeInternal fileTree, FileVisitor visitor) {
+            fileTree.visitTreeOrBackingFile(visitor);
+        }
+
+        @Override
+        public void invalidate(Iterable<File> files) {
+        }
+    };
+
+    /**
+     * Visits the files and directories of the given tree, as {@link FileTreeInternal#visitTreeOrBackingFile(FileVisitor)} would.
+     */
+    void visit(FileTreeInternal fileTree, FileVisitor visitor);
+
+    /**
+     * Discards any retained state for the given files, the directories that contain them and, for directories, their contents.
+     */
+    void invalidate(Iterable<File> files);
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.Action;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.file.DefaultFileVisitDetails;
+import org.gradle.api.internal.file.FileSystemSubset;
+import org.gradle.api.internal.file.FileTreeInternal;
+import org.gradle.api.internal.file.collections.DirectoryFileTree;
+import org.gradle.api.internal.file.collections.FileBackedDirectoryFileTree;
+import org.gradle.api.internal.file.collections.FileTreeAdapter;
+import org.gradle.api.internal.file.collections.MinimalFileTree;
+import org.gradle.api.internal.file.collections.SingletonFileTree;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.filewatch.FileWatcher;
+import org.gradle.internal.filewatch.FileWatcherEvent;
+import org.gradle.internal.filewatch.FileWatcherFactory;
+import org.gradle.internal.filewatch.FileWatcherListener;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link VirtualFileSystem} that retains directory listings, along with the type, length and timestamp of each entry, for the lifetime of the process.
+ *
+ * <p>Each directory is watched for changes before it is listed from disk. A retained listing is discarded when a change is reported for the directory or one
+ * of its entries, and when it is explicitly invalidated. Should watching fail, all retained state is discarded and the file system is read directly from then on.</p>
+ *
+ * <p>Change events are delivered asynchronously, so files written by the build itself must be invalidated explicitly, before they are next visited.</p>
+ */
+public class WatchingVirtualFileSystem implements VirtualFileSystem, FileWatcherListener, Stoppable {
+    public static final String ENABLE_PROPERTY = "org.gradle.vfs.retain";
+    private static final Logger LOGGER = Logging.getLogger(WatchingVirtualFileSystem.class);
+
+    private final FileWatcherFactory fileWatcherFactory;
+    private final FileSystem fileSystem;
+    private final ConcurrentNavigableMap<String, DirectoryListing> listings = new ConcurrentSkipListMap<String, DirectoryListing>();
+    private final Set<String> watchedRoots = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    // Incremented before any retained state is discarded, so that a listing read concurrently with a change is not retained
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong listingsRead = new AtomicLong();
+    private final AtomicLong listingsRetained = new AtomicLong();
+    private final Object lock = new Object();
+    private FileWatcher watcher;
+    private volatile boolean disabled;
+
+    public WatchingVirtualFileSystem(FileWatcherFactory fileWatcherFactory, FileSystem fileSystem) {
+        this.fileWatcherFactory = fileWatcherFactory;
+        this.fileSystem = fileSystem;
+    }
+
+    @Override
+    public void visit(FileTreeInternal fileTree, FileVisitor visitor) {
+        if (!disabled && fileTree instanceof FileTreeAdapter) {
+            MinimalFileTree tree = ((FileTreeAdapter) fileTree).getTree();
+            if (tree instanceof FileBackedDirectoryFileTree) {
+                // Visits the parent directory, including only the file
+                FileBackedDirectoryFileTree fileBackedTree = (FileBackedDirectoryFileTree) tree;
+                if (visitEntry(fileBackedTree.getDir(), fileBackedTree.getFile().getName(), visitor, true)) {
+                    return;
+                }
+            } else if (tree instanceof DirectoryFileTree) {
+                if (visitTree((DirectoryFileTree) tree, visitor)) {
+                    return;
+                }
+            } else if (tree instanceof SingletonFileTree) {
+                File file = ((SingletonFileTree) tree).getFile();
+                if (file.getParentFile() != null && visitEntry(file.getParentFile(), file.getName(), visitor, false)) {
+                    return;
+                }
+            }
+        }
+        fileTree.visitTreeOrBackingFile(visitor);
+    }
+
+    @Override
+    public void invalidate(Iterable<File> files) {
+        for (File file : files) {
+            invalidate(file);
+        }
+    }
+
+    private void invalidate(File file) {
+        invalidations.incrementAndGet();
+        String path = file.getAbsolutePath();
+        listings.remove(path);
+        String prefix = path + File.separator;
+        Iterator<String> iterator = listings.tailMap(prefix).keySet().iterator();
+        while (iterator.hasNext() && iterator.next().startsWith(prefix)) {
+            iterator.remove();
+        }
+        for (File parent = file.getAbsoluteFile().getParentFile(); parent != null; parent = parent.getParentFile()) {
+            listings.remove(parent.getPath());
+        }
+    }
+
+    private void invalidateAll() {
+        invalidations.incrementAndGet();
+        listings.clear();
+    }
+
+    @Override
+    public void onChange(FileWatcher watcher, FileWatcherEvent event) {
+        if (event.getType() == FileWatcherEvent.Type.UNDEFINED || event.getFile() == null) {
+            invalidateAll();
+        } else {
+            invalidate(event.getFile());
+        }
+    }
+
+    /**
+     * Visits the given entry of a directory. Returns false when the entry cannot be visited from the listing of the directory, before anything is visited.
+     */
+    private boolean visitEntry(File dir, String name, FileVisitor visitor, boolean includeDirectory) {
+        DirectoryListing listing = getListing(dir);
+        if (listing == null) {
+            return false;
+        }
+        Entry entry = listing.get(name);
+        if (entry == null || !(entry.file || includeDirectory)) {
+            return false;
+        }
+        File file = new File(dir, name);
+        FileVisitDetails details = new DefaultFileVisitDetails(file, new RelativePath(entry.file, name), new AtomicBoolean(), fileSystem, fileSystem, !entry.file, entry.lastModified, entry.length);
+        if (entry.file) {
+            visitor.visitFile(details);
+        } else {
+            visitor.visitDir(details);
+        }
+        return true;
+    }
+
+    /**
+     * Visits the contents of the given tree. Returns false when the root of the tree is not a directory that can be listed, before anything is visited.
+     */
+    private boolean visitTree(DirectoryFileTree tree, FileVisitor visitor) {
+        DirectoryListing listing = getListing(tree.getDir());
+        if (listing == null) {
+            return false;
+        }
+        walk(tree.getDir(), new RelativePath(false), listing, visitor, tree.getPatterns().getAsSpec(), new AtomicBoolean());
+        return true;
+    }
+
+    private void walk(File dir, RelativePath path, DirectoryListing listing, FileVisitor visitor, Spec<FileTreeElement> spec, AtomicBoolean stopFlag) {
+        List<FileVisitDetails> dirs = new ArrayList<FileVisitDetails>();
+        for (int i = 0; !stopFlag.get() && i < listing.entries.length; i++) {
+            Entry entry = listing.entries[i];
+            File child = new File(dir, entry.name);
+            FileVisitDetails details = new DefaultFileVisitDetails(child, path.append(entry.file, entry.name), stopFlag, fileSystem, fileSystem, !entry.file, entry.lastModified, entry.length);
+            if (spec.isSatisfiedBy(details)) {
+                if (entry.file) {
+                    visitor.visitFile(details);
+                } else {
+                    dirs.add(details);
+                }
+            }
+        }
+
+        for (int i = 0; !stopFlag.get() && i < dirs.size(); i++) {
+            FileVisitDetails details = dirs.get(i);
+            visitor.visitDir(details);
+            DirectoryListing childListing = getListing(details.getFile());
+            if (childListing == null) {
+                throw new GradleException(String.format("Could not list contents of '%s'.", details.getFile()));
+            }
+            walk(details.getFile(), details.getRelativePath(), childListing, visitor, spec, stopFlag);
+        }
+    }
+
+    /**
+     * Returns the listing of the given directory, or null if it is not a directory that can be listed.
+     */
+    private DirectoryListing getListing(File dir) {
+        String path = dir.getAbsolutePath();
+        DirectoryListing listing = listings.get(path);
+        if (listing != null) {
+            listingsRetained.incrementAndGet();
+            return listing;
+        }
+
+        if (!dir.isDirectory()) {
+            return null;
+        }
+        // Watch before listing, so that any change made after the listing has been read is reported
+        boolean watched = watch(dir);
+        long invalidationsBefore = invalidations.get();
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return null;
+        }
+        listing = new DirectoryListing(children);
+        listingsRead.incrementAndGet();
+        if (watched) {
+            listings.put(path, listing);
+            if (invalidations.get() != invalidationsBefore) {
+                // Something may have changed while the directory was being listed, so use the listing for this visit only
+                listings.remove(path, listing);
+            }
+        }
+        return listing;
+    }
+
+    /**
+     * Ensures changes to the given directory are reported, returning false if they cannot be.
+     */
+    private boolean watch(File dir) {
+        if (disabled) {
+            return false;
+        }
+        for (File candidate = dir.getAbsoluteFile(); candidate != null; candidate = candidate.getParentFile()) {
+            if (watchedRoots.contains(candidate.getPath())) {
+                return true;
+            }
+        }
+        synchronized (lock) {
+            if (disabled) {
+                return false;
+            }
+            try {
+                if (watcher == null) {
+                    watcher = fileWatcherFactory.watch(new Action<Throwable>() {
+                        @Override
+                        public void execute(Throwable throwable) {
+                            disable(throwable);
+                        }
+                    }, this);
+                }
+                watcher.watch(FileSystemSubset.builder().add(dir).build());
+            } catch (Exception e) {
+                disable(e);
+                return false;
+            }
+            watchedRoots.add(dir.getAbsolutePath());
+            return true;
+        }
+    }
+
+    private void disable(Throwable failure) {
+        disabled = true;
+        invalidateAll();
+        LOGGER.info("Could not watch the file system for changes, no longer retaining file system state.");
+        LOGGER.debug("Failure watching the file system.", failure);
+    }
+
+    @Override
+    public void stop() {
+        synchronized (lock) {
+            if (watcher != null) {
+                watcher.stop();
+                watcher = null;
+            }
+            watchedRoots.clear();
+            invalidateAll();
+        }
+        LOGGER.debug("Read {} directory listings from disk and served {} from memory.", listingsRead.get(), listingsRetained.get());
+    }
+
+    private static class DirectoryListing {
+        private final Entry[] entries;
+
+        DirectoryListing(File[] children) {
+            entries = new Entry[children.length];
+            for (int i = 0; i < children.length; i++) {
+                File child = children[i];
+                boolean isFile = child.isFile();
+                entries[i] = new Entry(child.getName(), isFile, isFile ? child.length() : 0, child.lastModified());
+            }
+            Arrays.sort(entries);
+        }
+
+        Entry get(String name) {
+            int index = Arrays.binarySearch(entries, new Entry(name, false, 0, 0));
+            return index >= 0 ? entries[index] : null;
+        }
+    }
+
+    private static class Entry implements Comparable<Entry> {
+        private final String name;
+        private final boolean file;
+        private final long length;
+        private final long lastModified;
+
+        Entry(String name, boolean file, long length, long lastModified) {
+            this.name = name;
+            this.file = file;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return name.compareTo(other.name);
+        }
+    }
+}
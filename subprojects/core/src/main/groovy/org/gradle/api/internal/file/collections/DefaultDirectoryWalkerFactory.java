@@ -28,6 +28,11 @@ import org.gradle.internal.resource.CharsetUtil;
 import java.nio.charset.Charset;
 
 public class DefaultDirectoryWalkerFactory implements Factory<DirectoryWalker> {
+    /**
+     * When set, directories are walked with the fork/join walker from the {@code jdk7} package, which reads directories ahead.
+     */
+    public static final String PARALLEL_WALK_PROPERTY = "org.gradle.files.parallelWalk";
+
     private final ClassLoader classLoader;
     private final JavaVersion javaVersion;
     private DirectoryWalker instance;
@@ -54,7 +59,10 @@ public class DefaultDirectoryWalkerFactory implements Factory<DirectoryWalker> {
         FileSystem fileSystem = FileSystems.getDefault();
         if (javaVersion.isJava8Compatible() || (javaVersion.isJava7Compatible() && defaultEncodingContainsPlatformEncoding())) {
             try {
-                Class clazz = classLoader.loadClass("org.gradle.api.internal.file.collections.jdk7.Jdk7DirectoryWalker");
+                String className = Boolean.getBoolean(PARALLEL_WALK_PROPERTY)
+                    ? "org.gradle.api.internal.file.collections.jdk7.ForkJoinDirectoryWalker"
+                    : "org.gradle.api.internal.file.collections.jdk7.Jdk7DirectoryWalker";
+                Class clazz = classLoader.loadClass(className);
                 return Cast.uncheckedCast(DirectInstantiator.instantiate(clazz, fileSystem));
             } catch (ClassNotFoundException e) {
                 throw UncheckedException.throwAsUncheckedException(e);
@@ -36,6 +36,10 @@ public class SingletonFileTree implements MinimalFileTree {
         this.file = file;
     }
 
+    public File getFile() {
+        return file;
+    }
+
     public String getDisplayName() {
         return String.format("file '%s'", file);
     }
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.collections.jdk7;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.file.DefaultFileVisitDetails;
+import org.gradle.api.internal.file.collections.DirectoryWalker;
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link DirectoryWalker} that reads directories on a fork/join pool, so that the latency of listing directories and reading attributes, which can be
+ * high on network file systems, is overlapped.
+ *
+ * <p>The walk itself happens in the calling thread, which evaluates the spec, calls the visitor and honours the stop flag. As soon as the calling thread
+ * has listed a directory, the subdirectories allowed by the spec are handed to the pool to be read ahead, in the order they will be visited. The attributes
+ * of each entry are read with a single {@code readAttributes} call. Entries are visited in directory listing order, files before subdirectories, as
+ * {@link org.gradle.api.internal.file.collections.DefaultDirectoryWalker} does.</p>
+ *
+ * <p>Used in place of {@link Jdk7DirectoryWalker} when {@value org.gradle.api.internal.file.collections.DefaultDirectoryWalkerFactory#PARALLEL_WALK_PROPERTY} is set.</p>
+ */
+public class ForkJoinDirectoryWalker implements DirectoryWalker {
+    // Reading directories is bound by I/O latency rather than CPU, so use more threads than there are processors
+    private static final int PARALLELISM = Math.min(32, 2 * Runtime.getRuntime().availableProcessors());
+
+    private final FileSystem fileSystem;
+    private final ForkJoinPool pool;
+
+    public ForkJoinDirectoryWalker(FileSystem fileSystem) {
+        this(fileSystem, new ForkJoinPool(PARALLELISM));
+    }
+
+    ForkJoinDirectoryWalker(FileSystem fileSystem, ForkJoinPool pool) {
+        this.fileSystem = fileSystem;
+        this.pool = pool;
+    }
+
+    @Override
+    public void walkDir(File rootDir, RelativePath rootPath, FileVisitor visitor, Spec<FileTreeElement> spec, AtomicBoolean stopFlag, boolean postfix) {
+        Set<Object> ancestors = new HashSet<Object>();
+        Object rootKey = readDirectoryKey(rootDir);
+        if (rootKey != null) {
+            ancestors.add(rootKey);
+        }
+        walk(rootDir, rootPath, pool.submit(new ReadDirectory(rootDir.toPath())), visitor, spec, stopFlag, postfix, ancestors);
+    }
+
+    private void walk(File dir, RelativePath path, ForkJoinTask<List<Entry>> listing, FileVisitor visitor, Spec<FileTreeElement> spec, AtomicBoolean stopFlag, boolean postfix, Set<Object> ancestors) {
+        List<Entry> entries = join(dir, listing);
+
+        List<FileVisitDetails> files = new ArrayList<FileVisitDetails>();
+        List<FileVisitDetails> dirs = new ArrayList<FileVisitDetails>();
+        List<Entry> dirEntries = new ArrayList<Entry>();
+        List<ForkJoinTask<List<Entry>>> dirListings = new ArrayList<ForkJoinTask<List<Entry>>>();
+        try {
+            for (int i = 0; !stopFlag.get() && i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                if (entry.isDirectory() && entry.key != null && ancestors.contains(entry.key)) {
+                    // A link back to a directory that is being walked
+                    continue;
+                }
+                File child = entry.path.toFile();
+                RelativePath childPath = path.append(!entry.isDirectory(), child.getName());
+                FileVisitDetails details = entry.attributes == null
+                    ? new DefaultFileVisitDetails(child, childPath, stopFlag, fileSystem, fileSystem, false, 0, 0)
+                    : new DefaultFileVisitDetails(child, childPath, stopFlag, fileSystem, fileSystem, entry.isDirectory(), entry.attributes.lastModifiedTime().toMillis(), entry.attributes.size());
+                if (!spec.isSatisfiedBy(details)) {
+                    continue;
+                }
+                if (entry.attributes == null) {
+                    throw new GradleException(String.format("Could not list contents of '%s'. Couldn't follow symbolic link.", child));
+                }
+                if (entry.isDirectory()) {
+                    dirs.add(details);
+                    dirEntries.add(entry);
+                    dirListings.add(pool.submit(new ReadDirectory(entry.path)));
+                } else {
+                    files.add(details);
+                }
+            }
+
+            for (int i = 0; !stopFlag.get() && i < files.size(); i++) {
+                visitor.visitFile(files.get(i));
+            }
+
+            for (int i = 0; !stopFlag.get() && i < dirs.size(); i++) {
+                FileVisitDetails details = dirs.get(i);
+                Object key = dirEntries.get(i).key;
+                if (!postfix) {
+                    visitor.visitDir(details);
+                }
+                if (key != null) {
+                    ancestors.add(key);
+                }
+                walk(details.getFile(), details.getRelativePath(), dirListings.get(i), visitor, spec, stopFlag, postfix, ancestors);
+                if (key != null) {
+                    ancestors.remove(key);
+                }
+                if (postfix) {
+                    visitor.visitDir(details);
+                }
+            }
+        } finally {
+            // Discard any read ahead that will not be used, because the walk has been stopped or has failed
+            for (ForkJoinTask<List<Entry>> dirListing : dirListings) {
+                dirListing.cancel(false);
+            }
+        }
+    }
+
+    private static List<Entry> join(File dir, ForkJoinTask<List<Entry>> listing) {
+        try {
+            return listing.join();
+        } catch (UncheckedIOException e) {
+            throw new GradleException(String.format("Could not list contents of directory '%s'.", dir), e);
+        }
+    }
+
+    private static Object readDirectoryKey(File dir) {
+        try {
+            return Files.readAttributes(dir.toPath(), BasicFileAttributes.class).fileKey();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static class Entry {
+        final Path path;
+        // Null for a symbolic link that cannot be followed
+        final BasicFileAttributes attributes;
+        final Object key;
+
+        Entry(Path path, BasicFileAttributes attributes) {
+            this.path = path;
+            this.attributes = attributes;
+            this.key = attributes == null ? null : attributes.fileKey();
+        }
+
+        boolean isDirectory() {
+            return attributes != null && attributes.isDirectory();
+        }
+    }
+
+    private static class ReadDirectory extends RecursiveTask<List<Entry>> {
+        private final Path dir;
+
+        ReadDirectory(Path dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        protected List<Entry> compute() {
+            List<Entry> entries = new ArrayList<Entry>();
+            try {
+                DirectoryStream<Path> stream = Files.newDirectoryStream(dir);
+                try {
+                    for (Path path : stream) {
+                        BasicFileAttributes attributes;
+                        try {
+                            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                        } catch (NoSuchFileException e) {
+                            if (!Files.isSymbolicLink(path)) {
+                                // Removed since the directory was listed
+                                continue;
+                            }
+                            attributes = null;
+                        }
+                        entries.add(new Entry(path, attributes));
+                    }
+                } finally {
+                    stream.close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return entries;
+        }
+    }
+}
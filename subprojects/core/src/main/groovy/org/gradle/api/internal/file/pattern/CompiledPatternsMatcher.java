@@ -0,0 +1,222 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.pattern;
+
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.specs.Spec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Matches a path against a collection of patterns in a single pass over its segments.
+ *
+ * <p>The patterns are compiled into a tree of segment matching states, with patterns that share a leading sequence of steps sharing the same states.
+ * Literal steps are looked up by segment name, so the cost of matching a segment does not grow with the number of literal patterns. Evaluation
+ * stops as soon as the outcome is known, so a directory that no pattern can match below is rejected after its own segments have been examined.</p>
+ *
+ * <p>The result is the same as the union of the matchers for the individual patterns, as created by {@link PatternMatcherFactory#getPatternMatcher(boolean, boolean, String)}.</p>
+ */
+public class CompiledPatternsMatcher implements Spec<RelativePath> {
+    private final boolean partialMatchDirs;
+    private final boolean caseSensitive;
+    private final State root;
+    private boolean hasEmptyPattern;
+    private boolean hasPatterns;
+
+    public CompiledPatternsMatcher(boolean partialMatchDirs, boolean caseSensitive, Collection<String> patterns) {
+        this.partialMatchDirs = partialMatchDirs;
+        this.caseSensitive = caseSensitive;
+        this.root = new State(false);
+        for (String pattern : patterns) {
+            add(pattern);
+        }
+    }
+
+    private void add(String pattern) {
+        if (pattern.length() == 0) {
+            // Matches the empty path only, and is never a prefix
+            hasEmptyPattern = true;
+            return;
+        }
+        hasPatterns = true;
+        State state = root;
+        for (String part : PatternMatcherFactory.split(pattern)) {
+            if (part.equals("**")) {
+                if (!state.greedy) {
+                    state = state.anySegments();
+                }
+            } else if (part.indexOf('*') < 0 && part.indexOf('?') < 0) {
+                state = state.literal(part);
+            } else {
+                state = state.wildcard(part);
+            }
+        }
+        state.terminal = true;
+    }
+
+    public boolean isSatisfiedBy(RelativePath element) {
+        String[] segments = element.getSegments();
+        if (element.isFile() || !partialMatchDirs) {
+            return matches(segments);
+        } else {
+            return isPrefix(segments);
+        }
+    }
+
+    /**
+     * Returns true if the given path satisfies any of the patterns.
+     */
+    public boolean matches(String[] segments) {
+        if (segments.length == 0 && hasEmptyPattern) {
+            return true;
+        }
+        return evaluate(segments, false);
+    }
+
+    /**
+     * Returns true if the given path could satisfy any of the patterns if it contained additional segments at the end.
+     */
+    public boolean isPrefix(String[] segments) {
+        return hasPatterns && evaluate(segments, true);
+    }
+
+    private boolean evaluate(String[] segments, boolean prefix) {
+        List<State> current = new ArrayList<State>(4);
+        root.addTo(current);
+        for (int i = 0;; i++) {
+            if (current.isEmpty()) {
+                return false;
+            }
+            for (int j = 0; j < current.size(); j++) {
+                State state = current.get(j);
+                // A '**' accepts any remaining segments: the path is a prefix, and a match when nothing follows the '**'
+                if (state.greedy && (prefix || state.terminal)) {
+                    return true;
+                }
+            }
+            if (i == segments.length) {
+                break;
+            }
+            String segment = segments[i];
+            List<State> next = new ArrayList<State>(current.size());
+            for (int j = 0; j < current.size(); j++) {
+                current.get(j).advance(segment, next);
+            }
+            current = next;
+        }
+        if (prefix) {
+            return true;
+        }
+        for (int j = 0; j < current.size(); j++) {
+            if (current.get(j).terminal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private class State {
+        private final boolean greedy;
+        private boolean terminal;
+        private Map<String, State> literals;
+        private List<PatternStep> wildcardSteps;
+        private List<String> wildcardSources;
+        private List<State> wildcardStates;
+        private State anySegments;
+
+        State(boolean greedy) {
+            this.greedy = greedy;
+        }
+
+        State literal(String value) {
+            if (literals == null) {
+                // Uses the same notion of equality as FixedPatternStep
+                literals = caseSensitive ? new HashMap<String, State>() : new TreeMap<String, State>(String.CASE_INSENSITIVE_ORDER);
+            }
+            State state = literals.get(value);
+            if (state == null) {
+                state = new State(false);
+                literals.put(value, state);
+            }
+            return state;
+        }
+
+        State wildcard(String source) {
+            if (wildcardSteps == null) {
+                wildcardSteps = new ArrayList<PatternStep>();
+                wildcardSources = new ArrayList<String>();
+                wildcardStates = new ArrayList<State>();
+            }
+            int index = wildcardSources.indexOf(source);
+            if (index >= 0) {
+                return wildcardStates.get(index);
+            }
+            State state = new State(false);
+            wildcardSteps.add(PatternStepFactory.getStep(source, caseSensitive));
+            wildcardSources.add(source);
+            wildcardStates.add(state);
+            return state;
+        }
+
+        State anySegments() {
+            if (anySegments == null) {
+                anySegments = new State(true);
+            }
+            return anySegments;
+        }
+
+        /**
+         * Adds this state to the given states, along with the state for a '**' that follows it, which may match zero segments.
+         */
+        void addTo(List<State> states) {
+            if (states.contains(this)) {
+                return;
+            }
+            states.add(this);
+            if (anySegments != null) {
+                anySegments.addTo(states);
+            }
+        }
+
+        /**
+         * Adds the states reached by consuming the given segment from this state.
+         */
+        void advance(String segment, List<State> states) {
+            if (greedy) {
+                addTo(states);
+            }
+            if (literals != null) {
+                State state = literals.get(segment);
+                if (state != null) {
+                    state.addTo(states);
+                }
+            }
+            if (wildcardSteps != null) {
+                for (int i = 0; i < wildcardSteps.size(); i++) {
+                    if (wildcardSteps.get(i).matches(segment)) {
+                        wildcardStates.get(i).addTo(states);
+                    }
+                }
+            }
+        }
+    }
+}
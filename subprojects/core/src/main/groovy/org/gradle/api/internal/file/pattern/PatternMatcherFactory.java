@@ -19,6 +19,7 @@ import org.gradle.api.file.RelativePath;
 import org.gradle.api.specs.Spec;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class PatternMatcherFactory {
@@ -30,17 +31,27 @@ public class PatternMatcherFactory {
         return new PathMatcherBackedSpec(partialMatchDirs, pathMatcher);
     }
 
+    /**
+     * Returns a matcher that is satisfied when any of the given patterns is satisfied, evaluating all of the patterns together.
+     */
+    public static Spec<RelativePath> getPatternsMatcher(boolean partialMatchDirs, boolean caseSensitive, Collection<String> patterns) {
+        return new CompiledPatternsMatcher(partialMatchDirs, caseSensitive, patterns);
+    }
+
     private static PathMatcher compile(boolean caseSensitive, String pattern) {
         if (pattern.length() == 0) {
             return END_OF_PATH_MATCHER;
         }
 
+        return compile(split(pattern), 0, caseSensitive);
+    }
+
+    static String[] split(String pattern) {
         // trailing / or \ assumes **
         if (pattern.endsWith("/") || pattern.endsWith("\\")) {
             pattern = pattern + "**";
         }
-        String[] parts = pattern.split("\\\\|/");
-        return compile(parts, 0, caseSensitive);
+        return pattern.split("\\\\|/");
     }
 
     private static PathMatcher compile(String[] parts, int startIndex, boolean caseSensitive) {
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.initialization.loadercache;
 
+import org.gradle.api.Action;
 import org.gradle.api.Nullable;
 import org.gradle.internal.classloader.FilteringClassLoader;
 import org.gradle.internal.classpath.ClassPath;
@@ -28,4 +29,10 @@ public interface ClassLoaderCache {
 
     void remove(ClassLoaderId id);
 
+    /**
+     * Registers a listener to be notified with the id of a class loader when this cache stops using a class loader for that id, either because it was
+     * removed or because it was replaced with a different class loader.
+     */
+    void addReleaseListener(Action<? super ClassLoaderId> listener);
+
 }
@@ -21,12 +21,15 @@ import com.google.common.base.Objects;
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multiset;
+import org.gradle.api.Action;
 import org.gradle.api.Nullable;
 import org.gradle.internal.classloader.FilteringClassLoader;
 import org.gradle.internal.classloader.MutableURLClassLoader;
 import org.gradle.internal.classpath.ClassPath;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class DefaultClassLoaderCache implements ClassLoaderCache {
 
@@ -34,6 +37,7 @@ public class DefaultClassLoaderCache implements ClassLoaderCache {
     private final Map<ClassLoaderId, CachedClassLoader> byId = Maps.newHashMap();
     private final Map<ClassLoaderSpec, CachedClassLoader> bySpec = Maps.newHashMap();
     private final ClassPathSnapshotter snapshotter;
+    private final List<Action<? super ClassLoaderId>> releaseListeners = new CopyOnWriteArrayList<Action<? super ClassLoaderId>>();
 
     public DefaultClassLoaderCache(ClassPathSnapshotter snapshotter) {
         this.snapshotter = snapshotter;
@@ -51,6 +55,7 @@ public class DefaultClassLoaderCache implements ClassLoaderCache {
 
                 if (cachedLoader != null) {
                     cachedLoader.release(id);
+                    notifyReleased(id);
                 }
 
                 return newLoader.classLoader;
@@ -66,10 +71,22 @@ public class DefaultClassLoaderCache implements ClassLoaderCache {
             CachedClassLoader cachedClassLoader = byId.remove(id);
             if (cachedClassLoader != null) {
                 cachedClassLoader.release(id);
+                notifyReleased(id);
             }
         }
     }
 
+    @Override
+    public void addReleaseListener(Action<? super ClassLoaderId> listener) {
+        releaseListeners.add(listener);
+    }
+
+    private void notifyReleased(ClassLoaderId id) {
+        for (Action<? super ClassLoaderId> listener : releaseListeners) {
+            listener.execute(id);
+        }
+    }
+
     private CachedClassLoader getAndRetainLoader(ClassPath classPath, ClassLoaderSpec spec, ClassLoaderId id) {
         CachedClassLoader cachedLoader = bySpec.get(spec);
         if (cachedLoader == null) {
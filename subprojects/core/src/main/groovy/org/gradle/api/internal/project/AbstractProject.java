@@ -496,11 +496,15 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
     }
 
     public void subprojects(Action<? super Project> action) {
-        configure(getSubprojects(), action);
+        Set<Project> subprojects = getSubprojects();
+        CrossProjectConfigurationDetector.checkCanConfigure(subprojects, "subprojects()");
+        configure(subprojects, action);
     }
 
     public void allprojects(Action<? super Project> action) {
-        configure(getAllprojects(), action);
+        Set<Project> allprojects = getAllprojects();
+        CrossProjectConfigurationDetector.checkCanConfigure(allprojects, "allprojects()");
+        configure(allprojects, action);
     }
 
     public <T> Iterable<T> configure(Iterable<T> objects, Action<? super T> configureAction) {
@@ -593,6 +597,7 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
     }
 
     private Project evaluationDependsOn(DefaultProject projectToEvaluate) {
+        CrossProjectConfigurationDetector.checkCanConfigure(projectToEvaluate, "evaluationDependsOn()");
         if (projectToEvaluate.getState().getExecuting()) {
             throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.",
                 projectToEvaluate));
@@ -853,15 +858,21 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
     }
 
     public void subprojects(Closure configureClosure) {
-        configure(getSubprojects(), configureClosure);
+        Set<Project> subprojects = getSubprojects();
+        CrossProjectConfigurationDetector.checkCanConfigure(subprojects, "subprojects()");
+        configure(subprojects, configureClosure);
     }
 
     public void allprojects(Closure configureClosure) {
-        configure(getAllprojects(), configureClosure);
+        Set<Project> allprojects = getAllprojects();
+        CrossProjectConfigurationDetector.checkCanConfigure(allprojects, "allprojects()");
+        configure(allprojects, configureClosure);
     }
 
     public Project project(String path, Closure configureClosure) {
-        return ConfigureUtil.configure(configureClosure, project(path));
+        Project project = project(path);
+        CrossProjectConfigurationDetector.checkCanConfigure(project, "project()");
+        return ConfigureUtil.configure(configureClosure, project);
     }
 
     public Object configure(Object object, Closure configureClosure) {
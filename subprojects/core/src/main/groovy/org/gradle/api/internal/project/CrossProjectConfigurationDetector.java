@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.project;
+
+import org.gradle.api.InvalidUserCodeException;
+import org.gradle.api.Project;
+
+/**
+ * Detects a project configuring some other project while projects are being configured in parallel.
+ */
+public class CrossProjectConfigurationDetector {
+    private static final ThreadLocal<Project> CONFIGURING_PROJECT = new ThreadLocal<Project>();
+
+    private CrossProjectConfigurationDetector() {
+    }
+
+    /**
+     * Marks the current thread as configuring the given project in parallel with other projects. Pass null when configuration has finished.
+     */
+    public static void setConfiguringProject(Project project) {
+        if (project == null) {
+            CONFIGURING_PROJECT.remove();
+        } else {
+            CONFIGURING_PROJECT.set(project);
+        }
+    }
+
+    /**
+     * Fails if the current thread is configuring a project in parallel and the given target is some other project.
+     */
+    public static void checkCanConfigure(Project target, String operation) {
+        Project configuring = CONFIGURING_PROJECT.get();
+        if (configuring != null && configuring != target) {
+            throw new InvalidUserCodeException(String.format("Cannot use %s to configure %s from %s while projects are configured in parallel. Projects that configure other projects must be configured sequentially.", operation, target, configuring));
+        }
+    }
+
+    public static void checkCanConfigure(Iterable<? extends Project> targets, String operation) {
+        for (Project target : targets) {
+            checkCanConfigure(target, operation);
+        }
+    }
+}
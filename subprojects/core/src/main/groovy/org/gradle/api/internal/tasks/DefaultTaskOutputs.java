@@ -31,11 +31,14 @@ import org.gradle.api.tasks.TaskOutputs;
 public class DefaultTaskOutputs implements TaskOutputsInternal {
     private final DefaultConfigurableFileCollection outputFiles;
     private AndSpec<TaskInternal> upToDateSpec = new AndSpec<TaskInternal>();
+    private AndSpec<TaskInternal> cacheIfSpec = new AndSpec<TaskInternal>();
     private TaskExecutionHistory history;
     private final TaskMutator taskMutator;
+    private final TaskInternal task;
 
     public DefaultTaskOutputs(FileResolver resolver, TaskInternal task, TaskMutator taskMutator) {
         this.taskMutator = taskMutator;
+        this.task = task;
         outputFiles = new DefaultConfigurableFileCollection(String.format("%s output files", task), resolver, null);
         outputFiles.builtBy(task);
     }
@@ -60,6 +63,18 @@ public class DefaultTaskOutputs implements TaskOutputsInternal {
         });
     }
 
+    public void cacheIf(final Spec<? super Task> spec) {
+        taskMutator.mutate("TaskOutputs.cacheIf(Spec)", new Runnable() {
+            public void run() {
+                cacheIfSpec = cacheIfSpec.and(spec);
+            }
+        });
+    }
+
+    public boolean isCacheAllowed() {
+        return !outputFiles.getFrom().isEmpty() && cacheIfSpec.isSatisfiedBy(task);
+    }
+
     public boolean getHasOutput() {
         return !outputFiles.getFrom().isEmpty() || !upToDateSpec.getSpecs().isEmpty();
     }
@@ -83,6 +83,11 @@ public class TaskStateInternal implements TaskState {
         upToDate = true;
     }
 
+    public void cached() {
+        skipped("FROM-CACHE");
+        upToDate = true;
+    }
+
     public boolean getExecuting() {
         return executing;
     }
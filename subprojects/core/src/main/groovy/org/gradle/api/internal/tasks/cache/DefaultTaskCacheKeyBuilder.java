@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+public class DefaultTaskCacheKeyBuilder implements TaskCacheKeyBuilder {
+    private final Hasher hasher = Hashing.md5().newHasher();
+
+    public TaskCacheKeyBuilder putString(CharSequence value) {
+        // Include the length so that adjacent values cannot be confused with each other
+        hasher.putInt(value.length());
+        hasher.putString(value, Charsets.UTF_8);
+        return this;
+    }
+
+    public TaskCacheKeyBuilder putBytes(byte[] bytes) {
+        hasher.putInt(bytes.length);
+        hasher.putBytes(bytes);
+        return this;
+    }
+
+    public TaskCacheKeyBuilder putLong(long value) {
+        hasher.putLong(value);
+        return this;
+    }
+
+    public TaskCacheKey build() {
+        return new DefaultTaskCacheKey(hasher.hash());
+    }
+
+    private static class DefaultTaskCacheKey implements TaskCacheKey {
+        private final HashCode hashCode;
+
+        private DefaultTaskCacheKey(HashCode hashCode) {
+            this.hashCode = hashCode;
+        }
+
+        public String getHashCode() {
+            return hashCode.toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            return hashCode.equals(((DefaultTaskCacheKey) o).hashCode);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return getHashCode();
+        }
+    }
+}
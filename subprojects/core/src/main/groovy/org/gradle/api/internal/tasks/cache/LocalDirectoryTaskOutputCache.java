@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.CacheBuilder;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.FileLockManager;
+import org.gradle.internal.Factory;
+import org.gradle.util.GFileUtils;
+
+import java.io.*;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * A {@link TaskOutputCache} that stores each entry as a single file in a directory, named after the hash of the cache key.
+ */
+public class LocalDirectoryTaskOutputCache implements TaskOutputCache, Closeable {
+    private final PersistentCache persistentCache;
+
+    public LocalDirectoryTaskOutputCache(CacheRepository cacheRepository, String cacheKey) {
+        this(cacheRepository.cache(cacheKey));
+    }
+
+    public LocalDirectoryTaskOutputCache(CacheRepository cacheRepository, File directory) {
+        this(cacheRepository.cache(directory));
+    }
+
+    private LocalDirectoryTaskOutputCache(CacheBuilder cacheBuilder) {
+        this.persistentCache = cacheBuilder
+            .withDisplayName("task output cache")
+            .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
+            .open();
+    }
+
+    public boolean load(final TaskCacheKey key, final TaskOutputReader reader) {
+        return persistentCache.useCache("Load task output from cache", new Factory<Boolean>() {
+            public Boolean create() {
+                File file = getFile(key);
+                if (!file.isFile()) {
+                    return false;
+                }
+                try {
+                    InputStream input = new BufferedInputStream(new FileInputStream(file));
+                    try {
+                        reader.readFrom(input);
+                    } finally {
+                        input.close();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(String.format("Could not load cached task output %s from %s.", key, file), e);
+                }
+                return true;
+            }
+        });
+    }
+
+    public void store(final TaskCacheKey key, TaskOutputWriter writer) {
+        // Pack the outputs without holding the lock, then move the complete entry into place
+        final File tempFile;
+        try {
+            tempFile = File.createTempFile(key.getHashCode(), ".part", persistentCache.getBaseDir());
+            try {
+                OutputStream output = new BufferedOutputStream(new FileOutputStream(tempFile));
+                try {
+                    writer.writeTo(output);
+                } finally {
+                    output.close();
+                }
+            } catch (IOException e) {
+                GFileUtils.deleteQuietly(tempFile);
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not store task output %s in %s.", key, getDescription()), e);
+        }
+        persistentCache.useCache("Store task output in cache", new Runnable() {
+            public void run() {
+                File file = getFile(key);
+                if (file.exists()) {
+                    GFileUtils.forceDelete(file);
+                }
+                if (!tempFile.renameTo(file)) {
+                    GFileUtils.deleteQuietly(tempFile);
+                    throw new UncheckedIOException(String.format("Could not move cached task output %s to %s.", key, file));
+                }
+            }
+        });
+    }
+
+    private File getFile(TaskCacheKey key) {
+        return new File(persistentCache.getBaseDir(), key.getHashCode());
+    }
+
+    public String getDescription() {
+        return "local directory cache in " + persistentCache.getBaseDir();
+    }
+
+    public void close() {
+        persistentCache.close();
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+/**
+ * Stores the packed outputs of task executions, keyed by the inputs of the execution.
+ */
+public interface TaskOutputCache {
+    /**
+     * Loads the outputs stored for the given key, if any.
+     *
+     * @return true if an entry was found and passed to the reader, false otherwise.
+     */
+    boolean load(TaskCacheKey key, TaskOutputReader reader);
+
+    /**
+     * Stores the outputs produced by the given writer under the given key, replacing any existing entry.
+     */
+    void store(TaskCacheKey key, TaskOutputWriter writer);
+
+    String getDescription();
+}
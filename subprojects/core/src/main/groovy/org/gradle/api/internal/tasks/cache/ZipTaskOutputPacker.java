@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache;
+
+import org.apache.commons.io.IOUtils;
+import org.gradle.api.internal.TaskOutputsInternal;
+import org.gradle.util.GFileUtils;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Packs task outputs into a ZIP archive. Each output root is stored under a directory named after its index in the
+ * sorted list of output roots, so that the archive does not depend on the absolute location of the outputs.
+ */
+public class ZipTaskOutputPacker implements TaskOutputPacker {
+
+    public void pack(TaskOutputsInternal taskOutputs, OutputStream output) throws IOException {
+        ZipOutputStream zipOutput = new ZipOutputStream(output);
+        List<File> roots = getOutputRoots(taskOutputs);
+        for (int i = 0; i < roots.size(); i++) {
+            File root = roots.get(i);
+            String rootName = String.valueOf(i);
+            if (root.isDirectory()) {
+                zipOutput.putNextEntry(new ZipEntry(rootName + "/"));
+                zipOutput.closeEntry();
+                packDirectory(root, rootName + "/", zipOutput);
+            } else if (root.isFile()) {
+                packFile(root, rootName, zipOutput);
+            }
+        }
+        zipOutput.finish();
+    }
+
+    private void packDirectory(File directory, String path, ZipOutputStream zipOutput) throws IOException {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            throw new IOException(String.format("Could not list contents of directory '%s'.", directory));
+        }
+        // Sort the children so that the same outputs always result in the same archive
+        Arrays.sort(children);
+        for (File child : children) {
+            String childPath = path + child.getName();
+            if (child.isDirectory()) {
+                zipOutput.putNextEntry(new ZipEntry(childPath + "/"));
+                zipOutput.closeEntry();
+                packDirectory(child, childPath + "/", zipOutput);
+            } else {
+                packFile(child, childPath, zipOutput);
+            }
+        }
+    }
+
+    private void packFile(File file, String path, ZipOutputStream zipOutput) throws IOException {
+        zipOutput.putNextEntry(new ZipEntry(path));
+        InputStream input = new FileInputStream(file);
+        try {
+            IOUtils.copyLarge(input, zipOutput);
+        } finally {
+            input.close();
+        }
+        zipOutput.closeEntry();
+    }
+
+    public void unpack(TaskOutputsInternal taskOutputs, InputStream input) throws IOException {
+        List<File> roots = getOutputRoots(taskOutputs);
+        for (File root : roots) {
+            if (root.isDirectory()) {
+                GFileUtils.deleteDirectory(root);
+            } else if (root.exists()) {
+                GFileUtils.forceDelete(root);
+            }
+        }
+
+        ZipInputStream zipInput = new ZipInputStream(input);
+        ZipEntry entry;
+        while ((entry = zipInput.getNextEntry()) != null) {
+            File target = resolveTarget(roots, entry.getName());
+            if (entry.isDirectory()) {
+                GFileUtils.mkdirs(target);
+            } else {
+                GFileUtils.parentMkdirs(target);
+                OutputStream output = new FileOutputStream(target);
+                try {
+                    IOUtils.copyLarge(zipInput, output);
+                } finally {
+                    output.close();
+                }
+            }
+            zipInput.closeEntry();
+        }
+    }
+
+    private static File resolveTarget(List<File> roots, String entryName) throws IOException {
+        int separator = entryName.indexOf('/');
+        String rootName = separator < 0 ? entryName : entryName.substring(0, separator);
+        int rootIndex;
+        try {
+            rootIndex = Integer.parseInt(rootName);
+        } catch (NumberFormatException e) {
+            throw new IOException(String.format("Unexpected entry '%s' in cached task output.", entryName));
+        }
+        if (rootIndex < 0 || rootIndex >= roots.size()) {
+            throw new IOException(String.format("Cached task output entry '%s' does not match any declared output.", entryName));
+        }
+        String relativePath = separator < 0 ? "" : entryName.substring(separator + 1);
+        if (Arrays.asList(relativePath.split("/")).contains("..")) {
+            throw new IOException(String.format("Unexpected entry '%s' in cached task output.", entryName));
+        }
+        File root = roots.get(rootIndex);
+        return relativePath.length() == 0 ? root : new File(root, relativePath);
+    }
+
+    private static List<File> getOutputRoots(TaskOutputsInternal taskOutputs) {
+        List<File> roots = new ArrayList<File>(taskOutputs.getFiles().getFiles());
+        Collections.sort(roots);
+        return roots;
+    }
+}
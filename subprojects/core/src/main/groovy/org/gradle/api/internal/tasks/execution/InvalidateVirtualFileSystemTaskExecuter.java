@@ -0,0 +1,45 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution;
+
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.state.VirtualFileSystem;
+import org.gradle.api.internal.tasks.TaskExecuter;
+import org.gradle.api.internal.tasks.TaskExecutionContext;
+import org.gradle.api.internal.tasks.TaskStateInternal;
+
+/**
+ * A {@link TaskExecuter} which discards any state retained for the outputs of a task once it has executed, so that the outputs are read from disk
+ * when they are snapshotted.
+ */
+public class InvalidateVirtualFileSystemTaskExecuter implements TaskExecuter {
+    private final VirtualFileSystem virtualFileSystem;
+    private final TaskExecuter executer;
+
+    public InvalidateVirtualFileSystemTaskExecuter(VirtualFileSystem virtualFileSystem, TaskExecuter executer) {
+        this.virtualFileSystem = virtualFileSystem;
+        this.executer = executer;
+    }
+
+    public void execute(TaskInternal task, TaskStateInternal state, TaskExecutionContext context) {
+        try {
+            executer.execute(task, state, context);
+        } finally {
+            virtualFileSystem.invalidate(task.getOutputs().getFiles());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution;
+
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.TaskOutputsInternal;
+import org.gradle.api.internal.tasks.TaskExecuter;
+import org.gradle.api.internal.tasks.TaskExecutionContext;
+import org.gradle.api.internal.tasks.TaskStateInternal;
+import org.gradle.api.internal.tasks.cache.TaskCacheKey;
+import org.gradle.api.internal.tasks.cache.TaskOutputCache;
+import org.gradle.api.internal.tasks.cache.TaskOutputPacker;
+import org.gradle.api.internal.tasks.cache.TaskOutputReader;
+import org.gradle.api.internal.tasks.cache.TaskOutputWriter;
+import org.gradle.util.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A {@link TaskExecuter} which restores the outputs of out-of-date tasks from a {@link TaskOutputCache} instead of executing them,
+ * and stores the outputs of tasks that were executed in the cache.
+ */
+public class SkipCachedTaskExecuter implements TaskExecuter {
+    public static final String ENABLE_TASK_CACHE_PROPERTY = "org.gradle.cache.tasks";
+    public static final String TASK_CACHE_DIRECTORY_PROPERTY = "org.gradle.cache.tasks.directory";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SkipCachedTaskExecuter.class);
+    private final TaskOutputCache taskOutputCache;
+    private final TaskOutputPacker packer;
+    private final TaskExecuter executer;
+
+    public SkipCachedTaskExecuter(TaskOutputCache taskOutputCache, TaskOutputPacker packer, TaskExecuter executer) {
+        this.taskOutputCache = taskOutputCache;
+        this.packer = packer;
+        this.executer = executer;
+    }
+
+    public void execute(TaskInternal task, TaskStateInternal state, TaskExecutionContext context) {
+        Clock clock = new Clock();
+        final TaskOutputsInternal taskOutputs = task.getOutputs();
+        TaskCacheKey cacheKey = null;
+        if (taskOutputs.isCacheAllowed()) {
+            cacheKey = context.getTaskArtifactState().calculateCacheKey();
+            if (cacheKey != null) {
+                LOGGER.debug("Cache key for {} is {}", task, cacheKey);
+                try {
+                    boolean found = taskOutputCache.load(cacheKey, new TaskOutputReader() {
+                        public void readFrom(InputStream input) throws IOException {
+                            packer.unpack(taskOutputs, input);
+                        }
+                    });
+                    if (found) {
+                        LOGGER.info("Restored outputs of {} from {} (took {}).", task, taskOutputCache.getDescription(), clock.getTime());
+                        state.cached();
+                        return;
+                    }
+                } catch (RuntimeException e) {
+                    LOGGER.warn(String.format("Could not load cached outputs of %s from %s, executing the task instead.", task, taskOutputCache.getDescription()), e);
+                }
+            }
+        }
+
+        executer.execute(task, state, context);
+
+        if (cacheKey != null && state.getFailure() == null) {
+            try {
+                taskOutputCache.store(cacheKey, new TaskOutputWriter() {
+                    public void writeTo(OutputStream output) throws IOException {
+                        packer.pack(taskOutputs, output);
+                    }
+                });
+            } catch (RuntimeException e) {
+                LOGGER.warn(String.format("Could not store outputs of %s in %s.", task, taskOutputCache.getDescription()), e);
+            }
+        }
+    }
+}
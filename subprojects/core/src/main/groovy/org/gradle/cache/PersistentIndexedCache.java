@@ -17,6 +17,8 @@ package org.gradle.cache;
 
 import org.gradle.api.Nullable;
 
+import java.util.Map;
+
 /**
  * A persistent store of objects of type V indexed by a key of type K.
  */
@@ -29,6 +31,14 @@ public interface PersistentIndexedCache<K, V> {
     @Nullable
     V get(K key);
 
+    /**
+     * Fetches the values of the given keys from this cache, holding the lock once for all of them. Implementations may look up the keys in
+     * whatever order is most efficient for the backing store.
+     *
+     * @return The values for those keys that have a value associated with them. Keys with no value are not included.
+     */
+    Map<K, V> getAll(Iterable<? extends K> keys);
+
     /**
      * Puts/replaces the value of a key in this cache. A shared lock is held while updating the value.
      */
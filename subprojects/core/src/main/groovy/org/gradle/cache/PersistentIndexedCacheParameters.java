@@ -26,6 +26,7 @@ public class PersistentIndexedCacheParameters<K, V> {
     private final Serializer<K> keySerializer;
     private final Serializer<V> valueSerializer;
     private CacheDecorator cacheDecorator;
+    private boolean writeBehind;
 
     public PersistentIndexedCacheParameters(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
         this.cacheName = cacheName;
@@ -67,4 +68,16 @@ public class PersistentIndexedCacheParameters<K, V> {
         this.cacheDecorator = cacheDecorator;
         return this;
     }
+
+    /**
+     * Returns whether updates to the cache are held in memory and written as a batch at the end of each unit of work.
+     */
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    public PersistentIndexedCacheParameters<K, V> writeBehind() {
+        this.writeBehind = true;
+        return this;
+    }
 }
\ No newline at end of file
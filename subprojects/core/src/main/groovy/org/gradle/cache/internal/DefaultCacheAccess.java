@@ -49,8 +49,9 @@ public class DefaultCacheAccess implements CacheCoordinator {
     private final File baseDir;
     private final FileLockManager lockManager;
     private final CacheInitializationAction initializationAction;
-    private final FileAccess fileAccess = new UnitOfWorkFileAccess();
+    private final OwnedFileAccess fileAccess = new UnitOfWorkFileAccess();
     private final Set<MultiProcessSafePersistentIndexedCache> caches = new HashSet<MultiProcessSafePersistentIndexedCache>();
+    private final Set<DefaultMultiProcessSafePersistentIndexedCache> writeBehindCaches = new HashSet<DefaultMultiProcessSafePersistentIndexedCache>();
     private final Lock lock = new ReentrantLock();
     private final Condition condition = lock.newCondition();
     private Thread owner;
@@ -189,7 +190,13 @@ public class DefaultCacheAccess implements CacheCoordinator {
             lock.unlock();
         }
         try {
-            return factory.create();
+            T result = factory.create();
+            // Write pending updates while the action is still on the stack, so that a failure to write them is reported as a failure of the action.
+            // When the action fails, the updates are written at the end of a later unit of work or when the caches are closed
+            if (operations.isInOutermostCacheAction()) {
+                flushPendingUpdates();
+            }
+            return result;
         } finally {
             lock.lock();
             try {
@@ -236,6 +243,24 @@ public class DefaultCacheAccess implements CacheCoordinator {
         }
     }
 
+    /**
+     * Writes the updates held by the caches at the end of a unit of work. Updates are also written when the caches are closed, which happens when the
+     * file lock is released to another process.
+     */
+    private void flushPendingUpdates() {
+        lock.lock();
+        try {
+            if (fileLock == null) {
+                return;
+            }
+            for (DefaultMultiProcessSafePersistentIndexedCache cache : writeBehindCaches) {
+                cache.flush();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public <T> T longRunningOperation(String operationDisplayName, Factory<? extends T> action) {
         boolean wasEnded = startLongRunningOperation(operationDisplayName);
         try {
@@ -321,13 +346,16 @@ public class DefaultCacheAccess implements CacheCoordinator {
             }
         };
 
-        MultiProcessSafePersistentIndexedCache<K, V> indexedCache = new DefaultMultiProcessSafePersistentIndexedCache<K, V>(indexedCacheFactory, fileAccess);
+        DefaultMultiProcessSafePersistentIndexedCache<K, V> backingCache = new DefaultMultiProcessSafePersistentIndexedCache<K, V>(indexedCacheFactory, fileAccess, parameters.isWriteBehind());
         CacheDecorator decorator = parameters.getCacheDecorator();
-        indexedCache = decorator == null ? indexedCache : decorator.decorate(cacheFile.getAbsolutePath(), parameters.getCacheName(), indexedCache);
+        MultiProcessSafePersistentIndexedCache<K, V> indexedCache = decorator == null ? backingCache : decorator.decorate(cacheFile.getAbsolutePath(), parameters.getCacheName(), backingCache);
 
         lock.lock();
         try {
             caches.add(indexedCache);
+            if (parameters.isWriteBehind()) {
+                writeBehindCaches.add(backingCache);
+            }
             if (fileLock != null) {
                 String description = operations.isInCacheAction() ? operations.getDescription() : "cache creation";
                 indexedCache.onStartWork(description, stateAtOpen);
@@ -375,6 +403,11 @@ public class DefaultCacheAccess implements CacheCoordinator {
     }
 
     private FileLock getLock() {
+        checkOwner();
+        return fileLock;
+    }
+
+    private void checkOwner() {
         lock.lock();
         try {
             if (Thread.currentThread() != owner) {
@@ -383,10 +416,9 @@ public class DefaultCacheAccess implements CacheCoordinator {
         } finally {
             lock.unlock();
         }
-        return fileLock;
     }
 
-    private class UnitOfWorkFileAccess extends AbstractFileAccess {
+    private class UnitOfWorkFileAccess extends AbstractFileAccess implements OwnedFileAccess {
         @Override
         public String toString() {
             return cacheDisplayName;
@@ -403,6 +435,10 @@ public class DefaultCacheAccess implements CacheCoordinator {
         public void writeFile(Runnable action) throws LockTimeoutException {
             getLock().writeFile(action);
         }
+
+        public void checkOwner() {
+            DefaultCacheAccess.this.checkOwner();
+        }
     }
 
     Runnable whenContended() {
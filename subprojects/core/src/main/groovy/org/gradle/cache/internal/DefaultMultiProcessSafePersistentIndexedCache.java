@@ -15,21 +15,59 @@
  */
 package org.gradle.cache.internal;
 
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
 import org.gradle.internal.Factory;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements MultiProcessSafePersistentIndexedCache<K, V> {
+    private static final Logger LOGGER = Logging.getLogger(DefaultMultiProcessSafePersistentIndexedCache.class);
+    // The maximum number of updates to hold before writing them to the backing cache, regardless of whether the unit of work has finished
+    static final int MAX_PENDING_UPDATES = 10000;
+    private static final Object REMOVED = new Object();
+
     private final FileAccess fileAccess;
     private final Factory<BTreePersistentIndexedCache<K, V>> factory;
+    private final OwnedFileAccess ownedFileAccess;
+    private final boolean writeBehind;
+    private final Map<K, Object> pendingUpdates = new LinkedHashMap<K, Object>();
     private BTreePersistentIndexedCache<K, V> cache;
+    private int flushCount;
+    private int flushedUpdateCount;
+    private long flushTimeNanos;
 
     public DefaultMultiProcessSafePersistentIndexedCache(Factory<BTreePersistentIndexedCache<K, V>> factory, FileAccess fileAccess) {
         this.factory = factory;
         this.fileAccess = fileAccess;
+        this.ownedFileAccess = null;
+        this.writeBehind = false;
+    }
+
+    /**
+     * @param writeBehind when true, updates are held in memory and written to the backing cache as a batch when {@link #flush()} is called. Each
+     * access to the cache, including those that only touch the held updates, still checks that the calling thread owns the file access.
+     */
+    public DefaultMultiProcessSafePersistentIndexedCache(Factory<BTreePersistentIndexedCache<K, V>> factory, OwnedFileAccess fileAccess, boolean writeBehind) {
+        this.factory = factory;
+        this.fileAccess = fileAccess;
+        this.ownedFileAccess = fileAccess;
+        this.writeBehind = writeBehind;
     }
 
     public V get(final K key) {
+        checkOwner();
+        if (pendingUpdates.containsKey(key)) {
+            Object value = pendingUpdates.get(key);
+            return value == REMOVED ? null : (V) value;
+        }
         final PersistentIndexedCache<K, V> cache = getCache();
         try {
             return fileAccess.readFile(new Factory<V>() {
@@ -42,7 +80,42 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
         }
     }
 
+    public Map<K, V> getAll(Iterable<? extends K> keys) {
+        final Map<K, V> result = new HashMap<K, V>();
+        final List<K> toRead = new ArrayList<K>();
+        checkOwner();
+        for (K key : keys) {
+            if (pendingUpdates.containsKey(key)) {
+                Object value = pendingUpdates.get(key);
+                if (value != REMOVED) {
+                    result.put(key, (V) value);
+                }
+            } else {
+                toRead.add(key);
+            }
+        }
+        if (toRead.isEmpty()) {
+            return result;
+        }
+        final PersistentIndexedCache<K, V> cache = getCache();
+        try {
+            result.putAll(fileAccess.readFile(new Factory<Map<K, V>>() {
+                public Map<K, V> create() {
+                    return cache.getAll(toRead);
+                }
+            }));
+        } catch (FileIntegrityViolationException e) {
+            // Treat as missing, as for get()
+        }
+        return result;
+    }
+
     public void put(final K key, final V value) {
+        if (writeBehind) {
+            checkOwner();
+            addPendingUpdate(key, value);
+            return;
+        }
         final PersistentIndexedCache<K, V> cache = getCache();
         // Use writeFile because the cache can internally recover from datafile
         // corruption, so we don't care at this level if it's corrupt
@@ -54,6 +127,11 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
     }
 
     public void remove(final K key) {
+        if (writeBehind) {
+            checkOwner();
+            addPendingUpdate(key, REMOVED);
+            return;
+        }
         final PersistentIndexedCache<K, V> cache = getCache();
         // Use writeFile because the cache can internally recover from datafile
         // corruption, so we don't care at this level if it's corrupt
@@ -64,6 +142,50 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
         });
     }
 
+    private void checkOwner() {
+        // Held updates are not guarded by the file access, so check explicitly that they are only used within the owning unit of work
+        if (writeBehind) {
+            ownedFileAccess.checkOwner();
+        }
+    }
+
+    private void addPendingUpdate(K key, Object value) {
+        // Remove first, so that the entry moves to the end and updates are applied in the order they were made
+        pendingUpdates.remove(key);
+        pendingUpdates.put(key, value);
+        if (pendingUpdates.size() >= MAX_PENDING_UPDATES) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes any pending updates to the backing cache, while holding the write lock once for all of them.
+     */
+    public void flush() {
+        if (pendingUpdates.isEmpty()) {
+            return;
+        }
+        final PersistentIndexedCache<K, V> cache = getCache();
+        long start = System.nanoTime();
+        // Use writeFile because the cache can internally recover from datafile
+        // corruption, so we don't care at this level if it's corrupt
+        fileAccess.writeFile(new Runnable() {
+            public void run() {
+                for (Map.Entry<K, Object> entry : pendingUpdates.entrySet()) {
+                    if (entry.getValue() == REMOVED) {
+                        cache.remove(entry.getKey());
+                    } else {
+                        cache.put(entry.getKey(), (V) entry.getValue());
+                    }
+                }
+            }
+        });
+        flushCount++;
+        flushedUpdateCount += pendingUpdates.size();
+        flushTimeNanos += System.nanoTime() - start;
+        pendingUpdates.clear();
+    }
+
     public void onStartWork(String operationDisplayName, FileLock.State currentCacheState) {
     }
 
@@ -71,6 +193,21 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
     }
 
     public void close() {
+        try {
+            flush();
+        } finally {
+            pendingUpdates.clear();
+            if (flushCount > 0) {
+                LOGGER.debug("Wrote {} updates to {} in {} batches, taking {}ms.", flushedUpdateCount, fileAccess, flushCount, TimeUnit.NANOSECONDS.toMillis(flushTimeNanos));
+                flushCount = 0;
+                flushedUpdateCount = 0;
+                flushTimeNanos = 0;
+            }
+            closeCache();
+        }
+    }
+
+    private void closeCache() {
         if (cache != null) {
             try {
                 fileAccess.writeFile(new Runnable() {
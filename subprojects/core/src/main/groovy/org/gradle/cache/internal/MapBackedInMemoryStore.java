@@ -73,6 +73,18 @@ public class MapBackedInMemoryStore implements PersistentStore {
             return entries.get(key);
         }
 
+        @Override
+        public Map<K, V> getAll(Iterable<? extends K> keys) {
+            Map<K, V> result = Maps.newHashMap();
+            for (K key : keys) {
+                V value = entries.get(key);
+                if (value != null) {
+                    result.put(key, value);
+                }
+            }
+            return result;
+        }
+
         @Override
         public void put(K key, V value) {
             entries.put(key, value);
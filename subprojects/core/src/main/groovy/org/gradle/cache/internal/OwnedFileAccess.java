@@ -0,0 +1,28 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal;
+
+/**
+ * A {@link FileAccess} that may only be used by the thread that currently owns it.
+ */
+public interface OwnedFileAccess extends FileAccess {
+    /**
+     * Fails when the current thread does not own this file access.
+     *
+     * @throws IllegalStateException When the current thread is not the owner.
+     */
+    void checkOwner() throws IllegalStateException;
+}
@@ -17,6 +17,7 @@ package org.gradle.cache.internal.btree;
 
 import org.gradle.api.UncheckedIOException;
 import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
@@ -41,6 +42,7 @@ import java.util.*;
 // todo - merge adjacent free blocks
 // todo - use more efficient lookup for free block with nearest size
 public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache<K, V> {
+    public static final String MEMORY_MAPPED_PROPERTY = "org.gradle.cache.mmap";
     private static final Logger LOGGER = LoggerFactory.getLogger(BTreePersistentIndexedCache.class);
     private final File cacheFile;
     private final Serializer<K> keySerializer;
@@ -48,7 +50,13 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     private final short maxChildIndexEntries;
     private final int minIndexChildNodes;
     private final StateCheckBlockStore store;
+    private final FileBackedBlockStore fileStore;
+    private final CachingBlockStore cachingStore;
     private HeaderBlock header;
+    private long getCount;
+    private long batchCount;
+    private long putCount;
+    private long removeCount;
 
     public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
         this(cacheFile, keySerializer, valueSerializer, (short) 512, 512);
@@ -56,12 +64,19 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
     public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer,
                                        short maxChildIndexEntries, int maxFreeListEntries) {
+        this(cacheFile, keySerializer, valueSerializer, maxChildIndexEntries, maxFreeListEntries,
+            Boolean.getBoolean(MEMORY_MAPPED_PROPERTY) && !OperatingSystem.current().isWindows());
+    }
+
+    public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                                       short maxChildIndexEntries, int maxFreeListEntries, boolean memoryMapped) {
         this.cacheFile = cacheFile;
         this.keySerializer = keySerializer;
         this.serializer = valueSerializer;
         this.maxChildIndexEntries = maxChildIndexEntries;
         this.minIndexChildNodes = maxChildIndexEntries / 2;
-        BlockStore cachingStore = new CachingBlockStore(new FileBackedBlockStore(cacheFile), IndexBlock.class, FreeListBlockStore.FreeListBlock.class);
+        fileStore = memoryMapped ? new MemoryMappedBlockStore(cacheFile) : new FileBackedBlockStore(cacheFile);
+        cachingStore = new CachingBlockStore(fileStore, IndexBlock.class, FreeListBlockStore.FreeListBlock.class);
         store = new StateCheckBlockStore(new FreeListBlockStore(cachingStore, maxFreeListEntries));
         try {
             open();
@@ -113,6 +128,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     }
 
     public V get(K key) {
+        getCount++;
         try {
             try {
                 DataBlock block = header.getRoot().get(key);
@@ -129,13 +145,58 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
     }
 
+    /**
+     * Looks up the given keys in a single pass over the index: the keys are sorted by hash, so that each index block on the path to any of
+     * the keys is visited only once, and the data blocks are then read in file order.
+     */
+    public Map<K, V> getAll(Iterable<? extends K> keys) {
+        batchCount++;
+        Map<K, V> result = new HashMap<K, V>();
+        try {
+            try {
+                SortedMap<Long, List<K>> keysByHash = new TreeMap<Long, List<K>>();
+                for (K key : keys) {
+                    getCount++;
+                    long hashCode = hashKey(key);
+                    List<K> keysForHash = keysByHash.get(hashCode);
+                    if (keysForHash == null) {
+                        keysForHash = new ArrayList<K>(1);
+                        keysByHash.put(hashCode, keysForHash);
+                    }
+                    keysForHash.add(key);
+                }
+                if (keysByHash.isEmpty()) {
+                    return result;
+                }
+
+                List<IndexEntry> found = new ArrayList<IndexEntry>();
+                header.getRoot().findAll(new ArrayList<Long>(keysByHash.keySet()), found);
+                Collections.sort(found, new Comparator<IndexEntry>() {
+                    public int compare(IndexEntry entry, IndexEntry entry1) {
+                        return entry.dataBlock.compareTo(entry1.dataBlock);
+                    }
+                });
+                for (IndexEntry entry : found) {
+                    DataBlock block = store.read(entry.dataBlock, DataBlock.class);
+                    V value = block.getValue();
+                    for (K key : keysByHash.get(entry.hashCode)) {
+                        result.put(key, value);
+                    }
+                }
+                return result;
+            } catch (CorruptedCacheException e) {
+                rebuild();
+                return new HashMap<K, V>();
+            }
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not read entries from %s.", this), e);
+        }
+    }
+
     public void put(K key, V value) {
+        putCount++;
         try {
-            MessageDigestStream digestStream = new MessageDigestStream();
-            KryoBackedEncoder encoder = new KryoBackedEncoder(digestStream);
-            keySerializer.write(encoder, key);
-            encoder.flush();
-            long hashCode = digestStream.getChecksum();
+            long hashCode = hashKey(key);
             Lookup lookup = header.getRoot().find(hashCode);
             boolean needNewBlock = true;
             if (lookup.entry != null) {
@@ -157,6 +218,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     }
 
     public void remove(K key) {
+        removeCount++;
         try {
             Lookup lookup = header.getRoot().find(key);
             if (lookup.entry == null) {
@@ -171,6 +233,14 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
     }
 
+    private long hashKey(K key) throws Exception {
+        MessageDigestStream digestStream = new MessageDigestStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(digestStream);
+        keySerializer.write(encoder, key);
+        encoder.flush();
+        return digestStream.getChecksum();
+    }
+
     private IndexBlock load(BlockPointer pos, IndexRoot root, IndexBlock parent, int index) {
         IndexBlock block = store.read(pos, IndexBlock.class);
         block.root = root;
@@ -190,6 +260,9 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
     public void close() {
         LOGGER.debug("Closing {}", this);
+        if (getCount + putCount + removeCount > 0) {
+            LOGGER.debug("{}: {}", this, getStatistics());
+        }
         try {
             store.close();
         } catch (Exception e) {
@@ -197,6 +270,13 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
     }
 
+    /**
+     * Returns the statistics collected by this cache since it was created.
+     */
+    public Statistics getStatistics() {
+        return new Statistics(getCount, batchCount, putCount, removeCount, cachingStore.getHitCount(), cachingStore.getMissCount(), fileStore.getBlocksRead(), fileStore.getBytesRead());
+    }
+
     public boolean isOpen() {
         return store.isOpen();
     }
@@ -449,12 +529,45 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
 
         public Lookup find(K key) throws Exception {
-            MessageDigestStream digestStream = new MessageDigestStream();
-            KryoBackedEncoder encoder = new KryoBackedEncoder(digestStream);
-            keySerializer.write(encoder, key);
-            encoder.flush();
-            long checksum = digestStream.getChecksum();
-            return find(checksum);
+            return find(hashKey(key));
+        }
+
+        /**
+         * Finds the entries for the given hashes, which must be sorted. Each child block is loaded once, for all of the hashes that fall within it.
+         */
+        public void findAll(List<Long> hashCodes, List<IndexEntry> found) throws Exception {
+            List<Long> childHashCodes = new ArrayList<Long>();
+            int childIndex = -1;
+            for (Long hashCode : hashCodes) {
+                int index = Collections.binarySearch(entries, new IndexEntry(hashCode));
+                if (index >= 0) {
+                    found.add(entries.get(index));
+                    continue;
+                }
+                index = -index - 1;
+                if (index != childIndex && !childHashCodes.isEmpty()) {
+                    findAllInChild(childIndex, childHashCodes, found);
+                    childHashCodes = new ArrayList<Long>();
+                }
+                childIndex = index;
+                childHashCodes.add(hashCode);
+            }
+            if (!childHashCodes.isEmpty()) {
+                findAllInChild(childIndex, childHashCodes, found);
+            }
+        }
+
+        private void findAllInChild(int index, List<Long> hashCodes, List<IndexEntry> found) throws Exception {
+            BlockPointer childBlockPos;
+            if (index == entries.size()) {
+                childBlockPos = tailPos;
+            } else {
+                childBlockPos = entries.get(index).childIndexBlock;
+            }
+            if (childBlockPos.isNull()) {
+                return;
+            }
+            load(childBlockPos, root, this, index).findAll(hashCodes, found);
         }
 
         private Lookup find(long hashCode) throws Exception {
@@ -696,6 +809,72 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
     }
 
+    public static class Statistics {
+        private final long gets;
+        private final long batches;
+        private final long puts;
+        private final long removes;
+        private final long cacheHits;
+        private final long cacheMisses;
+        private final long blocksRead;
+        private final long bytesRead;
+
+        Statistics(long gets, long batches, long puts, long removes, long cacheHits, long cacheMisses, long blocksRead, long bytesRead) {
+            this.gets = gets;
+            this.batches = batches;
+            this.puts = puts;
+            this.removes = removes;
+            this.cacheHits = cacheHits;
+            this.cacheMisses = cacheMisses;
+            this.blocksRead = blocksRead;
+            this.bytesRead = bytesRead;
+        }
+
+        /**
+         * Returns the number of keys looked up, either individually or as part of a batch.
+         */
+        public long getGets() {
+            return gets;
+        }
+
+        /**
+         * Returns the number of batch lookups.
+         */
+        public long getBatches() {
+            return batches;
+        }
+
+        public long getPuts() {
+            return puts;
+        }
+
+        public long getRemoves() {
+            return removes;
+        }
+
+        public long getBlocksRead() {
+            return blocksRead;
+        }
+
+        public long getBytesRead() {
+            return bytesRead;
+        }
+
+        /**
+         * Returns the proportion of block reads that were served from the in-memory block cache.
+         */
+        public double getCacheHitRatio() {
+            long reads = cacheHits + cacheMisses;
+            return reads == 0 ? 0 : (double) cacheHits / reads;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d gets (%d batches), %d puts, %d removes, %d blocks read (%d bytes), block cache hit ratio %.2f",
+                gets, batches, puts, removes, blocksRead, bytesRead, getCacheHitRatio());
+        }
+    }
+
     private static class MessageDigestStream extends OutputStream {
         MessageDigest messageDigest;
 
@@ -24,6 +24,8 @@ public class CachingBlockStore implements BlockStore {
     private final Map<BlockPointer, BlockPayload> dirty = new LinkedHashMap<BlockPointer, BlockPayload>();
     private final Map<BlockPointer, BlockPayload> indexBlockCache = new LRUMap(100);
     private final Set<Class<?>> cachableTypes = new HashSet<Class<?>>();
+    private long hitCount;
+    private long missCount;
 
     public CachingBlockStore(BlockStore store, Class<? extends BlockPayload>... cacheableBlockTypes) {
         this.store = store;
@@ -75,12 +77,15 @@ public class CachingBlockStore implements BlockStore {
     public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
         T block = payloadType.cast(dirty.get(pos));
         if (block != null) {
+            hitCount++;
             return block;
         }
         block = payloadType.cast(indexBlockCache.get(pos));
         if (block != null) {
+            hitCount++;
             return block;
         }
+        missCount++;
         block = store.read(pos, payloadType);
         maybeCache(block);
         return block;
@@ -92,6 +97,20 @@ public class CachingBlockStore implements BlockStore {
         dirty.put(block.getPos(), block);
     }
 
+    /**
+     * Returns the number of reads that were served from a dirty or cached block.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of reads that had to be passed on to the backing store.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
     private <T extends BlockPayload> void maybeCache(T block) {
         if (cachableTypes.contains(block.getClass())) {
             indexBlockCache.put(block.getPos(), block);
@@ -29,6 +29,8 @@ public class FileBackedBlockStore implements BlockStore {
     private long nextBlock;
     private Factory factory;
     private long currentFileSize;
+    private long blocksRead;
+    private long bytesRead;
 
     public FileBackedBlockStore(File cacheFile) {
         this.cacheFile = cacheFile;
@@ -115,6 +117,28 @@ public class FileBackedBlockStore implements BlockStore {
         }
     }
 
+    /**
+     * Returns the number of blocks read from the file.
+     */
+    public long getBlocksRead() {
+        return blocksRead;
+    }
+
+    /**
+     * Returns the number of bytes read from the file, including the block headers.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Opens a stream to read the given file from the given position. The file is known to be {@code fileLength} bytes long.
+     */
+    protected InputStream openInputStream(RandomAccessFile file, long pos, long fileLength) throws IOException {
+        file.seek(pos);
+        return new BufferedInputStream(new RandomAccessFileInputStream(file));
+    }
+
     private long alloc(long length) {
         long pos = nextBlock;
         nextBlock += length;
@@ -209,10 +233,7 @@ public class FileBackedBlockStore implements BlockStore {
             if (pos + HEADER_SIZE >= currentFileSize) {
                 throw blockCorruptedException();
             }
-            file.seek(pos);
-
-            CountingInputStream countingInputStream = new CountingInputStream(new BufferedInputStream(
-                    new RandomAccessFileInputStream(file)));
+            CountingInputStream countingInputStream = new CountingInputStream(openInputStream(file, pos, currentFileSize));
             DataInputStream inputStream = new DataInputStream(countingInputStream);
 
             BlockPayload payload = getPayload();
@@ -241,6 +262,8 @@ public class FileBackedBlockStore implements BlockStore {
                 throw blockCorruptedException();
             }
             inputStream.close();
+            blocksRead++;
+            bytesRead += HEADER_SIZE + TAIL_SIZE + payloadSize;
         }
 
         public RuntimeException blockCorruptedException() {
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import org.gradle.internal.io.ByteBufferInputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link FileBackedBlockStore} that reads blocks from a memory mapping of the file, rather than with a seek and read for each block.
+ * The mapping is extended to cover the whole file when a block is read beyond its end. Blocks are written in the same way as {@link FileBackedBlockStore}.
+ *
+ * <p>A mapping is only released when it is garbage collected, so this store should not be used where an open mapping prevents the file from being
+ * truncated, such as on Windows.</p>
+ */
+public class MemoryMappedBlockStore extends FileBackedBlockStore {
+    private MappedByteBuffer mapping;
+
+    public MemoryMappedBlockStore(File cacheFile) {
+        super(cacheFile);
+    }
+
+    @Override
+    protected InputStream openInputStream(RandomAccessFile file, long pos, long fileLength) throws IOException {
+        if (fileLength > Integer.MAX_VALUE) {
+            return super.openInputStream(file, pos, fileLength);
+        }
+        if (mapping == null || mapping.capacity() < fileLength) {
+            mapping = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, fileLength);
+        }
+        ByteBuffer block = mapping.duplicate();
+        block.position((int) pos);
+        return new ByteBufferInputStream(block);
+    }
+
+    @Override
+    public void clear() {
+        mapping = null;
+        super.clear();
+    }
+
+    @Override
+    public void close() {
+        mapping = null;
+        super.close();
+    }
+}
@@ -40,6 +40,13 @@ class CacheOperationStack {
         return !operations.isEmpty() && !operations.get(0).longRunningOperation;
     }
 
+    /**
+     * Returns true when the current operation is a cache action that is not nested in another cache action, other than across a long running operation.
+     */
+    public boolean isInOutermostCacheAction() {
+        return isInCacheAction() && (operations.size() == 1 || operations.get(1).longRunningOperation);
+    }
+
     public boolean isInLongRunningOperation() {
         return !operations.isEmpty() && !isInCacheAction();
     }
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.api.BuildCancelledException;
+import org.gradle.api.Project;
+import org.gradle.api.internal.project.CrossProjectConfigurationDetector;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.initialization.BuildCancellationToken;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
+import org.gradle.internal.operations.DefaultBuildOperationProcessor;
+import org.gradle.internal.operations.MultipleBuildOperationFailures;
+import org.gradle.internal.resource.Resource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Configures the projects of a hierarchy using multiple threads. A project is always configured after its parent. Sibling projects whose build script does not
+ * appear to configure other projects are configured in parallel, and the remaining projects are configured sequentially afterwards.
+ *
+ * <p>The whole hierarchy is configured sequentially when the build uses init scripts, or when any build script applies a script plugin or uses
+ * {@code allprojects} or {@code subprojects}, as the configuration these apply cannot be seen from the build scripts alone.</p>
+ *
+ * <p>Projects that configure other projects from code that is still not visible, such as a binary plugin, are detected by
+ * {@link CrossProjectConfigurationDetector} and fail with an error.</p>
+ */
+public class ParallelProjectConfigurer implements ProjectConfigurer {
+    /**
+     * The system property that enables parallel project configuration. This is an experimental feature: whether a project can be configured in parallel is
+     * decided by scanning the text of the build scripts, and plugins that are not thread-safe can still fail the build.
+     */
+    public static final String ENABLE_PROPERTY = "org.gradle.configuration.parallel";
+
+    private static final Logger LOGGER = Logging.getLogger(ParallelProjectConfigurer.class);
+    private static final Pattern BUILD_WIDE_CONFIGURATION = Pattern.compile(
+        "\\b(?:allprojects|subprojects|beforeProject|afterProject)\\b"
+            + "|\\bapply\\b[^\\n]*\\bfrom\\s*:");
+    private static final Pattern CROSS_PROJECT_CONFIGURATION = Pattern.compile(
+        "\\bevaluationDependsOn\\w*\\b"
+            + "|(?<![\\w.])configure\\s*\\("
+            + "|(?<![\\w.])(?:project\\s*\\.\\s*)?parent\\s*[.{]"
+            + "|\\bproject\\s*\\([^)]*\\)\\s*[.{]");
+
+    private final BuildCancellationToken cancellationToken;
+    private final ExecutorFactory executorFactory;
+    private final int maxWorkerCount;
+    private final ProjectConfigurer sequentialConfigurer;
+
+    public ParallelProjectConfigurer(BuildCancellationToken cancellationToken, ExecutorFactory executorFactory, int maxWorkerCount) {
+        this.cancellationToken = cancellationToken;
+        this.executorFactory = executorFactory;
+        this.maxWorkerCount = maxWorkerCount;
+        this.sequentialConfigurer = new TaskPathProjectEvaluator(cancellationToken);
+    }
+
+    public void configure(ProjectInternal project) {
+        sequentialConfigurer.configure(project);
+    }
+
+    public void configureHierarchy(ProjectInternal project) {
+        if (!canConfigureHierarchyInParallel(project)) {
+            LOGGER.info("Configuring projects sequentially as the build uses init scripts, script plugins or cross project configuration.");
+            sequentialConfigurer.configureHierarchy(project);
+            return;
+        }
+
+        sequentialConfigurer.configure(project);
+
+        TreeMap<Integer, List<ProjectInternal>> projectsByDepth = new TreeMap<Integer, List<ProjectInternal>>();
+        for (Project subproject : project.getSubprojects()) {
+            int depth = subproject.getDepth();
+            List<ProjectInternal> projects = projectsByDepth.get(depth);
+            if (projects == null) {
+                projects = new ArrayList<ProjectInternal>();
+                projectsByDepth.put(depth, projects);
+            }
+            projects.add((ProjectInternal) subproject);
+        }
+
+        DefaultBuildOperationProcessor buildOperationProcessor = new DefaultBuildOperationProcessor(executorFactory, maxWorkerCount);
+        try {
+            for (List<ProjectInternal> projects : projectsByDepth.values()) {
+                List<ProjectInternal> sequentialProjects = new ArrayList<ProjectInternal>();
+                BuildOperationQueue<ConfigureProject> queue = buildOperationProcessor.newQueue(new ConfigureProjectWorker(), null);
+                for (ProjectInternal subproject : projects) {
+                    if (canConfigureInParallel(subproject)) {
+                        queue.add(new ConfigureProject(subproject));
+                    } else {
+                        LOGGER.info("Configuring {} sequentially as its build script may configure other projects.", subproject);
+                        sequentialProjects.add(subproject);
+                    }
+                }
+                waitForCompletion(queue);
+                for (ProjectInternal subproject : sequentialProjects) {
+                    sequentialConfigurer.configure(subproject);
+                }
+            }
+        } finally {
+            buildOperationProcessor.stop();
+        }
+    }
+
+    private static void waitForCompletion(BuildOperationQueue<ConfigureProject> queue) {
+        try {
+            queue.waitForCompletion();
+        } catch (MultipleBuildOperationFailures e) {
+            // Report a single failure the same way as when configuring sequentially
+            if (e.getCauses().size() == 1) {
+                throw UncheckedException.throwAsUncheckedException(e.getCauses().get(0));
+            }
+            throw e;
+        }
+    }
+
+    private static boolean canConfigureHierarchyInParallel(ProjectInternal project) {
+        // Init scripts can hook into the configuration of every project, and cannot be checked in the same way as build scripts
+        if (!project.getGradle().getStartParameter().getAllInitScripts().isEmpty()) {
+            return false;
+        }
+        for (Project candidate : project.getRootProject().getAllprojects()) {
+            if (buildScriptMatches((ProjectInternal) candidate, BUILD_WIDE_CONFIGURATION)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean canConfigureInParallel(ProjectInternal project) {
+        return !buildScriptMatches(project, CROSS_PROJECT_CONFIGURATION);
+    }
+
+    private static boolean buildScriptMatches(ProjectInternal project, Pattern pattern) {
+        Resource buildScript = project.getBuildScriptSource().getResource();
+        return buildScript.getExists() && pattern.matcher(buildScript.getText()).find();
+    }
+
+    private static class ConfigureProject implements BuildOperation {
+        private final ProjectInternal project;
+
+        ConfigureProject(ProjectInternal project) {
+            this.project = project;
+        }
+
+        public String getDescription() {
+            return "configure " + project;
+        }
+    }
+
+    private class ConfigureProjectWorker implements BuildOperationWorker<ConfigureProject> {
+        public void execute(ConfigureProject operation) {
+            if (cancellationToken.isCancellationRequested()) {
+                throw new BuildCancelledException();
+            }
+            CrossProjectConfigurationDetector.setConfiguringProject(operation.project);
+            try {
+                operation.project.evaluate();
+            } finally {
+                CrossProjectConfigurationDetector.setConfiguringProject(null);
+            }
+        }
+
+        public String getDisplayName() {
+            return "project configuration";
+        }
+    }
+}
@@ -18,7 +18,6 @@ package org.gradle.execution.taskgraph;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
-import com.google.common.base.StandardSystemProperty;
 import com.google.common.collect.*;
 import org.gradle.api.*;
 import org.gradle.api.internal.TaskInternal;
@@ -57,6 +56,7 @@ import java.util.concurrent.locks.ReentrantLock;
 public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
     public static final String INTRA_PROJECT_TOGGLE = "org.gradle.parallel.intra";
+    public static final String CRITICAL_PATH_TOGGLE = "org.gradle.parallel.criticalpath";
 
     private final static Logger LOGGER = Logging.getLogger(DefaultTaskExecutionPlan.class);
 
@@ -66,7 +66,17 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private final Set<TaskInfo> entryTasks = new LinkedHashSet<TaskInfo>();
     private final TaskDependencyGraph graph = new TaskDependencyGraph();
     private final LinkedHashMap<Task, TaskInfo> executionPlan = new LinkedHashMap<Task, TaskInfo>();
-    private final List<TaskInfo> executionQueue = new LinkedList<TaskInfo>();
+    private final Map<TaskInfo, Integer> executionQueuePositions = new HashMap<TaskInfo, Integer>();
+    private final Multimap<TaskInfo, TaskInfo> mustRunAfterPredecessors = HashMultimap.create();
+    // Tasks that may be able to start, in execution plan order. Contains every task that is ready and whose dependencies are complete, but may also
+    // contain tasks that can no longer start. These are discarded when the queue is scanned.
+    private final TreeSet<TaskInfo> readyQueue = new TreeSet<TaskInfo>(new Comparator<TaskInfo>() {
+        public int compare(TaskInfo o1, TaskInfo o2) {
+            return executionQueuePositions.get(o1).compareTo(executionQueuePositions.get(o2));
+        }
+    });
+    // The number of tasks that still need to either start or be skipped
+    private int pendingTaskCount;
     private final List<Throwable> failures = new ArrayList<Throwable>();
     private Spec<? super Task> filter = Specs.satisfyAll();
 
@@ -76,18 +86,41 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private final Multiset<String> projectsWithRunningNonParallelizableTasks = HashMultiset.create();
     private final Set<TaskInternal> runningTasks = Sets.newIdentityHashSet();
     private final Map<Task, Set<String>> canonicalizedOutputCache = Maps.newIdentityHashMap();
+    // Canonical paths are cached for the whole build, as the same output paths are checked many times while tasks wait to run
+    private final Map<File, String> canonicalPathCache = Maps.newHashMap();
+    private final OutputPathIndex runningTaskOutputs = new OutputPathIndex();
     private final Map<Task, Boolean> isParallelSafeCache = Maps.newIdentityHashMap();
     private boolean tasksCancelled;
 
     private final boolean intraProjectParallelization;
-
-    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization) {
+    private final TaskDurationHistory taskDurationHistory;
+    private final boolean criticalPathPrioritization;
+    private final Map<TaskInfo, Long> taskStartTimes = new HashMap<TaskInfo, Long>();
+
+    /**
+     * @param taskDurationHistory the history to record task durations in, or null to not record durations.
+     * @param prioritizeCriticalPath whether to use the recorded durations to reorder ready tasks. Only useful when tasks are executed in parallel.
+     */
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization, @Nullable TaskDurationHistory taskDurationHistory, boolean prioritizeCriticalPath) {
         this.cancellationToken = cancellationToken;
         this.intraProjectParallelization = intraProjectParallelization;
+        this.taskDurationHistory = taskDurationHistory;
+        this.criticalPathPrioritization = taskDurationHistory != null && prioritizeCriticalPath;
 
         if (intraProjectParallelization) {
             LOGGER.info("intra project task parallelization is enabled");
         }
+        if (criticalPathPrioritization) {
+            LOGGER.info("critical path task prioritization is enabled");
+        }
+    }
+
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, boolean intraProjectParallelization) {
+        this(cancellationToken, intraProjectParallelization, null, false);
+    }
+
+    public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken, TaskDurationHistory taskDurationHistory, boolean parallelExecution) {
+        this(cancellationToken, Boolean.getBoolean(INTRA_PROJECT_TOGGLE), Boolean.getBoolean(CRITICAL_PATH_TOGGLE) ? taskDurationHistory : null, parallelExecution);
     }
 
     public DefaultTaskExecutionPlan(BuildCancellationToken cancellationToken) {
@@ -305,8 +338,115 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 }
             }
         }
-        executionQueue.clear();
-        executionQueue.addAll(executionPlan.values());
+        initializeReadyQueue();
+    }
+
+    private void initializeReadyQueue() {
+        executionQueuePositions.clear();
+        mustRunAfterPredecessors.clear();
+        readyQueue.clear();
+        pendingTaskCount = 0;
+        for (TaskInfo taskInfo : executionPlan.values()) {
+            executionQueuePositions.put(taskInfo, executionQueuePositions.size());
+            for (TaskInfo mustRunAfter : taskInfo.getMustSuccessors()) {
+                mustRunAfterPredecessors.put(mustRunAfter, taskInfo);
+            }
+        }
+        if (criticalPathPrioritization) {
+            prioritizeCriticalPath();
+        }
+        for (TaskInfo taskInfo : executionPlan.values()) {
+            if (!taskInfo.isComplete()) {
+                pendingTaskCount++;
+            }
+            maybeAddToReadyQueue(taskInfo);
+        }
+    }
+
+    /**
+     * Reorders the queue positions so that, of the tasks that are ready, the one with the longest chain of work remaining after it starts first.
+     * The remaining work of a task is its own historical duration plus the largest remaining work of any task that has to wait for it.
+     * Tasks are only reordered amongst those scheduled for the same entry task, so that entry tasks still start in the order requested.
+     * A task that should run after another is treated as waiting for it, so it is never moved ahead of that task.
+     */
+    private void prioritizeCriticalPath() {
+        List<TaskInfo> tasks = new ArrayList<TaskInfo>(executionPlan.values());
+        List<String> taskPaths = new ArrayList<String>(tasks.size());
+        for (TaskInfo taskInfo : tasks) {
+            taskPaths.add(taskInfo.getTask().getPath());
+        }
+        Map<String, Long> durations = taskDurationHistory.getDurations(taskPaths);
+
+        // Should run after ordering is only expressed by the order of the plan, so needs to be kept explicitly
+        Multimap<TaskInfo, TaskInfo> shouldRunAfterPredecessors = HashMultimap.create();
+        for (TaskInfo taskInfo : tasks) {
+            for (TaskInfo shouldRunAfter : taskInfo.getShouldSuccessors()) {
+                shouldRunAfterPredecessors.put(shouldRunAfter, taskInfo);
+            }
+        }
+
+        final Map<TaskInfo, Long> remainingWork = new HashMap<TaskInfo, Long>();
+        for (int i = tasks.size() - 1; i >= 0; i--) {
+            TaskInfo taskInfo = tasks.get(i);
+            long waitingWork = 0;
+            for (TaskInfo dependent : Iterables.concat(taskInfo.getDependencyPredecessors(), mustRunAfterPredecessors.get(taskInfo), shouldRunAfterPredecessors.get(taskInfo), taskInfo.getFinalizers())) {
+                Long work = remainingWork.get(dependent);
+                if (work != null) {
+                    waitingWork = Math.max(waitingWork, work);
+                }
+            }
+            Long duration = durations.get(taskInfo.getTask().getPath());
+            remainingWork.put(taskInfo, waitingWork + (duration == null ? 0 : duration));
+        }
+
+        final Map<TaskInfo, Integer> entryTaskGroups = new HashMap<TaskInfo, Integer>();
+        int group = 0;
+        for (TaskInfo taskInfo : tasks) {
+            entryTaskGroups.put(taskInfo, group);
+            if (entryTasks.contains(taskInfo)) {
+                group++;
+            }
+        }
+
+        Collections.sort(tasks, new Comparator<TaskInfo>() {
+            public int compare(TaskInfo o1, TaskInfo o2) {
+                int result = entryTaskGroups.get(o1).compareTo(entryTaskGroups.get(o2));
+                if (result == 0) {
+                    result = remainingWork.get(o2).compareTo(remainingWork.get(o1));
+                }
+                if (result == 0) {
+                    result = executionQueuePositions.get(o1).compareTo(executionQueuePositions.get(o2));
+                }
+                return result;
+            }
+        });
+        for (int i = 0; i < tasks.size(); i++) {
+            executionQueuePositions.put(tasks.get(i), i);
+        }
+    }
+
+    private void maybeAddToReadyQueue(TaskInfo taskInfo) {
+        if (taskInfo.isReady() && taskInfo.allDependenciesComplete() && executionQueuePositions.containsKey(taskInfo)) {
+            readyQueue.add(taskInfo);
+        }
+    }
+
+    /**
+     * Called when the given task has completed, to queue any tasks that were waiting for it.
+     */
+    private void addDependentsToReadyQueue(TaskInfo taskInfo) {
+        for (TaskInfo dependent : taskInfo.getDependencyPredecessors()) {
+            maybeAddToReadyQueue(dependent);
+        }
+        for (TaskInfo dependent : mustRunAfterPredecessors.get(taskInfo)) {
+            maybeAddToReadyQueue(dependent);
+        }
+    }
+
+    private void skipExecution(TaskInfo taskInfo) {
+        taskInfo.skipExecution();
+        pendingTaskCount--;
+        addDependentsToReadyQueue(taskInfo);
     }
 
     private void maybeRemoveProcessedShouldRunAfterEdge(Stack<GraphEdge> walkedShouldRunAfterEdges, TaskInfo taskNode) {
@@ -427,13 +567,19 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             graph.clear();
             entryTasks.clear();
             executionPlan.clear();
-            executionQueue.clear();
+            executionQueuePositions.clear();
+            mustRunAfterPredecessors.clear();
+            readyQueue.clear();
+            pendingTaskCount = 0;
             failures.clear();
             projectsWithRunningTasks.clear();
             projectsWithRunningNonParallelizableTasks.clear();
             canonicalizedOutputCache.clear();
+            canonicalPathCache.clear();
+            runningTaskOutputs.clear();
             isParallelSafeCache.clear();
             runningTasks.clear();
+            taskStartTimes.clear();
         } finally {
             lock.unlock();
         }
@@ -461,18 +607,22 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                     }
                 }
                 TaskInfo nextMatching = null;
-                boolean allTasksComplete = true;
-                Iterator<TaskInfo> iterator = executionQueue.iterator();
+                Iterator<TaskInfo> iterator = readyQueue.iterator();
                 while (iterator.hasNext()) {
                     TaskInfo taskInfo = iterator.next();
-                    allTasksComplete = allTasksComplete && taskInfo.isComplete();
-                    if (taskInfo.isReady() && taskInfo.allDependenciesComplete() && canRunWithWithCurrentlyExecutedTasks(taskInfo)) {
+                    if (!taskInfo.isReady()) {
+                        // Has been skipped or started since it was queued
+                        iterator.remove();
+                        continue;
+                    }
+                    if (taskInfo.allDependenciesComplete() && canRunWithWithCurrentlyExecutedTasks(taskInfo)) {
                         nextMatching = taskInfo;
                         iterator.remove();
                         break;
                     }
                 }
-                if (allTasksComplete) {
+                if (nextMatching == null && pendingTaskCount == 0 && runningTasks.isEmpty()) {
+                    // A running task may still cause more tasks to run, by enforcing its finalizers, so only stop once it has completed
                     return null;
                 }
                 if (nextMatching == null) {
@@ -484,10 +634,11 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 } else {
                     if (nextMatching.allDependenciesSuccessful()) {
                         nextMatching.startExecution();
+                        pendingTaskCount--;
                         recordTaskStarted(nextMatching);
                         return nextMatching;
                     } else {
-                        nextMatching.skipExecution();
+                        skipExecution(nextMatching);
                         condition.signalAll();
                     }
                 }
@@ -527,13 +678,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             paths = Sets.newHashSet(Iterables.transform(task.getOutputs().getFiles(), new Function<File, String>() {
                 @Override
                 public String apply(File file) {
-                    String path;
-                    try {
-                        path = file.getCanonicalPath();
-                    } catch (IOException e) {
-                        throw new UncheckedIOException(e);
-                    }
-                    return path;
+                    return canonicalPath(file);
                 }
             }));
             canonicalizedOutputCache.put(task, paths);
@@ -542,43 +687,35 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         return paths;
     }
 
+    private String canonicalPath(File file) {
+        String path = canonicalPathCache.get(file);
+        if (path == null) {
+            try {
+                path = file.getCanonicalPath();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            canonicalPathCache.put(file, path);
+        }
+        return path;
+    }
+
     @Nullable
     private Pair<TaskInternal, String> firstTaskWithOverlappingOutput(TaskInternal candidateTask) {
-        if (runningTasks.isEmpty()) {
+        if (runningTaskOutputs.isEmpty()) {
             return null;
         }
 
         for (String candidateTaskOutputPath : canonicalizedOutputPaths(candidateTask)) {
-            for (TaskInternal runningTask : runningTasks) {
-                for (String runningTaskOutputPath : canonicalizedOutputPaths(runningTask)) {
-                    if (pathsOverlap(candidateTaskOutputPath, runningTaskOutputPath)) {
-                        return Pair.of(runningTask, TextUtil.shorterOf(candidateTaskOutputPath, runningTaskOutputPath));
-                    }
-                }
+            Pair<TaskInternal, String> overlap = runningTaskOutputs.findOverlap(candidateTaskOutputPath);
+            if (overlap != null) {
+                return Pair.of(overlap.left, TextUtil.shorterOf(candidateTaskOutputPath, overlap.right));
             }
         }
 
         return null;
     }
 
-
-    private boolean pathsOverlap(String firstPath, String secondPath) {
-        if (firstPath.equals(secondPath)) {
-            return true;
-        }
-
-        String shorter;
-        String longer;
-        if (firstPath.length() > secondPath.length()) {
-            shorter = secondPath;
-            longer = firstPath;
-        } else {
-            shorter = firstPath;
-            longer = secondPath;
-        }
-        return longer.startsWith(shorter + StandardSystemProperty.FILE_SEPARATOR.value());
-    }
-
     boolean isParallelizable(TaskInternal task) {
         if (intraProjectParallelization) {
             Boolean safe = isParallelSafeCache.get(task);
@@ -613,6 +750,12 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
         projectsWithRunningTasks.add(projectPath);
         runningTasks.add(task);
+        for (String path : canonicalizedOutputPaths(task)) {
+            runningTaskOutputs.add(path, task);
+        }
+        if (taskDurationHistory != null) {
+            taskStartTimes.put(taskInfo, System.currentTimeMillis());
+        }
     }
 
     private void recordTaskCompleted(TaskInfo taskInfo) {
@@ -622,9 +765,17 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             projectsWithRunningNonParallelizableTasks.remove(projectPath);
         }
         projectsWithRunningTasks.remove(projectPath);
+        for (String path : canonicalizedOutputPaths(task)) {
+            runningTaskOutputs.remove(path, task);
+        }
         canonicalizedOutputCache.remove(task);
         isParallelSafeCache.remove(task);
         runningTasks.remove(task);
+        Long startTime = taskStartTimes.remove(taskInfo);
+        if (startTime != null && !taskInfo.isFailed() && task.getDidWork()) {
+            // Up-to-date and skipped tasks say little about how long the task takes when it has to run, so keep the previous duration
+            taskDurationHistory.recordDuration(task.getPath(), System.currentTimeMillis() - startTime);
+        }
     }
 
     public void taskComplete(TaskInfo taskInfo) {
@@ -637,6 +788,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
             taskInfo.finishExecution();
             recordTaskCompleted(taskInfo);
+            addDependentsToReadyQueue(taskInfo);
             condition.signalAll();
         } finally {
             lock.unlock();
@@ -662,7 +814,11 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             enforceWithDependencies(dependencyNode, enforcedTasks);
         }
         if (node.isMustNotRun() || node.isRequired()) {
+            if (node.isComplete()) {
+                pendingTaskCount++;
+            }
             node.enforceRun();
+            maybeAddToReadyQueue(node);
         }
     }
 
@@ -691,7 +847,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         boolean aborted = false;
         for (TaskInfo taskInfo : executionPlan.values()) {
             if (taskInfo.isRequired()) {
-                taskInfo.skipExecution();
+                skipExecution(taskInfo);
                 aborted = true;
             }
         }
@@ -701,7 +857,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     public void awaitCompletion() {
         lock.lock();
         try {
-            while (!allTasksComplete()) {
+            while (pendingTaskCount > 0 || !runningTasks.isEmpty()) {
                 try {
                     condition.await();
                 } catch (InterruptedException e) {
@@ -729,15 +885,6 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         throw UncheckedException.throwAsUncheckedException(failures.get(0));
     }
 
-    private boolean allTasksComplete() {
-        for (TaskInfo taskInfo : executionPlan.values()) {
-            if (!taskInfo.isComplete()) {
-                return false;
-            }
-        }
-        return true;
-    }
-
     private static class GraphEdge {
         private final TaskInfo from;
         private final TaskInfo to;
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.internal.Pair;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the output paths of the running tasks, arranged as a tree of path segments. Finding the running task whose output contains, or is contained by,
+ * a given path takes time proportional to the depth of the path, regardless of the number of running tasks or output paths.
+ *
+ * <p>Paths must be canonical.</p>
+ */
+class OutputPathIndex {
+    private final Node root = new Node();
+
+    public void add(String path, TaskInternal task) {
+        Node node = root;
+        node.ownersInTree++;
+        for (String segment : segments(path)) {
+            Node child = node.children.get(segment);
+            if (child == null) {
+                child = new Node();
+                node.children.put(segment, child);
+            }
+            node = child;
+            node.ownersInTree++;
+        }
+        node.path = path;
+        node.owners.add(task);
+    }
+
+    public void remove(String path, TaskInternal task) {
+        List<Node> nodes = new ArrayList<Node>();
+        Node node = root;
+        nodes.add(node);
+        for (String segment : segments(path)) {
+            node = node.children.get(segment);
+            if (node == null) {
+                return;
+            }
+            nodes.add(node);
+        }
+        if (!node.owners.remove(task)) {
+            return;
+        }
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            Node current = nodes.get(i);
+            current.ownersInTree--;
+            if (current.ownersInTree == 0 && i > 0) {
+                // Prune the subtree, as nothing is left in it
+                nodes.get(i - 1).children.values().remove(current);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return root.ownersInTree == 0;
+    }
+
+    /**
+     * Returns a running task with an output that is the given path, an ancestor of the given path or a descendant of the given path, along with that output path.
+     */
+    @Nullable
+    public Pair<TaskInternal, String> findOverlap(String path) {
+        Node node = root;
+        for (String segment : segments(path)) {
+            if (!node.owners.isEmpty()) {
+                return Pair.of(node.owners.get(0), node.path);
+            }
+            node = node.children.get(segment);
+            if (node == null) {
+                return null;
+            }
+        }
+        // Any output at or below the given path overlaps
+        while (node.owners.isEmpty()) {
+            if (node.children.isEmpty()) {
+                return null;
+            }
+            node = node.children.values().iterator().next();
+        }
+        return Pair.of(node.owners.get(0), node.path);
+    }
+
+    public void clear() {
+        root.children.clear();
+        root.owners.clear();
+        root.ownersInTree = 0;
+    }
+
+    private static String[] segments(String path) {
+        return path.split(File.separatorChar == '\\' ? "\\\\" : File.separator);
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<String, Node>();
+        private final List<TaskInternal> owners = new ArrayList<TaskInternal>(1);
+        // The number of owners of this node and its descendants
+        private int ownersInTree;
+        // The path of this node, as it was given to add(), when it has owners
+        private String path;
+    }
+}
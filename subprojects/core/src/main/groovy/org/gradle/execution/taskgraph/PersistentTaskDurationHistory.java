@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.api.invocation.Gradle;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.cache.internal.FileLockManager;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * A {@link TaskDurationHistory} stored in the build's cache directory. Durations recorded during the build are held in memory and written when the build finishes.
+ * The cache is only opened when the history is first used.
+ */
+public class PersistentTaskDurationHistory implements TaskDurationHistory, Closeable {
+    private final Gradle gradle;
+    private final CacheRepository cacheRepository;
+    private final Map<String, Long> pendingUpdates = new HashMap<String, Long>();
+    private PersistentCache cache;
+    private PersistentIndexedCache<String, Long> durations;
+
+    public PersistentTaskDurationHistory(Gradle gradle, CacheRepository cacheRepository) {
+        this.gradle = gradle;
+        this.cacheRepository = cacheRepository;
+    }
+
+    public synchronized Map<String, Long> getDurations(final Collection<String> taskPaths) {
+        open();
+        final Map<String, Long> result = new HashMap<String, Long>();
+        cache.useCache("read task durations", new Runnable() {
+            public void run() {
+                for (String taskPath : taskPaths) {
+                    Long duration = pendingUpdates.get(taskPath);
+                    if (duration == null) {
+                        duration = durations.get(taskPath);
+                    }
+                    if (duration != null) {
+                        result.put(taskPath, duration);
+                    }
+                }
+            }
+        });
+        return result;
+    }
+
+    public synchronized void recordDuration(String taskPath, long durationMillis) {
+        pendingUpdates.put(taskPath, durationMillis);
+    }
+
+    public synchronized void close() {
+        if (!pendingUpdates.isEmpty()) {
+            open();
+            cache.useCache("write task durations", new Runnable() {
+                public void run() {
+                    for (Map.Entry<String, Long> entry : pendingUpdates.entrySet()) {
+                        durations.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            });
+            pendingUpdates.clear();
+        }
+        if (cache != null) {
+            cache.close();
+            cache = null;
+            durations = null;
+        }
+    }
+
+    private void open() {
+        if (cache == null) {
+            cache = cacheRepository
+                    .cache(gradle, "taskDurations")
+                    .withDisplayName("task duration history")
+                    .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
+                    .open();
+            durations = cache.createCache(new PersistentIndexedCacheParameters<String, Long>("taskDurations", String.class, BaseSerializerFactory.LONG_SERIALIZER));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Remembers how long tasks took to execute in previous builds, so that the execution plan can prioritise long chains of work.
+ */
+public interface TaskDurationHistory {
+    /**
+     * Returns the most recently recorded duration in milliseconds for each of the given task paths. Tasks with no recorded duration are not included in the result.
+     */
+    Map<String, Long> getDurations(Collection<String> taskPaths);
+
+    /**
+     * Records the duration of an execution of the given task.
+     */
+    void recordDuration(String taskPath, long durationMillis);
+}
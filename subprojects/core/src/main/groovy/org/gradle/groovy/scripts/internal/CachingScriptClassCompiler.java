@@ -15,7 +15,6 @@
  */
 package org.gradle.groovy.scripts.internal;
 
-import com.google.common.collect.Maps;
 import groovy.lang.Script;
 import org.codehaus.groovy.ast.ClassNode;
 import org.gradle.api.Action;
@@ -23,10 +22,12 @@ import org.gradle.api.internal.initialization.loadercache.ClassLoaderId;
 import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.internal.Cast;
 
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class CachingScriptClassCompiler implements ScriptClassCompiler {
-    private final Map<Key, CompiledScript<?, ?>> cachedCompiledScripts = Maps.newHashMap();
+    // Projects may be configured in parallel, see ParallelProjectConfigurer
+    private final ConcurrentMap<Key, CompiledScript<?, ?>> cachedCompiledScripts = new ConcurrentHashMap<Key, CompiledScript<?, ?>>();
     private final ScriptClassCompiler scriptClassCompiler;
 
     public CachingScriptClassCompiler(ScriptClassCompiler scriptClassCompiler) {
@@ -39,7 +40,10 @@ public class CachingScriptClassCompiler implements ScriptClassCompiler {
         CompiledScript<T, M> compiledScript = Cast.uncheckedCast(cachedCompiledScripts.get(key));
         if (compiledScript == null) {
             compiledScript = scriptClassCompiler.compile(source, classLoader, classLoaderId, operation, scriptBaseClass, verifier);
-            cachedCompiledScripts.put(key, compiledScript);
+            CompiledScript<T, M> existing = Cast.uncheckedCast(cachedCompiledScripts.putIfAbsent(key, compiledScript));
+            if (existing != null) {
+                compiledScript = existing;
+            }
         }
         return compiledScript;
     }
@@ -31,5 +31,10 @@ public interface CompiledScript<T extends Script, D> {
 
     Class<? extends T> loadClass();
 
+    /**
+     * Returns true if this script can still be used, that is, its class has already been loaded or the compiled classes it is loaded from are still present.
+     */
+    boolean isUsable();
+
     D getData();
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts.internal;
+
+import groovy.lang.Script;
+import org.codehaus.groovy.ast.ClassNode;
+import org.gradle.api.Action;
+import org.gradle.api.internal.initialization.loadercache.ClassLoaderId;
+import org.gradle.groovy.scripts.ScriptSource;
+
+/**
+ * A {@link ScriptClassCompiler} which reuses the scripts retained by a {@link CrossBuildInMemoryCachingScriptClassCache}, unless scripts are to be recompiled.
+ */
+public class CrossBuildCachingScriptClassCompiler implements ScriptClassCompiler {
+    private final ScriptClassCompiler scriptClassCompiler;
+    private final CrossBuildInMemoryCachingScriptClassCache cache;
+    private final boolean recompileScripts;
+
+    public CrossBuildCachingScriptClassCompiler(ScriptClassCompiler scriptClassCompiler, CrossBuildInMemoryCachingScriptClassCache cache, boolean recompileScripts) {
+        this.scriptClassCompiler = scriptClassCompiler;
+        this.cache = cache;
+        this.recompileScripts = recompileScripts;
+    }
+
+    @Override
+    public <T extends Script, M> CompiledScript<T, M> compile(ScriptSource source, ClassLoader classLoader, ClassLoaderId classLoaderId, CompileOperation<M> operation, Class<T> scriptBaseClass, Action<? super ClassNode> verifier) {
+        if (recompileScripts) {
+            cache.invalidate(source, classLoaderId, operation);
+            return scriptClassCompiler.compile(source, classLoader, classLoaderId, operation, scriptBaseClass, verifier);
+        }
+        return cache.getOrCompile(source, classLoader, classLoaderId, operation, scriptBaseClass, verifier, scriptClassCompiler);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts.internal;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import groovy.lang.Script;
+import org.codehaus.groovy.ast.ClassNode;
+import org.gradle.api.Action;
+import org.gradle.api.internal.cache.HeapProportionalCacheSizer;
+import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache;
+import org.gradle.api.internal.initialization.loadercache.ClassLoaderId;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.internal.Cast;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.hash.HashUtil;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retains compiled scripts, along with their loaded classes, for the lifetime of the process, so that a long living process does not load the classes
+ * of an unchanged script again for each build.
+ *
+ * <p>Compiled scripts are keyed by script class name, the id of the class loader the script is loaded into and the DSL, and are reused only while the hash of
+ * the script's content, the parent class loader and the script base class remain the same. A script that is compiled for a key replaces the script previously
+ * retained for that key, releasing the class loaders the previous script was loaded with.</p>
+ *
+ * <p>A script is retained only while the {@link ClassLoaderCache} holds a class loader for its class loader id, so that this cache does not keep class loaders
+ * alive that are otherwise no longer used. A script whose class has not been loaded yet, and whose compiled classes have been removed from the script cache
+ * in the meantime, is compiled again.</p>
+ */
+public class CrossBuildInMemoryCachingScriptClassCache implements Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(CrossBuildInMemoryCachingScriptClassCache.class);
+    private static final int MAX_RETAINED_SCRIPTS = 4000;
+
+    private final Cache<ScriptCacheKey, CachedCompiledScript> cachedCompiledScripts;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CrossBuildInMemoryCachingScriptClassCache(ClassLoaderCache classLoaderCache) {
+        cachedCompiledScripts = CacheBuilder.newBuilder().maximumSize(new HeapProportionalCacheSizer().scaleCacheSize(MAX_RETAINED_SCRIPTS)).build();
+        classLoaderCache.addReleaseListener(new Action<ClassLoaderId>() {
+            public void execute(ClassLoaderId classLoaderId) {
+                invalidate(classLoaderId);
+            }
+        });
+    }
+
+    public <T extends Script, M> CompiledScript<T, M> getOrCompile(ScriptSource source, ClassLoader classLoader, ClassLoaderId classLoaderId, CompileOperation<M> operation,
+                                                                   Class<T> scriptBaseClass, Action<? super ClassNode> verifier, ScriptClassCompiler delegate) {
+        ScriptCacheKey key = new ScriptCacheKey(source.getClassName(), classLoaderId, operation.getId());
+        String hash = HashUtil.createCompactMD5(source.getResource().getText());
+        CachedCompiledScript cached = cachedCompiledScripts.getIfPresent(key);
+        if (cached != null && cached.isFor(hash, classLoader, scriptBaseClass) && cached.compiledScript.isUsable()) {
+            hits.incrementAndGet();
+            return Cast.uncheckedCast(cached.compiledScript);
+        }
+
+        misses.incrementAndGet();
+        CompiledScript<T, M> compiledScript = delegate.compile(source, classLoader, classLoaderId, operation, scriptBaseClass, verifier);
+        cachedCompiledScripts.put(key, new CachedCompiledScript(hash, classLoader, scriptBaseClass, compiledScript));
+        return compiledScript;
+    }
+
+    /**
+     * Discards the compiled script retained for the given script, if any.
+     */
+    public void invalidate(ScriptSource source, ClassLoaderId classLoaderId, CompileOperation<?> operation) {
+        cachedCompiledScripts.invalidate(new ScriptCacheKey(source.getClassName(), classLoaderId, operation.getId()));
+    }
+
+    private void invalidate(ClassLoaderId classLoaderId) {
+        Iterator<ScriptCacheKey> keys = cachedCompiledScripts.asMap().keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().classLoaderId.equals(classLoaderId)) {
+                keys.remove();
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public double getHitRatio() {
+        long lookups = hits.get() + misses.get();
+        return lookups == 0 ? 1.0 : (double) hits.get() / lookups;
+    }
+
+    @Override
+    public void stop() {
+        cachedCompiledScripts.invalidateAll();
+        LOGGER.debug("Served {} compiled scripts from memory and {} from the script cache (hit ratio {}).", hits.get(), misses.get(), getHitRatio());
+    }
+
+    private static class CachedCompiledScript {
+        private final String hash;
+        private final ClassLoader classLoader;
+        private final Class<?> scriptBaseClass;
+        private final CompiledScript<?, ?> compiledScript;
+
+        CachedCompiledScript(String hash, ClassLoader classLoader, Class<?> scriptBaseClass, CompiledScript<?, ?> compiledScript) {
+            this.hash = hash;
+            this.classLoader = classLoader;
+            this.scriptBaseClass = scriptBaseClass;
+            this.compiledScript = compiledScript;
+        }
+
+        boolean isFor(String hash, ClassLoader classLoader, Class<?> scriptBaseClass) {
+            return this.classLoader == classLoader && this.scriptBaseClass == scriptBaseClass && this.hash.equals(hash);
+        }
+    }
+
+    private static class ScriptCacheKey {
+        private final String className;
+        private final ClassLoaderId classLoaderId;
+        private final String dslId;
+        private final int hashCode;
+
+        ScriptCacheKey(String className, ClassLoaderId classLoaderId, String dslId) {
+            this.className = className;
+            this.classLoaderId = classLoaderId;
+            this.dslId = dslId;
+            this.hashCode = Objects.hashCode(className, classLoaderId, dslId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            ScriptCacheKey that = (ScriptCacheKey) o;
+
+            return Objects.equal(this.className, that.className)
+                && Objects.equal(this.classLoaderId, that.classLoaderId)
+                && Objects.equal(this.dslId, that.dslId);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -352,6 +352,12 @@ public class DefaultScriptCompilationHandler implements ScriptCompilationHandler
             }
             return scriptClass;
         }
+
+        @Override
+        public boolean isUsable() {
+            // The compiled classes are no longer needed once the class has been loaded. Until then, they may have been removed from the cache
+            return scriptClass != null || (isEmpty && !hasMethods) || new File(scriptCacheDir, source.getClassName() + ".class").isFile();
+        }
     }
 
 }
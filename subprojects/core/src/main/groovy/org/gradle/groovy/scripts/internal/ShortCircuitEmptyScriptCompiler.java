@@ -51,6 +51,11 @@ public class ShortCircuitEmptyScriptCompiler implements ScriptClassCompiler {
                     throw new UnsupportedOperationException("Cannot load a script that does nothing.");
                 }
 
+                @Override
+                public boolean isUsable() {
+                    return true;
+                }
+
                 @Override
                 public M getData() {
                     return operation.getExtractedData();
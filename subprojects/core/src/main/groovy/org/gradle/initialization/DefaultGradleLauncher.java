@@ -17,8 +17,11 @@ package org.gradle.initialization;
 
 import org.gradle.BuildListener;
 import org.gradle.BuildResult;
+import org.gradle.api.internal.AbstractClassGenerator;
 import org.gradle.api.internal.ExceptionAnalyser;
 import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.api.logging.StandardOutputListener;
 import org.gradle.configuration.BuildConfigurer;
 import org.gradle.execution.BuildConfigurationActionExecuter;
@@ -30,6 +33,7 @@ import org.gradle.internal.service.scopes.BuildScopeServices;
 import org.gradle.logging.LoggingManagerInternal;
 
 public class DefaultGradleLauncher extends GradleLauncher {
+    private static final Logger LOGGER = Logging.getLogger(DefaultGradleLauncher.class);
 
     private enum Stage {
         Configure, Build
@@ -193,6 +197,7 @@ public class DefaultGradleLauncher extends GradleLauncher {
         try {
             loggingManager.stop();
             CompositeStoppable.stoppable(buildServices).stop();
+            LOGGER.debug("Class generation in this process: {}.", AbstractClassGenerator.getStatistics());
         } finally {
             buildCompletionListener.completed();
         }
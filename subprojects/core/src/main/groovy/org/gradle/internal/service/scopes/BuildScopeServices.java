@@ -48,6 +48,7 @@ import org.gradle.cache.CacheRepository;
 import org.gradle.cache.CacheValidator;
 import org.gradle.configuration.*;
 import org.gradle.configuration.project.*;
+import org.gradle.execution.ParallelProjectConfigurer;
 import org.gradle.execution.ProjectConfigurer;
 import org.gradle.execution.TaskPathProjectEvaluator;
 import org.gradle.groovy.scripts.DefaultScriptCompilerFactory;
@@ -186,12 +187,17 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         );
     }
 
-    protected ScriptCompilerFactory createScriptCompileFactory(ListenerManager listenerManager, FileCacheBackedScriptClassCompiler scriptCompiler, ClassLoaderCache classLoaderCache) {
+    protected ScriptCompilerFactory createScriptCompileFactory(ListenerManager listenerManager, FileCacheBackedScriptClassCompiler scriptCompiler, ClassLoaderCache classLoaderCache,
+                                                               CrossBuildInMemoryCachingScriptClassCache crossBuildScriptClassCache, StartParameter startParameter) {
         ScriptExecutionListener scriptExecutionListener = listenerManager.getBroadcaster(ScriptExecutionListener.class);
         return new DefaultScriptCompilerFactory(
             new CachingScriptClassCompiler(
                 new ShortCircuitEmptyScriptCompiler(
-                    scriptCompiler,
+                    new CrossBuildCachingScriptClassCompiler(
+                        scriptCompiler,
+                        crossBuildScriptClassCache,
+                        startParameter.isRecompileScripts()
+                    ),
                     classLoaderCache
                 )
             ),
@@ -293,7 +299,10 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         );
     }
 
-    protected ProjectConfigurer createProjectConfigurer(BuildCancellationToken cancellationToken) {
+    protected ProjectConfigurer createProjectConfigurer(BuildCancellationToken cancellationToken, ExecutorFactory executorFactory, StartParameter startParameter) {
+        if (Boolean.getBoolean(ParallelProjectConfigurer.ENABLE_PROPERTY)) {
+            return new ParallelProjectConfigurer(cancellationToken, executorFactory, startParameter.getMaxWorkerCount());
+        }
         return new TaskPathProjectEvaluator(cancellationToken);
     }
 
@@ -22,6 +22,7 @@ import org.gradle.api.internal.*;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.state.CachingFileSnapshotter;
 import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
+import org.gradle.api.internal.changedetection.state.WatchingVirtualFileSystem;
 import org.gradle.api.internal.classpath.*;
 import org.gradle.api.internal.file.*;
 import org.gradle.api.internal.file.collections.DefaultDirectoryFileTreeFactory;
@@ -38,6 +39,7 @@ import org.gradle.cache.internal.locklistener.FileLockContentionHandler;
 import org.gradle.cli.CommandLineConverter;
 import org.gradle.configuration.DefaultImportsReader;
 import org.gradle.configuration.ImportsReader;
+import org.gradle.groovy.scripts.internal.CrossBuildInMemoryCachingScriptClassCache;
 import org.gradle.initialization.*;
 import org.gradle.internal.Factory;
 import org.gradle.internal.classloader.ClassLoaderFactory;
@@ -71,6 +73,7 @@ import org.gradle.model.internal.manage.instance.ManagedProxyFactory;
 import org.gradle.model.internal.manage.schema.ModelSchemaStore;
 import org.gradle.model.internal.manage.schema.extract.*;
 import org.gradle.process.internal.DefaultExecActionFactory;
+import org.gradle.process.internal.WorkerProcessPool;
 
 import java.util.List;
 
@@ -166,6 +169,10 @@ public class GlobalScopeServices {
         return messagingServices.get(MessagingServer.class);
     }
 
+    WorkerProcessPool createWorkerProcessPool(ExecutorFactory executorFactory, MessagingServer messagingServer) {
+        return new WorkerProcessPool(executorFactory, messagingServer);
+    }
+
     ClassGenerator createClassGenerator() {
         return new AsmBackedClassGenerator();
     }
@@ -269,6 +276,10 @@ public class GlobalScopeServices {
         return new DefaultFileWatcherFactory(executorFactory);
     }
 
+    WatchingVirtualFileSystem createWatchingVirtualFileSystem(FileWatcherFactory fileWatcherFactory, FileSystem fileSystem) {
+        return new WatchingVirtualFileSystem(fileWatcherFactory, fileSystem);
+    }
+
     StringInterner createStringInterner() {
         return new StringInterner();
     }
@@ -280,4 +291,8 @@ public class GlobalScopeServices {
     protected Factory<PatternSet> createPatternSetFactory(final PatternSpecFactory patternSpecFactory) {
         return PatternSets.getPatternSetFactory(patternSpecFactory);
     }
+
+    CrossBuildInMemoryCachingScriptClassCache createCrossBuildInMemoryCachingScriptClassCache(ClassLoaderCache classLoaderCache) {
+        return new CrossBuildInMemoryCachingScriptClassCache(classLoaderCache);
+    }
 }
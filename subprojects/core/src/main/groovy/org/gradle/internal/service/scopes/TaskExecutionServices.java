@@ -26,7 +26,11 @@ import org.gradle.api.internal.changedetection.state.*;
 import org.gradle.api.internal.file.FileCollectionFactory;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.hash.DefaultHasher;
+import org.gradle.api.internal.hash.FastHasher;
 import org.gradle.api.internal.tasks.TaskExecuter;
+import org.gradle.api.internal.tasks.cache.LocalDirectoryTaskOutputCache;
+import org.gradle.api.internal.tasks.cache.TaskOutputCache;
+import org.gradle.api.internal.tasks.cache.ZipTaskOutputPacker;
 import org.gradle.api.internal.tasks.execution.*;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.CacheRepository;
@@ -43,10 +47,13 @@ import org.gradle.internal.operations.DefaultBuildOperationProcessor;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.serialize.DefaultSerializerRegistry;
 import org.gradle.internal.serialize.SerializerRegistry;
+import org.gradle.internal.service.ServiceRegistry;
+
+import java.io.File;
 
 public class TaskExecutionServices {
 
-    TaskExecuter createTaskExecuter(TaskArtifactStateRepository repository, ListenerManager listenerManager, Gradle gradle) {
+    TaskExecuter createTaskExecuter(TaskArtifactStateRepository repository, ListenerManager listenerManager, Gradle gradle, VirtualFileSystem virtualFileSystem, ServiceRegistry services) {
         // TODO - need a more comprehensible way to only collect inputs for the outer build
         //      - we are trying to ignore buildSrc here, but also avoid weirdness with use of GradleBuild tasks
         boolean isOuterBuild = gradle.getParent() == null;
@@ -54,19 +61,25 @@ public class TaskExecutionServices {
             ? listenerManager.getBroadcaster(TaskInputsListener.class)
             : TaskInputsListener.NOOP;
 
+        TaskExecuter executer = new PostExecutionAnalysisTaskExecuter(
+            new ExecuteActionsTaskExecuter(
+                listenerManager.getBroadcaster(TaskActionListener.class)
+            )
+        );
+        if (Boolean.getBoolean(SkipCachedTaskExecuter.ENABLE_TASK_CACHE_PROPERTY)) {
+            executer = new SkipCachedTaskExecuter(services.get(TaskOutputCache.class), new ZipTaskOutputPacker(), executer);
+        }
+        if (virtualFileSystem != VirtualFileSystem.DIRECT) {
+            executer = new InvalidateVirtualFileSystemTaskExecuter(virtualFileSystem, executer);
+        }
+
         return new ExecuteAtMostOnceTaskExecuter(
             new SkipOnlyIfTaskExecuter(
                 new SkipTaskWithNoActionsExecuter(
                     new SkipEmptySourceFilesTaskExecuter(
                         taskInputsListener,
                         new ValidatingTaskExecuter(
-                            new SkipUpToDateTaskExecuter(repository,
-                                new PostExecutionAnalysisTaskExecuter(
-                                    new ExecuteActionsTaskExecuter(
-                                        listenerManager.getBroadcaster(TaskActionListener.class)
-                                    )
-                                )
-                            )
+                            new SkipUpToDateTaskExecuter(repository, executer)
                         )
                     )
                 )
@@ -74,6 +87,14 @@ public class TaskExecutionServices {
         );
     }
 
+    TaskOutputCache createTaskOutputCache(CacheRepository cacheRepository) {
+        String directory = System.getProperty(SkipCachedTaskExecuter.TASK_CACHE_DIRECTORY_PROPERTY);
+        if (directory != null) {
+            return new LocalDirectoryTaskOutputCache(cacheRepository, new File(directory));
+        }
+        return new LocalDirectoryTaskOutputCache(cacheRepository, "taskCache");
+    }
+
     TaskArtifactStateCacheAccess createCacheAccess(Gradle gradle, CacheRepository cacheRepository, InMemoryTaskArtifactCache inMemoryTaskArtifactCache, GradleBuildEnvironment environment) {
         CacheDecorator decorator;
         if (environment.isLongLivingProcess()) {
@@ -84,13 +105,25 @@ public class TaskExecutionServices {
         return new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, decorator);
     }
 
-    FileSnapshotter createFileSnapshotter(TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner) {
-        return new CachingFileSnapshotter(new DefaultHasher(), cacheAccess, stringInterner);
+    VirtualFileSystem createVirtualFileSystem(WatchingVirtualFileSystem watchingVirtualFileSystem, GradleBuildEnvironment environment) {
+        // Retained state is only worth keeping, and only kept up to date between builds, in a long living process
+        if (environment.isLongLivingProcess() && Boolean.getBoolean(WatchingVirtualFileSystem.ENABLE_PROPERTY)) {
+            return watchingVirtualFileSystem;
+        }
+        return VirtualFileSystem.DIRECT;
+    }
+
+    FileSnapshotter createFileSnapshotter(TaskArtifactStateCacheAccess cacheAccess, StringInterner stringInterner, BuildOperationProcessor buildOperationProcessor) {
+        if (Boolean.getBoolean(FastHasher.ENABLE_PROPERTY)) {
+            return new CachingFileSnapshotter(new FastHasher(), "fastFileHashes", cacheAccess, stringInterner, buildOperationProcessor);
+        }
+        return new CachingFileSnapshotter(new DefaultHasher(), "fileHashes", cacheAccess, stringInterner, buildOperationProcessor);
     }
 
     TaskArtifactStateRepository createTaskArtifactStateRepository(Instantiator instantiator, TaskArtifactStateCacheAccess cacheAccess, StartParameter startParameter, FileSnapshotter fileSnapshotter,
-                                                                  StringInterner stringInterner, FileResolver fileResolver, FileSystem fileSystem, FileCollectionFactory fileCollectionFactory) {
-        FileCollectionSnapshotter fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner, fileResolver);
+                                                                  StringInterner stringInterner, FileResolver fileResolver, FileSystem fileSystem, FileCollectionFactory fileCollectionFactory,
+                                                                  VirtualFileSystem virtualFileSystem) {
+        FileCollectionSnapshotter fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner, fileResolver, virtualFileSystem);
         FileCollectionSnapshotter discoveredFileCollectionSnapshotter = new MinimalFileSetSnapshotter(fileSnapshotter, cacheAccess, stringInterner, fileResolver, fileSystem);
 
         FileCollectionSnapshotter outputFilesSnapshotter = new OutputFilesCollectionSnapshotter(fileCollectionSnapshotter, new RandomLongIdGenerator(), cacheAccess, stringInterner);
@@ -17,6 +17,8 @@
 package org.gradle.process.internal;
 
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
+import org.gradle.api.Transformer;
 import org.gradle.api.internal.ClassPathRegistry;
 import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.api.logging.LogLevel;
@@ -30,12 +32,16 @@ import org.gradle.messaging.remote.ObjectConnection;
 import org.gradle.process.internal.child.ApplicationClassesInIsolatedClassLoaderWorkerFactory;
 import org.gradle.process.internal.child.ApplicationClassesInSystemClassLoaderWorkerFactory;
 import org.gradle.process.internal.child.WorkerFactory;
+import org.gradle.process.internal.child.WorkerHost;
+import org.gradle.util.GUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.List;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 
 public class DefaultWorkerProcessFactory implements Factory<WorkerProcessBuilder> {
@@ -47,14 +53,25 @@ public class DefaultWorkerProcessFactory implements Factory<WorkerProcessBuilder
     private final ExecHandleFactory execHandleFactory;
     private final ApplicationClassesInSystemClassLoaderWorkerFactory systemClassLoaderWorkerFactory;
     private final ApplicationClassesInIsolatedClassLoaderWorkerFactory isolatedClassLoaderWorkerFactory;
+    private final WorkerProcessPool workerProcessPool;
 
     public DefaultWorkerProcessFactory(LogLevel workerLogLevel, MessagingServer server, ClassPathRegistry classPathRegistry, IdGenerator<?> idGenerator,
                                        File gradleUserHomeDir, TemporaryFileProvider temporaryFileProvider, ExecHandleFactory execHandleFactory) {
+        this(workerLogLevel, server, classPathRegistry, idGenerator, gradleUserHomeDir, temporaryFileProvider, execHandleFactory, null);
+    }
+
+    /**
+     * @param workerProcessPool The pool to run reusable workers in, or null to always start a new process.
+     */
+    public DefaultWorkerProcessFactory(LogLevel workerLogLevel, MessagingServer server, ClassPathRegistry classPathRegistry, IdGenerator<?> idGenerator,
+                                       File gradleUserHomeDir, TemporaryFileProvider temporaryFileProvider, ExecHandleFactory execHandleFactory,
+                                       @Nullable WorkerProcessPool workerProcessPool) {
         this.workerLogLevel = workerLogLevel;
         this.server = server;
         this.idGenerator = idGenerator;
         this.gradleUserHomeDir = gradleUserHomeDir;
         this.execHandleFactory = execHandleFactory;
+        this.workerProcessPool = workerProcessPool;
         isolatedClassLoaderWorkerFactory = new ApplicationClassesInIsolatedClassLoaderWorkerFactory(classPathRegistry);
         systemClassLoaderWorkerFactory = new ApplicationClassesInSystemClassLoaderWorkerFactory(classPathRegistry, temporaryFileProvider);
     }
@@ -72,9 +89,17 @@ public class DefaultWorkerProcessFactory implements Factory<WorkerProcessBuilder
 
         @Override
         public WorkerProcess build() {
+            return build(server);
+        }
+
+        @Override
+        public WorkerProcess build(MessagingServer server) {
             if (getWorker() == null) {
                 throw new IllegalStateException("No worker action specified for this worker process.");
             }
+            if (isReusable() && workerProcessPool != null) {
+                return buildPooledWorker(server);
+            }
 
             final DefaultWorkerProcess workerProcess = new DefaultWorkerProcess(120, TimeUnit.SECONDS);
             ConnectionAcceptor acceptor = server.accept(new Action<ObjectConnection>() {
@@ -113,5 +138,51 @@ public class DefaultWorkerProcessFactory implements Factory<WorkerProcessBuilder
 
             return workerProcess;
         }
+
+        private WorkerProcess buildPooledWorker(MessagingServer server) {
+            Object id = idGenerator.generateId();
+            String displayName = getBaseName() + " " + id;
+            final PooledWorkerProcess workerProcess = new PooledWorkerProcess(displayName, workerProcessPool, getProcessKey(), new HostProcessFactory(), 120, TimeUnit.SECONDS);
+            ConnectionAcceptor acceptor = server.accept(new Action<ObjectConnection>() {
+                public void execute(ObjectConnection connection) {
+                    workerProcess.onConnect(connection);
+                }
+            });
+            workerProcess.startAccepting(acceptor);
+            Address localAddress = acceptor.getAddress();
+
+            List<URL> implementationClassPath = ClasspathUtil.getClasspath(getWorker().getClass().getClassLoader());
+
+            LOGGER.debug("Creating {} to run in a pooled worker process", displayName);
+            LOGGER.debug("Using application classpath {}", getApplicationClasspath());
+            LOGGER.debug("Using implementation classpath {}", implementationClassPath);
+
+            workerProcess.setSerializedWorker(GUtil.serialize(isolatedClassLoaderWorkerFactory.createWorker(id, displayName, this, implementationClassPath, localAddress)));
+            return workerProcess;
+        }
+
+        /**
+         * Returns the settings that a pooled process must have been started with to run this worker.
+         */
+        private Object getProcessKey() {
+            JavaExecHandleBuilder javaCommand = getJavaCommand();
+            return Arrays.asList(javaCommand.getExecutable(), javaCommand.getWorkingDir(), new TreeMap<String, String>(javaCommand.getActualEnvironment()), javaCommand.getAllJvmArgs());
+        }
+
+        private class HostProcessFactory implements Transformer<WorkerProcess, MessagingServer> {
+            public WorkerProcess transform(MessagingServer server) {
+                JavaExecHandleBuilder javaCommand = getJavaCommand();
+                DefaultWorkerProcessBuilder hostBuilder = new DefaultWorkerProcessBuilder();
+                hostBuilder.setBaseName("Gradle Worker Host");
+                hostBuilder.setLogLevel(getLogLevel());
+                hostBuilder.worker(new WorkerHost());
+                JavaExecHandleBuilder hostCommand = hostBuilder.getJavaCommand();
+                hostCommand.setExecutable(javaCommand.getExecutable());
+                hostCommand.setWorkingDir(javaCommand.getWorkingDir());
+                hostCommand.setEnvironment(javaCommand.getEnvironment());
+                hostCommand.setAllJvmArgs(javaCommand.getAllJvmArgs());
+                return hostBuilder.build(server);
+            }
+        }
     }
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.messaging.remote.ObjectConnection;
+import org.gradle.process.internal.child.WorkerHostClientProtocol;
+import org.gradle.process.internal.child.WorkerHostProtocol;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A worker process owned by a {@link WorkerProcessPool}, which runs one reusable worker at a time.
+ */
+class PooledWorkerHost implements WorkerHostClientProtocol, Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(PooledWorkerHost.class);
+    private final Object lock = new Object();
+    private final Object key;
+    private final WorkerProcess process;
+    private final WorkerHostProtocol host;
+    private final CountDownLatch exited = new CountDownLatch(1);
+    private PooledWorkerProcess current;
+    private boolean alive = true;
+    private boolean stopRequested;
+    private long usedHeap;
+    private long maxHeap;
+    private long idleSince;
+    private int workerCount;
+
+    PooledWorkerHost(Object key, WorkerProcess process) {
+        this.key = key;
+        this.process = process;
+        ObjectConnection connection = process.getConnection();
+        host = connection.addOutgoing(WorkerHostProtocol.class);
+        connection.addIncoming(WorkerHostClientProtocol.class, this);
+        connection.connect();
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    public int getWorkerCount() {
+        synchronized (lock) {
+            return workerCount;
+        }
+    }
+
+    public long getIdleSince() {
+        return idleSince;
+    }
+
+    public void setIdleSince(long idleSince) {
+        this.idleSince = idleSince;
+    }
+
+    /**
+     * Returns true if this host is still running and can accept another worker.
+     */
+    public boolean isUsable() {
+        synchronized (lock) {
+            return alive && !stopRequested && current == null;
+        }
+    }
+
+    /**
+     * Returns the fraction of the maximum heap that was still in use after the most recent worker finished.
+     */
+    public double getHeapUsage() {
+        synchronized (lock) {
+            return maxHeap <= 0 ? 0 : (double) usedHeap / maxHeap;
+        }
+    }
+
+    public void run(byte[] serializedWorker, PooledWorkerProcess workerProcess) {
+        synchronized (lock) {
+            if (!alive || stopRequested) {
+                throw new ExecException(String.format("Cannot run %s as worker process %s has stopped.", workerProcess, process));
+            }
+            current = workerProcess;
+            workerCount++;
+        }
+        host.run(serializedWorker);
+    }
+
+    public void completed(String failure, long usedHeap, long maxHeap) {
+        PooledWorkerProcess workerProcess;
+        synchronized (lock) {
+            this.usedHeap = usedHeap;
+            this.maxHeap = maxHeap;
+            workerProcess = current;
+            current = null;
+        }
+        if (workerProcess != null) {
+            workerProcess.onCompleted(failure);
+        }
+    }
+
+    /**
+     * Blocks until the host process has exited. Any worker that is still running at that point is failed.
+     */
+    public void waitForExit() {
+        String failure = "The worker process exited.";
+        try {
+            process.waitForStop();
+        } catch (Throwable throwable) {
+            LOGGER.debug("Worker process " + process + " failed.", throwable);
+            failure = String.format("The worker process exited: %s", throwable.getMessage());
+        } finally {
+            PooledWorkerProcess workerProcess;
+            synchronized (lock) {
+                alive = false;
+                workerProcess = current;
+                current = null;
+            }
+            if (workerProcess != null) {
+                workerProcess.onCompleted(failure);
+            }
+            exited.countDown();
+        }
+    }
+
+    /**
+     * Asks the host process to exit once the current worker, if any, has finished. Does not block.
+     */
+    public void requestStop() {
+        synchronized (lock) {
+            if (!alive || stopRequested) {
+                return;
+            }
+            stopRequested = true;
+        }
+        try {
+            host.stop();
+        } catch (Exception e) {
+            LOGGER.debug("Could not send stop request to worker process " + process + ".", e);
+        }
+    }
+
+    public void stop() {
+        requestStop();
+        try {
+            exited.await();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return process.toString();
+    }
+}
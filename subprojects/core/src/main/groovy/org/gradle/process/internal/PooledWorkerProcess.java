@@ -0,0 +1,217 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal;
+
+import org.gradle.api.Transformer;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.messaging.remote.ConnectionAcceptor;
+import org.gradle.messaging.remote.MessagingServer;
+import org.gradle.messaging.remote.ObjectConnection;
+import org.gradle.process.ExecResult;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.String.format;
+
+/**
+ * A {@link WorkerProcess} that runs its worker in a process from a {@link WorkerProcessPool}, rather than in a new process.
+ */
+class PooledWorkerProcess implements WorkerProcess {
+    private final static Logger LOGGER = Logging.getLogger(PooledWorkerProcess.class);
+    private final Lock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+    private final String displayName;
+    private final WorkerProcessPool pool;
+    private final Object processKey;
+    private final Transformer<WorkerProcess, MessagingServer> hostFactory;
+    private final long connectTimeout;
+    private byte[] serializedWorker;
+    private ConnectionAcceptor acceptor;
+    private ObjectConnection connection;
+    private PooledWorkerHost host;
+    private boolean completed;
+    private String failure;
+
+    public PooledWorkerProcess(String displayName, WorkerProcessPool pool, Object processKey, Transformer<WorkerProcess, MessagingServer> hostFactory, int connectTimeoutValue, TimeUnit connectTimeoutUnits) {
+        this.displayName = displayName;
+        this.pool = pool;
+        this.processKey = processKey;
+        this.hostFactory = hostFactory;
+        this.connectTimeout = connectTimeoutUnits.toMillis(connectTimeoutValue);
+    }
+
+    public void setSerializedWorker(byte[] serializedWorker) {
+        this.serializedWorker = serializedWorker;
+    }
+
+    public void startAccepting(ConnectionAcceptor acceptor) {
+        lock.lock();
+        try {
+            this.acceptor = acceptor;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onConnect(ObjectConnection connection) {
+        ConnectionAcceptor stoppable;
+
+        lock.lock();
+        try {
+            LOGGER.debug("Received connection {} from {}", connection, displayName);
+            this.connection = connection;
+            condition.signalAll();
+            stoppable = acceptor;
+        } finally {
+            lock.unlock();
+        }
+
+        stoppable.requestStop();
+    }
+
+    public void onCompleted(String failure) {
+        lock.lock();
+        try {
+            this.completed = true;
+            this.failure = failure;
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ObjectConnection getConnection() {
+        return connection;
+    }
+
+    public void start() {
+        try {
+            doStart();
+        } catch (Throwable t) {
+            cleanup();
+            throw UncheckedException.throwAsUncheckedException(t);
+        }
+    }
+
+    private void doStart() {
+        PooledWorkerHost host = pool.acquire(processKey, hostFactory);
+        lock.lock();
+        try {
+            this.host = host;
+        } finally {
+            lock.unlock();
+        }
+        LOGGER.debug("Running {} in worker process {}.", displayName, host);
+        host.run(serializedWorker, this);
+
+        Date connectExpiry = new Date(System.currentTimeMillis() + connectTimeout);
+        lock.lock();
+        try {
+            while (connection == null && !completed) {
+                try {
+                    if (!condition.awaitUntil(connectExpiry)) {
+                        throw new ExecException(format("Unable to connect to %s running in worker process %s.\n"
+                                + "The connection attempt hit a timeout after %.1f seconds.", displayName, host, ((double) connectTimeout) / 1000));
+                    }
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+            if (connection == null) {
+                throw new ExecException(format("Never received a connection from %s.%s", displayName, failure == null ? "" : "\n" + failure));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ExecResult waitForStop() {
+        String failure;
+        try {
+            lock.lock();
+            try {
+                while (!completed) {
+                    try {
+                        condition.await();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                }
+                failure = this.failure;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            cleanup();
+        }
+        if (failure != null) {
+            throw new ExecException(format("%s failed.\n%s", displayName, failure));
+        }
+        return new PooledExecResult();
+    }
+
+    private void cleanup() {
+        CompositeStoppable stoppable;
+        PooledWorkerHost host;
+        boolean completed;
+        lock.lock();
+        try {
+            stoppable = CompositeStoppable.stoppable(acceptor, connection);
+            host = this.host;
+            completed = this.completed;
+        } finally {
+            this.connection = null;
+            this.acceptor = null;
+            this.host = null;
+            lock.unlock();
+        }
+        stoppable.stop();
+        if (host != null) {
+            if (!completed) {
+                // Don't know what state the worker is in, so don't reuse the process
+                host.requestStop();
+            }
+            pool.release(host);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+
+    private static class PooledExecResult implements ExecResult {
+        public int getExitValue() {
+            return 0;
+        }
+
+        public ExecResult assertNormalExitValue() throws ExecException {
+            return this;
+        }
+
+        public ExecResult rethrowFailure() throws ExecException {
+            return this;
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.gradle.process.internal;
 
 import org.gradle.api.Action;
 import org.gradle.api.logging.LogLevel;
+import org.gradle.messaging.remote.MessagingServer;
 import org.gradle.util.GUtil;
 
 import java.io.File;
@@ -41,6 +42,7 @@ public abstract class WorkerProcessBuilder {
     private Action<? super WorkerProcessContext> action;
     private LogLevel logLevel = LogLevel.LIFECYCLE;
     private boolean loadApplicationInSystemClassLoader;
+    private boolean reusable;
     private String baseName = "Gradle Worker";
     private File gradleUserHomeDir;
 
@@ -109,6 +111,18 @@ public abstract class WorkerProcessBuilder {
         this.loadApplicationInSystemClassLoader = loadApplicationInSystemClassLoader;
     }
 
+    public boolean isReusable() {
+        return reusable;
+    }
+
+    /**
+     * Allows the worker to be run in a pooled process, which is kept alive after the worker completes and reused for later workers with the same process settings. When a pooled process is used,
+     * the application classes are always loaded in an isolated ClassLoader, regardless of {@link #setLoadApplicationInSystemClassLoader(boolean)}.
+     */
+    public void setReusable(boolean reusable) {
+        this.reusable = reusable;
+    }
+
     public File getGradleUserHomeDir() {
         return gradleUserHomeDir;
     }
@@ -118,4 +132,10 @@ public abstract class WorkerProcessBuilder {
     }
 
     public abstract WorkerProcess build();
+
+    /**
+     * Creates the worker process, connected through the given server rather than the one this builder was created with. This allows a service that outlives the
+     * builder to own the process.
+     */
+    public abstract WorkerProcess build(MessagingServer server);
 }
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal;
+
+import org.gradle.api.Transformer;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.messaging.remote.MessagingServer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Keeps worker processes alive after their workers have finished, so that later reusable workers with the same process settings can run in an already warmed up process. The pool
+ * lives as long as the build process, so when running in the daemon the processes are reused across builds.</p>
+ *
+ * <p>A process is stopped when it has been idle for longer than the idle timeout, when too much of its heap is still in use after a worker has finished, or when there are too many idle processes.</p>
+ *
+ * <p>The processes are connected through the messaging server given to the pool, which must not be stopped before the pool.</p>
+ */
+public class WorkerProcessPool implements Stoppable {
+    public static final String ENABLE_PROPERTY = "org.gradle.workers.reuse";
+    private static final Logger LOGGER = Logging.getLogger(WorkerProcessPool.class);
+    private static final long DEFAULT_IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(3);
+    private static final double DEFAULT_MAX_HEAP_USAGE = 0.5;
+
+    private final Object lock = new Object();
+    private final List<PooledWorkerHost> allHosts = new ArrayList<PooledWorkerHost>();
+    // Least recently used first
+    private final LinkedList<PooledWorkerHost> idleHosts = new LinkedList<PooledWorkerHost>();
+    private final ExecutorFactory executorFactory;
+    private final MessagingServer server;
+    private final long idleTimeoutMillis;
+    private final double maxHeapUsage;
+    private final int maxIdleHosts;
+    private StoppableExecutor executor;
+    private boolean stopped;
+    private int startedCount;
+    private int reusedCount;
+
+    public WorkerProcessPool(ExecutorFactory executorFactory, MessagingServer server) {
+        this(executorFactory, server, DEFAULT_IDLE_TIMEOUT, DEFAULT_MAX_HEAP_USAGE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param idleTimeoutMillis How long a process may remain idle before it is stopped.
+     * @param maxHeapUsage The fraction of its maximum heap that a process may have in use after a worker has finished and still be reused.
+     * @param maxIdleHosts The maximum number of idle processes to keep.
+     */
+    public WorkerProcessPool(ExecutorFactory executorFactory, MessagingServer server, long idleTimeoutMillis, double maxHeapUsage, int maxIdleHosts) {
+        this.executorFactory = executorFactory;
+        this.server = server;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxHeapUsage = maxHeapUsage;
+        this.maxIdleHosts = maxIdleHosts;
+    }
+
+    /**
+     * Reserves an idle process with the given key, or starts a new process using the given factory when there is no such process. The factory is given the server to connect the new process through.
+     */
+    PooledWorkerHost acquire(Object processKey, Transformer<WorkerProcess, MessagingServer> hostFactory) {
+        synchronized (lock) {
+            if (stopped) {
+                throw new IllegalStateException("This worker process pool has been stopped.");
+            }
+            if (executor == null) {
+                executor = executorFactory.create("Worker process pool");
+                executor.execute(new Runnable() {
+                    public void run() {
+                        stopIdleHosts();
+                    }
+                });
+            }
+
+            // Prefer the most recently used process, so that the others can expire
+            ListIterator<PooledWorkerHost> iterator = idleHosts.listIterator(idleHosts.size());
+            while (iterator.hasPrevious()) {
+                PooledWorkerHost candidate = iterator.previous();
+                if (candidate.getKey().equals(processKey) && candidate.isUsable()) {
+                    iterator.remove();
+                    reusedCount++;
+                    LOGGER.info("Reusing worker process {}, which has run {} worker(s).", candidate, candidate.getWorkerCount());
+                    return candidate;
+                }
+            }
+        }
+
+        // Allow processes to be started concurrently
+        WorkerProcess process = hostFactory.transform(server);
+        process.start();
+        final PooledWorkerHost host = new PooledWorkerHost(processKey, process);
+
+        synchronized (lock) {
+            allHosts.add(host);
+            startedCount++;
+            executor.execute(new Runnable() {
+                public void run() {
+                    host.waitForExit();
+                    synchronized (lock) {
+                        allHosts.remove(host);
+                        idleHosts.remove(host);
+                    }
+                }
+            });
+        }
+        LOGGER.info("Started worker process {}.", host);
+        return host;
+    }
+
+    /**
+     * Returns a process to the pool once its worker has finished, or stops the process if it should not be reused.
+     */
+    void release(PooledWorkerHost host) {
+        List<PooledWorkerHost> evicted = new ArrayList<PooledWorkerHost>();
+        synchronized (lock) {
+            if (stopped || !host.isUsable()) {
+                evicted.add(host);
+            } else if (host.getHeapUsage() > maxHeapUsage) {
+                LOGGER.info("Not reusing worker process {}, as {}% of its heap is still in use.", host, Math.round(host.getHeapUsage() * 100));
+                evicted.add(host);
+            } else {
+                host.setIdleSince(System.currentTimeMillis());
+                idleHosts.add(host);
+                while (idleHosts.size() > maxIdleHosts) {
+                    evicted.add(idleHosts.removeFirst());
+                }
+                lock.notifyAll();
+            }
+        }
+        for (PooledWorkerHost evictedHost : evicted) {
+            evictedHost.requestStop();
+        }
+    }
+
+    private void stopIdleHosts() {
+        while (true) {
+            List<PooledWorkerHost> expired = new ArrayList<PooledWorkerHost>();
+            synchronized (lock) {
+                if (stopped) {
+                    return;
+                }
+                long now = System.currentTimeMillis();
+                long nextExpiry = Long.MAX_VALUE;
+                Iterator<PooledWorkerHost> iterator = idleHosts.iterator();
+                while (iterator.hasNext()) {
+                    PooledWorkerHost host = iterator.next();
+                    long expiry = host.getIdleSince() + idleTimeoutMillis;
+                    if (expiry <= now) {
+                        iterator.remove();
+                        expired.add(host);
+                    } else {
+                        nextExpiry = Math.min(nextExpiry, expiry);
+                    }
+                }
+                if (expired.isEmpty()) {
+                    try {
+                        lock.wait(nextExpiry == Long.MAX_VALUE ? 0 : nextExpiry - now);
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                    continue;
+                }
+            }
+            for (PooledWorkerHost host : expired) {
+                LOGGER.debug("Stopping idle worker process {}.", host);
+                host.requestStop();
+            }
+        }
+    }
+
+    public void stop() {
+        List<PooledWorkerHost> hosts;
+        StoppableExecutor executor;
+        synchronized (lock) {
+            stopped = true;
+            hosts = new ArrayList<PooledWorkerHost>(allHosts);
+            idleHosts.clear();
+            executor = this.executor;
+            lock.notifyAll();
+        }
+        LOGGER.debug("Stopping {} worker process(es).", hosts.size());
+        CompositeStoppable.stoppable(hosts).add(executor).stop();
+        LOGGER.debug("Stopped worker process pool. Started {} worker process(es), reused a worker process {} time(s).", startedCount, reusedCount);
+    }
+}
@@ -33,6 +33,7 @@ import java.net.URI;
 import java.net.URL;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * A factory for a worker process which loads application classes using an isolated ClassLoader.
@@ -80,15 +81,26 @@ public class ApplicationClassesInIsolatedClassLoaderWorkerFactory implements Wor
             }
 
             // Write serialized worker
-            ActionExecutionWorker injectedWorker = new ActionExecutionWorker(processBuilder.getWorker(), workerId,
-                    displayName, serverAddress, processBuilder.getGradleUserHomeDir());
-            ImplementationClassLoaderWorker worker = new ImplementationClassLoaderWorker(processBuilder.getLogLevel(),
-                    processBuilder.getSharedPackages(), implementationClassPath, GUtil.serialize(injectedWorker));
-            GUtil.serialize(worker, outstr);
+            GUtil.serialize(createImplementationWorker(workerId, displayName, processBuilder, implementationClassPath, serverAddress), outstr);
             outstr.flush();
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
         execSpec.setStandardInput(new ByteArrayInputStream(bytes.toByteArray()));
     }
+
+    /**
+     * Creates a worker that can be serialized and executed in an existing worker process, for example a pooled process. Each execution of the worker creates a new application ClassLoader.
+     */
+    public Callable<Void> createWorker(Object workerId, String displayName, WorkerProcessBuilder processBuilder, List<URL> implementationClassPath, Address serverAddress) {
+        Collection<URI> applicationClassPath = new DefaultClassPath(processBuilder.getApplicationClasspath()).getAsURIs();
+        return new IsolatedApplicationClassLoaderWorker(applicationClassPath, createImplementationWorker(workerId, displayName, processBuilder, implementationClassPath, serverAddress));
+    }
+
+    private ImplementationClassLoaderWorker createImplementationWorker(Object workerId, String displayName, WorkerProcessBuilder processBuilder, List<URL> implementationClassPath, Address serverAddress) {
+        ActionExecutionWorker injectedWorker = new ActionExecutionWorker(processBuilder.getWorker(), workerId,
+                displayName, serverAddress, processBuilder.getGradleUserHomeDir());
+        return new ImplementationClassLoaderWorker(processBuilder.getLogLevel(),
+                processBuilder.getSharedPackages(), implementationClassPath, GUtil.serialize(injectedWorker));
+    }
 }
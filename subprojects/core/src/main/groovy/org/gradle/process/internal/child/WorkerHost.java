@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.child;
+
+import org.gradle.api.Action;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.io.ClassLoaderObjectInputStream;
+import org.gradle.messaging.remote.ObjectConnection;
+import org.gradle.process.internal.WorkerProcessContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * <p>The worker action of a pooled worker process. Runs each worker it receives in turn, until asked to stop.</p>
+ *
+ * <p>Each worker is received as a serialized {@link IsolatedApplicationClassLoaderWorker}, so it is run with a new application ClassLoader and a new implementation ClassLoader,
+ * and makes its own connection back to the build process. The system properties and standard streams are restored after each worker has finished.</p>
+ */
+public class WorkerHost implements Action<WorkerProcessContext>, WorkerHostProtocol, Serializable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkerHost.class);
+    private static final byte[] STOP = new byte[0];
+    private transient BlockingQueue<byte[]> queue;
+
+    public void execute(WorkerProcessContext workerProcessContext) {
+        queue = new LinkedBlockingQueue<byte[]>();
+        ObjectConnection connection = workerProcessContext.getServerConnection();
+        WorkerHostClientProtocol client = connection.addOutgoing(WorkerHostClientProtocol.class);
+        connection.addIncoming(WorkerHostProtocol.class, this);
+        connection.connect();
+
+        while (true) {
+            byte[] serializedWorker;
+            try {
+                serializedWorker = queue.take();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            if (serializedWorker == STOP) {
+                LOGGER.debug("{} stopping.", workerProcessContext.getDisplayName());
+                return;
+            }
+
+            String failure = runWorker(serializedWorker);
+
+            // Give the ClassLoaders of the worker a chance to be collected, so that the heap usage reflects what is left behind by the worker
+            System.gc();
+            Runtime runtime = Runtime.getRuntime();
+            client.completed(failure, runtime.totalMemory() - runtime.freeMemory(), runtime.maxMemory());
+        }
+    }
+
+    private String runWorker(byte[] serializedWorker) {
+        Properties systemProperties = (Properties) System.getProperties().clone();
+        InputStream in = System.in;
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        try {
+            ObjectInputStream instr = new ClassLoaderObjectInputStream(new ByteArrayInputStream(serializedWorker), ClassLoader.getSystemClassLoader());
+            Callable<?> worker = (Callable<?>) instr.readObject();
+            worker.call();
+            return null;
+        } catch (Throwable throwable) {
+            StringWriter stackTrace = new StringWriter();
+            throwable.printStackTrace(new PrintWriter(stackTrace));
+            return stackTrace.toString();
+        } finally {
+            System.setIn(in);
+            System.setOut(out);
+            System.setErr(err);
+            System.setProperties(systemProperties);
+        }
+    }
+
+    public void run(byte[] serializedWorker) {
+        queue.add(serializedWorker);
+    }
+
+    public void stop() {
+        queue.add(STOP);
+    }
+}
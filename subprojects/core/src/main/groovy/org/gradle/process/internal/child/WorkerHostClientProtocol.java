@@ -0,0 +1,31 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.child;
+
+/**
+ * Sent from a {@link WorkerHost} to the build process.
+ */
+public interface WorkerHostClientProtocol {
+    /**
+     * Called when a worker has finished.
+     *
+     * @param failure The stack trace of the failure, or null if the worker completed successfully.
+     * @param usedHeap The heap in use by the host process once the worker has finished.
+     * @param maxHeap The maximum heap of the host process.
+     */
+    void completed(String failure, long usedHeap, long maxHeap);
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.child;
+
+/**
+ * Sent from the build process to a {@link WorkerHost}.
+ */
+public interface WorkerHostProtocol {
+    /**
+     * Runs the given serialized worker. The host replies with {@link WorkerHostClientProtocol#completed(String, long, long)} when the worker has finished.
+     */
+    void run(byte[] serializedWorker);
+
+    /**
+     * Requests that the host process exits, once any worker that is running has finished.
+     */
+    void stop();
+}
@@ -51,6 +51,17 @@ public class InMemoryIndexedCache<K, V> implements PersistentIndexedCache<K, V>
         }
     }
 
+    public Map<K, V> getAll(Iterable<? extends K> keys) {
+        Map<K, V> result = new HashMap<K, V>();
+        for (K key : keys) {
+            V value = get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
     public void put(K key, V value) {
         ByteArrayOutputStream outstr = new ByteArrayOutputStream();
         OutputStreamBackedEncoder encoder = new OutputStreamBackedEncoder(outstr);
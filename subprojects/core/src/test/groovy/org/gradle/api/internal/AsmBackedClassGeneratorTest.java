@@ -41,6 +41,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.gradle.api.internal.AbstractClassGeneratorTestGroovy.BeanWithGroovyBoolean;
 import static org.gradle.util.Matchers.isEmpty;
@@ -106,6 +109,28 @@ public class AsmBackedClassGeneratorTest {
         assertSame(generator.generate(Bean.class), generator.generate(Bean.class));
     }
 
+    @Test
+    public void generatesSubclassOnceWhenRequestedConcurrently() throws Exception {
+        long generatedBefore = AbstractClassGenerator.getStatistics().getGeneratedClasses();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Class<?>>> results = new ArrayList<Future<Class<?>>>();
+            for (int i = 0; i < 16; i++) {
+                results.add(executor.submit(new Callable<Class<?>>() {
+                    public Class<?> call() {
+                        return generator.generate(ConcurrentlyGeneratedBean.class);
+                    }
+                }));
+            }
+            for (Future<Class<?>> result : results) {
+                assertSame(results.get(0).get(), result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(AbstractClassGenerator.getStatistics().getGeneratedClasses(), equalTo(generatedBefore + 1));
+    }
+
     @Test
     public void doesNotDecorateAlreadyDecoratedClass() {
         Class<? extends Bean> generatedClass = generator.generate(Bean.class);
@@ -809,6 +834,18 @@ public class AsmBackedClassGeneratorTest {
         assertThat(annotation.annotations()[0].value(), equalTo("nested array"));
     }
 
+    public static class ConcurrentlyGeneratedBean {
+        private String prop;
+
+        public String getProp() {
+            return prop;
+        }
+
+        public void setProp(String prop) {
+            this.prop = prop;
+        }
+    }
+
     public static class Bean {
         private String prop;
 
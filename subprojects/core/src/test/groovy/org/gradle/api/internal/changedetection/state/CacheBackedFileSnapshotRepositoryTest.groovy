@@ -57,6 +57,19 @@ class CacheBackedFileSnapshotRepositoryTest extends Specification {
         0 * _._
     }
 
+    def "can fetch multiple snapshots by id in a single lookup"() {
+        FileCollectionSnapshot snapshot1 = Mock()
+        FileCollectionSnapshot snapshot2 = Mock()
+
+        when:
+        def result = repository.getAll([4L, 5L, 6L])
+
+        then:
+        result == [4L: snapshot1, 6L: snapshot2]
+        1 * indexedCache.getAll([4L, 5L, 6L]) >> [4L: snapshot1, 6L: snapshot2]
+        0 * _._
+    }
+
     def "can delete a snapshot by id"() {
         when:
         repository.remove(4)
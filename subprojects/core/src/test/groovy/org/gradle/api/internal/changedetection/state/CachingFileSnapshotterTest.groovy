@@ -16,9 +16,14 @@
 
 package org.gradle.api.internal.changedetection.state
 
+import org.gradle.api.file.FileTreeElement
 import org.gradle.api.internal.cache.StringInterner
 import org.gradle.api.internal.hash.Hasher
 import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.operations.BuildOperation
+import org.gradle.internal.operations.BuildOperationProcessor
+import org.gradle.internal.operations.BuildOperationQueue
+import org.gradle.internal.operations.BuildOperationWorker
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
 import spock.lang.Specification
@@ -104,4 +109,107 @@ class CachingFileSnapshotterTest extends Specification {
         1 * cache.get(file.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, file.length(), file.lastModified())
         0 * _._
     }
+
+    def snapshotsAllFilesUsingCachedHashesWhereUpToDate() {
+        def other = tmpDir.createFile("other")
+        other.write("other-content")
+        def otherHash = "other".bytes
+
+        when:
+        def result = hasher.snapshotAll([element(file), element(other)], cacheAccess)
+
+        then:
+        result*.hash == [hash, otherHash]
+
+        and:
+        1 * cacheAccess.useCache("Look up file hashes", _) >> { String name, Runnable action -> action.run() }
+        1 * cache.get(file.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, file.length(), file.lastModified())
+        1 * cache.get(other.getAbsolutePath()) >> null
+
+        then:
+        1 * target.hash(other) >> otherHash
+
+        then:
+        1 * cacheAccess.useCache("Store file hashes", _) >> { String name, Runnable action -> action.run() }
+        1 * cache.put(other.getAbsolutePath(), { it.hash == otherHash && it.length == other.length() })
+        0 * _._
+    }
+
+    def doesNotStoreHashesWhenAllFilesAreUpToDate() {
+        when:
+        def result = hasher.snapshotAll([element(file)], cacheAccess)
+
+        then:
+        result*.hash == [hash]
+
+        and:
+        1 * cacheAccess.useCache("Look up file hashes", _) >> { String name, Runnable action -> action.run() }
+        1 * cache.get(file.getAbsolutePath()) >> new CachingFileSnapshotter.FileInfo(hash, file.length(), file.lastModified())
+        0 * _._
+    }
+
+    def hashesFullBatchesUsingBuildOperationProcessor() {
+        def processor = Mock(BuildOperationProcessor)
+        def queue = Mock(BuildOperationQueue)
+        BuildOperationWorker worker = null
+        List<BuildOperation> batches = []
+        def files = (1..CachingFileSnapshotter.HASH_BATCH_SIZE + 1).collect { tmpDir.createFile("file$it") }
+
+        given:
+        cacheAccess.createCache("fileHashes", _, _) >> cache
+        hasher = new CachingFileSnapshotter(target, "fileHashes", cacheAccess, new StringInterner(), processor)
+
+        when:
+        def result = hasher.snapshotAll(files.collect { element(it) }, cacheAccess)
+
+        then:
+        result*.hash == files.collect { it.name.bytes }
+
+        and:
+        2 * cacheAccess.useCache(_, _) >> { String name, Runnable action -> action.run() }
+        files.size() * cache.get(_) >> null
+        1 * processor.newQueue(_, null) >> { w, l -> worker = w; queue }
+        1 * queue.add(_) >> { BuildOperation batch -> batches << batch }
+        1 * queue.waitForCompletion() >> { batches.each { worker.execute(it) } }
+        files.size() * target.hash(_) >> { File f -> f.name.bytes }
+        files.size() * cache.put(_, _)
+        0 * _._
+    }
+
+    def waitsForQueuedBatchesWhenHashingFinalBatchFails() {
+        def processor = Mock(BuildOperationProcessor)
+        def queue = Mock(BuildOperationQueue)
+        def failure = new RuntimeException("broken")
+        def files = (1..CachingFileSnapshotter.HASH_BATCH_SIZE + 1).collect { tmpDir.createFile("file$it") }
+
+        given:
+        cacheAccess.createCache("fileHashes", _, _) >> cache
+        hasher = new CachingFileSnapshotter(target, "fileHashes", cacheAccess, new StringInterner(), processor)
+
+        when:
+        hasher.snapshotAll(files.collect { element(it) }, cacheAccess)
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+
+        and:
+        1 * cacheAccess.useCache(_, _) >> { String name, Runnable action -> action.run() }
+        files.size() * cache.get(_) >> null
+        1 * processor.newQueue(_, null) >> queue
+        1 * queue.add(_)
+        1 * target.hash(files.last()) >> { throw failure }
+
+        then:
+        1 * queue.waitForCompletion()
+        0 * _._
+    }
+
+    def element(File file) {
+        return Stub(FileTreeElement) {
+            getFile() >> file
+            getSize() >> file.length()
+            getLastModified() >> file.lastModified()
+        }
+    }
 }
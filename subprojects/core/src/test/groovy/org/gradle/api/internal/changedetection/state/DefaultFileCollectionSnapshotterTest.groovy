@@ -47,6 +47,13 @@ public class DefaultFileCollectionSnapshotterTest extends Specification {
                 getHash() >> HashUtil.sha1(file).asByteArray()
             }
         }
+        fileSnapshotter.snapshotAll(_, _) >> { List<FileTreeElement> files, cacheAccess ->
+            return files.collect { FileTreeElement fileTreeElement ->
+                Stub(FileSnapshot) {
+                    getHash() >> HashUtil.sha1(fileTreeElement.file).asByteArray()
+                }
+            }
+        }
         cacheAccess.useCache(_, _) >> { String name, Runnable action ->
             action.run()
         }
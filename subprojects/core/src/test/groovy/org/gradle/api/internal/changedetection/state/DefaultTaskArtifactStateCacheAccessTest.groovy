@@ -19,9 +19,12 @@ import org.gradle.api.internal.GradleInternal
 import org.gradle.cache.CacheBuilder
 import org.gradle.cache.CacheRepository
 import org.gradle.cache.PersistentCache
+import org.gradle.cache.PersistentIndexedCacheParameters
 import org.gradle.cache.internal.FileLockManager
 import org.gradle.cache.internal.filelock.LockOptionsBuilder
+import org.gradle.internal.serialize.BaseSerializerFactory
 import spock.lang.Specification
+import spock.lang.Unroll
 
 class DefaultTaskArtifactStateCacheAccessTest extends Specification {
     final GradleInternal gradle = Mock()
@@ -41,4 +44,28 @@ class DefaultTaskArtifactStateCacheAccessTest extends Specification {
         1 * cacheBuilder.open() >> backingCache
         0 * _._
     }
+
+    @Unroll
+    def "creates #cacheName cache with write behind #writeBehind"() {
+        CacheBuilder cacheBuilder = Mock()
+        PersistentCache backingCache = Mock()
+        cacheRepository.cache(gradle, "taskArtifacts") >> cacheBuilder
+        cacheBuilder.withDisplayName(_) >> cacheBuilder
+        cacheBuilder.withLockOptions(_) >> cacheBuilder
+        cacheBuilder.open() >> backingCache
+        def cacheAccess = new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, new NoOpDecorator())
+
+        when:
+        cacheAccess.createCache(cacheName, String, BaseSerializerFactory.STRING_SERIALIZER)
+
+        then:
+        1 * backingCache.createCache({ PersistentIndexedCacheParameters parameters -> parameters.cacheName == cacheName && parameters.writeBehind == writeBehind })
+
+        where:
+        cacheName        | writeBehind
+        "fileHashes"     | true
+        "fastFileHashes" | true
+        "taskArtifacts"  | false
+        "fileSnapshots"  | false
+    }
 }
@@ -133,4 +133,30 @@ class InMemoryTaskArtifactCacheTest extends Specification {
         0 * target._
     }
 
+    def "caches file hashes off heap when enabled"() {
+        given:
+        def cache = new InMemoryTaskArtifactCache(true).decorate("path/fileHashes.bin", "fileHashes", target)
+        def fileInfo = new CachingFileSnapshotter.FileInfo([1, 2] as byte[], 12, 34)
+
+        when:
+        def result = cache.get("key")
+
+        then:
+        result.hash == [1, 2] as byte[]
+
+        and:
+        1 * target.get("key") >> fileInfo
+        0 * target._
+
+        when:
+        result = cache.get("key")
+
+        then:
+        result.hash == [1, 2] as byte[]
+        result.length == 12
+        result.timestamp == 34
+
+        and:
+        0 * target._
+    }
 }
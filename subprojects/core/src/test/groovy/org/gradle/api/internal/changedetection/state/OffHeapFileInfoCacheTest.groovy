@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import spock.lang.Specification
+
+class OffHeapFileInfoCacheTest extends Specification {
+    def cache = new OffHeapFileInfoCache(16)
+
+    def "returns null for unknown path"() {
+        expect:
+        cache.get("/unknown") == null
+        cache.missCount == 1
+        cache.hitCount == 0
+    }
+
+    def "returns value that was put"() {
+        when:
+        cache.put("/some/file", new CachingFileSnapshotter.FileInfo([1, 2, 3] as byte[], 12, 34))
+        def result = cache.get("/some/file")
+
+        then:
+        result.hash == [1, 2, 3] as byte[]
+        result.length == 12
+        result.timestamp == 34
+        cache.size() == 1
+        cache.hitCount == 1
+    }
+
+    def "replaces value for existing path"() {
+        when:
+        cache.put("/some/file", new CachingFileSnapshotter.FileInfo([1] as byte[], 12, 34))
+        cache.put("/some/file", new CachingFileSnapshotter.FileInfo([2] as byte[], 56, 78))
+        def result = cache.get("/some/file")
+
+        then:
+        result.hash == [2] as byte[]
+        result.length == 56
+        result.timestamp == 78
+        cache.size() == 1
+    }
+
+    def "can remove and clear values"() {
+        given:
+        cache.put("/file1", new CachingFileSnapshotter.FileInfo([1] as byte[], 1, 1))
+        cache.put("/file2", new CachingFileSnapshotter.FileInfo([2] as byte[], 2, 2))
+
+        when:
+        cache.remove("/file1")
+
+        then:
+        cache.get("/file1") == null
+        cache.get("/file2") != null
+        cache.size() == 1
+
+        when:
+        cache.clear()
+
+        then:
+        cache.get("/file2") == null
+        cache.size() == 0
+    }
+
+    def "does not cache value with hash that does not fit in a record"() {
+        given:
+        cache.put("/some/file", new CachingFileSnapshotter.FileInfo([1] as byte[], 1, 1))
+
+        when:
+        cache.put("/some/file", new CachingFileSnapshotter.FileInfo(new byte[OffHeapFileInfoCache.MAX_HASH_LENGTH + 1], 1, 1))
+
+        then:
+        cache.get("/some/file") == null
+        cache.size() == 0
+    }
+
+    def "evicts entries when full"() {
+        when:
+        100.times {
+            cache.put("/file$it", new CachingFileSnapshotter.FileInfo([it] as byte[], it, it))
+        }
+
+        then:
+        cache.size() <= 16
+        cache.evictionCount == 100 - cache.size()
+        cache.get("/file99").hash == [99] as byte[]
+    }
+}
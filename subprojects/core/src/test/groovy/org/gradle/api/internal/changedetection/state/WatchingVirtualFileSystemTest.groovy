@@ -0,0 +1,176 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.file.FileVisitDetails
+import org.gradle.api.file.FileVisitor
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.internal.file.collections.DirectoryFileTree
+import org.gradle.api.internal.file.collections.FileBackedDirectoryFileTree
+import org.gradle.api.internal.file.collections.FileTreeAdapter
+import org.gradle.internal.filewatch.FileWatcher
+import org.gradle.internal.filewatch.FileWatcherEvent
+import org.gradle.internal.filewatch.FileWatcherFactory
+import org.gradle.internal.filewatch.FileWatcherListener
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class WatchingVirtualFileSystemTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def watcher = Mock(FileWatcher)
+    def watcherFactory = Mock(FileWatcherFactory)
+    FileWatcherListener listener
+    def fileSystem = new WatchingVirtualFileSystem(watcherFactory, TestFiles.fileSystem())
+
+    def setup() {
+        _ * watcherFactory.watch(_, _) >> { onError, FileWatcherListener l ->
+            listener = l
+            return watcher
+        }
+    }
+
+    def "visits directory tree and serves later visits from memory"() {
+        def dir = tmpDir.createDir("dir")
+        dir.createFile("a.txt")
+        dir.createFile("sub/b.txt")
+
+        expect:
+        visit(dir) == ["a.txt", "sub", "sub/b.txt"]
+
+        when:
+        dir.createFile("c.txt")
+
+        then:
+        visit(dir) == ["a.txt", "sub", "sub/b.txt"]
+    }
+
+    def "watches directory before listing it"() {
+        def dir = tmpDir.createDir("dir")
+        dir.createFile("sub/b.txt")
+
+        when:
+        visit(dir)
+        visit(dir)
+
+        then:
+        1 * watcher.watch({ it.contains(dir) })
+        0 * watcher._
+    }
+
+    def "discards retained listings when a change is reported"() {
+        def dir = tmpDir.createDir("dir")
+        dir.createFile("a.txt")
+        def sub = dir.createDir("sub")
+        visit(dir)
+
+        when:
+        def added = sub.createFile("b.txt")
+        listener.onChange(watcher, FileWatcherEvent.create(added))
+
+        then:
+        visit(dir) == ["a.txt", "sub", "sub/b.txt"]
+
+        when:
+        dir.file("a.txt").delete()
+        listener.onChange(watcher, FileWatcherEvent.undefined())
+
+        then:
+        visit(dir) == ["sub", "sub/b.txt"]
+    }
+
+    def "discards retained listings for invalidated files and their parents"() {
+        def dir = tmpDir.createDir("dir")
+        dir.createFile("a.txt")
+        visit(dir)
+
+        when:
+        def output = dir.createFile("out/classes/Thing.class")
+        fileSystem.invalidate([output])
+
+        then:
+        visit(dir) == ["a.txt", "out", "out/classes", "out/classes/Thing.class"]
+    }
+
+    def "visits single file from listing of parent directory"() {
+        def file = tmpDir.createFile("dir/a.txt")
+        file.text = "content"
+        def visited = []
+
+        when:
+        fileSystem.visit(new FileTreeAdapter(new FileBackedDirectoryFileTree(file)), new FileVisitor() {
+            void visitDir(FileVisitDetails dirDetails) {
+                visited << dirDetails
+            }
+
+            void visitFile(FileVisitDetails fileDetails) {
+                visited << fileDetails
+            }
+        })
+
+        then:
+        visited.size() == 1
+        visited[0].file == file
+        visited[0].relativePath.pathString == "a.txt"
+        !visited[0].directory
+        visited[0].size == file.length()
+        visited[0].lastModified == file.lastModified()
+    }
+
+    def "reads file system directly when watching fails"() {
+        def dir = tmpDir.createDir("dir")
+        dir.createFile("a.txt")
+
+        when:
+        visit(dir)
+
+        then:
+        1 * watcher.watch(_) >> { throw new IOException("broken") }
+
+        when:
+        dir.createFile("b.txt")
+
+        then:
+        visit(dir) == ["a.txt", "b.txt"]
+        0 * watcher._
+    }
+
+    def "stops watcher"() {
+        visit(tmpDir.createDir("dir"))
+
+        when:
+        fileSystem.stop()
+
+        then:
+        1 * watcher.stop()
+    }
+
+    def visit(File dir) {
+        def visited = []
+        fileSystem.visit(new FileTreeAdapter(new DirectoryFileTree(dir)), new FileVisitor() {
+            void visitDir(FileVisitDetails dirDetails) {
+                visited << dirDetails.relativePath.pathString
+            }
+
+            void visitFile(FileVisitDetails fileDetails) {
+                visited << fileDetails.relativePath.pathString
+            }
+        })
+        return visited.sort()
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.collections.jdk7
+
+import org.gradle.api.GradleException
+import org.gradle.api.file.FileVisitDetails
+import org.gradle.api.file.FileVisitor
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.internal.file.collections.DefaultDirectoryWalker
+import org.gradle.api.internal.file.collections.DirectoryFileTree
+import org.gradle.api.tasks.util.PatternSet
+import org.gradle.internal.Factory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
+import org.gradle.util.UsesNativeServices
+import org.junit.Rule
+import spock.lang.Specification
+
+@Requires(TestPrecondition.JDK7_OR_LATER)
+@UsesNativeServices
+class ForkJoinDirectoryWalkerTest extends Specification {
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def walker = new ForkJoinDirectoryWalker(TestFiles.fileSystem())
+
+    def "visits same files and attributes as default walker"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        generateTree(rootDir, 3)
+
+        when:
+        def visited = walk(rootDir, new PatternSet(), walker)
+        def expected = walk(rootDir, new PatternSet(), new DefaultDirectoryWalker(TestFiles.fileSystem()))
+
+        then:
+        visited.size() == expected.size()
+        visited*.relativePath*.pathString as Set == expected*.relativePath*.pathString as Set
+        expected.each { FileVisitDetails details ->
+            def actual = visited.find { it.file == details.file }
+            assert actual.directory == details.directory
+            assert actual.directory || actual.size == details.size
+            assert actual.directory || actual.lastModified == details.lastModified
+        }
+    }
+
+    def "visits files of a directory before its subdirectories, in the same order on each walk"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        generateTree(rootDir, 2)
+
+        when:
+        def first = walk(rootDir, new PatternSet(), walker)*.relativePath*.pathString
+        def second = walk(rootDir, new PatternSet(), walker)*.relativePath*.pathString
+
+        then:
+        first == second
+        first.findIndexOf { it == "dir1" } > first.findIndexOf { it == "file1" }
+        first.findIndexOf { it == "dir1/file1" } > first.findIndexOf { it == "dir1" }
+    }
+
+    def "visits directories after their contents when walking postfix"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.createFile("a/b.txt")
+
+        when:
+        def visited = []
+        new DirectoryFileTree(rootDir, new PatternSet(), { walker } as Factory).postfix().visit(
+            [visitFile: { visited << it.relativePath.pathString }, visitDir: { visited << it.relativePath.pathString }] as FileVisitor)
+
+        then:
+        visited == ["a/b.txt", "a"]
+    }
+
+    def "honours pattern spec"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.createFile("a.txt")
+        rootDir.createFile("a/b/c.txt")
+        rootDir.createFile("a/b/c.html")
+        rootDir.createFile("excluded/d.txt")
+        def patterns = new PatternSet().include("**/*.txt").exclude("excluded/**")
+
+        expect:
+        walk(rootDir, patterns, walker).findAll { !it.directory }*.relativePath*.pathString as Set == ["a.txt", "a/b/c.txt"] as Set
+    }
+
+    def "stops visiting when requested"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        generateTree(rootDir, 3)
+        def visited = []
+
+        when:
+        new DirectoryFileTree(rootDir, new PatternSet(), { walker } as Factory).visit(
+            [visitFile: { visited << it; it.stopVisiting() }, visitDir: { visited << it }] as FileVisitor)
+
+        then:
+        visited.size() == 1
+    }
+
+    @Requires(TestPrecondition.SYMLINKS)
+    def "missing symbolic link causes an exception"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        def dir = rootDir.createDir("a/b")
+        def link = rootDir.file("a/d")
+        link.createLink(dir)
+        dir.deleteDir()
+
+        when:
+        walk(rootDir, new PatternSet(), walker)
+
+        then:
+        GradleException e = thrown()
+        e.message.contains("Could not list contents of '${link.absolutePath}'.")
+
+        cleanup:
+        link.delete()
+    }
+
+    private static List<FileVisitDetails> walk(File rootDir, PatternSet patterns, walkerInstance) {
+        def visited = []
+        def visitClosure = { visited << it }
+        new DirectoryFileTree(rootDir, patterns, { walkerInstance } as Factory).visit([visitFile: visitClosure, visitDir: visitClosure] as FileVisitor)
+        return visited
+    }
+
+    private static void generateTree(TestFile dir, int depth) {
+        for (int i = 1; i <= 3; i++) {
+            dir.createFile("file" + i) << ("x" * i)
+        }
+        if (depth > 1) {
+            for (int i = 1; i <= 3; i++) {
+                generateTree(dir.createDir("dir" + i), depth - 1)
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.pattern
+
+import org.apache.tools.ant.DirectoryScanner
+import org.gradle.api.file.RelativePath
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class CompiledPatternsMatcherTest extends Specification {
+    static final List<String> PATTERNS = [
+        "", "a", "a/b", "a/b/", "**", "**/b", "a/**", "a/**/c", "**/b/**", "a/**/**/c", "*.java", "**/*.java", "a/*/c", "A/b", "/a",
+        "b?", "a*b", "*b*", "**/.git/**", "a\\b\\c", "**/b/c/", "x/**/y/**/z"
+    ]
+    static final List<List<String>> PATHS = [
+        [], ["a"], ["b"], ["A"], ["c"], ["bb"], ["axb"], ["Thing.java"], ["a", "b"], ["a", "B"], ["A", "b"], ["a", "c"], ["b", "c"],
+        ["a", "b", "c"], ["a", "x", "c"], ["a", "b", "c", "d"], ["a", "x", "y", "c"], ["", "a"], ["d", ".git", "e"], ["d", ".git"],
+        ["x", "y", "z"], ["x", "q", "y", "r", "z"], ["x", "z", "y"], ["src", "a", "Thing.java"], ["q", "b", "c", "d"]
+    ]
+
+    @Unroll
+    def "matches the same paths as the individual matchers when caseSensitive: #caseSensitive and partialMatchDirs: #partialMatchDirs"() {
+        expect:
+        for (int count = 1; count <= PATTERNS.size(); count++) {
+            for (int start = 0; start + count <= PATTERNS.size(); start += count) {
+                def patterns = PATTERNS.subList(start, start + count)
+                def compiled = PatternMatcherFactory.getPatternsMatcher(partialMatchDirs, caseSensitive, patterns)
+                def individual = patterns.collect { PatternMatcherFactory.getPatternMatcher(partialMatchDirs, caseSensitive, it) }
+                for (List<String> path : PATHS) {
+                    for (boolean isFile : [true, false]) {
+                        def relativePath = new RelativePath(isFile, path as String[])
+                        def expected = individual.any { it.isSatisfiedBy(relativePath) }
+                        assert compiled.isSatisfiedBy(relativePath) == expected: "patterns: $patterns, path: $relativePath, file: $isFile"
+                    }
+                }
+            }
+        }
+
+        where:
+        caseSensitive | partialMatchDirs
+        true          | true
+        true          | false
+        false         | true
+        false         | false
+    }
+
+    def "matches default excludes"() {
+        def matcher = PatternMatcherFactory.getPatternsMatcher(false, true, Arrays.asList(DirectoryScanner.defaultExcludes))
+
+        expect:
+        matcher.isSatisfiedBy(RelativePath.parse(false, "src/.git"))
+        matcher.isSatisfiedBy(RelativePath.parse(true, "src/.git/config"))
+        matcher.isSatisfiedBy(RelativePath.parse(true, "src/#Thing.java#"))
+        matcher.isSatisfiedBy(RelativePath.parse(true, ".DS_Store"))
+        !matcher.isSatisfiedBy(RelativePath.parse(false, "src/main"))
+        !matcher.isSatisfiedBy(RelativePath.parse(true, "src/main/Thing.java"))
+    }
+
+    def "directory is rejected when no pattern can match below it"() {
+        def matcher = PatternMatcherFactory.getPatternsMatcher(true, true, ["src/main/**/*.java", "src/test/resources/"])
+
+        expect:
+        matcher.isSatisfiedBy(RelativePath.parse(false, "src"))
+        matcher.isSatisfiedBy(RelativePath.parse(false, "src/main/org"))
+        matcher.isSatisfiedBy(RelativePath.parse(false, "src/test"))
+        matcher.isSatisfiedBy(RelativePath.parse(false, "src/test/resources/org"))
+        !matcher.isSatisfiedBy(RelativePath.parse(false, "build"))
+        !matcher.isSatisfiedBy(RelativePath.parse(false, "src/test/java"))
+        matcher.isSatisfiedBy(RelativePath.parse(true, "src/main/org/Thing.java"))
+        !matcher.isSatisfiedBy(RelativePath.parse(true, "src/main/org/Thing.groovy"))
+    }
+
+    def "matches nothing when there are no patterns"() {
+        def matcher = PatternMatcherFactory.getPatternsMatcher(true, true, [])
+
+        expect:
+        !matcher.isSatisfiedBy(new RelativePath(false))
+        !matcher.isSatisfiedBy(RelativePath.parse(false, "a"))
+        !matcher.isSatisfiedBy(RelativePath.parse(true, "a"))
+    }
+}
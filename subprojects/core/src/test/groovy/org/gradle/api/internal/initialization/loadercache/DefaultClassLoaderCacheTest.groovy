@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.initialization.loadercache
 
+import org.gradle.api.Action
 import org.gradle.internal.classloader.FilteringClassLoader
 import org.gradle.internal.classpath.ClassPath
 import org.gradle.internal.classpath.DefaultClassPath
@@ -165,4 +166,26 @@ class DefaultClassLoaderCacheTest extends Specification {
         then:
         cache.size() == 0
     }
+
+    def "notifies listeners when the loader for an id is replaced or removed"() {
+        def released = []
+        cache.addReleaseListener({ released << it } as Action)
+        def root = classLoader(classPath("root"))
+
+        when:
+        cache.get(id1, classPath("c1"), root, null)
+        cache.get(id1, classPath("c1"), root, null)
+        cache.get(id2, classPath("c1"), root, null)
+        cache.remove(id1)
+        cache.remove(id1)
+
+        then:
+        released == [id1]
+
+        when:
+        cache.get(id2, classPath("c2"), root, null)
+
+        then:
+        released == [id1, id2]
+    }
 }
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.initialization.loadercache;
 
+import org.gradle.api.Action;
 import org.gradle.api.Nullable;
 import org.gradle.internal.classloader.FilteringClassLoader;
 import org.gradle.internal.classpath.ClassPath;
@@ -32,6 +33,11 @@ public class DummyClassLoaderCache implements ClassLoaderCache {
 
     }
 
+    @Override
+    public void addReleaseListener(Action<? super ClassLoaderId> listener) {
+
+    }
+
     @Override
     public int size() {
         return 0;
@@ -90,6 +90,33 @@ class DefaultTaskOutputsTest extends Specification {
         outputs.upToDateSpec.isSatisfiedBy(task)
     }
 
+    public void cachingIsNotAllowedWhenNoOutputFilesRegistered() {
+        expect:
+        !outputs.cacheAllowed
+    }
+
+    public void cachingIsAllowedWhenOutputFilesRegisteredAndCachePredicatesAreSatisfied() {
+        boolean cacheable = false
+
+        when:
+        outputs.files('a')
+
+        then:
+        outputs.cacheAllowed
+
+        when:
+        outputs.cacheIf { cacheable }
+
+        then:
+        !outputs.cacheAllowed
+
+        when:
+        cacheable = true
+
+        then:
+        outputs.cacheAllowed
+    }
+
     public void getPreviousFilesDelegatesToTaskHistory() {
         TaskExecutionHistory history = Mock()
         FileCollection outputFiles = Mock()
@@ -75,6 +75,15 @@ class TaskStateInternalTest {
         assertThat(state.skipMessage, equalTo('UP-TO-DATE'))
     }
 
+    @Test
+    public void canMarkTaskAsLoadedFromCache() {
+        state.cached()
+        assertTrue(state.executed)
+        assertTrue(state.skipped)
+        assertTrue(state.upToDate)
+        assertThat(state.skipMessage, equalTo('FROM-CACHE'))
+    }
+
     @Test
     public void rethrowFailureDoesNothingWhenTaskHasNotExecuted() {
         state.rethrowFailure()
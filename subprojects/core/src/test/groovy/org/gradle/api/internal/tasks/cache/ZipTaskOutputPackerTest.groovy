@@ -0,0 +1,117 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.cache
+
+import org.gradle.api.file.FileCollection
+import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ZipTaskOutputPackerTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def taskOutputs = Stub(TaskOutputsInternal)
+    def packer = new ZipTaskOutputPacker()
+
+    def "restores output files and directories"() {
+        def outputDir = tmpDir.createDir("output")
+        outputDir.createFile("a.txt").text = "a"
+        outputDir.createFile("sub/b.txt").text = "b"
+        def outputFile = tmpDir.file("file.txt")
+        outputFile.text = "file"
+        outputsAre(outputDir, outputFile)
+
+        def archive = new ByteArrayOutputStream()
+        packer.pack(taskOutputs, archive)
+
+        outputDir.deleteDir()
+        outputFile.text = "changed"
+
+        when:
+        packer.unpack(taskOutputs, new ByteArrayInputStream(archive.toByteArray()))
+
+        then:
+        outputDir.file("a.txt").text == "a"
+        outputDir.file("sub/b.txt").text == "b"
+        outputFile.text == "file"
+    }
+
+    def "removes stale files from output directories"() {
+        def outputDir = tmpDir.createDir("output")
+        outputDir.createFile("a.txt").text = "a"
+        outputsAre(outputDir)
+
+        def archive = new ByteArrayOutputStream()
+        packer.pack(taskOutputs, archive)
+        outputDir.createFile("stale.txt").text = "stale"
+
+        when:
+        packer.unpack(taskOutputs, new ByteArrayInputStream(archive.toByteArray()))
+
+        then:
+        outputDir.file("a.txt").text == "a"
+        !outputDir.file("stale.txt").exists()
+    }
+
+    def "missing outputs are not restored"() {
+        def missing = tmpDir.file("missing")
+        outputsAre(missing)
+
+        def archive = new ByteArrayOutputStream()
+        packer.pack(taskOutputs, archive)
+
+        when:
+        packer.unpack(taskOutputs, new ByteArrayInputStream(archive.toByteArray()))
+
+        then:
+        !missing.exists()
+    }
+
+    def "packing the same outputs produces the same archive content"() {
+        def outputDir = tmpDir.createDir("output")
+        outputDir.createFile("b.txt").text = "b"
+        outputDir.createFile("a.txt").text = "a"
+        outputsAre(outputDir)
+
+        when:
+        def first = new ByteArrayOutputStream()
+        packer.pack(taskOutputs, first)
+        def second = new ByteArrayOutputStream()
+        packer.pack(taskOutputs, second)
+
+        then:
+        entries(first) == ["0/", "0/a.txt", "0/b.txt"]
+        entries(first) == entries(second)
+    }
+
+    private void outputsAre(File... files) {
+        def fileCollection = Stub(FileCollection)
+        fileCollection.files >> (files as Set)
+        taskOutputs.files >> fileCollection
+    }
+
+    private static List<String> entries(ByteArrayOutputStream archive) {
+        def names = []
+        def zip = new java.util.zip.ZipInputStream(new ByteArrayInputStream(archive.toByteArray()))
+        def entry
+        while ((entry = zip.nextEntry) != null) {
+            names << entry.name
+        }
+        return names
+    }
+}
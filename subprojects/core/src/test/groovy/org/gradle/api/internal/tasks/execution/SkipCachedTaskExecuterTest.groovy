@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.execution
+
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.api.internal.changedetection.TaskArtifactState
+import org.gradle.api.internal.tasks.TaskExecuter
+import org.gradle.api.internal.tasks.TaskExecutionContext
+import org.gradle.api.internal.tasks.TaskStateInternal
+import org.gradle.api.internal.tasks.cache.TaskCacheKey
+import org.gradle.api.internal.tasks.cache.TaskOutputCache
+import org.gradle.api.internal.tasks.cache.TaskOutputPacker
+import spock.lang.Specification
+
+class SkipCachedTaskExecuterTest extends Specification {
+    def delegate = Mock(TaskExecuter)
+    def outputs = Mock(TaskOutputsInternal)
+    def task = Mock(TaskInternal)
+    def taskState = Mock(TaskStateInternal)
+    def taskContext = Mock(TaskExecutionContext)
+    def taskArtifactState = Mock(TaskArtifactState)
+    def taskOutputCache = Mock(TaskOutputCache)
+    def packer = Mock(TaskOutputPacker)
+    def cacheKey = Mock(TaskCacheKey)
+
+    def executer = new SkipCachedTaskExecuter(taskOutputCache, packer, delegate)
+
+    def "skip task when cached results exist"() {
+        def input = Mock(InputStream)
+
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * task.outputs >> outputs
+        1 * outputs.cacheAllowed >> true
+        1 * taskContext.taskArtifactState >> taskArtifactState
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+
+        then:
+        1 * taskOutputCache.load(cacheKey, _) >> { key, reader ->
+            reader.readFrom(input)
+            return true
+        }
+        1 * packer.unpack(outputs, input)
+
+        then:
+        1 * taskState.cached()
+        0 * delegate._
+        0 * taskOutputCache.store(_, _)
+    }
+
+    def "executes task and stores result when no cached result is available"() {
+        def output = Mock(OutputStream)
+
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * task.outputs >> outputs
+        1 * outputs.cacheAllowed >> true
+        1 * taskContext.taskArtifactState >> taskArtifactState
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+
+        then:
+        1 * taskOutputCache.load(cacheKey, _) >> false
+
+        then:
+        1 * delegate.execute(task, taskState, taskContext)
+        1 * taskState.failure >> null
+
+        then:
+        1 * taskOutputCache.store(cacheKey, _) >> { key, writer ->
+            writer.writeTo(output)
+        }
+        1 * packer.pack(outputs, output)
+        0 * taskState.cached()
+    }
+
+    def "does not store result when task fails"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * task.outputs >> outputs
+        1 * outputs.cacheAllowed >> true
+        1 * taskContext.taskArtifactState >> taskArtifactState
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * taskOutputCache.load(cacheKey, _) >> false
+        1 * delegate.execute(task, taskState, taskContext)
+        1 * taskState.failure >> new RuntimeException()
+        0 * taskOutputCache.store(_, _)
+    }
+
+    def "executes task when it cannot be cached"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * task.outputs >> outputs
+        1 * outputs.cacheAllowed >> false
+        1 * delegate.execute(task, taskState, taskContext)
+        0 * taskArtifactState._
+        0 * taskOutputCache._
+    }
+
+    def "executes task when loading cached result fails"() {
+        when:
+        executer.execute(task, taskState, taskContext)
+
+        then:
+        1 * task.outputs >> outputs
+        1 * outputs.cacheAllowed >> true
+        1 * taskContext.taskArtifactState >> taskArtifactState
+        1 * taskArtifactState.calculateCacheKey() >> cacheKey
+        1 * taskOutputCache.load(cacheKey, _) >> { throw new RuntimeException("broken") }
+
+        then:
+        1 * delegate.execute(task, taskState, taskContext)
+        0 * taskState.cached()
+    }
+}
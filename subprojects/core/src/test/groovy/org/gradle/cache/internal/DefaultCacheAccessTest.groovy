@@ -552,4 +552,116 @@ class DefaultCacheAccessTest extends ConcurrentSpec {
         1 * lock.close()
     }
 
-}
\ No newline at end of file
+    def "writes pending cache updates at the end of the outermost use cache operation"() {
+        given:
+        lockManager.lock(lockFile, mode(Exclusive), "<display-name>", "use cache") >> lock
+        access.open(mode(None))
+        def cache = access.newCache(new PersistentIndexedCacheParameters('cache', String.class, Integer.class).writeBehind())
+
+        when:
+        access.useCache("use cache") {
+            cache.put("key1", 1)
+            cache.put("key2", 2)
+            access.useCache("nested") {
+                cache.put("key1", 3)
+            }
+            assert cache.get("key1") == 3
+        }
+
+        then:
+        2 * lock.writeFile(_) >> { Runnable r -> r.run() }
+        1 * backingCache.put("key2", 2)
+
+        then:
+        1 * backingCache.put("key1", 3)
+        0 * backingCache._
+    }
+
+    def "writes updates through when the cache is not write behind"() {
+        given:
+        lockManager.lock(lockFile, mode(Exclusive), "<display-name>", "use cache") >> lock
+        access.open(mode(None))
+        def cache = access.newCache(new PersistentIndexedCacheParameters('cache', String.class, Integer.class))
+
+        when:
+        access.useCache("use cache") {
+            cache.put("key", 1)
+            assert cache.get("key") == 1
+        }
+
+        then:
+        2 * lock.writeFile(_) >> { Runnable r -> r.run() }
+        1 * backingCache.put("key", 1)
+
+        then:
+        1 * lock.readFile(_) >> { Factory f -> f.create() }
+        1 * backingCache.get("key") >> 1
+        0 * backingCache._
+    }
+
+    def "write behind cache can not be used when there is no owner"() {
+        given:
+        access.open(mode(None))
+        def cache = access.newCache(new PersistentIndexedCacheParameters('cache', String.class, Integer.class).writeBehind())
+
+        when:
+        cache.put("key", 1)
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        cache.get("key")
+
+        then:
+        thrown(IllegalStateException)
+        0 * backingCache._
+    }
+
+    def "keeps pending cache updates when the use cache operation fails"() {
+        given:
+        lockManager.lock(lockFile, mode(Exclusive), "<display-name>", "use cache") >> lock
+        access.open(mode(None))
+        def cache = access.newCache(new PersistentIndexedCacheParameters('cache', String.class, Integer.class).writeBehind())
+        def failure = new RuntimeException()
+
+        when:
+        access.useCache("use cache") {
+            cache.put("key", 1)
+            throw failure
+        }
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+        0 * lock.writeFile(_)
+        !access.owner
+
+        when:
+        access.useCache("use cache") {}
+
+        then:
+        2 * lock.writeFile(_) >> { Runnable r -> r.run() }
+        1 * backingCache.put("key", 1)
+    }
+
+    def "failure to write pending cache updates fails the use cache operation"() {
+        given:
+        lockManager.lock(lockFile, mode(Exclusive), "<display-name>", "use cache") >> lock
+        access.open(mode(None))
+        def cache = access.newCache(new PersistentIndexedCacheParameters('cache', String.class, Integer.class).writeBehind())
+        def failure = new RuntimeException()
+
+        when:
+        access.useCache("use cache") {
+            cache.put("key", 1)
+        }
+
+        then:
+        1 * lock.writeFile(_) >> { Runnable r -> r.run() }
+        1 * lock.writeFile(_) >> { throw failure }
+        RuntimeException e = thrown()
+        e == failure
+        !access.owner
+    }
+}
@@ -21,6 +21,7 @@ import spock.lang.Specification
 
 class MultiProcessSafePersistentIndexedCacheTest extends Specification {
     final FileAccess fileAccess = Mock()
+    final OwnedFileAccess ownedFileAccess = Mock()
     final Factory<BTreePersistentIndexedCache<String, String>> factory = Mock()
     final cache = new DefaultMultiProcessSafePersistentIndexedCache<String, String>(factory, fileAccess)
     final BTreePersistentIndexedCache<String, String> backingCache = Mock()
@@ -128,6 +129,98 @@ class MultiProcessSafePersistentIndexedCacheTest extends Specification {
         0 * _._
     }
 
+    def "holds updates until flushed when writing behind"() {
+        given:
+        def cache = new DefaultMultiProcessSafePersistentIndexedCache<String, String>(factory, ownedFileAccess, true)
+
+        when:
+        cache.put("key1", "value1")
+        cache.put("key2", "value2")
+        cache.remove("key1")
+        def value1 = cache.get("key1")
+        def value2 = cache.get("key2")
+
+        then:
+        value1 == null
+        value2 == "value2"
+        5 * ownedFileAccess.checkOwner()
+        0 * _._
+
+        when:
+        cache.flush()
+
+        then:
+        1 * ownedFileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * factory.create() >> backingCache
+
+        then:
+        1 * ownedFileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * backingCache.put("key2", "value2")
+
+        then:
+        1 * backingCache.remove("key1")
+        0 * _._
+
+        when:
+        cache.flush()
+
+        then:
+        0 * _._
+    }
+
+    def "writes pending updates when closed"() {
+        given:
+        def cache = new DefaultMultiProcessSafePersistentIndexedCache<String, String>(factory, ownedFileAccess, true)
+        cache.put("key", "value")
+
+        when:
+        cache.close()
+
+        then:
+        1 * ownedFileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * factory.create() >> backingCache
+
+        then:
+        1 * ownedFileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * backingCache.put("key", "value")
+
+        then:
+        1 * ownedFileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * backingCache.close()
+        0 * _._
+    }
+
+    def "checks owner before using held updates when writing behind"() {
+        given:
+        def cache = new DefaultMultiProcessSafePersistentIndexedCache<String, String>(factory, ownedFileAccess, true)
+        ownedFileAccess.checkOwner() >> { throw new IllegalStateException() }
+
+        when:
+        cache.put("key", "value")
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        cache.remove("key")
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        cache.get("key")
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        cache.getAll(["key"])
+
+        then:
+        thrown(IllegalStateException)
+        0 * factory._
+    }
+
     def cacheOpened() {
         1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
         1 * factory.create() >> backingCache
@@ -46,7 +46,11 @@ public class BTreePersistentIndexedCacheTest {
     }
 
     private void createCache() {
-        cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer, (short) 4, 100);
+        cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer, (short) 4, 100, isMemoryMapped());
+    }
+
+    protected boolean isMemoryMapped() {
+        return false;
     }
 
     private void verifyAndCloseCache() {
@@ -126,7 +130,7 @@ public class BTreePersistentIndexedCacheTest {
 
     @Test
     public void reusesEmptySpaceWhenPuttingEntries() {
-        BTreePersistentIndexedCache<String, String> cache = new BTreePersistentIndexedCache<String, String>(cacheFile, stringSerializer, stringSerializer, (short) 4, 100);
+        BTreePersistentIndexedCache<String, String> cache = new BTreePersistentIndexedCache<String, String>(cacheFile, stringSerializer, stringSerializer, (short) 4, 100, isMemoryMapped());
 
         cache.put("key_1", "abcd");
         cache.put("key_2", "abcd");
@@ -293,6 +297,52 @@ public class BTreePersistentIndexedCacheTest {
         cache.close();
     }
 
+    @Test
+    public void getAllReturnsValuesForExistingKeysOverMultipleIndexBlocks() {
+        createCache();
+        List<Integer> values = new ArrayList<Integer>();
+        for (int i = 0; i < 200; i++) {
+            values.add(i);
+        }
+        checkAdds(values);
+
+        List<String> keys = new ArrayList<String>();
+        for (int i = 0; i < 250; i += 2) {
+            keys.add(String.format("key_%d", i));
+        }
+        keys.add("unknown");
+
+        Map<String, Integer> result = cache.getAll(keys);
+        assertThat(result.size(), equalTo(100));
+        for (int i = 0; i < 200; i += 2) {
+            assertThat(result.get(String.format("key_%d", i)), equalTo(i));
+        }
+        assertThat(result.containsKey("key_200"), equalTo(false));
+        assertThat(result.containsKey("unknown"), equalTo(false));
+        assertThat(cache.getAll(Collections.<String>emptyList()).isEmpty(), equalTo(true));
+
+        verifyAndCloseCache();
+    }
+
+    @Test
+    public void collectsStatistics() {
+        createCache();
+        checkAdds(1, 2, 3, 4, 5, 6, 7, 8);
+        cache.remove("key_1");
+        cache.getAll(Arrays.asList("key_2", "key_3"));
+
+        BTreePersistentIndexedCache.Statistics statistics = cache.getStatistics();
+        assertThat(statistics.getPuts(), equalTo(8L));
+        assertThat(statistics.getRemoves(), equalTo(1L));
+        assertThat(statistics.getGets(), equalTo(18L));
+        assertThat(statistics.getBatches(), equalTo(1L));
+        assertThat(statistics.getBlocksRead(), greaterThan(0L));
+        assertThat(statistics.getBytesRead(), greaterThan(0L));
+        assertThat(statistics.getCacheHitRatio(), greaterThan(0d));
+
+        cache.close();
+    }
+
     private void checkAdds(Integer... values) {
         checkAdds(Arrays.asList(values));
     }
@@ -114,4 +114,29 @@ class CacheOperationStackTest extends Specification {
         !stack.inCacheAction
         stack.inLongRunningOperation
     }
+
+    def "knows whether the current cache action is the outermost one"() {
+        expect:
+        !stack.inOutermostCacheAction
+
+        when:
+        stack.pushCacheAction("cache")
+        then:
+        stack.inOutermostCacheAction
+
+        when:
+        stack.pushCacheAction("nested")
+        then:
+        !stack.inOutermostCacheAction
+
+        when:
+        stack.pushLongRunningOperation("long")
+        then:
+        !stack.inOutermostCacheAction
+
+        when:
+        stack.pushCacheAction("cache2")
+        then:
+        stack.inOutermostCacheAction
+    }
 }
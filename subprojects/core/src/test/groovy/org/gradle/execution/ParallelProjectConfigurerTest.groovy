@@ -0,0 +1,211 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution
+
+import org.gradle.StartParameter
+import org.gradle.api.InvalidUserCodeException
+import org.gradle.api.ProjectConfigurationException
+import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.project.CrossProjectConfigurationDetector
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.initialization.BuildCancellationToken
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.MultipleBuildOperationFailures
+import org.gradle.internal.resource.Resource
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+class ParallelProjectConfigurerTest extends Specification {
+    def executorFactory = new DefaultExecutorFactory()
+    def configurer = new ParallelProjectConfigurer(Stub(BuildCancellationToken), executorFactory, 4)
+    def configured = new CopyOnWriteArrayList<String>()
+    def initScripts = []
+    ProjectInternal root
+
+    def setup() {
+        root = rootProject(null)
+    }
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "configures each project after its parent"() {
+        def a = project(":a", 1, "apply plugin: 'java'")
+        def b = project(":b", 1, null)
+        def c = project(":a:c", 2, "dependencies { compile project(':b') }")
+        hierarchy(a, c, b)
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        configured.size() == 4
+        configured[0] == ":"
+        configured[1..2] as Set == [":a", ":b"] as Set
+        configured[3] == ":a:c"
+    }
+
+    def "configures projects that configure other projects sequentially after their siblings"() {
+        def a = project(":a", 1, "configure(project(':b')) { apply plugin: 'java' }")
+        def b = project(":b", 1, null)
+        def c = project(":c", 1, "evaluationDependsOn(':b')")
+        hierarchy(a, b, c)
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        configured == [":", ":b", ":a", ":c"]
+    }
+
+    def "fails when a project configured in parallel configures another project"() {
+        def a = project(":a", 1, null)
+        def b = project(":b", 1, null)
+        hierarchy(a, b)
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        1 * a.evaluate() >> { CrossProjectConfigurationDetector.checkCanConfigure(b, "allprojects()") }
+        thrown(InvalidUserCodeException)
+    }
+
+    def "reports each failure when multiple projects configured in parallel fail"() {
+        def a = project(":a", 1, null)
+        def b = project(":b", 1, null)
+        hierarchy(a, b)
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        1 * a.evaluate() >> { throw new ProjectConfigurationException("a failed", new RuntimeException()) }
+        1 * b.evaluate() >> { throw new ProjectConfigurationException("b failed", new RuntimeException()) }
+        def e = thrown(MultipleBuildOperationFailures)
+        e.causes*.message as Set == ["a failed", "b failed"] as Set
+    }
+
+    def "configures projects whose build script only uses similarly named identifiers in parallel"() {
+        def a = project(":a", 1, "tasks.withType(Jar) { it.configure { } }\ndef parentDir = file('..')\nconfigurations { compile }")
+        def b = project(":b", 1, "parent.ext.shared = true")
+        hierarchy(b, a)
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        configured == [":", ":a", ":b"]
+    }
+
+    def "project can configure itself while configured in parallel"() {
+        def a = project(":a", 1, null)
+        hierarchy(a)
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        1 * a.evaluate() >> { CrossProjectConfigurationDetector.checkCanConfigure(a, "allprojects()") }
+        noExceptionThrown()
+    }
+
+    def "configures all projects sequentially when any build script applies a script plugin or configures all projects"() {
+        def a = project(":a", 1, null)
+        def b = project(":b", 1, null)
+        def c = project(":a:c", 2, buildScript)
+        hierarchy(c, a, b)
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        configured == [":", ":a:c", ":a", ":b"]
+
+        where:
+        buildScript << ["apply from: 'other.gradle'", "apply(from: file('other.gradle'))", "allprojects { version = '1.0' }", "subprojects { }", "gradle.beforeProject { }"]
+    }
+
+    def "configures all projects sequentially when the root build script configures all projects"() {
+        root = rootProject("allprojects { apply plugin: 'java' }")
+        def a = project(":a", 1, null)
+        def b = project(":b", 1, null)
+        def c = project(":a:c", 2, null)
+        hierarchy(c, a, b)
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        configured == [":", ":a:c", ":a", ":b"]
+    }
+
+    def "configures all projects sequentially when the build uses init scripts"() {
+        def a = project(":a", 1, null)
+        def b = project(":b", 1, null)
+        def c = project(":a:c", 2, null)
+        hierarchy(c, a, b)
+        initScripts << new File("init.gradle")
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        configured == [":", ":a:c", ":a", ":b"]
+    }
+
+    private void hierarchy(ProjectInternal... subprojects) {
+        root.subprojects >> (subprojects as LinkedHashSet)
+        root.allprojects >> (([root] + (subprojects as List)) as LinkedHashSet)
+    }
+
+    private ScriptSource script(String buildScript) {
+        def resource = Stub(Resource) {
+            getExists() >> (buildScript != null)
+            getText() >> buildScript
+        }
+        return Stub(ScriptSource) {
+            getResource() >> resource
+        }
+    }
+
+    private ProjectInternal rootProject(String buildScript) {
+        def project = project(":", 0, buildScript)
+        project.rootProject >> project
+        project.gradle >> Stub(GradleInternal) {
+            getStartParameter() >> Stub(StartParameter) {
+                getAllInitScripts() >> { initScripts }
+            }
+        }
+        return project
+    }
+
+    private ProjectInternal project(String path, int depth, String buildScript) {
+        def project = Mock(ProjectInternal)
+        project.path >> path
+        project.depth >> depth
+        project.buildScriptSource >> script(buildScript)
+        project.evaluate() >> {
+            configured << path
+            project
+        }
+        return project
+    }
+}
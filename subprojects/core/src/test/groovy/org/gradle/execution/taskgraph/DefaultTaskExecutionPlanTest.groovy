@@ -18,6 +18,7 @@ package org.gradle.execution.taskgraph
 
 import org.gradle.api.BuildCancelledException
 import org.gradle.api.CircularReferenceException
+import org.gradle.api.Project
 import org.gradle.api.Task
 import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.TaskOutputsInternal
@@ -27,11 +28,14 @@ import org.gradle.api.specs.Spec
 import org.gradle.api.tasks.TaskDependency
 import org.gradle.execution.TaskFailureHandler
 import org.gradle.initialization.BuildCancellationToken
+import org.gradle.test.fixtures.ConcurrentTestUtil
 import org.gradle.util.TextUtil
 import spock.lang.Issue
 import spock.lang.Specification
 import spock.lang.Unroll
 
+import java.util.concurrent.LinkedBlockingQueue
+
 import static org.gradle.util.TestUtil.createChildProject
 import static org.gradle.util.TestUtil.createRootProject
 import static org.gradle.util.TextUtil.toPlatformLineSeparators
@@ -834,6 +838,117 @@ public class DefaultTaskExecutionPlanTest extends Specification {
         executes(c)
     }
 
+    def "discards queued tasks that were skipped before they could start"() {
+        RuntimeException failure = new RuntimeException("failure")
+        Task a = task("a", failure: failure)
+        Task b = task("b")
+        Task c = task("c")
+        addToGraphAndPopulate([a, b, c])
+
+        when:
+        executionPlan.taskComplete(taskToExecute)
+
+        then:
+        taskToExecute == null
+        executionPlan.readyQueue.empty
+
+        when:
+        executionPlan.awaitCompletion()
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+    }
+
+    def "skips all tasks that depend on a failed task and continues with other tasks"() {
+        RuntimeException failure = new RuntimeException("failure")
+        Task a = task("a", failure: failure)
+        Task b = task("b", dependsOn: [a])
+        Task c = task("c", dependsOn: [b])
+        Task d = task("d")
+        addToGraphAndPopulate([c, d])
+        executionPlan.useFailureHandler(createIgnoreTaskFailureHandler(a))
+
+        when:
+        def executed = executedTasks
+
+        then:
+        executed == [a, d]
+        executionPlan.readyQueue.empty
+
+        when:
+        executionPlan.awaitCompletion()
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+    }
+
+    def "waits while a task is running and then executes the finalizers it enforces"() {
+        Task finalizerDependency = task("finalizerDependency")
+        Task finalizer = task("finalizer", dependsOn: [finalizerDependency])
+        Task finalized = task("finalized", finalizedBy: [finalizer])
+        addToGraphAndPopulate([finalized])
+        def finalizedInfo = taskToExecute
+        def started = new LinkedBlockingQueue<Task>()
+
+        when:
+        def worker = new Thread({
+            def taskInfo
+            while ((taskInfo = executionPlan.getTaskToExecute()) != null) {
+                started.add(taskInfo.task)
+                executionPlan.taskComplete(taskInfo)
+            }
+        } as Runnable)
+        worker.start()
+        ConcurrentTestUtil.poll(3, 0.01) {
+            assert worker.state == Thread.State.WAITING
+        }
+        executionPlan.taskComplete(finalizedInfo)
+        worker.join(3000)
+
+        then:
+        !worker.alive
+        started as List == [finalizerDependency, finalizer]
+        taskToExecute == null
+    }
+
+    def "waits for running tasks to complete when execution is aborted"() {
+        RuntimeException failure = new RuntimeException("failure")
+        def projectA = createChildProject(root, "a")
+        def projectB = createChildProject(root, "b")
+        Task a = task("a", project: projectA, failure: failure)
+        Task b = task("b", project: projectB)
+        Task c = task("c", project: projectB, dependsOn: [b])
+        addToGraphAndPopulate([a, c])
+        def aInfo = taskToExecute
+        def bInfo = taskToExecute
+        def result = new LinkedBlockingQueue<String>()
+
+        when:
+        executionPlan.taskComplete(aInfo)
+        def worker = new Thread({
+            result.add(String.valueOf(executionPlan.getTaskToExecute()))
+        } as Runnable)
+        worker.start()
+        ConcurrentTestUtil.poll(3, 0.01) {
+            assert worker.state == Thread.State.WAITING
+        }
+        executionPlan.taskComplete(bInfo)
+        worker.join(3000)
+
+        then:
+        [aInfo.task, bInfo.task] == [a, b]
+        result.poll() == "null"
+
+        when:
+        executionPlan.awaitCompletion()
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+    }
+
     def "one non parallelizable parallel task per project is allowed"() {
         given:
         //2 projects, 2 non parallelizable tasks each
@@ -865,6 +980,98 @@ public class DefaultTaskExecutionPlanTest extends Specification {
         t3.task.project != t4.task.project
     }
 
+    def "starts the ready task with the longest remaining critical path first"() {
+        given:
+        def history = Stub(TaskDurationHistory) {
+            getDurations(_) >> [":a": 10L, ":b": 50L, ":c": 50L, ":d": 50L]
+        }
+        executionPlan = new DefaultTaskExecutionPlan(cancellationHandler, false, history, true)
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [b])
+        Task d = task("d", dependsOn: [c])
+        Task e = task("e", dependsOn: [a, d])
+
+        when:
+        addToGraphAndPopulate([e])
+
+        then:
+        executes(a, b, c, d, e)
+        executedTasks == [b, c, d, a, e]
+    }
+
+    def "critical path prioritization keeps the order of entry tasks"() {
+        given:
+        def history = Stub(TaskDurationHistory) {
+            getDurations(_) >> [":a": 10L, ":x": 100L, ":b": 10L]
+        }
+        executionPlan = new DefaultTaskExecutionPlan(cancellationHandler, false, history, true)
+        Task a = task("a")
+        Task x = task("x")
+        Task b = task("b", dependsOn: [x])
+
+        when:
+        addToGraphAndPopulate([a, b])
+
+        then:
+        executedTasks == [a, x, b]
+    }
+
+    def "critical path prioritization keeps should run after ordering"() {
+        given:
+        def history = Stub(TaskDurationHistory) {
+            getDurations(_) >> [":a": 10L, ":b": 100L, ":c": 10L]
+        }
+        executionPlan = new DefaultTaskExecutionPlan(cancellationHandler, false, history, true)
+        Task a = task("a")
+        Task b = task("b", shouldRunAfter: [a])
+        Task c = task("c", dependsOn: [a, b])
+
+        when:
+        addToGraphAndPopulate([c])
+
+        then:
+        executedTasks == [a, b, c]
+    }
+
+    def "does not reorder tasks by critical path unless prioritization is enabled"() {
+        given:
+        def history = Mock(TaskDurationHistory)
+        executionPlan = new DefaultTaskExecutionPlan(cancellationHandler, false, history, false)
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [b])
+        Task d = task("d", dependsOn: [a, c])
+
+        when:
+        addToGraphAndPopulate([d])
+        def executed = executedTasks
+
+        then:
+        executed == [a, b, c, d]
+        0 * history.getDurations(_)
+        4 * history.recordDuration(_, _)
+    }
+
+    def "records durations of tasks that did work"() {
+        given:
+        def history = Mock(TaskDurationHistory)
+        executionPlan = new DefaultTaskExecutionPlan(cancellationHandler, false, history, true)
+        Task a = task("a")
+        Task b = task("b", didWork: false)
+        Task c = task("c", failure: new RuntimeException("failure"))
+        executionPlan.useFailureHandler(createIgnoreTaskFailureHandler(c))
+
+        when:
+        addToGraphAndPopulate([a, b, c])
+        executedTasks
+
+        then:
+        1 * history.getDurations([":a", ":b", ":c"]) >> [:]
+        1 * history.recordDuration(":a", _)
+        0 * history._
+    }
+
     void executes(Task... expectedTasks) {
         assert executionPlan.tasks == expectedTasks as List
         assert expectedTasks == expectedTasks as List
@@ -924,7 +1131,7 @@ public class DefaultTaskExecutionPlanTest extends Specification {
     }
 
     private TaskInternal task(Map options, final String name) {
-        def task = createTask(name)
+        def task = createTask(name, options.project ?: root)
         relationships(options, task)
         if (options.failure) {
             failure(task, options.failure)
@@ -950,10 +1157,10 @@ public class DefaultTaskExecutionPlanTest extends Specification {
         return task
     }
 
-    private TaskInternal createTask(final String name) {
+    private TaskInternal createTask(final String name, Project project = root) {
         TaskInternal task = Mock()
         TaskStateInternal state = Mock()
-        task.getProject() >> root
+        task.getProject() >> project
         task.name >> name
         task.path >> ':' + name
         task.state >> state
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph
+
+import org.gradle.api.internal.TaskInternal
+import org.gradle.internal.Pair
+import spock.lang.Specification
+
+class OutputPathIndexTest extends Specification {
+    def index = new OutputPathIndex()
+    def task1 = Stub(TaskInternal)
+    def task2 = Stub(TaskInternal)
+
+    def "finds output that is the same as, contains or is contained by the given path"() {
+        given:
+        index.add(path("a/b"), task1)
+        index.add(path("c/d/e"), task2)
+
+        expect:
+        index.findOverlap(path("a/b")) == pair(task1, path("a/b"))
+        index.findOverlap(path("a/b/c")) == pair(task1, path("a/b"))
+        index.findOverlap(path("c")) == pair(task2, path("c/d/e"))
+        index.findOverlap(path("a/bc")) == null
+        index.findOverlap(path("c/d/f")) == null
+        index.findOverlap(path("d")) == null
+    }
+
+    def "does not find output after it has been removed"() {
+        given:
+        index.add(path("a/b"), task1)
+        index.add(path("a/b/c"), task2)
+
+        when:
+        index.remove(path("a/b"), task1)
+
+        then:
+        index.findOverlap(path("a/b/d")) == null
+        index.findOverlap(path("a")) == pair(task2, path("a/b/c"))
+        !index.isEmpty()
+
+        when:
+        index.remove(path("a/b/c"), task2)
+
+        then:
+        index.findOverlap(path("a")) == null
+        index.isEmpty()
+    }
+
+    def path(String relativePath) {
+        return new File(File.listRoots()[0], relativePath).path
+    }
+
+    def pair(TaskInternal task, String path) {
+        return Pair.of(task, path)
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts.internal
+
+import org.gradle.api.Action
+import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache
+import org.gradle.api.internal.initialization.loadercache.ClassLoaderId
+import org.gradle.groovy.scripts.Script
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.groovy.scripts.TestScript
+import org.gradle.internal.resource.Resource
+import spock.lang.Specification
+
+class CrossBuildInMemoryCachingScriptClassCacheTest extends Specification {
+    private final ScriptClassCompiler target = Mock()
+    private Action<ClassLoaderId> releaseListener
+    private final ClassLoaderCache classLoaderCache = Stub(ClassLoaderCache) {
+        addReleaseListener(_) >> { Action<ClassLoaderId> listener -> releaseListener = listener }
+    }
+    private final CrossBuildInMemoryCachingScriptClassCache cache = new CrossBuildInMemoryCachingScriptClassCache(classLoaderCache)
+    private final CompiledScript<?, ?> compiledScript = Mock(CompiledScript)
+    final verifier = Mock(Action)
+    def classLoaderId = Mock(ClassLoaderId)
+    def parentClassLoader = Mock(ClassLoader)
+    def transformer = operation()
+
+    def setup() {
+        _ * compiledScript.usable >> true
+    }
+
+    def "reuses the compiled script for a later build when the script has not changed"() {
+        def script1 = scriptSource()
+        def script2 = scriptSource()
+
+        when:
+        def c1 = compiler().compile(script1, parentClassLoader, classLoaderId, transformer, Script, verifier)
+        def c2 = compiler().compile(script2, parentClassLoader, classLoaderId, transformer, Script, verifier)
+
+        then:
+        c1 == compiledScript
+        c2 == compiledScript
+        1 * target.compile(script1, parentClassLoader, classLoaderId, transformer, Script, verifier) >> compiledScript
+        0 * target._
+
+        and:
+        cache.hitCount == 1
+        cache.missCount == 1
+        cache.hitRatio == 0.5
+    }
+
+    def "compiles the script again when its content has changed"() {
+        def script1 = scriptSource('script', 'println 1')
+        def script2 = scriptSource('script', 'println 2')
+        def script3 = scriptSource('script', 'println 1')
+
+        when:
+        compiler().compile(script1, parentClassLoader, classLoaderId, transformer, Script, verifier)
+        compiler().compile(script2, parentClassLoader, classLoaderId, transformer, Script, verifier)
+        compiler().compile(script3, parentClassLoader, classLoaderId, transformer, Script, verifier)
+
+        then:
+        1 * target.compile(script1, parentClassLoader, classLoaderId, transformer, Script, verifier)
+        1 * target.compile(script2, parentClassLoader, classLoaderId, transformer, Script, verifier)
+        1 * target.compile(script3, parentClassLoader, classLoaderId, transformer, Script, verifier)
+    }
+
+    def "compiles the script again when its parent classloader or base class has changed"() {
+        def script = scriptSource()
+        def otherClassLoader = Mock(ClassLoader)
+
+        when:
+        compiler().compile(script, parentClassLoader, classLoaderId, transformer, Script, verifier)
+        compiler().compile(script, otherClassLoader, classLoaderId, transformer, Script, verifier)
+        compiler().compile(script, otherClassLoader, classLoaderId, transformer, TestScript, verifier)
+
+        then:
+        1 * target.compile(script, parentClassLoader, classLoaderId, transformer, Script, verifier)
+        1 * target.compile(script, otherClassLoader, classLoaderId, transformer, Script, verifier)
+        1 * target.compile(script, otherClassLoader, classLoaderId, transformer, TestScript, verifier)
+    }
+
+    def "does not share compiled scripts between different scripts, classloader ids or transformers"() {
+        def script = scriptSource()
+        def otherScript = scriptSource('other')
+        def otherClassLoaderId = Mock(ClassLoaderId)
+        def otherTransformer = operation('other')
+
+        when:
+        compiler().compile(script, parentClassLoader, classLoaderId, transformer, Script, verifier)
+        compiler().compile(otherScript, parentClassLoader, classLoaderId, transformer, Script, verifier)
+        compiler().compile(script, parentClassLoader, otherClassLoaderId, transformer, Script, verifier)
+        compiler().compile(script, parentClassLoader, classLoaderId, otherTransformer, Script, verifier)
+
+        then:
+        4 * target.compile(_, _, _, _, _, _)
+        cache.hitCount == 0
+    }
+
+    def "compiles the script again when scripts are to be recompiled"() {
+        def script = scriptSource()
+
+        when:
+        compiler().compile(script, parentClassLoader, classLoaderId, transformer, Script, verifier)
+        compiler(true).compile(script, parentClassLoader, classLoaderId, transformer, Script, verifier)
+        compiler().compile(script, parentClassLoader, classLoaderId, transformer, Script, verifier)
+
+        then:
+        3 * target.compile(script, parentClassLoader, classLoaderId, transformer, Script, verifier)
+    }
+
+    def "compiles the script again when its compiled classes are no longer available"() {
+        def script = scriptSource()
+
+        when:
+        def c1 = compiler().compile(script, parentClassLoader, classLoaderId, transformer, Script, verifier)
+        def c2 = compiler().compile(script, parentClassLoader, classLoaderId, transformer, Script, verifier)
+
+        then:
+        c1 == compiledScript
+        c2 == compiledScript
+        _ * compiledScript.usable >> false
+        2 * target.compile(script, parentClassLoader, classLoaderId, transformer, Script, verifier) >> compiledScript
+        cache.hitCount == 0
+    }
+
+    def "discards the compiled scripts for a classloader id when the classloader cache releases the id"() {
+        def script = scriptSource()
+        def otherScript = scriptSource('other')
+        def otherClassLoaderId = Mock(ClassLoaderId)
+
+        given:
+        target.compile(_, _, _, _, _, _) >> compiledScript
+        compiler().compile(script, parentClassLoader, classLoaderId, transformer, Script, verifier)
+        compiler().compile(otherScript, parentClassLoader, otherClassLoaderId, transformer, Script, verifier)
+
+        when:
+        releaseListener.execute(classLoaderId)
+        compiler().compile(script, parentClassLoader, classLoaderId, transformer, Script, verifier)
+        compiler().compile(otherScript, parentClassLoader, otherClassLoaderId, transformer, Script, verifier)
+
+        then:
+        1 * target.compile(script, parentClassLoader, classLoaderId, transformer, Script, verifier) >> compiledScript
+        0 * target._
+        cache.hitCount == 1
+    }
+
+    def compiler(boolean recompileScripts = false) {
+        new CrossBuildCachingScriptClassCompiler(target, cache, recompileScripts)
+    }
+
+    def scriptSource(String className = 'script', String text = 'println "hello"') {
+        ScriptSource script = Mock()
+        _ * script.className >> className
+        _ * script.resource >> Stub(Resource) {
+            getText() >> text
+        }
+        script
+    }
+
+    def operation(String id = 'id') {
+        CompileOperation<?> operation = Mock()
+        operation.id >> id
+        operation
+    }
+}
@@ -123,6 +123,25 @@ class DefaultScriptCompilationHandlerTest extends Specification {
         evaluateScript(script)
     }
 
+    def "compiled script is not usable once its classes are removed before they are loaded"() {
+        def scriptSource = scriptSource(scriptText)
+        scriptCompilationHandler.compileToDir(scriptSource, classLoader, scriptCacheDir, metadataCacheDir, null, expectedScriptClass, verifier)
+        def notLoaded = scriptCompilationHandler.loadFromDir(scriptSource, classLoader, scriptCacheDir, metadataCacheDir, null, expectedScriptClass, classLoaderId)
+        def loaded = scriptCompilationHandler.loadFromDir(scriptSource, classLoader, scriptCacheDir, metadataCacheDir, null, expectedScriptClass, classLoaderId)
+
+        expect:
+        notLoaded.usable
+        loaded.loadClass()
+        loaded.usable
+
+        when:
+        cachedFile.delete()
+
+        then:
+        !notLoaded.usable
+        loaded.usable
+    }
+
     def testCompileScriptToDirWithPackageDeclaration() {
         ScriptSource scriptSource = scriptSource("""package org.gradle.test
 println 'hi'
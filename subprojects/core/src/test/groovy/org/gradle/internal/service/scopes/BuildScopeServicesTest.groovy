@@ -33,6 +33,7 @@ import org.gradle.cache.internal.CacheFactory
 import org.gradle.configuration.*
 import org.gradle.groovy.scripts.DefaultScriptCompilerFactory
 import org.gradle.groovy.scripts.ScriptCompilerFactory
+import org.gradle.groovy.scripts.internal.CrossBuildInMemoryCachingScriptClassCache
 import org.gradle.initialization.*
 import org.gradle.internal.Factory
 import org.gradle.internal.classloader.ClassLoaderFactory
@@ -80,6 +81,7 @@ public class BuildScopeServicesTest extends Specification {
         sessionServices.get(BuildCancellationToken) >> Mock(BuildCancellationToken)
         sessionServices.get(ModelRuleSourceDetector) >> Mock(ModelRuleSourceDetector)
         sessionServices.get(ClassLoaderCache) >> Mock(ClassLoaderCache)
+        sessionServices.get(CrossBuildInMemoryCachingScriptClassCache) >> new CrossBuildInMemoryCachingScriptClassCache(Stub(ClassLoaderCache))
         sessionServices.get(ImportsReader) >> Mock(ImportsReader)
         sessionServices.get(StartParameter) >> startParameter
         sessionServices.getAll(_) >> []
@@ -24,7 +24,11 @@ import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.internal.tasks.options.OptionReader
 import org.gradle.cache.CacheRepository
 import org.gradle.execution.*
+import org.gradle.execution.taskgraph.DefaultTaskExecutionPlan
 import org.gradle.execution.taskgraph.DefaultTaskGraphExecuter
+import org.gradle.execution.taskgraph.NoOpTaskDurationHistory
+import org.gradle.execution.taskgraph.PersistentTaskDurationHistory
+import org.gradle.execution.taskgraph.TaskDurationHistory
 import org.gradle.initialization.BuildCancellationToken
 import org.gradle.internal.TimeProvider
 import org.gradle.internal.concurrent.ExecutorFactory
@@ -35,11 +39,14 @@ import org.gradle.internal.progress.BuildOperationExecutor
 import org.gradle.internal.reflect.Instantiator
 import org.gradle.internal.service.ServiceRegistry
 import org.gradle.model.internal.inspect.ModelRuleSourceDetector
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
 import spock.lang.Specification
 
 import static org.hamcrest.Matchers.sameInstance
 
 public class GradleScopeServicesTest extends Specification {
+    @Rule SetSystemProperties systemProperties = new SetSystemProperties()
     private GradleInternal gradle = Stub()
     private ServiceRegistry parent = Stub()
     private CacheRepository cacheRepository = Stub()
@@ -127,6 +134,19 @@ public class GradleScopeServicesTest extends Specification {
         graphExecuter sameInstance(secondExecuter)
     }
 
+    def "provides a task duration history that records nothing unless critical path prioritization is enabled"() {
+        expect:
+        registry.get(TaskDurationHistory) instanceof NoOpTaskDurationHistory
+    }
+
+    def "provides a persistent task duration history when critical path prioritization is enabled"() {
+        given:
+        System.setProperty(DefaultTaskExecutionPlan.CRITICAL_PATH_TOGGLE, "true")
+
+        expect:
+        registry.get(TaskDurationHistory) instanceof PersistentTaskDurationHistory
+    }
+
     def "provides a task selector"() {
         when:
         def selector = registry.get(TaskSelector)
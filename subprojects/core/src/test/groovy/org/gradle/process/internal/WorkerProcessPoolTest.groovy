@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal
+
+import org.gradle.api.Transformer
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.messaging.remote.MessagingServer
+import org.gradle.messaging.remote.ObjectConnection
+import org.gradle.process.internal.child.WorkerHostProtocol
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+
+class WorkerProcessPoolTest extends Specification {
+    def executorFactory = new DefaultExecutorFactory()
+    def server = Stub(MessagingServer)
+    def pool = new WorkerProcessPool(executorFactory, server, 60000, 0.5, 2)
+    def hosts = []
+    def factory = Stub(Transformer) {
+        transform(server) >> { startHost() }
+    }
+
+    def cleanup() {
+        pool.stop()
+        executorFactory.stop()
+    }
+
+    def "reuses an idle process started with the same settings"() {
+        when:
+        def host1 = pool.acquire("key", factory)
+        runWorker(host1, 100, 1000)
+        pool.release(host1)
+        def host2 = pool.acquire("key", factory)
+
+        then:
+        host2.is(host1)
+        hosts.size() == 1
+    }
+
+    def "starts a new process when no idle process has the same settings"() {
+        when:
+        def host1 = pool.acquire("key", factory)
+        def host2 = pool.acquire("key", factory)
+        runWorker(host1, 100, 1000)
+        pool.release(host1)
+        def host3 = pool.acquire("other", factory)
+
+        then:
+        !host2.is(host1)
+        !host3.is(host1)
+        hosts.size() == 3
+    }
+
+    def "stops a process that has too much heap in use after its worker has finished"() {
+        when:
+        def host1 = pool.acquire("key", factory)
+        runWorker(host1, 900, 1000)
+        pool.release(host1)
+        def host2 = pool.acquire("key", factory)
+
+        then:
+        !host2.is(host1)
+        hosts[0].stopRequested
+    }
+
+    def "stops the least recently used process when there are too many idle processes"() {
+        when:
+        def acquired = (1..3).collect { pool.acquire("key", factory) }
+        acquired.each { runWorker(it, 100, 1000); pool.release(it) }
+
+        then:
+        hosts[0].stopRequested
+        !hosts[1].stopRequested
+        !hosts[2].stopRequested
+    }
+
+    def "stops all processes when stopped"() {
+        given:
+        def host1 = pool.acquire("key", factory)
+        runWorker(host1, 100, 1000)
+        pool.release(host1)
+        pool.acquire("other", factory)
+
+        when:
+        pool.stop()
+
+        then:
+        hosts.size() == 2
+        hosts.every { it.stopRequested }
+    }
+
+    private void runWorker(PooledWorkerHost host, long usedHeap, long maxHeap) {
+        host.run(new byte[0], Stub(PooledWorkerProcess))
+        host.completed(null, usedHeap, maxHeap)
+    }
+
+    private WorkerProcess startHost() {
+        def host = new TestHost()
+        hosts << host
+        def connection = Stub(ObjectConnection) {
+            addOutgoing(WorkerHostProtocol) >> host
+        }
+        return Stub(WorkerProcess) {
+            getConnection() >> connection
+            waitForStop() >> { host.exited.await(); null }
+        }
+    }
+
+    private static class TestHost implements WorkerHostProtocol {
+        final CountDownLatch exited = new CountDownLatch(1)
+        boolean stopRequested
+
+        void run(byte[] serializedWorker) {
+        }
+
+        void stop() {
+            stopRequested = true
+            exited.countDown()
+        }
+    }
+}
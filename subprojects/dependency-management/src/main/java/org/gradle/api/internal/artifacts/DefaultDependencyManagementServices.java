@@ -147,6 +147,7 @@ public class DefaultDependencyManagementServices implements DependencyManagement
                                                        GlobalDependencyResolutionRules metadataHandler,
                                                        ComponentIdentifierFactory componentIdentifierFactory,
                                                        CacheLockingManager cacheLockingManager,
+                                                       ResolveOperationExecutor resolveOperationExecutor,
                                                        ResolutionResultsStoreFactory resolutionResultsStoreFactory,
                                                        StartParameter startParameter) {
             return new ErrorHandlingConfigurationResolver(
@@ -157,6 +158,7 @@ public class DefaultDependencyManagementServices implements DependencyManagement
                                             repositories,
                                             metadataHandler,
                                             cacheLockingManager,
+                                            resolveOperationExecutor,
                                             resolutionResultsStoreFactory,
                                             startParameter.isBuildProjectDependencies())),
                             componentIdentifierFactory)
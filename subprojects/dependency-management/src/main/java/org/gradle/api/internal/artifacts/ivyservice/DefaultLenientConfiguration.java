@@ -31,15 +31,18 @@ import java.util.*;
 
 public class DefaultLenientConfiguration implements LenientConfiguration {
     private CacheLockingManager cacheLockingManager;
+    private final ResolveOperationExecutor resolveOperationExecutor;
     private final Configuration configuration;
     private final Set<UnresolvedDependency> unresolvedDependencies;
     private final ResolvedArtifacts artifactResults;
     private final Factory<TransientConfigurationResults> transientConfigurationResultsFactory;
 
-    public DefaultLenientConfiguration(Configuration configuration, CacheLockingManager cacheLockingManager, Set<UnresolvedDependency> unresolvedDependencies,
-                                       ResolvedArtifacts artifactResults, Factory<TransientConfigurationResults> transientConfigurationResultsLoader) {
+    public DefaultLenientConfiguration(Configuration configuration, CacheLockingManager cacheLockingManager, ResolveOperationExecutor resolveOperationExecutor,
+                                       Set<UnresolvedDependency> unresolvedDependencies, ResolvedArtifacts artifactResults,
+                                       Factory<TransientConfigurationResults> transientConfigurationResultsLoader) {
         this.configuration = configuration;
         this.cacheLockingManager = cacheLockingManager;
+        this.resolveOperationExecutor = resolveOperationExecutor;
         this.unresolvedDependencies = unresolvedDependencies;
         this.artifactResults = artifactResults;
         this.transientConfigurationResultsFactory = transientConfigurationResultsLoader;
@@ -98,6 +101,7 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
      */
     public Set<ResolvedArtifact> getArtifacts(Spec<? super Dependency> dependencySpec) {
         final Set<ResolvedArtifact> allArtifacts = getAllArtifacts(dependencySpec);
+        downloadFiles(allArtifacts);
         return cacheLockingManager.useCache("retrieve artifacts from " + configuration, new Factory<Set<ResolvedArtifact>>() {
             public Set<ResolvedArtifact> create() {
                 return CollectionUtils.filter(allArtifacts, new Spec<ResolvedArtifact>() {
@@ -115,6 +119,7 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
     }
 
     private Set<File> getFiles(final Set<ResolvedArtifact> artifacts) {
+        downloadFiles(artifacts);
         final Set<File> files = new LinkedHashSet<File>();
         cacheLockingManager.useCache("resolve files from " + configuration, new Runnable() {
             public void run() {
@@ -129,6 +134,29 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
         return files;
     }
 
+    /**
+     * Downloads the files for the given artifacts concurrently, so that they are available when the artifacts are later visited in order.
+     * Failures are ignored here, and are reported when the file of the failed artifact is requested again.
+     */
+    private void downloadFiles(Set<ResolvedArtifact> artifacts) {
+        if (!resolveOperationExecutor.isParallel()) {
+            return;
+        }
+        List<Runnable> downloads = new ArrayList<Runnable>(artifacts.size());
+        for (final ResolvedArtifact artifact : artifacts) {
+            downloads.add(new Runnable() {
+                public void run() {
+                    try {
+                        artifact.getFile();
+                    } catch (RuntimeException e) {
+                        // Ignore
+                    }
+                }
+            });
+        }
+        resolveOperationExecutor.runAll("download artifacts for " + configuration, downloads);
+    }
+
     /**
      * Recursive, includes unsuccessfully resolved artifacts
      *
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.ivy.Ivy;
+import org.gradle.api.Action;
+import org.gradle.cache.CacheAccess;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
+import org.gradle.internal.operations.DefaultBuildOperationProcessor;
+import org.gradle.internal.operations.MultipleBuildOperationFailures;
+
+import java.util.Collection;
+
+/**
+ * Runs dependency resolution operations, such as meta-data requests and artifact downloads, on a bounded pool of threads.
+ *
+ * <p>Operations are only run in parallel when {@value #ENABLE_PROPERTY} is set and more than one worker is available. Otherwise, they are run
+ * one after the other on the calling thread.</p>
+ *
+ * <p>While waiting for the operations to complete, the calling thread releases the artifact cache so that the operations can use it.
+ * Each operation runs with its own Ivy context.</p>
+ */
+public class ResolveOperationExecutor implements Stoppable {
+    public static final String ENABLE_PROPERTY = "org.gradle.dependency.resolution.parallel";
+
+    private final ExecutorFactory executorFactory;
+    private final int maxWorkerCount;
+    private final CacheAccess cacheAccess;
+    private final IvyContextManager ivyContextManager;
+    private DefaultBuildOperationProcessor buildOperationProcessor;
+
+    public ResolveOperationExecutor(ExecutorFactory executorFactory, int maxWorkerCount, CacheAccess cacheAccess, IvyContextManager ivyContextManager) {
+        this.executorFactory = executorFactory;
+        this.maxWorkerCount = maxWorkerCount;
+        this.cacheAccess = cacheAccess;
+        this.ivyContextManager = ivyContextManager;
+    }
+
+    public boolean isParallel() {
+        return maxWorkerCount > 1;
+    }
+
+    /**
+     * Runs the given operations and waits for all of them to complete. Rethrows the failure of an operation that fails.
+     */
+    public void runAll(String description, Collection<? extends Runnable> operations) {
+        if (!isParallel() || operations.size() < 2) {
+            for (Runnable operation : operations) {
+                operation.run();
+            }
+            return;
+        }
+
+        final BuildOperationQueue<ResolveOperation> queue = getBuildOperationProcessor().newQueue(new ResolveOperationWorker(), null);
+        for (Runnable operation : operations) {
+            queue.add(new ResolveOperation(description, operation));
+        }
+        try {
+            cacheAccess.longRunningOperation(description, new Runnable() {
+                public void run() {
+                    queue.waitForCompletion();
+                }
+            });
+        } catch (MultipleBuildOperationFailures e) {
+            if (e.getCauses().size() == 1) {
+                throw UncheckedException.throwAsUncheckedException(e.getCauses().get(0));
+            }
+            throw e;
+        }
+    }
+
+    private synchronized DefaultBuildOperationProcessor getBuildOperationProcessor() {
+        if (buildOperationProcessor == null) {
+            buildOperationProcessor = new DefaultBuildOperationProcessor(executorFactory, maxWorkerCount);
+        }
+        return buildOperationProcessor;
+    }
+
+    public synchronized void stop() {
+        if (buildOperationProcessor != null) {
+            buildOperationProcessor.stop();
+            buildOperationProcessor = null;
+        }
+    }
+
+    private static class ResolveOperation implements BuildOperation {
+        private final String description;
+        private final Runnable action;
+
+        ResolveOperation(String description, Runnable action) {
+            this.description = description;
+            this.action = action;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private class ResolveOperationWorker implements BuildOperationWorker<ResolveOperation> {
+        public void execute(final ResolveOperation operation) {
+            ivyContextManager.withIvy(new Action<Ivy>() {
+                public void execute(Ivy ivy) {
+                    operation.action.run();
+                }
+            });
+        }
+
+        public String getDisplayName() {
+            return "dependency resolution";
+        }
+    }
+}
@@ -31,7 +31,7 @@ class InMemoryArtifactsCache {
         this.stats = stats;
     }
 
-    public boolean supplyArtifact(ComponentArtifactIdentifier id, BuildableArtifactResolveResult result) {
+    public synchronized boolean supplyArtifact(ComponentArtifactIdentifier id, BuildableArtifactResolveResult result) {
         File fromCache = artifacts.get(id);
         if (fromCache != null) {
             result.resolved(fromCache);
@@ -41,7 +41,7 @@ class InMemoryArtifactsCache {
         return false;
     }
 
-    public void newArtifact(ComponentArtifactIdentifier id, BuildableArtifactResolveResult result) {
+    public synchronized void newArtifact(ComponentArtifactIdentifier id, BuildableArtifactResolveResult result) {
         if (result.hasResult() && result.getFailure() == null) {
             artifacts.put(id, result.getFile());
         }
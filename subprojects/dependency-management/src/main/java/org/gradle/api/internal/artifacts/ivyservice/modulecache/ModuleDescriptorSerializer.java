@@ -0,0 +1,432 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.apache.ivy.core.module.descriptor.*;
+import org.apache.ivy.core.module.id.ArtifactId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.plugins.matcher.PatternMatcher;
+import org.apache.ivy.plugins.parser.xml.XmlModuleDescriptorParser;
+import org.gradle.api.internal.artifacts.ivyservice.IvyUtil;
+import org.gradle.api.internal.artifacts.ivyservice.NamespaceId;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.ResolverStrategy;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * A binary format for the module descriptors held in the module meta-data cache. Writes the same information as {@link
+ * org.gradle.api.internal.artifacts.ivyservice.IvyXmlModuleDescriptorWriter}, and rebuilds the descriptor the same way as {@link
+ * org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModuleDescriptorParser} does, without any XML parsing.
+ */
+public class ModuleDescriptorSerializer implements Serializer<ModuleDescriptor> {
+    private final ResolverStrategy resolverStrategy;
+    private final Field dependencyConfigField;
+
+    public ModuleDescriptorSerializer(ResolverStrategy resolverStrategy) {
+        this.resolverStrategy = resolverStrategy;
+        try {
+            dependencyConfigField = DefaultDependencyDescriptor.class.getDeclaredField("confs");
+        } catch (NoSuchFieldException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        dependencyConfigField.setAccessible(true);
+    }
+
+    public void write(Encoder encoder, ModuleDescriptor md) throws Exception {
+        writeInfo(encoder, md);
+
+        Configuration[] configurations = md.getConfigurations();
+        encoder.writeSmallInt(configurations.length);
+        for (Configuration configuration : configurations) {
+            encoder.writeString(configuration.getName());
+            encoder.writeString(configuration.getVisibility().toString());
+            encoder.writeNullableString(configuration.getDescription());
+            writeStrings(encoder, configuration.getExtends());
+            encoder.writeBoolean(configuration.isTransitive());
+            encoder.writeNullableString(configuration.getDeprecated());
+            writeExtraAttributes(encoder, configuration.getQualifiedExtraAttributes());
+        }
+
+        Artifact[] artifacts = md.getAllArtifacts();
+        encoder.writeSmallInt(artifacts.length);
+        for (Artifact artifact : artifacts) {
+            writeArtifact(encoder, artifact.getName(), artifact.getType(), artifact.getExt(), artifact.getUrl(), artifact.getConfigurations(), artifact.getQualifiedExtraAttributes());
+        }
+
+        DependencyDescriptor[] dependencies = md.getDependencies();
+        encoder.writeSmallInt(dependencies.length);
+        for (DependencyDescriptor dependency : dependencies) {
+            writeDependency(encoder, dependency);
+        }
+
+        writeExcludeRules(encoder, md.getAllExcludeRules());
+    }
+
+    public ModuleDescriptor read(Decoder decoder) throws Exception {
+        DefaultModuleDescriptor md = new DefaultModuleDescriptor(XmlModuleDescriptorParser.getInstance(), null);
+        readInfo(decoder, md);
+
+        int configurationCount = decoder.readSmallInt();
+        for (int i = 0; i < configurationCount; i++) {
+            String name = decoder.readString();
+            Configuration.Visibility visibility = Configuration.Visibility.getVisibility(decoder.readString());
+            String description = decoder.readNullableString();
+            String[] extendsFrom = readStrings(decoder);
+            boolean transitive = decoder.readBoolean();
+            String deprecated = decoder.readNullableString();
+            Configuration configuration = new Configuration(name, visibility, description, extendsFrom, transitive, deprecated);
+            for (Map.Entry<String, String> entry : readExtraAttributes(decoder).entrySet()) {
+                configuration.setExtraAttribute(entry.getKey(), entry.getValue());
+            }
+            md.addConfiguration(configuration);
+        }
+
+        int artifactCount = decoder.readSmallInt();
+        for (int i = 0; i < artifactCount; i++) {
+            String name = decoder.readString();
+            String type = decoder.readString();
+            String ext = decoder.readNullableString();
+            URL url = readUrl(decoder);
+            String[] configurations = readStrings(decoder);
+            MDArtifact artifact = new MDArtifact(md, name, type, ext, url, readExtraAttributes(decoder));
+            for (String configuration : configurations) {
+                artifact.addConfiguration(configuration);
+                md.addArtifact(configuration, artifact);
+            }
+        }
+
+        int dependencyCount = decoder.readSmallInt();
+        for (int i = 0; i < dependencyCount; i++) {
+            md.addDependency(readDependency(decoder, md));
+        }
+
+        for (ExcludeRule excludeRule : readExcludeRules(decoder)) {
+            md.addExcludeRule(excludeRule);
+        }
+        return md;
+    }
+
+    private void writeInfo(Encoder encoder, ModuleDescriptor md) throws IOException {
+        ModuleRevisionId moduleRevisionId = md.getModuleRevisionId();
+        ModuleRevisionId resolvedModuleRevisionId = md.getResolvedModuleRevisionId();
+        encoder.writeString(moduleRevisionId.getOrganisation());
+        encoder.writeString(moduleRevisionId.getName());
+        encoder.writeNullableString(resolvedModuleRevisionId.getBranch());
+        encoder.writeNullableString(resolvedModuleRevisionId.getRevision());
+        writeExtraAttributes(encoder, md.getQualifiedExtraAttributes());
+        encoder.writeString(md.getStatus());
+        Date publicationDate = md.getResolvedPublicationDate();
+        encoder.writeBoolean(publicationDate != null);
+        if (publicationDate != null) {
+            encoder.writeLong(publicationDate.getTime());
+        }
+        encoder.writeBoolean(md.isDefault());
+        writeExtraAttributes(encoder, md.getExtraAttributesNamespaces());
+
+        if (md.getInheritedDescriptors().length != 0) {
+            throw new UnsupportedOperationException("Extends descriptors not supported.");
+        }
+
+        License[] licenses = md.getLicenses();
+        encoder.writeSmallInt(licenses.length);
+        for (License license : licenses) {
+            encoder.writeNullableString(license.getName());
+            encoder.writeNullableString(license.getUrl());
+        }
+        encoder.writeNullableString(md.getHomePage());
+        encoder.writeNullableString(md.getDescription());
+
+        Map<?, ?> extraInfo = md.getExtraInfo();
+        List<Map.Entry<?, ?>> entries = new ArrayList<Map.Entry<?, ?>>();
+        for (Map.Entry<?, ?> entry : extraInfo.entrySet()) {
+            if (entry.getValue() != null && entry.getValue().toString().length() > 0) {
+                entries.add(entry);
+            }
+        }
+        encoder.writeSmallInt(entries.size());
+        for (Map.Entry<?, ?> entry : entries) {
+            if (entry.getKey() instanceof NamespaceId) {
+                NamespaceId id = (NamespaceId) entry.getKey();
+                encoder.writeNullableString(id.getNamespace());
+                encoder.writeString(id.getName());
+            } else {
+                encoder.writeNullableString(null);
+                encoder.writeString(entry.getKey().toString());
+            }
+            encoder.writeString(entry.getValue().toString());
+        }
+    }
+
+    private void readInfo(Decoder decoder, DefaultModuleDescriptor md) throws IOException {
+        String org = decoder.readString();
+        String module = decoder.readString();
+        String branch = decoder.readNullableString();
+        String revision = decoder.readNullableString();
+        Map<String, String> extraAttributes = readExtraAttributes(decoder);
+        md.setModuleRevisionId(IvyUtil.createModuleRevisionId(org, module, branch, revision, extraAttributes));
+        md.setStatus(decoder.readString());
+        if (decoder.readBoolean()) {
+            md.setPublicationDate(new Date(decoder.readLong()));
+        }
+        md.setDefault(decoder.readBoolean());
+        for (Map.Entry<String, String> entry : readExtraAttributes(decoder).entrySet()) {
+            md.addExtraAttributeNamespace(entry.getKey(), entry.getValue());
+        }
+
+        int licenseCount = decoder.readSmallInt();
+        for (int i = 0; i < licenseCount; i++) {
+            md.addLicense(new License(decoder.readNullableString(), decoder.readNullableString()));
+        }
+        md.setHomePage(decoder.readNullableString());
+        md.setDescription(decoder.readNullableString());
+
+        int extraInfoCount = decoder.readSmallInt();
+        for (int i = 0; i < extraInfoCount; i++) {
+            String namespace = decoder.readNullableString();
+            String name = decoder.readString();
+            String value = decoder.readString();
+            if (namespace != null) {
+                md.getExtraInfo().put(new NamespaceId(namespace, name), value);
+            } else {
+                md.getExtraInfo().put(name, value);
+            }
+        }
+    }
+
+    private void writeDependency(Encoder encoder, DependencyDescriptor dependency) throws IOException {
+        ModuleRevisionId revisionId = dependency.getDependencyRevisionId();
+        encoder.writeString(revisionId.getOrganisation());
+        encoder.writeString(revisionId.getName());
+        encoder.writeNullableString(revisionId.getBranch());
+        encoder.writeNullableString(revisionId.getRevision());
+        writeExtraAttributes(encoder, revisionId.getQualifiedExtraAttributes());
+        ModuleRevisionId dynamicId = dependency.getDynamicConstraintDependencyRevisionId();
+        boolean hasConstraint = !dynamicId.equals(revisionId);
+        encoder.writeBoolean(hasConstraint);
+        if (hasConstraint) {
+            encoder.writeNullableString(dynamicId.getBranch());
+            encoder.writeNullableString(dynamicId.getRevision());
+        }
+        encoder.writeBoolean(dependency.isForce());
+        encoder.writeBoolean(dependency.isChanging());
+        encoder.writeBoolean(dependency.isTransitive());
+
+        String[] moduleConfigurations = dependency.getModuleConfigurations();
+        Map<String, List<String>> configMappings = getConfigMappings(dependency);
+        encoder.writeSmallInt(moduleConfigurations.length);
+        for (String moduleConfiguration : moduleConfigurations) {
+            encoder.writeString(moduleConfiguration);
+            List<String> dependencyConfigurations = configMappings.get(moduleConfiguration);
+            writeStrings(encoder, dependencyConfigurations.toArray(new String[dependencyConfigurations.size()]));
+        }
+
+        DependencyArtifactDescriptor[] artifacts = dependency.getAllDependencyArtifacts();
+        encoder.writeSmallInt(artifacts.length);
+        for (DependencyArtifactDescriptor artifact : artifacts) {
+            writeArtifact(encoder, artifact.getName(), artifact.getType(), artifact.getExt(), artifact.getUrl(), artifact.getConfigurations(), artifact.getQualifiedExtraAttributes());
+        }
+        encoder.writeSmallInt(dependency.getAllIncludeRules().length);
+        for (IncludeRule rule : dependency.getAllIncludeRules()) {
+            writeRule(encoder, rule.getId(), rule.getMatcher(), rule.getConfigurations(), rule.getQualifiedExtraAttributes());
+        }
+        writeExcludeRules(encoder, dependency.getAllExcludeRules());
+    }
+
+    private DependencyDescriptor readDependency(Decoder decoder, DefaultModuleDescriptor md) throws IOException {
+        String org = decoder.readString();
+        String name = decoder.readString();
+        String branch = decoder.readNullableString();
+        String revision = decoder.readNullableString();
+        Map<String, String> extraAttributes = readExtraAttributes(decoder);
+        ModuleRevisionId revisionId = IvyUtil.createModuleRevisionId(org, name, branch, revision, extraAttributes);
+        ModuleRevisionId dynamicId;
+        if (decoder.readBoolean()) {
+            String branchConstraint = decoder.readNullableString();
+            String revisionConstraint = decoder.readNullableString();
+            dynamicId = IvyUtil.createModuleRevisionId(org, name, branchConstraint, revisionConstraint, extraAttributes, branchConstraint != null);
+        } else {
+            dynamicId = IvyUtil.createModuleRevisionId(org, name, branch, revision, extraAttributes, false);
+        }
+        boolean force = decoder.readBoolean();
+        boolean changing = decoder.readBoolean();
+        boolean transitive = decoder.readBoolean();
+        DefaultDependencyDescriptor dd = new DefaultDependencyDescriptor(md, revisionId, dynamicId, force, changing, transitive);
+
+        int moduleConfigurationCount = decoder.readSmallInt();
+        for (int i = 0; i < moduleConfigurationCount; i++) {
+            String moduleConfiguration = decoder.readString();
+            for (String dependencyConfiguration : readStrings(decoder)) {
+                dd.addDependencyConfiguration(moduleConfiguration, dependencyConfiguration);
+            }
+        }
+
+        int artifactCount = decoder.readSmallInt();
+        for (int i = 0; i < artifactCount; i++) {
+            String artifactName = decoder.readString();
+            String type = decoder.readString();
+            String ext = decoder.readNullableString();
+            URL url = readUrl(decoder);
+            String[] configurations = readStrings(decoder);
+            DefaultDependencyArtifactDescriptor artifact = new DefaultDependencyArtifactDescriptor(dd, artifactName, type, ext, url, readExtraAttributes(decoder));
+            for (String configuration : configurations) {
+                artifact.addConfiguration(configuration);
+                dd.addDependencyArtifact(configuration, artifact);
+            }
+        }
+
+        int includeRuleCount = decoder.readSmallInt();
+        for (int i = 0; i < includeRuleCount; i++) {
+            ArtifactId id = readArtifactId(decoder);
+            PatternMatcher matcher = readMatcher(decoder);
+            String[] configurations = readStrings(decoder);
+            DefaultIncludeRule rule = new DefaultIncludeRule(id, matcher, readExtraAttributes(decoder));
+            for (String configuration : configurations) {
+                rule.addConfiguration(configuration);
+                dd.addIncludeRule(configuration, rule);
+            }
+        }
+
+        for (ExcludeRule rule : readExcludeRules(decoder)) {
+            for (String configuration : rule.getConfigurations()) {
+                dd.addExcludeRule(configuration, rule);
+            }
+        }
+        return dd;
+    }
+
+    private Map<String, List<String>> getConfigMappings(DependencyDescriptor dependency) {
+        if (dependency instanceof DefaultDependencyDescriptor) {
+            // Use the raw mappings, as DefaultDependencyDescriptor.getDependencyConfigurations() interprets them. See IvyXmlModuleDescriptorWriter
+            try {
+                return (Map<String, List<String>>) dependencyConfigField.get(dependency);
+            } catch (IllegalAccessException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        Map<String, List<String>> configMappings = new HashMap<String, List<String>>();
+        for (String moduleConfiguration : dependency.getModuleConfigurations()) {
+            configMappings.put(moduleConfiguration, Arrays.asList(dependency.getDependencyConfigurations(moduleConfiguration)));
+        }
+        return configMappings;
+    }
+
+    private void writeArtifact(Encoder encoder, String name, String type, String ext, URL url, String[] configurations, Map<?, ?> extraAttributes) throws IOException {
+        encoder.writeString(name);
+        encoder.writeString(type);
+        encoder.writeNullableString(ext);
+        encoder.writeNullableString(url == null ? null : url.toExternalForm());
+        writeStrings(encoder, configurations);
+        writeExtraAttributes(encoder, extraAttributes);
+    }
+
+    private void writeExcludeRules(Encoder encoder, ExcludeRule[] rules) throws IOException {
+        encoder.writeSmallInt(rules.length);
+        for (ExcludeRule rule : rules) {
+            writeRule(encoder, rule.getId(), rule.getMatcher(), rule.getConfigurations(), rule.getQualifiedExtraAttributes());
+        }
+    }
+
+    private void writeRule(Encoder encoder, ArtifactId id, PatternMatcher matcher, String[] configurations, Map<?, ?> extraAttributes) throws IOException {
+        encoder.writeString(id.getModuleId().getOrganisation());
+        encoder.writeString(id.getModuleId().getName());
+        encoder.writeString(id.getName());
+        encoder.writeString(id.getType());
+        encoder.writeString(id.getExt());
+        encoder.writeString(matcher.getName());
+        writeStrings(encoder, configurations);
+        writeExtraAttributes(encoder, extraAttributes);
+    }
+
+    private List<ExcludeRule> readExcludeRules(Decoder decoder) throws IOException {
+        int count = decoder.readSmallInt();
+        List<ExcludeRule> rules = new ArrayList<ExcludeRule>(count);
+        for (int i = 0; i < count; i++) {
+            ArtifactId id = readArtifactId(decoder);
+            PatternMatcher matcher = readMatcher(decoder);
+            String[] configurations = readStrings(decoder);
+            DefaultExcludeRule rule = new DefaultExcludeRule(id, matcher, readExtraAttributes(decoder));
+            for (String configuration : configurations) {
+                rule.addConfiguration(configuration);
+            }
+            rules.add(rule);
+        }
+        return rules;
+    }
+
+    private ArtifactId readArtifactId(Decoder decoder) throws IOException {
+        String org = decoder.readString();
+        String module = decoder.readString();
+        return new ArtifactId(IvyUtil.createModuleId(org, module), decoder.readString(), decoder.readString(), decoder.readString());
+    }
+
+    private PatternMatcher readMatcher(Decoder decoder) throws IOException {
+        String matcherName = decoder.readString();
+        PatternMatcher matcher = resolverStrategy.getPatternMatcher(matcherName);
+        if (matcher == null) {
+            throw new IllegalArgumentException("unknown matcher " + matcherName);
+        }
+        return matcher;
+    }
+
+    private URL readUrl(Decoder decoder) throws IOException {
+        String url = decoder.readNullableString();
+        return url == null ? null : new URL(url);
+    }
+
+    private void writeStrings(Encoder encoder, String[] values) throws IOException {
+        encoder.writeSmallInt(values.length);
+        for (String value : values) {
+            encoder.writeString(value);
+        }
+    }
+
+    private String[] readStrings(Decoder decoder) throws IOException {
+        String[] values = new String[decoder.readSmallInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = decoder.readString();
+        }
+        return values;
+    }
+
+    private void writeExtraAttributes(Encoder encoder, Map<?, ?> attributes) throws IOException {
+        if (attributes == null) {
+            encoder.writeSmallInt(0);
+            return;
+        }
+        encoder.writeSmallInt(attributes.size());
+        for (Map.Entry<?, ?> entry : attributes.entrySet()) {
+            encoder.writeString(entry.getKey().toString());
+            encoder.writeString(entry.getValue().toString());
+        }
+    }
+
+    private Map<String, String> readExtraAttributes(Decoder decoder) throws IOException {
+        int count = decoder.readSmallInt();
+        Map<String, String> attributes = new LinkedHashMap<String, String>(count);
+        for (int i = 0; i < count; i++) {
+            attributes.put(decoder.readString(), decoder.readString());
+        }
+        return attributes;
+    }
+}
@@ -25,34 +25,65 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModu
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.resource.local.LocallyAvailableResource;
 import org.gradle.internal.resource.local.PathKeyFileStore;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.math.BigInteger;
 
+/**
+ * Stores each module descriptor as an ivy.xml file, plus a binary copy of the descriptor that can be read back much faster than the XML. The binary copy
+ * starts with a format version and the SHA1 of the ivy.xml file it was written with. It is ignored and rewritten from the ivy.xml file when the version
+ * does not match, or when the hash does not match the one recorded in the cache entry. The latter happens when the ivy.xml file has been rewritten by
+ * a Gradle version that does not know about the binary copy, as the meta-data cache is shared between Gradle versions.
+ */
 public class ModuleDescriptorStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModuleDescriptorStore.class);
 
     public static final String FILE_PATH_PATTERN = "%s/%s/%s/%s/ivy.xml";
+    public static final String BINARY_FILE_PATH_PATTERN = "%s/%s/%s/%s/descriptor.bin";
+    static final int BINARY_FORMAT_VERSION = 2;
     private final IvyXmlModuleDescriptorParser descriptorParser;
     private final PathKeyFileStore metaDataStore;
     private final IvyModuleDescriptorWriter descriptorWriter;
+    private final ModuleDescriptorSerializer descriptorSerializer;
 
-    public ModuleDescriptorStore(PathKeyFileStore metaDataStore, IvyModuleDescriptorWriter descriptorWriter, IvyXmlModuleDescriptorParser ivyXmlModuleDescriptorParser) {
+    public ModuleDescriptorStore(PathKeyFileStore metaDataStore, IvyModuleDescriptorWriter descriptorWriter, IvyXmlModuleDescriptorParser ivyXmlModuleDescriptorParser, ModuleDescriptorSerializer descriptorSerializer) {
         this.metaDataStore = metaDataStore;
         this.descriptorWriter = descriptorWriter;
         this.descriptorParser = ivyXmlModuleDescriptorParser;
+        this.descriptorSerializer = descriptorSerializer;
     }
 
-    public ModuleDescriptor getModuleDescriptor(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier) {
-        String filePath = getFilePath(repository, moduleComponentIdentifier);
+    /**
+     * @param descriptorHash The SHA1 of the ivy.xml file, as recorded in the cache entry.
+     */
+    public ModuleDescriptor getModuleDescriptor(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier, BigInteger descriptorHash) {
+        String filePath = getFilePath(FILE_PATH_PATTERN, repository, moduleComponentIdentifier);
         final LocallyAvailableResource resource = metaDataStore.get(filePath);
-        if (resource != null) {
-            return parseModuleDescriptorFile(resource.getFile());
+        if (resource == null) {
+            return null;
+        }
+        String binaryFilePath = getFilePath(BINARY_FILE_PATH_PATTERN, repository, moduleComponentIdentifier);
+        LocallyAvailableResource binaryResource = metaDataStore.get(binaryFilePath);
+        if (binaryResource != null) {
+            ModuleDescriptor descriptor = readBinaryFile(binaryResource.getFile(), descriptorHash);
+            if (descriptor != null) {
+                return descriptor;
+            }
         }
-        return null;
+        ModuleDescriptor descriptor = parseModuleDescriptorFile(resource.getFile());
+        putBinaryModuleDescriptor(binaryFilePath, resource.getSha1().asBigInteger(), descriptor);
+        return descriptor;
     }
 
     public LocallyAvailableResource putModuleDescriptor(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier, final ModuleDescriptor moduleDescriptor) {
-        String filePath = getFilePath(repository, moduleComponentIdentifier);
-        return metaDataStore.add(filePath, new Action<File>() {
+        String filePath = getFilePath(FILE_PATH_PATTERN, repository, moduleComponentIdentifier);
+        LocallyAvailableResource resource = metaDataStore.add(filePath, new Action<File>() {
             public void execute(File moduleDescriptorFile) {
                 try {
                     descriptorWriter.write(moduleDescriptor, moduleDescriptorFile);
@@ -61,6 +92,48 @@ public class ModuleDescriptorStore {
                 }
             }
         });
+        putBinaryModuleDescriptor(getFilePath(BINARY_FILE_PATH_PATTERN, repository, moduleComponentIdentifier), resource.getSha1().asBigInteger(), moduleDescriptor);
+        return resource;
+    }
+
+    private void putBinaryModuleDescriptor(String binaryFilePath, final BigInteger descriptorHash, final ModuleDescriptor moduleDescriptor) {
+        metaDataStore.add(binaryFilePath, new Action<File>() {
+            public void execute(File binaryFile) {
+                try {
+                    KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(binaryFile));
+                    try {
+                        encoder.writeSmallInt(BINARY_FORMAT_VERSION);
+                        encoder.writeBinary(descriptorHash.toByteArray());
+                        descriptorSerializer.write(encoder, moduleDescriptor);
+                    } finally {
+                        encoder.close();
+                    }
+                } catch (Exception e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+        });
+    }
+
+    private ModuleDescriptor readBinaryFile(File binaryFile, BigInteger descriptorHash) {
+        try {
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(binaryFile));
+            try {
+                if (decoder.readSmallInt() != BINARY_FORMAT_VERSION) {
+                    return null;
+                }
+                if (!new BigInteger(decoder.readBinary()).equals(descriptorHash)) {
+                    LOGGER.debug("Module descriptor in {} is out of date, falling back to the ivy.xml file.", binaryFile);
+                    return null;
+                }
+                return descriptorSerializer.read(decoder);
+            } finally {
+                decoder.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not read module descriptor from {}, falling back to the ivy.xml file.", binaryFile, e);
+            return null;
+        }
     }
 
     private ModuleDescriptor parseModuleDescriptorFile(File moduleDescriptorFile) {
@@ -68,7 +141,7 @@ public class ModuleDescriptorStore {
         return descriptorParser.parseMetaData(parserSettings, moduleDescriptorFile, false).getDescriptor();
     }
 
-    private String getFilePath(ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier) {
-        return String.format(FILE_PATH_PATTERN, moduleComponentIdentifier.getGroup(), moduleComponentIdentifier.getModule(), moduleComponentIdentifier.getVersion(), repository.getId());
+    private String getFilePath(String pattern, ModuleComponentRepository repository, ModuleComponentIdentifier moduleComponentIdentifier) {
+        return String.format(pattern, moduleComponentIdentifier.getGroup(), moduleComponentIdentifier.getModule(), moduleComponentIdentifier.getVersion(), repository.getId());
     }
 }
\ No newline at end of file
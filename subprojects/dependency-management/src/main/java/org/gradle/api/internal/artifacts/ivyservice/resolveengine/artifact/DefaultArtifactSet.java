@@ -58,14 +58,32 @@ public class DefaultArtifactSet implements ArtifactSet {
         return id;
     }
 
-    public Set<ResolvedArtifact> getArtifacts() {
-        Set<ResolvedArtifact> resolvedArtifacts = new LinkedHashSet<ResolvedArtifact>(artifacts.size());
+    public ModuleVersionIdentifier getOwnerId() {
+        return moduleVersionIdentifier;
+    }
+
+    public ModuleSource getModuleSource() {
+        return moduleSource;
+    }
+
+    /**
+     * Returns the meta-data for the artifacts in this set that are accepted by the selector.
+     */
+    public Set<ComponentArtifactMetaData> getArtifactMetaData() {
+        Set<ComponentArtifactMetaData> accepted = new LinkedHashSet<ComponentArtifactMetaData>(artifacts.size());
         for (ComponentArtifactMetaData artifact : artifacts) {
-            IvyArtifactName artifactName = artifact.getName();
-            if (!selector.acceptArtifact(moduleVersionIdentifier.getModule(), artifactName)) {
-                continue;
+            if (selector.acceptArtifact(moduleVersionIdentifier.getModule(), artifact.getName())) {
+                accepted.add(artifact);
             }
+        }
+        return accepted;
+    }
 
+    public Set<ResolvedArtifact> getArtifacts() {
+        Set<ComponentArtifactMetaData> accepted = getArtifactMetaData();
+        Set<ResolvedArtifact> resolvedArtifacts = new LinkedHashSet<ResolvedArtifact>(accepted.size());
+        for (ComponentArtifactMetaData artifact : accepted) {
+            IvyArtifactName artifactName = artifact.getName();
             ResolvedArtifact resolvedArtifact = allResolvedArtifacts.get(artifact.getId());
             if (resolvedArtifact == null) {
                 Factory<File> artifactSource = new LazyArtifactSource(artifact, moduleSource, artifactResolver);
@@ -27,6 +27,7 @@ import org.gradle.api.artifacts.result.ComponentSelectionReason;
 import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
 import org.gradle.api.internal.artifacts.ResolveContext;
 import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.ResolveOperationExecutor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.*;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.CandidateModule;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.ConflictHandler;
@@ -54,15 +55,17 @@ public class DependencyGraphBuilder {
     private final ResolveContextToComponentResolver moduleResolver;
     private final DependencyToComponentIdResolver idResolver;
     private final ComponentMetaDataResolver metaDataResolver;
+    private final ResolveOperationExecutor resolveOperationExecutor;
 
     public DependencyGraphBuilder(DependencyToComponentIdResolver componentIdResolver, ComponentMetaDataResolver componentMetaDataResolver,
                                   ResolveContextToComponentResolver resolveContextToComponentResolver, DependencyToConfigurationResolver dependencyToConfigurationResolver,
-                                  ConflictHandler conflictHandler) {
+                                  ConflictHandler conflictHandler, ResolveOperationExecutor resolveOperationExecutor) {
         this.idResolver = componentIdResolver;
         this.metaDataResolver = componentMetaDataResolver;
         this.moduleResolver = resolveContextToComponentResolver;
         this.conflictHandler = conflictHandler;
         this.dependencyToConfigurationResolver = dependencyToConfigurationResolver;
+        this.resolveOperationExecutor = resolveOperationExecutor;
     }
 
     public void resolve(ResolveContext resolveContext, DependencyGraphVisitor modelVisitor) {
@@ -92,6 +95,9 @@ public class DependencyGraphBuilder {
                 // Calculate the outgoing edges of this configuration
                 dependencies.clear();
                 node.visitOutgoingDependencies(dependencies);
+                if (resolveOperationExecutor.isParallel()) {
+                    prefetch(resolveState, node, dependencies);
+                }
 
                 for (DependencyEdge dependency : dependencies) {
                     LOGGER.debug("Visiting dependency {}", dependency);
@@ -154,6 +160,48 @@ public class DependencyGraphBuilder {
         }
     }
 
+    /**
+     * Resolves the selectors of the given edges, and the meta-data for the components they select, concurrently and ahead of the edges being visited.
+     * The results are held by the selectors and are applied to the graph as each edge is visited, so the graph is built in the same order as without prefetching.
+     */
+    private void prefetch(ResolveState resolveState, ConfigurationNode node, List<DependencyEdge> dependencies) {
+        Set<ModuleVersionSelectorResolveState> selectors = new LinkedHashSet<ModuleVersionSelectorResolveState>();
+        for (DependencyEdge dependency : dependencies) {
+            if (dependency.selector.canPrefetch()) {
+                selectors.add(dependency.selector);
+            }
+        }
+        if (selectors.size() < 2) {
+            return;
+        }
+
+        List<Runnable> idResolutions = new ArrayList<Runnable>(selectors.size());
+        for (final ModuleVersionSelectorResolveState selector : selectors) {
+            idResolutions.add(new Runnable() {
+                public void run() {
+                    selector.prefetchId();
+                }
+            });
+        }
+        resolveOperationExecutor.runAll("Resolve dependencies of " + node, idResolutions);
+
+        // Only fetch meta-data for a module that has no versions yet, using the first selector for that module. This is the version that will be
+        // selected when the edge is visited, and the selector that the meta-data would be resolved for.
+        Set<ModuleIdentifier> modules = new HashSet<ModuleIdentifier>();
+        List<Runnable> metaDataResolutions = new ArrayList<Runnable>(selectors.size());
+        for (final ModuleVersionSelectorResolveState selector : selectors) {
+            ModuleVersionIdentifier id = selector.getPrefetchedId();
+            if (id != null && modules.add(id.getModule()) && !resolveState.hasVersions(id.getModule())) {
+                metaDataResolutions.add(new Runnable() {
+                    public void run() {
+                        selector.prefetchMetaData();
+                    }
+                });
+            }
+        }
+        resolveOperationExecutor.runAll("Resolve meta-data for dependencies of " + node, metaDataResolutions);
+    }
+
     /**
      * Populates the result from the graph traversal state.
      */
@@ -343,6 +391,11 @@ public class DependencyGraphBuilder {
             return getModule(id.getModule()).getVersion(id);
         }
 
+        public boolean hasVersions(ModuleIdentifier id) {
+            ModuleResolveState module = modules.get(id);
+            return module != null && !module.versions.isEmpty();
+        }
+
         public Collection<ConfigurationNode> getConfigurationNodes() {
             return nodes.values();
         }
@@ -556,8 +609,11 @@ public class DependencyGraphBuilder {
                 return;
             }
 
-            DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
-            resolver.resolve(idResolveResult.getId(), DefaultComponentOverrideMetadata.forDependency(firstReference.dependencyMetaData), result);
+            BuildableComponentResolveResult result = firstReference.takePrefetchedMetaData();
+            if (result == null) {
+                result = new DefaultBuildableComponentResolveResult();
+                resolver.resolve(idResolveResult.getId(), DefaultComponentOverrideMetadata.forDependency(firstReference.dependencyMetaData), result);
+            }
             if (result.getFailure() != null) {
                 failure = result.getFailure();
                 return;
@@ -824,6 +880,8 @@ public class DependencyGraphBuilder {
         ModuleResolveState targetModule;
         ModuleVersionResolveState targetModuleRevision;
         BuildableComponentIdResolveResult idResolveResult;
+        BuildableComponentIdResolveResult prefetchedIdResult;
+        BuildableComponentResolveResult prefetchedMetaData;
 
         private ModuleVersionSelectorResolveState(DependencyMetaData dependencyMetaData, DependencyToComponentIdResolver resolver, ResolveState resolveState) {
             this.dependencyMetaData = dependencyMetaData;
@@ -864,8 +922,13 @@ public class DependencyGraphBuilder {
                 return null;
             }
 
-            idResolveResult = new DefaultBuildableComponentIdResolveResult();
-            resolver.resolve(dependencyMetaData, idResolveResult);
+            if (prefetchedIdResult != null) {
+                idResolveResult = prefetchedIdResult;
+                prefetchedIdResult = null;
+            } else {
+                idResolveResult = new DefaultBuildableComponentIdResolveResult();
+                resolver.resolve(dependencyMetaData, idResolveResult);
+            }
             if (idResolveResult.getFailure() != null) {
                 failure = idResolveResult.getFailure();
                 return null;
@@ -884,6 +947,54 @@ public class DependencyGraphBuilder {
             this.targetModuleRevision = moduleRevision;
             this.targetModule = moduleRevision.module;
         }
+
+        public boolean canPrefetch() {
+            return idResolveResult == null && prefetchedIdResult == null;
+        }
+
+        /**
+         * Resolves this selector without making any changes to the graph. May be called from any thread.
+         */
+        public void prefetchId() {
+            DefaultBuildableComponentIdResolveResult result = new DefaultBuildableComponentIdResolveResult();
+            try {
+                resolver.resolve(dependencyMetaData, result);
+            } catch (RuntimeException e) {
+                // Resolve again when the edge is visited, so that the failure is propagated in the same way as without prefetching
+                return;
+            }
+            prefetchedIdResult = result;
+        }
+
+        /**
+         * @return The module version that this selector was resolved to, or null if this selector has not been prefetched, failed, or already has meta-data.
+         */
+        public ModuleVersionIdentifier getPrefetchedId() {
+            if (prefetchedIdResult == null || prefetchedIdResult.getFailure() != null || prefetchedIdResult.getMetaData() != null) {
+                return null;
+            }
+            return prefetchedIdResult.getModuleVersionId();
+        }
+
+        /**
+         * Resolves the meta-data for the component that this selector was resolved to, without making any changes to the graph. May be called from any thread.
+         */
+        public void prefetchMetaData() {
+            DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+            try {
+                resolveState.metaDataResolver.resolve(prefetchedIdResult.getId(), DefaultComponentOverrideMetadata.forDependency(dependencyMetaData), result);
+            } catch (RuntimeException e) {
+                // Resolve again when the meta-data is required
+                return;
+            }
+            prefetchedMetaData = result;
+        }
+
+        public BuildableComponentResolveResult takePrefetchedMetaData() {
+            BuildableComponentResolveResult result = prefetchedMetaData;
+            prefetchedMetaData = null;
+            return result;
+        }
     }
 
     private static class DirectDependencyForcingResolver implements ModuleConflictResolver {
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier;
+import org.gradle.internal.component.local.model.DefaultProjectComponentIdentifier;
+import org.gradle.internal.component.local.model.DefaultProjectComponentSelector;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetaData;
+import org.gradle.internal.component.model.ComponentArtifactMetaData;
+import org.gradle.internal.component.model.ComponentResolveMetaData;
+import org.gradle.internal.component.model.DependencyMetaData;
+import org.gradle.internal.component.model.IvyArtifactName;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the events of a dependency graph resolve, so that they can be replayed in a later build by {@link DependencyGraphReplayer}.
+ *
+ * <p>Only graphs whose result is fully determined by the inputs that {@link ResolvedGraphCache} fingerprints are recorded. A graph that contains
+ * failures, dynamic versions or changing modules is not recorded, as these need to be resolved again to pick up changes in the repositories.
+ */
+public class DependencyGraphRecorder implements DependencyGraphVisitor, DependencyArtifactsVisitor {
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final List<RecordedDependencyGraph.Node> nodes = Lists.newArrayList();
+    private final Map<ResolvedConfigurationIdentifier, Integer> nodeIndexes = Maps.newHashMap();
+    private final Map<DependencyGraphEdge, RecordedDependencyGraph.IncomingEdge> edges = new IdentityHashMap<DependencyGraphEdge, RecordedDependencyGraph.IncomingEdge>();
+    private final List<RecordedDependencyGraph.RecordedArtifactSet> artifactSets = Lists.newArrayList();
+    private final Map<Long, Integer> artifactSetIndexes = Maps.newHashMap();
+    private final Map<ComponentIdentifier, String> localComponents = Maps.newLinkedHashMap();
+    private ResolvedConfigurationIdentifier rootId;
+    private List<DependencyMetaData> rootDependencies;
+    private boolean recordable = true;
+
+    public DependencyGraphRecorder(VersionSelectorScheme versionSelectorScheme) {
+        this.versionSelectorScheme = versionSelectorScheme;
+    }
+
+    @Override
+    public void start(DependencyGraphNode root) {
+        rootId = root.getNodeId();
+        rootDependencies = root.getMetaData().getDependencies();
+    }
+
+    @Override
+    public void visitNode(DependencyGraphNode resolvedConfiguration) {
+        if (!recordable) {
+            return;
+        }
+        ComponentIdentifier componentId = resolvedConfiguration.getComponentId();
+        ComponentResolveMetaData component = resolvedConfiguration.getMetaData().getComponent();
+        boolean root = resolvedConfiguration.getNodeId().equals(rootId);
+        if (component.isChanging()) {
+            recordable = false;
+            return;
+        }
+        if (componentId instanceof DefaultProjectComponentIdentifier) {
+            if (!root && !localComponents.containsKey(componentId)) {
+                ResolveInputsHasher hasher = new ResolveInputsHasher();
+                if (!hasher.putComponent(component)) {
+                    recordable = false;
+                    return;
+                }
+                localComponents.put(componentId, hasher.hash());
+            }
+        } else if (!(componentId instanceof DefaultModuleComponentIdentifier)) {
+            recordable = false;
+            return;
+        }
+
+        int nodeIndex = nodes.size();
+        RecordedDependencyGraph.Node node = new RecordedDependencyGraph.Node(resolvedConfiguration.getNodeId(), resolvedConfiguration.getSelection());
+        for (DependencyGraphEdge dependency : resolvedConfiguration.getOutgoingEdges()) {
+            ComponentSelector requested = dependency.getRequested();
+            if (dependency.getFailure() != null || !isStatic(requested)) {
+                recordable = false;
+                return;
+            }
+            int dependencyIndex = -1;
+            if (root) {
+                dependencyIndex = indexOf(dependency.getModuleDependency());
+                if (dependencyIndex < 0 && dependency.getModuleDependency() != null) {
+                    recordable = false;
+                    return;
+                }
+            }
+            edges.put(dependency, new RecordedDependencyGraph.IncomingEdge(nodeIndex, node.outgoingEdges.size()));
+            node.outgoingEdges.add(new RecordedDependencyGraph.Edge(requested, dependency.getSelected(), dependencyIndex));
+        }
+        nodeIndexes.put(resolvedConfiguration.getNodeId(), nodeIndex);
+        nodes.add(node);
+    }
+
+    private boolean isStatic(ComponentSelector requested) {
+        if (requested instanceof DefaultModuleComponentSelector) {
+            return !versionSelectorScheme.parseSelector(((ModuleComponentSelector) requested).getVersion()).isDynamic();
+        }
+        return requested instanceof DefaultProjectComponentSelector;
+    }
+
+    private int indexOf(ModuleDependency moduleDependency) {
+        if (moduleDependency == null) {
+            return -1;
+        }
+        for (int i = 0; i < rootDependencies.size(); i++) {
+            DependencyMetaData dependency = rootDependencies.get(i);
+            if (dependency instanceof DslOriginDependencyMetaData && ((DslOriginDependencyMetaData) dependency).getSource() == moduleDependency) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void visitEdge(DependencyGraphNode resolvedConfiguration) {
+        if (!recordable) {
+            return;
+        }
+        RecordedDependencyGraph.Node node = nodes.get(nodeIndexes.get(resolvedConfiguration.getNodeId()));
+        for (DependencyGraphEdge dependency : resolvedConfiguration.getIncomingEdges()) {
+            RecordedDependencyGraph.IncomingEdge edge = edges.get(dependency);
+            if (edge == null) {
+                recordable = false;
+                return;
+            }
+            node.incomingEdges.add(edge);
+        }
+    }
+
+    @Override
+    public void visitArtifacts(ResolvedConfigurationIdentifier parent, ResolvedConfigurationIdentifier child, ArtifactSet artifacts) {
+        if (!recordable) {
+            return;
+        }
+        Integer parentIndex = nodeIndexes.get(parent);
+        Integer childIndex = nodeIndexes.get(child);
+        if (parentIndex == null || childIndex == null || !(artifacts instanceof DefaultArtifactSet)) {
+            recordable = false;
+            return;
+        }
+        Integer artifactSetIndex = artifactSetIndexes.get(artifacts.getId());
+        if (artifactSetIndex == null) {
+            RecordedDependencyGraph.RecordedArtifactSet artifactSet = recordArtifactSet(childIndex, (DefaultArtifactSet) artifacts);
+            if (artifactSet == null) {
+                recordable = false;
+                return;
+            }
+            artifactSetIndex = artifactSets.size();
+            artifactSets.add(artifactSet);
+            artifactSetIndexes.put(artifacts.getId(), artifactSetIndex);
+        }
+        nodes.get(childIndex).artifactVisits.add(new RecordedDependencyGraph.ArtifactVisit(parentIndex, artifactSetIndex));
+    }
+
+    private RecordedDependencyGraph.RecordedArtifactSet recordArtifactSet(int owner, DefaultArtifactSet artifacts) {
+        ComponentIdentifier ownerComponentId = nodes.get(owner).selection.getComponentId();
+        boolean external = ownerComponentId instanceof DefaultModuleComponentIdentifier;
+        List<IvyArtifactName> artifactNames = Lists.newArrayList();
+        for (ComponentArtifactMetaData artifact : artifacts.getArtifactMetaData()) {
+            // External artifacts are recreated from the owning component's id, local artifacts are looked up in the component's current meta-data
+            if (external && !(artifact.getId() instanceof ModuleComponentArtifactIdentifier && artifact.getComponentId().equals(ownerComponentId))) {
+                return null;
+            }
+            artifactNames.add(artifact.getName());
+        }
+        return new RecordedDependencyGraph.RecordedArtifactSet(artifacts.getId(), owner, artifacts.getOwnerId(), artifacts.getModuleSource(), artifactNames);
+    }
+
+    @Override
+    public void finish(DependencyGraphNode root) {
+    }
+
+    @Override
+    public void finishArtifacts() {
+    }
+
+    /**
+     * Returns the recorded graph, or null when the graph cannot be reused by a later build.
+     */
+    RecordedDependencyGraph getGraph() {
+        if (!recordable || !nodeIndexes.containsKey(rootId)) {
+            return null;
+        }
+        return new RecordedDependencyGraph(nodeIndexes.get(rootId), nodes, artifactSets, localComponents);
+    }
+}
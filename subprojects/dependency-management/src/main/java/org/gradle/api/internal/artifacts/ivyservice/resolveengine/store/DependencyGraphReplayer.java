@@ -0,0 +1,246 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
+
+import com.google.common.collect.Maps;
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.DefaultModuleResolutionFilter;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ModuleResolutionFilter;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelection;
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactMetaData;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetaData;
+import org.gradle.internal.component.model.ComponentArtifactMetaData;
+import org.gradle.internal.component.model.ComponentResolveMetaData;
+import org.gradle.internal.component.model.ConfigurationMetaData;
+import org.gradle.internal.component.model.DependencyMetaData;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.gradle.internal.resolve.ModuleVersionResolveException;
+import org.gradle.internal.resolve.resolver.ArtifactResolver;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replays a {@link RecordedDependencyGraph} to a set of visitors, in the same order that {@link org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphBuilder}
+ * would visit the graph. Local components are attached using their current meta-data.
+ */
+class DependencyGraphReplayer {
+    private final RecordedDependencyGraph graph;
+    private final ComponentResolveMetaData rootComponent;
+    private final Map<ComponentIdentifier, ComponentResolveMetaData> localComponents;
+    private final ArtifactResolver artifactResolver;
+    private final Map<ComponentArtifactIdentifier, ResolvedArtifact> allResolvedArtifacts = Maps.newHashMap();
+
+    DependencyGraphReplayer(RecordedDependencyGraph graph, ComponentResolveMetaData rootComponent, Map<ComponentIdentifier, ComponentResolveMetaData> localComponents,
+                            ArtifactResolver artifactResolver) {
+        this.graph = graph;
+        this.rootComponent = rootComponent;
+        this.localComponents = localComponents;
+        this.artifactResolver = artifactResolver;
+    }
+
+    public void replay(String configurationName, DependencyGraphVisitor graphVisitor, DependencyArtifactsVisitor artifactsVisitor) {
+        List<DependencyMetaData> rootDependencies = rootComponent.getConfiguration(configurationName).getDependencies();
+        ReplayedNode[] nodes = new ReplayedNode[graph.nodes.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            RecordedDependencyGraph.Node node = graph.nodes.get(i);
+            nodes[i] = new ReplayedNode(node.nodeId, node.selection, getConfiguration(i));
+        }
+        ReplayedEdge[][] edges = new ReplayedEdge[nodes.length][];
+        for (int i = 0; i < nodes.length; i++) {
+            List<RecordedDependencyGraph.Edge> outgoingEdges = graph.nodes.get(i).outgoingEdges;
+            edges[i] = new ReplayedEdge[outgoingEdges.size()];
+            for (int j = 0; j < edges[i].length; j++) {
+                RecordedDependencyGraph.Edge edge = outgoingEdges.get(j);
+                ModuleDependency moduleDependency = edge.dependencyIndex < 0 ? null : ((DslOriginDependencyMetaData) rootDependencies.get(edge.dependencyIndex)).getSource();
+                edges[i][j] = new ReplayedEdge(nodes[i], edge.requested, edge.selected, moduleDependency);
+                nodes[i].outgoingEdges.add(edges[i][j]);
+            }
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            for (RecordedDependencyGraph.IncomingEdge edge : graph.nodes.get(i).incomingEdges) {
+                nodes[i].incomingEdges.add(edges[edge.from][edge.edge]);
+            }
+        }
+
+        ReplayedNode root = nodes[graph.rootIndex];
+        graphVisitor.start(root);
+        for (ReplayedNode node : nodes) {
+            graphVisitor.visitNode(node);
+        }
+        ArtifactSet[] artifactSets = new ArtifactSet[graph.artifactSets.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            graphVisitor.visitEdge(nodes[i]);
+            for (RecordedDependencyGraph.ArtifactVisit visit : graph.nodes.get(i).artifactVisits) {
+                if (artifactSets[visit.artifactSet] == null) {
+                    artifactSets[visit.artifactSet] = createArtifactSet(graph.artifactSets.get(visit.artifactSet));
+                }
+                artifactsVisitor.visitArtifacts(nodes[visit.parent].getNodeId(), nodes[i].getNodeId(), artifactSets[visit.artifactSet]);
+            }
+        }
+        graphVisitor.finish(root);
+        artifactsVisitor.finishArtifacts();
+    }
+
+    private ConfigurationMetaData getConfiguration(int nodeIndex) {
+        ComponentResolveMetaData component = getLocalComponent(nodeIndex);
+        return component == null ? null : component.getConfiguration(graph.nodes.get(nodeIndex).nodeId.getConfiguration());
+    }
+
+    private ComponentResolveMetaData getLocalComponent(int nodeIndex) {
+        if (nodeIndex == graph.rootIndex) {
+            return rootComponent;
+        }
+        return localComponents.get(graph.nodes.get(nodeIndex).selection.getComponentId());
+    }
+
+    private ArtifactSet createArtifactSet(RecordedDependencyGraph.RecordedArtifactSet artifactSet) {
+        ComponentIdentifier componentId = graph.nodes.get(artifactSet.owner).selection.getComponentId();
+        Set<ComponentArtifactMetaData> artifacts = new LinkedHashSet<ComponentArtifactMetaData>(artifactSet.artifacts.size());
+        if (componentId instanceof ModuleComponentIdentifier) {
+            for (IvyArtifactName artifactName : artifactSet.artifacts) {
+                artifacts.add(new DefaultModuleComponentArtifactMetaData((ModuleComponentIdentifier) componentId, artifactName));
+            }
+        } else {
+            ConfigurationMetaData configuration = getConfiguration(artifactSet.owner);
+            for (IvyArtifactName artifactName : artifactSet.artifacts) {
+                artifacts.add(configuration.artifact(artifactName));
+            }
+        }
+        return new DefaultArtifactSet(artifactSet.ownerId, artifactSet.moduleSource, DefaultModuleResolutionFilter.all(), artifacts, artifactResolver, allResolvedArtifacts, artifactSet.id);
+    }
+
+    private static class ReplayedNode implements DependencyGraphNode {
+        private final ResolvedConfigurationIdentifier nodeId;
+        private final ModuleVersionSelection selection;
+        private final ConfigurationMetaData metaData;
+        private final Set<DependencyGraphEdge> incomingEdges = new LinkedHashSet<DependencyGraphEdge>();
+        private final Set<DependencyGraphEdge> outgoingEdges = new LinkedHashSet<DependencyGraphEdge>();
+
+        ReplayedNode(ResolvedConfigurationIdentifier nodeId, ModuleVersionSelection selection, ConfigurationMetaData metaData) {
+            this.nodeId = nodeId;
+            this.selection = selection;
+            this.metaData = metaData;
+        }
+
+        public ResolvedConfigurationIdentifier getNodeId() {
+            return nodeId;
+        }
+
+        public ModuleVersionIdentifier toId() {
+            return nodeId.getId();
+        }
+
+        public ComponentIdentifier getComponentId() {
+            return selection.getComponentId();
+        }
+
+        public ModuleVersionSelection getSelection() {
+            return selection;
+        }
+
+        public Set<DependencyGraphEdge> getIncomingEdges() {
+            return incomingEdges;
+        }
+
+        public Set<DependencyGraphEdge> getOutgoingEdges() {
+            return outgoingEdges;
+        }
+
+        /**
+         * Returns the current meta-data for a local component, and null for an external component.
+         */
+        public ConfigurationMetaData getMetaData() {
+            return metaData;
+        }
+    }
+
+    private static class ReplayedEdge implements DependencyGraphEdge {
+        private final ReplayedNode from;
+        private final ComponentSelector requested;
+        private final ModuleVersionIdentifier selected;
+        private final ModuleDependency moduleDependency;
+
+        ReplayedEdge(ReplayedNode from, ComponentSelector requested, ModuleVersionIdentifier selected, ModuleDependency moduleDependency) {
+            this.from = from;
+            this.requested = requested;
+            this.selected = selected;
+            this.moduleDependency = moduleDependency;
+        }
+
+        public DependencyGraphNode getFrom() {
+            return from;
+        }
+
+        public ModuleVersionSelector getRequestedModuleVersion() {
+            if (requested instanceof ModuleComponentSelector) {
+                ModuleComponentSelector selector = (ModuleComponentSelector) requested;
+                return DefaultModuleVersionSelector.newSelector(selector.getGroup(), selector.getModule(), selector.getVersion());
+            }
+            return DefaultModuleVersionSelector.newSelector(selected.getGroup(), selected.getName(), selected.getVersion());
+        }
+
+        public ModuleResolutionFilter getSelector() {
+            return DefaultModuleResolutionFilter.all();
+        }
+
+        public Set<ComponentArtifactMetaData> getArtifacts(ConfigurationMetaData metaData) {
+            // The artifacts of a replayed graph are replayed separately
+            return Collections.emptySet();
+        }
+
+        public ModuleDependency getModuleDependency() {
+            return moduleDependency;
+        }
+
+        public ComponentSelector getRequested() {
+            return requested;
+        }
+
+        public ModuleVersionResolveException getFailure() {
+            return null;
+        }
+
+        public ModuleVersionIdentifier getSelected() {
+            return selected;
+        }
+
+        public ComponentSelectionReason getReason() {
+            return null;
+        }
+    }
+}
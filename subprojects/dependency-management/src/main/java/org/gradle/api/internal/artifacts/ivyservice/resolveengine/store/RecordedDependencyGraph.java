@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
+
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelection;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.gradle.internal.component.model.ModuleSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The events produced by resolving a dependency graph, in a form that can be persisted and replayed in a later build.
+ * Nodes, edges and artifact sets refer to each other by their index.
+ */
+class RecordedDependencyGraph {
+    final int rootIndex;
+    final List<Node> nodes;
+    final List<RecordedArtifactSet> artifactSets;
+    final Map<ComponentIdentifier, String> localComponents;
+
+    RecordedDependencyGraph(int rootIndex, List<Node> nodes, List<RecordedArtifactSet> artifactSets, Map<ComponentIdentifier, String> localComponents) {
+        this.rootIndex = rootIndex;
+        this.nodes = nodes;
+        this.artifactSets = artifactSets;
+        this.localComponents = localComponents;
+    }
+
+    static class Node {
+        final ResolvedConfigurationIdentifier nodeId;
+        final ModuleVersionSelection selection;
+        final List<Edge> outgoingEdges = new ArrayList<Edge>();
+        final List<IncomingEdge> incomingEdges = new ArrayList<IncomingEdge>();
+        final List<ArtifactVisit> artifactVisits = new ArrayList<ArtifactVisit>();
+
+        Node(ResolvedConfigurationIdentifier nodeId, ModuleVersionSelection selection) {
+            this.nodeId = nodeId;
+            this.selection = selection;
+        }
+    }
+
+    static class Edge {
+        final ComponentSelector requested;
+        final ModuleVersionIdentifier selected;
+        /**
+         * The index of the declared dependency of the root configuration that this edge was created for, or -1.
+         */
+        final int dependencyIndex;
+
+        Edge(ComponentSelector requested, ModuleVersionIdentifier selected, int dependencyIndex) {
+            this.requested = requested;
+            this.selected = selected;
+            this.dependencyIndex = dependencyIndex;
+        }
+    }
+
+    static class IncomingEdge {
+        final int from;
+        final int edge;
+
+        IncomingEdge(int from, int edge) {
+            this.from = from;
+            this.edge = edge;
+        }
+    }
+
+    static class ArtifactVisit {
+        final int parent;
+        final int artifactSet;
+
+        ArtifactVisit(int parent, int artifactSet) {
+            this.parent = parent;
+            this.artifactSet = artifactSet;
+        }
+    }
+
+    static class RecordedArtifactSet {
+        final long id;
+        final int owner;
+        final ModuleVersionIdentifier ownerId;
+        final ModuleSource moduleSource;
+        final List<IvyArtifactName> artifacts;
+
+        RecordedArtifactSet(long id, int owner, ModuleVersionIdentifier ownerId, ModuleSource moduleSource, List<IvyArtifactName> artifacts) {
+            this.id = id;
+            this.owner = owner;
+            this.ownerId = ownerId;
+            this.moduleSource = moduleSource;
+            this.artifacts = artifacts;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.internal.artifacts.ModuleVersionIdentifierSerializer;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifierSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentIdentifierSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectorSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ModuleVersionSelectionSerializer;
+import org.gradle.internal.component.model.DefaultIvyArtifactName;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.gradle.internal.component.model.ModuleSource;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.DefaultSerializer;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.MapSerializer;
+import org.gradle.internal.serialize.Serializer;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALIZER;
+
+class RecordedDependencyGraphSerializer implements Serializer<RecordedDependencyGraph> {
+    private final ResolvedConfigurationIdentifierSerializer nodeIdSerializer = new ResolvedConfigurationIdentifierSerializer();
+    private final ModuleVersionSelectionSerializer selectionSerializer = new ModuleVersionSelectionSerializer();
+    private final ComponentSelectorSerializer componentSelectorSerializer = new ComponentSelectorSerializer();
+    private final ModuleVersionIdentifierSerializer idSerializer = new ModuleVersionIdentifierSerializer();
+    private final ComponentIdentifierSerializer componentIdSerializer = new ComponentIdentifierSerializer();
+    private final DefaultSerializer<ModuleSource> moduleSourceSerializer = new DefaultSerializer<ModuleSource>(ModuleSource.class.getClassLoader());
+    private final MapSerializer<String, String> attributesSerializer = new MapSerializer<String, String>(STRING_SERIALIZER, STRING_SERIALIZER);
+
+    public void write(Encoder encoder, RecordedDependencyGraph value) throws Exception {
+        encoder.writeSmallInt(value.rootIndex);
+        encoder.writeSmallInt(value.nodes.size());
+        for (RecordedDependencyGraph.Node node : value.nodes) {
+            nodeIdSerializer.write(encoder, node.nodeId);
+            selectionSerializer.write(encoder, node.selection);
+            encoder.writeSmallInt(node.outgoingEdges.size());
+            for (RecordedDependencyGraph.Edge edge : node.outgoingEdges) {
+                componentSelectorSerializer.write(encoder, edge.requested);
+                idSerializer.write(encoder, edge.selected);
+                encoder.writeSmallInt(edge.dependencyIndex + 1);
+            }
+            encoder.writeSmallInt(node.incomingEdges.size());
+            for (RecordedDependencyGraph.IncomingEdge edge : node.incomingEdges) {
+                encoder.writeSmallInt(edge.from);
+                encoder.writeSmallInt(edge.edge);
+            }
+            encoder.writeSmallInt(node.artifactVisits.size());
+            for (RecordedDependencyGraph.ArtifactVisit visit : node.artifactVisits) {
+                encoder.writeSmallInt(visit.parent);
+                encoder.writeSmallInt(visit.artifactSet);
+            }
+        }
+        encoder.writeSmallInt(value.artifactSets.size());
+        for (RecordedDependencyGraph.RecordedArtifactSet artifactSet : value.artifactSets) {
+            encoder.writeLong(artifactSet.id);
+            encoder.writeSmallInt(artifactSet.owner);
+            idSerializer.write(encoder, artifactSet.ownerId);
+            moduleSourceSerializer.write(encoder, artifactSet.moduleSource);
+            encoder.writeSmallInt(artifactSet.artifacts.size());
+            for (IvyArtifactName artifact : artifactSet.artifacts) {
+                encoder.writeString(artifact.getName());
+                encoder.writeString(artifact.getType());
+                encoder.writeNullableString(artifact.getExtension());
+                attributesSerializer.write(encoder, artifact.getAttributes());
+            }
+        }
+        encoder.writeSmallInt(value.localComponents.size());
+        for (Map.Entry<ComponentIdentifier, String> entry : value.localComponents.entrySet()) {
+            componentIdSerializer.write(encoder, entry.getKey());
+            encoder.writeString(entry.getValue());
+        }
+    }
+
+    public RecordedDependencyGraph read(Decoder decoder) throws Exception {
+        int rootIndex = decoder.readSmallInt();
+        int nodeCount = decoder.readSmallInt();
+        List<RecordedDependencyGraph.Node> nodes = Lists.newArrayListWithCapacity(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            ResolvedConfigurationIdentifier nodeId = nodeIdSerializer.read(decoder);
+            RecordedDependencyGraph.Node node = new RecordedDependencyGraph.Node(nodeId, selectionSerializer.read(decoder));
+            int edgeCount = decoder.readSmallInt();
+            for (int j = 0; j < edgeCount; j++) {
+                node.outgoingEdges.add(new RecordedDependencyGraph.Edge(componentSelectorSerializer.read(decoder), idSerializer.read(decoder), decoder.readSmallInt() - 1));
+            }
+            int incomingCount = decoder.readSmallInt();
+            for (int j = 0; j < incomingCount; j++) {
+                node.incomingEdges.add(new RecordedDependencyGraph.IncomingEdge(decoder.readSmallInt(), decoder.readSmallInt()));
+            }
+            int visitCount = decoder.readSmallInt();
+            for (int j = 0; j < visitCount; j++) {
+                node.artifactVisits.add(new RecordedDependencyGraph.ArtifactVisit(decoder.readSmallInt(), decoder.readSmallInt()));
+            }
+            nodes.add(node);
+        }
+        int artifactSetCount = decoder.readSmallInt();
+        List<RecordedDependencyGraph.RecordedArtifactSet> artifactSets = Lists.newArrayListWithCapacity(artifactSetCount);
+        for (int i = 0; i < artifactSetCount; i++) {
+            long id = decoder.readLong();
+            int owner = decoder.readSmallInt();
+            ModuleVersionIdentifier ownerId = idSerializer.read(decoder);
+            ModuleSource moduleSource = moduleSourceSerializer.read(decoder);
+            int artifactCount = decoder.readSmallInt();
+            List<IvyArtifactName> artifacts = Lists.newArrayListWithCapacity(artifactCount);
+            for (int j = 0; j < artifactCount; j++) {
+                String name = decoder.readString();
+                String type = decoder.readString();
+                String extension = decoder.readNullableString();
+                artifacts.add(new DefaultIvyArtifactName(name, type, extension, attributesSerializer.read(decoder)));
+            }
+            artifactSets.add(new RecordedDependencyGraph.RecordedArtifactSet(id, owner, ownerId, moduleSource, artifacts));
+        }
+        int localComponentCount = decoder.readSmallInt();
+        Map<ComponentIdentifier, String> localComponents = Maps.newLinkedHashMap();
+        for (int i = 0; i < localComponentCount; i++) {
+            localComponents.put(componentIdSerializer.read(decoder), decoder.readString());
+        }
+        return new RecordedDependencyGraph(rootIndex, nodes, artifactSets, localComponents);
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.ivy.core.module.descriptor.ExcludeRule;
+import org.gradle.api.artifacts.ClientModule;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetaData;
+import org.gradle.internal.component.model.ComponentArtifactMetaData;
+import org.gradle.internal.component.model.ComponentResolveMetaData;
+import org.gradle.internal.component.model.ConfigurationMetaData;
+import org.gradle.internal.component.model.DependencyMetaData;
+import org.gradle.internal.component.model.IvyArtifactName;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Calculates a hash of the inputs to a dependency resolve, including the meta-data of the local components that take part in it.
+ */
+class ResolveInputsHasher {
+    private final Hasher hasher = Hashing.md5().newHasher();
+
+    public ResolveInputsHasher putString(CharSequence value) {
+        if (value == null) {
+            hasher.putInt(-1);
+            return this;
+        }
+        // Include the length so that adjacent values cannot be confused with each other
+        hasher.putInt(value.length());
+        hasher.putString(value, Charsets.UTF_8);
+        return this;
+    }
+
+    public ResolveInputsHasher putStrings(Collection<String> values) {
+        hasher.putInt(values.size());
+        for (String value : values) {
+            putString(value);
+        }
+        return this;
+    }
+
+    public ResolveInputsHasher putBoolean(boolean value) {
+        hasher.putBoolean(value);
+        return this;
+    }
+
+    public ResolveInputsHasher putInt(int value) {
+        hasher.putInt(value);
+        return this;
+    }
+
+    /**
+     * Adds the meta-data of the given local component.
+     *
+     * @return false when the component declares something whose result cannot be determined from its meta-data alone, such as a changing dependency or a client module.
+     */
+    public boolean putComponent(ComponentResolveMetaData component) {
+        putString(component.getComponentId().getDisplayName());
+        putString(component.getId().toString());
+        putString(component.getStatus());
+        List<String> configurationNames = Lists.newArrayList(component.getConfigurationNames());
+        Collections.sort(configurationNames);
+        hasher.putInt(configurationNames.size());
+        for (String configurationName : configurationNames) {
+            if (!putConfiguration(component.getConfiguration(configurationName))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean putConfiguration(ConfigurationMetaData configuration) {
+        putString(configuration.getName());
+        putStrings(configuration.getHierarchy());
+        putBoolean(configuration.isTransitive());
+        putBoolean(configuration.isVisible());
+        putExcludeRules(configuration.getExcludeRules());
+        Collection<ComponentArtifactMetaData> artifacts = configuration.getArtifacts();
+        hasher.putInt(artifacts.size());
+        for (ComponentArtifactMetaData artifact : artifacts) {
+            putArtifactName(artifact.getName());
+        }
+        List<DependencyMetaData> dependencies = configuration.getDependencies();
+        hasher.putInt(dependencies.size());
+        for (DependencyMetaData dependency : dependencies) {
+            if (!putDependency(dependency)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean putDependency(DependencyMetaData dependency) {
+        if (dependency.isChanging()) {
+            return false;
+        }
+        if (dependency instanceof DslOriginDependencyMetaData && ((DslOriginDependencyMetaData) dependency).getSource() instanceof ClientModule) {
+            return false;
+        }
+        putString(dependency.getSelector().getDisplayName());
+        ModuleVersionSelector requested = dependency.getRequested();
+        putString(requested.getGroup());
+        putString(requested.getName());
+        putString(requested.getVersion());
+        putString(dependency.getDynamicConstraintVersion());
+        String[] moduleConfigurations = dependency.getModuleConfigurations();
+        hasher.putInt(moduleConfigurations.length);
+        for (String moduleConfiguration : moduleConfigurations) {
+            putString(moduleConfiguration);
+            putStrings(Arrays.asList(dependency.getDependencyConfigurations(moduleConfiguration, moduleConfiguration)));
+        }
+        putExcludeRules(Arrays.asList(dependency.getExcludeRules(Arrays.asList(moduleConfigurations))));
+        Collection<IvyArtifactName> artifacts = dependency.getArtifacts();
+        hasher.putInt(artifacts.size());
+        for (IvyArtifactName artifact : artifacts) {
+            putArtifactName(artifact);
+        }
+        putBoolean(dependency.isForce());
+        putBoolean(dependency.isTransitive());
+        return true;
+    }
+
+    private void putExcludeRules(Collection<ExcludeRule> excludeRules) {
+        hasher.putInt(excludeRules.size());
+        for (ExcludeRule excludeRule : excludeRules) {
+            putString(excludeRule.getId().getModuleId().getOrganisation());
+            putString(excludeRule.getId().getModuleId().getName());
+            putString(excludeRule.getId().getName());
+            putString(excludeRule.getId().getType());
+            putString(excludeRule.getId().getExt());
+            putString(excludeRule.getMatcher().getName());
+            putStrings(Arrays.asList(excludeRule.getConfigurations()));
+        }
+    }
+
+    private void putArtifactName(IvyArtifactName artifact) {
+        putString(artifact.getName());
+        putString(artifact.getType());
+        putString(artifact.getExtension());
+        Map<String, String> attributes = new TreeMap<String, String>(artifact.getAttributes());
+        hasher.putInt(attributes.size());
+        for (Map.Entry<String, String> entry : attributes.entrySet()) {
+            putString(entry.getKey());
+            putString(entry.getValue());
+        }
+    }
+
+    public String hash() {
+        return hasher.hash().toString();
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.internal.artifacts.ComponentMetadataProcessor;
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
+import org.gradle.api.internal.artifacts.ResolveContext;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.dsl.ComponentModuleMetadataContainer;
+import org.gradle.api.internal.artifacts.dsl.DefaultComponentMetadataHandler;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleComponentRepository;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.component.model.ComponentResolveMetaData;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
+import org.gradle.internal.resolve.resolver.ArtifactResolver;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALIZER;
+
+/**
+ * A persistent cache of resolved dependency graphs, keyed by a hash of the inputs to the resolve.
+ *
+ * <p>The key covers the meta-data of the component being resolved, the repositories and the resolution strategy. The meta-data of the other local components
+ * in the graph is fingerprinted when the graph is stored, and checked again before the graph is reused. External components are not checked, as only
+ * graphs made up of static versions of non-changing modules are stored. The cache is only used when {@value #ENABLE_PROPERTY} is set.
+ */
+public class ResolvedGraphCache {
+    public static final String ENABLE_PROPERTY = "org.gradle.dependency.resolution.cache";
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResolvedGraphCache.class);
+    private static final int FORMAT_VERSION = 1;
+
+    private final CacheLockingManager cacheLockingManager;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final boolean enabled;
+    private final boolean refreshDependencies;
+    private PersistentIndexedCache<String, RecordedDependencyGraph> cache;
+
+    public ResolvedGraphCache(CacheLockingManager cacheLockingManager, VersionSelectorScheme versionSelectorScheme, boolean enabled, boolean refreshDependencies) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.enabled = enabled;
+        this.refreshDependencies = refreshDependencies;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Calculates the cache key for the given resolve.
+     *
+     * @return The key, or null when the result of the resolve cannot be cached.
+     */
+    public String createKey(ResolveContext resolveContext, ComponentResolveMetaData rootComponent, List<? extends ResolutionAwareRepository> repositories,
+                            GlobalDependencyResolutionRules metadataHandler) {
+        if (!enabled || !hasNoRules(resolveContext.getResolutionStrategy(), metadataHandler)) {
+            return null;
+        }
+
+        ResolveInputsHasher hasher = new ResolveInputsHasher();
+        hasher.putInt(FORMAT_VERSION);
+        hasher.putString(resolveContext.getName());
+        if (!hasher.putComponent(rootComponent)) {
+            return null;
+        }
+
+        hasher.putInt(repositories.size());
+        for (ResolutionAwareRepository repository : repositories) {
+            ConfiguredModuleComponentRepository resolver = repository.createResolver();
+            if (resolver.isLocal()) {
+                // Changes to a local repository are not tracked
+                return null;
+            }
+            hasher.putString(resolver.getId());
+        }
+
+        ResolutionStrategyInternal resolutionStrategy = resolveContext.getResolutionStrategy();
+        hasher.putString(resolutionStrategy.getConflictResolution().getClass().getName());
+        List<String> forcedModules = Lists.newArrayList();
+        for (ModuleVersionSelector forcedModule : resolutionStrategy.getForcedModules()) {
+            forcedModules.add(forcedModule.getGroup() + ":" + forcedModule.getName() + ":" + forcedModule.getVersion());
+        }
+        Collections.sort(forcedModules);
+        hasher.putStrings(forcedModules);
+        return hasher.hash();
+    }
+
+    private static boolean hasNoRules(ResolutionStrategyInternal resolutionStrategy, GlobalDependencyResolutionRules metadataHandler) {
+        if (resolutionStrategy.getDependencySubstitution().hasDependencySubstitutionRules() || !resolutionStrategy.getComponentSelection().getRules().isEmpty()) {
+            return false;
+        }
+        ComponentMetadataProcessor metadataProcessor = metadataHandler.getComponentMetadataProcessor();
+        if (metadataProcessor != ComponentMetadataProcessor.NO_OP
+            && !(metadataProcessor instanceof DefaultComponentMetadataHandler && !((DefaultComponentMetadataHandler) metadataProcessor).hasRules())) {
+            return false;
+        }
+        ModuleReplacementsData moduleReplacements = metadataHandler.getModuleMetadataProcessor().getModuleReplacements();
+        return moduleReplacements == ModuleReplacementsData.NO_OP
+            || moduleReplacements instanceof ComponentModuleMetadataContainer && !((ComponentModuleMetadataContainer) moduleReplacements).hasReplacements();
+    }
+
+    /**
+     * Replays the cached graph with the given key to the given visitors, if there is one and the local components in it have not changed.
+     *
+     * @return true if the graph was replayed, false if the graph needs to be resolved.
+     */
+    public boolean replay(String key, ComponentResolveMetaData rootComponent, String configurationName, ComponentMetaDataResolver componentResolver,
+                          ArtifactResolver artifactResolver, DependencyGraphVisitor graphVisitor, DependencyArtifactsVisitor artifactsVisitor) {
+        if (refreshDependencies) {
+            return false;
+        }
+        RecordedDependencyGraph graph = getCache().get(key);
+        if (graph == null) {
+            return false;
+        }
+
+        Map<ComponentIdentifier, ComponentResolveMetaData> localComponents = Maps.newHashMap();
+        for (Map.Entry<ComponentIdentifier, String> entry : graph.localComponents.entrySet()) {
+            DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+            componentResolver.resolve(entry.getKey(), new DefaultComponentOverrideMetadata(), result);
+            if (!result.hasResult() || result.getFailure() != null) {
+                return false;
+            }
+            ComponentResolveMetaData component = result.getMetaData();
+            ResolveInputsHasher hasher = new ResolveInputsHasher();
+            if (!hasher.putComponent(component) || !hasher.hash().equals(entry.getValue())) {
+                LOGGER.debug("Not reusing resolved graph for {} as {} has changed.", configurationName, entry.getKey());
+                return false;
+            }
+            localComponents.put(entry.getKey(), component);
+        }
+
+        LOGGER.debug("Reusing resolved graph for {}.", configurationName);
+        new DependencyGraphReplayer(graph, rootComponent, localComponents, artifactResolver).replay(configurationName, graphVisitor, artifactsVisitor);
+        return true;
+    }
+
+    public DependencyGraphRecorder createRecorder() {
+        return new DependencyGraphRecorder(versionSelectorScheme);
+    }
+
+    /**
+     * Stores the graph captured by the given recorder, if it can be reused by a later build.
+     */
+    public void store(String key, DependencyGraphRecorder recorder) {
+        RecordedDependencyGraph graph = recorder.getGraph();
+        if (graph != null) {
+            getCache().put(key, graph);
+        }
+    }
+
+    private synchronized PersistentIndexedCache<String, RecordedDependencyGraph> getCache() {
+        if (cache == null) {
+            cache = cacheLockingManager.createCache("resolved-graphs", STRING_SERIALIZER, new RecordedDependencyGraphSerializer());
+        }
+        return cache;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.gradle.cache.CacheAccess
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class ResolveOperationExecutorTest extends Specification {
+    def cacheAccess = Mock(CacheAccess)
+    def ivyContextManager = new DefaultIvyContextManager()
+    def executorFactory = new DefaultExecutorFactory()
+    ResolveOperationExecutor executor
+
+    def cleanup() {
+        executor?.stop()
+        executorFactory.stop()
+    }
+
+    def "runs operations on the calling thread when only one worker is available"() {
+        executor = new ResolveOperationExecutor(executorFactory, 1, cacheAccess, ivyContextManager)
+        def threads = []
+
+        when:
+        executor.runAll("test", [{ threads << Thread.currentThread() } as Runnable, { threads << Thread.currentThread() } as Runnable])
+
+        then:
+        !executor.parallel
+        threads == [Thread.currentThread(), Thread.currentThread()]
+        0 * cacheAccess._
+    }
+
+    def "runs operations concurrently while the cache is released"() {
+        executor = new ResolveOperationExecutor(executorFactory, 2, cacheAccess, ivyContextManager)
+        def latch = new CountDownLatch(2)
+        def threads = new CopyOnWriteArrayList()
+        def operation = {
+            threads << Thread.currentThread()
+            latch.countDown()
+            // Each operation waits for the other to start, so the operations must run concurrently
+            assert latch.await(10, TimeUnit.SECONDS)
+        } as Runnable
+
+        when:
+        executor.runAll("test", [operation, operation])
+
+        then:
+        executor.parallel
+        threads.size() == 2
+        !threads.contains(Thread.currentThread())
+        1 * cacheAccess.longRunningOperation("test", _ as Runnable) >> { String description, Runnable action -> action.run() }
+        0 * cacheAccess._
+    }
+
+    def "rethrows failure of an operation"() {
+        executor = new ResolveOperationExecutor(executorFactory, 2, cacheAccess, ivyContextManager)
+        def failure = new RuntimeException("broken")
+        _ * cacheAccess.longRunningOperation(_, _ as Runnable) >> { String description, Runnable action -> action.run() }
+
+        when:
+        executor.runAll("test", [{} as Runnable, { throw failure } as Runnable])
+
+        then:
+        RuntimeException e = thrown()
+        e.is(failure)
+    }
+}
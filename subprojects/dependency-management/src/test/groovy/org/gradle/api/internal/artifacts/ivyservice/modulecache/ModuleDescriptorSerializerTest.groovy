@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor
+import org.apache.ivy.plugins.matcher.ExactPatternMatcher
+import org.apache.ivy.plugins.matcher.GlobPatternMatcher
+import org.apache.ivy.plugins.matcher.RegexpPatternMatcher
+import org.gradle.api.internal.artifacts.ivyservice.IvyXmlModuleDescriptorWriter
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.DescriptorParseContext
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModuleDescriptorParser
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.ResolverStrategy
+import org.gradle.internal.serialize.SerializerSpec
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+
+class ModuleDescriptorSerializerTest extends SerializerSpec {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+    ResolverStrategy resolverStrategy = Stub() {
+        getPatternMatcher("exact") >> ExactPatternMatcher.INSTANCE
+        getPatternMatcher("glob") >> GlobPatternMatcher.INSTANCE
+        getPatternMatcher("regexp") >> RegexpPatternMatcher.INSTANCE
+    }
+    def serializer = new ModuleDescriptorSerializer(resolverStrategy)
+    def parser = new IvyXmlModuleDescriptorParser(resolverStrategy)
+    def writer = new IvyXmlModuleDescriptorWriter()
+
+    def "reads and writes minimal descriptor"() {
+        def descriptor = parse """
+<ivy-module version="2.0">
+    <info organisation="myorg" module="mymodule" revision="1.0"/>
+</ivy-module>
+"""
+
+        when:
+        def result = serialize(descriptor, serializer)
+
+        then:
+        result.moduleRevisionId == descriptor.moduleRevisionId
+        result.status == "integration"
+        result.configurationsNames == ["default"] as String[]
+        result.getArtifacts("default")*.name == ["mymodule"]
+        toXml(result) == toXml(descriptor)
+    }
+
+    def "reads and writes descriptor with all supported content"() {
+        def descriptor = parse """
+<ivy-module version="2.0" xmlns:e="http://ant.apache.org/ivy/extra" xmlns:m="http://ant.apache.org/ivy/maven">
+    <info organisation="myorg" module="mymodule" branch="trunk" revision="1.0" status="release" publication="20160102030405" e:color="blue">
+        <license name="Apache" url="http://www.apache.org/licenses/LICENSE-2.0"/>
+        <description homepage="http://example.com">Some module</description>
+        <e:notes>some notes</e:notes>
+    </info>
+    <configurations>
+        <conf name="compile" description="compile classes"/>
+        <conf name="runtime" extends="compile" transitive="false" e:color="red"/>
+        <conf name="test" visibility="private" extends="runtime" deprecated="use runtime"/>
+    </configurations>
+    <publications>
+        <artifact name="mymodule" type="jar" ext="jar" conf="compile"/>
+        <artifact name="mymodule" type="source" ext="jar" conf="runtime,test" m:classifier="sources"/>
+    </publications>
+    <dependencies>
+        <dependency org="other" name="lib" rev="1.2" revConstraint="latest.integration" force="true" changing="true" conf="compile->default;runtime->*,!sources">
+            <artifact name="lib" type="jar" conf="compile" m:classifier="api"/>
+            <include name="lib" type="jar" matcher="glob" conf="runtime"/>
+            <exclude org="commons-logging" module="*" matcher="glob"/>
+        </dependency>
+        <dependency org="other" name="tool" branch="b1" rev="2.0" branchConstraint="b2" revConstraint="2.+" transitive="false" conf="test->@"/>
+        <exclude org="log4j" module="log4j" conf="runtime"/>
+    </dependencies>
+</ivy-module>
+"""
+
+        when:
+        def result = serialize(descriptor, serializer)
+
+        then:
+        result.resolvedPublicationDate == descriptor.resolvedPublicationDate
+        result.dependencies*.dynamicConstraintDependencyRevisionId == descriptor.dependencies*.dynamicConstraintDependencyRevisionId
+        toXml(result) == toXml(descriptor)
+    }
+
+    private ModuleDescriptor parse(String text) {
+        def file = temporaryFolder.file("ivy.xml")
+        file.text = text
+        return parser.parseMetaData(Stub(DescriptorParseContext), file, true).descriptor
+    }
+
+    private String toXml(ModuleDescriptor descriptor) {
+        def file = temporaryFolder.file("out.xml")
+        writer.write(descriptor, file)
+        return file.text
+    }
+}
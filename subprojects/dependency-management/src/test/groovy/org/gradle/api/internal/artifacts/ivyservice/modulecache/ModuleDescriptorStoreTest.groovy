@@ -21,12 +21,16 @@ import org.gradle.api.artifacts.component.ModuleComponentIdentifier
 import org.gradle.api.internal.artifacts.ivyservice.IvyModuleDescriptorWriter
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModuleDescriptorParser
+import org.gradle.internal.component.external.model.DefaultIvyModuleResolveMetaData
+import org.gradle.internal.hash.HashValue
 
 import org.gradle.internal.resource.local.LocallyAvailableResource
 import org.gradle.internal.resource.local.PathKeyFileStore
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
 import spock.lang.Specification
+import spock.lang.Unroll
 
 class ModuleDescriptorStoreTest extends Specification {
 
@@ -38,26 +42,29 @@ class ModuleDescriptorStoreTest extends Specification {
     ModuleDescriptor moduleDescriptor = Mock()
     IvyModuleDescriptorWriter ivyModuleDescriptorWriter = Mock()
     IvyXmlModuleDescriptorParser ivyXmlModuleDescriptorParser = Mock()
+    ModuleDescriptorSerializer descriptorSerializer = Mock()
     ModuleComponentIdentifier moduleComponentIdentifier = Mock()
+    HashValue descriptorHash = new HashValue("1234")
 
     def setup() {
-        store = new ModuleDescriptorStore(pathKeyFileStore, ivyModuleDescriptorWriter, ivyXmlModuleDescriptorParser);
+        store = new ModuleDescriptorStore(pathKeyFileStore, ivyModuleDescriptorWriter, ivyXmlModuleDescriptorParser, descriptorSerializer);
         _ * repository.getId() >> "repositoryId"
         _ * moduleComponentIdentifier.group >> "org.test"
         _ * moduleComponentIdentifier.module >> "testArtifact"
         _ * moduleComponentIdentifier.version >> "1.0"
+        _ * fileStoreEntry.sha1 >> descriptorHash
     }
 
     def "getModuleDescriptorFile returns null for not cached descriptors"() {
         when:
         pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/ivy.xml") >> null
         then:
-        null == store.getModuleDescriptor(repository, moduleComponentIdentifier)
+        null == store.getModuleDescriptor(repository, moduleComponentIdentifier, descriptorHash.asBigInteger())
     }
 
     def "getModuleDescriptorFile uses PathKeyFileStore to get file"() {
         when:
-        store.getModuleDescriptor(repository, moduleComponentIdentifier);
+        store.getModuleDescriptor(repository, moduleComponentIdentifier, descriptorHash.asBigInteger());
         then:
         1 * pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/ivy.xml") >> null
     }
@@ -73,4 +80,76 @@ class ModuleDescriptorStoreTest extends Specification {
         };
         1 * ivyModuleDescriptorWriter.write(moduleDescriptor, descriptorFile)
     }
-}
\ No newline at end of file
+
+    def "putModuleDescriptor also writes binary descriptor"() {
+        setup:
+        File binaryFile = temporaryFolder.file("binaryEntry")
+        when:
+        store.putModuleDescriptor(repository, moduleComponentIdentifier, moduleDescriptor);
+        then:
+        1 * pathKeyFileStore.add("org.test/testArtifact/1.0/repositoryId/ivy.xml", _) >> fileStoreEntry
+        1 * pathKeyFileStore.add("org.test/testArtifact/1.0/repositoryId/descriptor.bin", _) >> { path, action ->
+            action.execute(binaryFile); Mock(LocallyAvailableResource)
+        };
+        1 * descriptorSerializer.write(_, moduleDescriptor)
+        binaryFile.length() > 0
+    }
+
+    def "getModuleDescriptor reads binary descriptor when present"() {
+        setup:
+        LocallyAvailableResource binaryEntry = binaryEntry(ModuleDescriptorStore.BINARY_FORMAT_VERSION, descriptorHash)
+        pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/ivy.xml") >> fileStoreEntry
+        pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/descriptor.bin") >> binaryEntry
+
+        when:
+        def result = store.getModuleDescriptor(repository, moduleComponentIdentifier, descriptorHash.asBigInteger())
+
+        then:
+        result == moduleDescriptor
+        1 * descriptorSerializer.read(_) >> moduleDescriptor
+        0 * ivyXmlModuleDescriptorParser._
+    }
+
+    @Unroll
+    def "getModuleDescriptor parses ivy.xml and rewrites binary descriptor when #reason"() {
+        setup:
+        LocallyAvailableResource binaryEntry = binaryEntry(formatVersion, new HashValue(hash))
+        File descriptorFile = temporaryFolder.createFile("fileStoreEntry")
+        File rewrittenBinaryFile = temporaryFolder.file("rewrittenBinaryEntry")
+        DefaultIvyModuleResolveMetaData parsed = Stub() {
+            getDescriptor() >> moduleDescriptor
+        }
+        pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/ivy.xml") >> fileStoreEntry
+        pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/descriptor.bin") >> binaryEntry
+        fileStoreEntry.file >> descriptorFile
+
+        when:
+        def result = store.getModuleDescriptor(repository, moduleComponentIdentifier, descriptorHash.asBigInteger())
+
+        then:
+        result == moduleDescriptor
+        0 * descriptorSerializer.read(_)
+        1 * ivyXmlModuleDescriptorParser.parseMetaData(_, descriptorFile, false) >> parsed
+        1 * pathKeyFileStore.add("org.test/testArtifact/1.0/repositoryId/descriptor.bin", _) >> { path, action ->
+            action.execute(rewrittenBinaryFile); Mock(LocallyAvailableResource)
+        }
+        1 * descriptorSerializer.write(_, moduleDescriptor)
+        rewrittenBinaryFile.length() > 0
+
+        where:
+        reason                                                    | formatVersion                                    | hash
+        "binary descriptor has different format version"          | ModuleDescriptorStore.BINARY_FORMAT_VERSION + 1 | "1234"
+        "ivy.xml has changed since binary descriptor was written" | ModuleDescriptorStore.BINARY_FORMAT_VERSION     | "5678"
+    }
+
+    private LocallyAvailableResource binaryEntry(int formatVersion, HashValue hash) {
+        File binaryFile = temporaryFolder.file("binaryEntry")
+        def encoder = new KryoBackedEncoder(new FileOutputStream(binaryFile))
+        encoder.writeSmallInt(formatVersion)
+        encoder.writeBinary(hash.asBigInteger().toByteArray())
+        encoder.close()
+        return Stub(LocallyAvailableResource) {
+            getFile() >> binaryFile
+        }
+    }
+}
@@ -20,6 +20,7 @@ import org.apache.ivy.core.module.id.ModuleId
 import org.apache.ivy.core.module.id.ModuleRevisionId
 import org.apache.ivy.plugins.matcher.ExactPatternMatcher
 import org.apache.ivy.plugins.matcher.PatternMatcher
+import org.gradle.api.Action
 import org.gradle.api.artifacts.*
 import org.gradle.api.artifacts.component.ComponentIdentifier
 import org.gradle.api.artifacts.component.ComponentSelector
@@ -29,6 +30,8 @@ import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal
 import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData
 import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
 import org.gradle.api.internal.artifacts.ivyservice.DefaultLenientConfiguration
+import org.gradle.api.internal.artifacts.ivyservice.IvyContextManager
+import org.gradle.api.internal.artifacts.ivyservice.ResolveOperationExecutor
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultResolvedArtifactsBuilder
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactsGraphVisitor
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyArtifactsVisitor
@@ -45,6 +48,8 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.Resolut
 import org.gradle.api.internal.artifacts.publish.DefaultPublishArtifact
 import org.gradle.api.internal.tasks.DefaultTaskDependency
 import org.gradle.api.specs.Spec
+import org.gradle.cache.CacheAccess
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
 import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
 import org.gradle.internal.component.local.model.DefaultLocalComponentMetaData
@@ -77,6 +82,7 @@ class DependencyGraphBuilderTest extends Specification {
     def moduleResolver = Mock(ResolveContextToComponentResolver)
     def dependencyToConfigurationResolver = new DefaultDependencyToConfigurationResolver()
     def moduleReplacements = Mock(ModuleReplacementsData)
+    def resolveOperationExecutor = new ResolveOperationExecutor(new DefaultExecutorFactory(), 1, Stub(CacheAccess), Stub(IvyContextManager))
     DependencyGraphBuilder builder
 
     def setup() {
@@ -87,7 +93,11 @@ class DependencyGraphBuilderTest extends Specification {
             result.resolved(module.getConfiguration(context.configurationName).artifacts)
         }
 
-        builder = new DependencyGraphBuilder(idResolver, metaDataResolver, moduleResolver, dependencyToConfigurationResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements))
+        builder = new DependencyGraphBuilder(idResolver, metaDataResolver, moduleResolver, dependencyToConfigurationResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements), resolveOperationExecutor)
+    }
+
+    def cleanup() {
+        resolveOperationExecutor.stop()
     }
 
     private DefaultLenientConfiguration resolve() {
@@ -108,7 +118,7 @@ class DependencyGraphBuilderTest extends Specification {
         def graphResults = modelBuilder.complete()
         def artifactResults = artifactsBuilder.resolve()
 
-        new DefaultLenientConfiguration(configuration, Stub(CacheLockingManager), graphResults.getUnresolvedDependencies(),
+        new DefaultLenientConfiguration(configuration, Stub(CacheLockingManager), resolveOperationExecutor, graphResults.getUnresolvedDependencies(),
                 artifactResults, new TransientConfigurationResultsLoader(transientConfigurationResultsBuilder, graphResults, artifactResults))
     }
 
@@ -940,6 +950,38 @@ class DependencyGraphBuilderTest extends Specification {
         modules(result) == ids(forced, b)
     }
 
+    def "resolves dependencies in parallel when enabled"() {
+        given:
+        def cacheAccess = Stub(CacheAccess) {
+            longRunningOperation(_, _ as Runnable) >> { String description, Runnable action -> action.run() }
+        }
+        def ivyContextManager = Stub(IvyContextManager) {
+            withIvy(_ as Action) >> { Action action -> action.execute(null) }
+        }
+        resolveOperationExecutor = new ResolveOperationExecutor(new DefaultExecutorFactory(), 4, cacheAccess, ivyContextManager)
+        builder = new DependencyGraphBuilder(idResolver, metaDataResolver, moduleResolver, dependencyToConfigurationResolver, new DefaultConflictHandler(conflictResolver, moduleReplacements), resolveOperationExecutor)
+
+        def a = revision("a")
+        def b = revision("b")
+        def c = revision("c")
+        def d = revision("d")
+        def e = revision("e")
+        traverses root, a
+        traverses root, b
+        traverses root, c
+        traverses a, d
+        traverses a, e
+        doesNotResolve b, e
+        traversesMissing c, revision("f")
+
+        when:
+        def result = resolve()
+
+        then:
+        modules(result) == ids(a, d, e, b, c)
+        result.unresolvedModuleDependencies*.selector*.name == ['f']
+    }
+
     def revision(String name, String revision = '1.0') {
         // TODO Shouldn't really be using the local component implementation here
         def id = newId("group", name, revision)
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store
+
+import org.gradle.api.artifacts.ModuleDependency
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.DefaultModuleResolutionFilter
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultArtifactSet
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DefaultModuleVersionSelection
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.VersionSelectionReasons
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactMetaData
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.local.model.DefaultProjectComponentIdentifier
+import org.gradle.internal.component.local.model.DslOriginDependencyMetaData
+import org.gradle.internal.component.model.ComponentResolveMetaData
+import org.gradle.internal.component.model.ConfigurationMetaData
+import org.gradle.internal.component.model.DefaultIvyArtifactName
+import org.gradle.internal.resolve.resolver.ArtifactResolver
+import org.gradle.internal.serialize.SerializerSpec
+
+import static org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier.newId
+
+class DependencyGraphRecorderTest extends SerializerSpec {
+    def recorder = new DependencyGraphRecorder(new DefaultVersionSelectorScheme(new DefaultVersionComparator()))
+    def moduleDependency = Stub(ModuleDependency)
+    def rootComponent = Stub(ComponentResolveMetaData)
+    def rootConfiguration = Stub(ConfigurationMetaData) {
+        getComponent() >> rootComponent
+        getDependencies() >> [Stub(DslOriginDependencyMetaData) { getSource() >> moduleDependency }]
+    }
+    def rootId = new ResolvedConfigurationIdentifier(newId("group", "root", "1.0"), "compile")
+    def root = node(rootId, new DefaultProjectComponentIdentifier(":root"), rootConfiguration)
+
+    def setup() {
+        rootComponent.getConfiguration("compile") >> rootConfiguration
+    }
+
+    def "replays recorded graph after it has been persisted"() {
+        def fooId = new ResolvedConfigurationIdentifier(newId("org", "foo", "1.2"), "default")
+        def fooComponentId = DefaultModuleComponentIdentifier.newId("org", "foo", "1.2")
+        def foo = node(fooId, fooComponentId, Stub(ConfigurationMetaData) { getComponent() >> Stub(ComponentResolveMetaData) })
+        def edge = edge(root, "1.2", fooId)
+        root.outgoingEdges << edge
+        foo.incomingEdges << edge
+        def artifact = new DefaultModuleComponentArtifactMetaData(fooComponentId, new DefaultIvyArtifactName("foo", "jar", "jar"))
+        def artifacts = new DefaultArtifactSet(fooId.id, null, DefaultModuleResolutionFilter.all(), [artifact] as Set, Stub(ArtifactResolver), [:], 12)
+
+        given:
+        record(root, foo) { recorder.visitArtifacts(rootId, fooId, artifacts) }
+        def graph = serialize(recorder.graph, new RecordedDependencyGraphSerializer())
+        def graphVisitor = Mock(DependencyGraphVisitor)
+        def artifactsVisitor = Mock(DependencyArtifactsVisitor)
+
+        when:
+        new DependencyGraphReplayer(graph, rootComponent, [:], Stub(ArtifactResolver)).replay("compile", graphVisitor, artifactsVisitor)
+
+        then:
+        1 * graphVisitor.start({ it.nodeId == rootId })
+        then:
+        1 * graphVisitor.visitNode({ it.nodeId == rootId && it.outgoingEdges*.selected == [fooId.id] })
+        then:
+        1 * graphVisitor.visitNode({ it.nodeId == fooId && it.componentId == fooComponentId })
+        then:
+        1 * graphVisitor.visitEdge({ it.nodeId == rootId })
+        then:
+        1 * graphVisitor.visitEdge({ DependencyGraphNode node -> node.nodeId == fooId && node.incomingEdges*.moduleDependency == [moduleDependency] })
+        then:
+        1 * artifactsVisitor.visitArtifacts(rootId, fooId, { it.id == 12 && it.artifactMetaData*.id == [artifact.id] })
+        then:
+        1 * graphVisitor.finish({ it.nodeId == rootId })
+        then:
+        1 * artifactsVisitor.finishArtifacts()
+    }
+
+    def "does not record graph with dynamic versions"() {
+        def fooId = new ResolvedConfigurationIdentifier(newId("org", "foo", "1.2"), "default")
+        def foo = node(fooId, DefaultModuleComponentIdentifier.newId("org", "foo", "1.2"), Stub(ConfigurationMetaData) { getComponent() >> Stub(ComponentResolveMetaData) })
+        def edge = edge(root, "1.+", fooId)
+        root.outgoingEdges << edge
+        foo.incomingEdges << edge
+
+        when:
+        record(root, foo) {}
+
+        then:
+        recorder.graph == null
+    }
+
+    def "does not record graph with changing modules"() {
+        def fooId = new ResolvedConfigurationIdentifier(newId("org", "foo", "1.2"), "default")
+        def foo = node(fooId, DefaultModuleComponentIdentifier.newId("org", "foo", "1.2"), Stub(ConfigurationMetaData) {
+            getComponent() >> Stub(ComponentResolveMetaData) { isChanging() >> true }
+        })
+        def edge = edge(root, "1.2", fooId)
+        root.outgoingEdges << edge
+        foo.incomingEdges << edge
+
+        when:
+        record(root, foo) {}
+
+        then:
+        recorder.graph == null
+    }
+
+    private void record(DependencyGraphNode root, DependencyGraphNode child, Closure artifacts) {
+        recorder.start(root)
+        recorder.visitNode(root)
+        recorder.visitNode(child)
+        recorder.visitEdge(root)
+        recorder.visitEdge(child)
+        artifacts.call()
+        recorder.finish(root)
+        recorder.finishArtifacts()
+    }
+
+    private DependencyGraphNode node(ResolvedConfigurationIdentifier id, def componentId, ConfigurationMetaData configuration) {
+        def outgoing = new LinkedHashSet<DependencyGraphEdge>()
+        def incoming = new LinkedHashSet<DependencyGraphEdge>()
+        return Stub(DependencyGraphNode) {
+            getNodeId() >> id
+            toId() >> id.id
+            getComponentId() >> componentId
+            getSelection() >> new DefaultModuleVersionSelection(id.id, VersionSelectionReasons.REQUESTED, componentId)
+            getMetaData() >> configuration
+            getOutgoingEdges() >> outgoing
+            getIncomingEdges() >> incoming
+        }
+    }
+
+    private DependencyGraphEdge edge(DependencyGraphNode source, String version, ResolvedConfigurationIdentifier target) {
+        return Stub(DependencyGraphEdge) {
+            getFrom() >> source
+            getRequested() >> DefaultModuleComponentSelector.newSelector(target.moduleGroup, target.moduleName, version)
+            getSelected() >> target.id
+            getModuleDependency() >> moduleDependency
+        }
+    }
+}
@@ -26,9 +26,11 @@ import org.gradle.api.internal.tasks.compile.daemon.CompilerClientsManager;
 import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonManager;
 import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonStarter;
 import org.gradle.internal.Factory;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.PluginServiceRegistry;
 import org.gradle.jvm.internal.toolchain.JavaToolChainInternal;
+import org.gradle.messaging.remote.MessagingServer;
 import org.gradle.process.internal.ExecActionFactory;
 import org.gradle.process.internal.WorkerProcessBuilder;
 
@@ -37,6 +39,7 @@ import javax.tools.JavaCompiler;
 public class JavaToolChainServiceRegistry implements PluginServiceRegistry {
     @Override
     public void registerGlobalServices(ServiceRegistration registration) {
+        registration.addProvider(new GlobalScopeCompileServices());
     }
 
     @Override
@@ -57,9 +60,20 @@ public class JavaToolChainServiceRegistry implements PluginServiceRegistry {
         registration.addProvider(new ProjectScopeCompileServices());
     }
 
+    private static class GlobalScopeCompileServices {
+        CompilerClientsManager createCompilerClientsManager(ExecutorFactory executorFactory, MessagingServer messagingServer) {
+            return new CompilerClientsManager(executorFactory, messagingServer);
+        }
+    }
+
     private static class BuildSessionScopeCompileServices {
-        CompilerDaemonManager createCompilerDaemonManager(Factory<WorkerProcessBuilder> workerFactory, StartParameter startParameter) {
-            return new CompilerDaemonManager(new CompilerClientsManager(new CompilerDaemonStarter(workerFactory, startParameter)));
+        CompilerDaemonManager createCompilerDaemonManager(CompilerClientsManager globalClientsManager, ExecutorFactory executorFactory, MessagingServer messagingServer,
+                                                          Factory<WorkerProcessBuilder> workerFactory, StartParameter startParameter) {
+            CompilerDaemonStarter compilerDaemonStarter = new CompilerDaemonStarter(workerFactory, startParameter);
+            if (Boolean.getBoolean(CompilerClientsManager.ENABLE_PROPERTY)) {
+                return new CompilerDaemonManager(globalClientsManager, compilerDaemonStarter, false);
+            }
+            return new CompilerDaemonManager(new CompilerClientsManager(executorFactory, messagingServer), compilerDaemonStarter, true);
         }
 
         Factory<JavaCompiler> createJavaHomeBasedJavaCompilerFactory() {
@@ -23,10 +23,22 @@ import java.io.Serializable;
 public class CompileResult implements WorkResult, Serializable {
     private final boolean didWork;
     private final Throwable exception;
+    private final long usedHeap;
+    private final long maxHeap;
 
     public CompileResult(boolean didWork, @Nullable Throwable exception) {
+        this(didWork, exception, 0, 0);
+    }
+
+    /**
+     * @param usedHeap The heap in use after the most recent garbage collection in the process that ran the compilation, or 0 if not known.
+     * @param maxHeap The maximum heap of the process that ran the compilation, or 0 if not known.
+     */
+    public CompileResult(boolean didWork, @Nullable Throwable exception, long usedHeap, long maxHeap) {
         this.didWork = didWork;
         this.exception = exception;
+        this.usedHeap = usedHeap;
+        this.maxHeap = maxHeap;
     }
 
     @Override
@@ -39,6 +51,14 @@ public class CompileResult implements WorkResult, Serializable {
         return exception;
     }
 
+    public long getUsedHeap() {
+        return usedHeap;
+    }
+
+    public long getMaxHeap() {
+        return maxHeap;
+    }
+
     public boolean isSuccess() {
         return exception == null;
     }
@@ -15,40 +15,81 @@
  */
 package org.gradle.api.internal.tasks.compile.daemon;
 
+import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.internal.TimeProvider;
+import org.gradle.internal.TrueTimeProvider;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.messaging.remote.MessagingServer;
+import org.gradle.util.Clock;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
-public class CompilerClientsManager {
+/**
+ * Keeps track of the compiler daemons, which are kept until this manager is stopped. When {@value #ENABLE_PROPERTY} is set, a single manager lives as long as the build process,
+ * so when running in the Gradle daemon the compiler daemons are reused across builds. Otherwise each build session has its own manager.
+ *
+ * <p>An idle compiler daemon is stopped once it has been idle for longer than the idle timeout, or when too much of its heap is in use after a compilation. The compiler daemons
+ * are connected through the messaging server given to this manager, which must not be stopped before this manager.</p>
+ */
+public class CompilerClientsManager implements Stoppable {
+    public static final String ENABLE_PROPERTY = "org.gradle.compiler.daemons.reuse";
 
     private static final Logger LOGGER = Logging.getLogger(CompilerDaemonManager.class);
+    private static final long DEFAULT_IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(3);
+    private static final double DEFAULT_MAX_HEAP_USAGE = 0.7;
 
     private final Object lock = new Object();
     private final List<CompilerDaemonClient> allClients = new ArrayList<CompilerDaemonClient>();
     private final List<CompilerDaemonClient> idleClients = new ArrayList<CompilerDaemonClient>();
+    private final ExecutorFactory executorFactory;
+    private final MessagingServer server;
+    private final TimeProvider timeProvider;
+    private final long idleTimeoutMillis;
+    private final double maxHeapUsage;
+    private StoppableExecutor executor;
+    private boolean stopped;
 
-    private CompilerDaemonStarter compilerDaemonStarter;
+    public CompilerClientsManager(ExecutorFactory executorFactory, MessagingServer server) {
+        this(executorFactory, server, new TrueTimeProvider(), DEFAULT_IDLE_TIMEOUT, DEFAULT_MAX_HEAP_USAGE);
+    }
 
-    public CompilerClientsManager(CompilerDaemonStarter compilerDaemonStarter) {
-        this.compilerDaemonStarter = compilerDaemonStarter;
+    /**
+     * @param idleTimeoutMillis How long a compiler daemon may remain idle before it is stopped.
+     * @param maxHeapUsage The fraction of its maximum heap that a compiler daemon may have in use after a compilation and still be reused.
+     */
+    public CompilerClientsManager(ExecutorFactory executorFactory, MessagingServer server, TimeProvider timeProvider, long idleTimeoutMillis, double maxHeapUsage) {
+        this.executorFactory = executorFactory;
+        this.server = server;
+        this.timeProvider = timeProvider;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxHeapUsage = maxHeapUsage;
     }
 
-    public CompilerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions) {
-        return reserveIdleClient(forkOptions, idleClients);
+    /**
+     * Reserves an idle compiler daemon that can run compilations for the given working directory and fork options, and that logs at the given level.
+     */
+    public CompilerDaemonClient reserveIdleClient(File workingDir, DaemonForkOptions forkOptions, LogLevel logLevel) {
+        return reserveIdleClient(workingDir, forkOptions, logLevel, idleClients);
     }
 
-    CompilerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, List<CompilerDaemonClient> clients) {
+    CompilerDaemonClient reserveIdleClient(File workingDir, DaemonForkOptions forkOptions, LogLevel logLevel, List<CompilerDaemonClient> clients) {
         synchronized (lock) {
             Iterator<CompilerDaemonClient> it = clients.iterator();
             while(it.hasNext()) {
                 CompilerDaemonClient candidate = it.next();
-                if(candidate.isCompatibleWith(forkOptions)) {
+                if(candidate.isCompatibleWith(workingDir, forkOptions, logLevel)) {
                     it.remove();
+                    candidate.reused();
                     return candidate;
                 }
             }
@@ -56,9 +97,9 @@ public class CompilerClientsManager {
         }
     }
 
-    public CompilerDaemonClient reserveNewClient(File workingDir, DaemonForkOptions forkOptions) {
+    public CompilerDaemonClient reserveNewClient(CompilerDaemonStarter compilerDaemonStarter, File workingDir, DaemonForkOptions forkOptions) {
         //allow the daemon to be started concurrently
-        CompilerDaemonClient client = compilerDaemonStarter.startDaemon(workingDir, forkOptions);
+        CompilerDaemonClient client = compilerDaemonStarter.startDaemon(workingDir, forkOptions, server);
         synchronized (lock) {
             allClients.add(client);
         }
@@ -67,16 +108,116 @@ public class CompilerClientsManager {
 
     public void release(CompilerDaemonClient client) {
         synchronized (lock) {
-            idleClients.add(client);
+            if (stopped) {
+                // Already stopped
+                return;
+            }
+            if (client.getHeapUsage() <= maxHeapUsage) {
+                client.setIdleSince(timeProvider.getCurrentTime());
+                idleClients.add(client);
+                startExpiringIdleClients();
+                return;
+            }
+            allClients.remove(client);
+        }
+        LOGGER.info("Not reusing compiler daemon {}, as {}% of its heap is in use.", client, Math.round(client.getHeapUsage() * 100));
+        stopClient(client);
+    }
+
+    private void startExpiringIdleClients() {
+        if (executor == null) {
+            executor = executorFactory.create("Compiler daemon expiry");
+            executor.execute(new Runnable() {
+                public void run() {
+                    expireIdleClients();
+                }
+            });
+        } else {
+            lock.notifyAll();
+        }
+    }
+
+    private void expireIdleClients() {
+        while (true) {
+            List<CompilerDaemonClient> expired = new ArrayList<CompilerDaemonClient>();
+            synchronized (lock) {
+                if (stopped) {
+                    return;
+                }
+                long now = timeProvider.getCurrentTime();
+                long nextExpiry = removeExpiredClients(now, expired);
+                if (expired.isEmpty()) {
+                    try {
+                        lock.wait(nextExpiry == Long.MAX_VALUE ? 0 : nextExpiry - now);
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                    continue;
+                }
+            }
+            stopExpiredClients(expired);
         }
     }
 
+    /**
+     * Stops the compiler daemons that have been idle for longer than the idle timeout. This is also done in the background, whenever a compiler daemon expires.
+     */
+    void stopExpiredClients() {
+        List<CompilerDaemonClient> expired = new ArrayList<CompilerDaemonClient>();
+        synchronized (lock) {
+            removeExpiredClients(timeProvider.getCurrentTime(), expired);
+        }
+        stopExpiredClients(expired);
+    }
+
+    /**
+     * Moves the expired idle clients to the given list, and returns the time at which the next of the remaining idle clients expires.
+     */
+    private long removeExpiredClients(long now, List<CompilerDaemonClient> expired) {
+        long nextExpiry = Long.MAX_VALUE;
+        Iterator<CompilerDaemonClient> it = idleClients.iterator();
+        while (it.hasNext()) {
+            CompilerDaemonClient client = it.next();
+            long expiry = client.getIdleSince() + idleTimeoutMillis;
+            if (expiry <= now) {
+                it.remove();
+                allClients.remove(client);
+                expired.add(client);
+            } else {
+                nextExpiry = Math.min(nextExpiry, expiry);
+            }
+        }
+        return nextExpiry;
+    }
+
+    private void stopExpiredClients(List<CompilerDaemonClient> expired) {
+        for (CompilerDaemonClient client : expired) {
+            LOGGER.debug("Compiler daemon {} has been idle for longer than {}.", client, Clock.prettyTime(idleTimeoutMillis));
+            stopClient(client);
+        }
+    }
+
+    private void stopClient(CompilerDaemonClient client) {
+        LOGGER.info("Stopping compiler daemon {}: {}.", client, client.getStatistics());
+        client.stop();
+    }
+
     public void stop() {
+        List<CompilerDaemonClient> clients;
+        StoppableExecutor executor;
         synchronized (lock) {
-            LOGGER.debug("Stopping {} compiler daemon(s).", allClients.size());
-            CompositeStoppable.stoppable(allClients).stop();
-            LOGGER.info("Stopped {} compiler daemon(s).", allClients.size());
+            stopped = true;
+            clients = new ArrayList<CompilerDaemonClient>(allClients);
             allClients.clear();
+            idleClients.clear();
+            executor = this.executor;
+            lock.notifyAll();
+        }
+        LOGGER.debug("Stopping {} compiler daemon(s).", clients.size());
+        for (CompilerDaemonClient client : clients) {
+            LOGGER.info("Stopping compiler daemon {}: {}.", client, client.getStatistics());
         }
+        CompositeStoppable.stoppable(clients).add(executor).stop();
+        LOGGER.info("Stopped {} compiler daemon(s).", clients.size());
     }
-}
\ No newline at end of file
+}
@@ -16,40 +16,101 @@
 package org.gradle.api.internal.tasks.compile.daemon;
 
 import org.gradle.language.base.internal.compile.CompileSpec;
+import org.gradle.api.logging.LogLevel;
 import org.gradle.language.base.internal.compile.Compiler;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.UncheckedException;
 import org.gradle.process.internal.WorkerProcess;
+import org.gradle.util.Clock;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.SynchronousQueue;
 
 class CompilerDaemonClient implements CompilerDaemon, CompilerDaemonClientProtocol, Stoppable {
+    private final File workingDir;
     private final DaemonForkOptions forkOptions;
+    private final LogLevel logLevel;
     private final WorkerProcess workerProcess;
     private final CompilerDaemonServerProtocol server;
     private final BlockingQueue<CompileResult> compileResults = new SynchronousQueue<CompileResult>();
+    private final ClasspathSnapshot classpathSnapshot;
+    private long startupTime;
+    private int compileCount;
+    private int reuseCount;
+    private long firstCompileTime;
+    private long totalCompileTime;
+    private double heapUsage;
+    private long idleSince;
 
-    public CompilerDaemonClient(DaemonForkOptions forkOptions, WorkerProcess workerProcess, CompilerDaemonServerProtocol server) {
+    public CompilerDaemonClient(File workingDir, DaemonForkOptions forkOptions, LogLevel logLevel, WorkerProcess workerProcess, CompilerDaemonServerProtocol server) {
+        this.workingDir = workingDir;
         this.forkOptions = forkOptions;
+        this.logLevel = logLevel;
         this.workerProcess = workerProcess;
         this.server = server;
+        this.classpathSnapshot = new ClasspathSnapshot(forkOptions.getClasspath());
     }
 
     @Override
     public <T extends CompileSpec> CompileResult execute(Compiler<T> compiler, T spec) {
         // currently we just allow a single compilation thread at a time (per compiler daemon)
         // one problem to solve when allowing multiple threads is how to deal with memory requirements specified by compile tasks
+        Clock clock = new Clock();
+        CompileResult result;
         try {
             server.execute(compiler, spec);
-            return compileResults.take();
+            result = compileResults.take();
         } catch (InterruptedException e) {
             throw UncheckedException.throwAsUncheckedException(e);
         }
+        long compileTime = clock.getTimeInMs();
+        if (compileCount == 0) {
+            firstCompileTime = compileTime;
+        }
+        compileCount++;
+        totalCompileTime += compileTime;
+        heapUsage = result.getMaxHeap() <= 0 ? 0 : (double) result.getUsedHeap() / result.getMaxHeap();
+        return result;
+    }
+
+    /**
+     * Returns true if this daemon can run compilations that require the given working directory and fork options, for a build that logs at the given level. The log level
+     * of a daemon is fixed when it starts. A daemon is not compatible once any file in its classpath has changed, as it may already have loaded the old content.
+     */
+    public boolean isCompatibleWith(File workingDir, DaemonForkOptions required, LogLevel logLevel) {
+        return this.workingDir.equals(workingDir) && this.logLevel == logLevel && forkOptions.isCompatibleWith(required) && !classpathSnapshot.hasChanged();
+    }
+
+    /**
+     * Returns the fraction of the maximum heap that was in use after the most recent garbage collection, as reported by the most recent compilation.
+     */
+    public double getHeapUsage() {
+        return heapUsage;
+    }
+
+    public long getIdleSince() {
+        return idleSince;
+    }
+
+    public void setIdleSince(long idleSince) {
+        this.idleSince = idleSince;
+    }
+
+    public void setStartupTime(long startupTime) {
+        this.startupTime = startupTime;
     }
 
-    public boolean isCompatibleWith(DaemonForkOptions required) {
-        return forkOptions.isCompatibleWith(required);
+    public void reused() {
+        reuseCount++;
+    }
+
+    public String getStatistics() {
+        long averageWarmCompileTime = compileCount > 1 ? (totalCompileTime - firstCompileTime) / (compileCount - 1) : 0;
+        return String.format("started in %s, reused %d time(s), ran %d compilation(s), first compilation took %s, later compilations took %s on average",
+                Clock.prettyTime(startupTime), reuseCount, compileCount, Clock.prettyTime(firstCompileTime), Clock.prettyTime(averageWarmCompileTime));
     }
 
     @Override
@@ -66,4 +127,33 @@ class CompilerDaemonClient implements CompilerDaemon, CompilerDaemonClientProtoc
             throw UncheckedException.throwAsUncheckedException(e);
         }
     }
+
+    @Override
+    public String toString() {
+        return workerProcess.toString();
+    }
+
+    private static class ClasspathSnapshot {
+        private final List<File> files = new ArrayList<File>();
+        private final List<Long> lengths = new ArrayList<Long>();
+        private final List<Long> lastModified = new ArrayList<Long>();
+
+        ClasspathSnapshot(Iterable<File> classpath) {
+            for (File file : classpath) {
+                files.add(file);
+                lengths.add(file.length());
+                lastModified.add(file.lastModified());
+            }
+        }
+
+        boolean hasChanged() {
+            for (int i = 0; i < files.size(); i++) {
+                File file = files.get(i);
+                if (file.length() != lengths.get(i) || file.lastModified() != lastModified.get(i)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
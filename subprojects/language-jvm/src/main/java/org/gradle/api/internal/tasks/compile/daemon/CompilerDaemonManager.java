@@ -22,24 +22,32 @@ import org.gradle.language.base.internal.compile.CompileSpec;
 import java.io.File;
 
 /**
- * Controls the lifecycle of the compiler daemon and provides access to it.
+ * Provides access to the compiler daemons for a build session. The daemons themselves are owned by a {@link CompilerClientsManager}, which is either shared with later build
+ * sessions or owned by this manager and stopped with it.
  */
 @ThreadSafe
 public class CompilerDaemonManager implements CompilerDaemonFactory, Stoppable {
 
-    private CompilerClientsManager clientsManager;
+    private final CompilerClientsManager clientsManager;
+    private final CompilerDaemonStarter compilerDaemonStarter;
+    private final boolean stopClientsManager;
 
-    public CompilerDaemonManager(CompilerClientsManager clientsManager) {
+    /**
+     * @param stopClientsManager whether to stop the clients manager, and so its compiler daemons, when this manager is stopped at the end of the build session.
+     */
+    public CompilerDaemonManager(CompilerClientsManager clientsManager, CompilerDaemonStarter compilerDaemonStarter, boolean stopClientsManager) {
         this.clientsManager = clientsManager;
+        this.compilerDaemonStarter = compilerDaemonStarter;
+        this.stopClientsManager = stopClientsManager;
     }
 
     @Override
     public CompilerDaemon getDaemon(final File workingDir, final DaemonForkOptions forkOptions) {
         return new CompilerDaemon() {
             public <T extends CompileSpec> CompileResult execute(org.gradle.language.base.internal.compile.Compiler<T> compiler, T spec) {
-                CompilerDaemonClient client = clientsManager.reserveIdleClient(forkOptions);
+                CompilerDaemonClient client = clientsManager.reserveIdleClient(workingDir, forkOptions, compilerDaemonStarter.getLogLevel());
                 if (client == null) {
-                    client = clientsManager.reserveNewClient(workingDir, forkOptions);
+                    client = clientsManager.reserveNewClient(compilerDaemonStarter, workingDir, forkOptions);
                 }
                 try {
                     return client.execute(compiler, spec);
@@ -52,6 +60,8 @@ public class CompilerDaemonManager implements CompilerDaemonFactory, Stoppable {
 
     @Override
     public void stop() {
-        clientsManager.stop();
+        if (stopClientsManager) {
+            clientsManager.stop();
+        }
     }
 }
@@ -25,6 +25,10 @@ import org.gradle.internal.UncheckedException;
 import org.gradle.process.internal.WorkerProcessContext;
 
 import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.util.concurrent.CountDownLatch;
 
 
@@ -54,13 +58,27 @@ public class CompilerDaemonServer implements Action<WorkerProcessContext>, Compi
             LOGGER.info("Executing {} in compiler daemon.", compiler);
             WorkResult result = compiler.execute(spec);
             LOGGER.info("Successfully executed {} in compiler daemon.", compiler);
-            client.executed(new CompileResult(result.getDidWork(), null));
+            client.executed(new CompileResult(result.getDidWork(), null, getHeapUsedAfterLastCollection(), Runtime.getRuntime().maxMemory()));
         } catch (Throwable t) {
             LOGGER.info("Exception executing {} in compiler daemon: {}.", compiler, t);
-            client.executed(new CompileResult(true, t));
+            client.executed(new CompileResult(true, t, getHeapUsedAfterLastCollection(), Runtime.getRuntime().maxMemory()));
         }
     }
 
+    /**
+     * Returns the heap that was still in use after the most recent garbage collection, which is a better measure of how much this daemon retains between compilations than the current usage.
+     */
+    private long getHeapUsedAfterLastCollection() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && usage != null) {
+                used += usage.getUsed();
+            }
+        }
+        return used;
+    }
+
     @Override
     public void stop() {
         stop.countDown();
@@ -16,9 +16,11 @@
 package org.gradle.api.internal.tasks.compile.daemon;
 
 import org.gradle.StartParameter;
+import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.Factory;
+import org.gradle.messaging.remote.MessagingServer;
 import org.gradle.process.internal.JavaExecHandleBuilder;
 import org.gradle.process.internal.WorkerProcess;
 import org.gradle.process.internal.WorkerProcessBuilder;
@@ -36,11 +38,22 @@ public class CompilerDaemonStarter {
         this.startParameter = startParameter;
     }
 
-    public CompilerDaemonClient startDaemon(File workingDir, DaemonForkOptions forkOptions) {
+    /**
+     * Returns the log level that compiler daemons started by this starter use.
+     */
+    public LogLevel getLogLevel() {
+        return startParameter.getLogLevel();
+    }
+
+    /**
+     * Starts a compiler daemon, connected through the given server.
+     */
+    public CompilerDaemonClient startDaemon(File workingDir, DaemonForkOptions forkOptions, MessagingServer messagingServer) {
         LOG.debug("Starting Gradle compiler daemon with fork options {}.", forkOptions);
         Clock clock = new Clock();
         WorkerProcessBuilder builder = workerFactory.create();
-        builder.setLogLevel(startParameter.getLogLevel()); // NOTE: might make sense to respect per-compile-task log level
+        LogLevel logLevel = getLogLevel();
+        builder.setLogLevel(logLevel); // NOTE: might make sense to respect per-compile-task log level
         builder.applicationClasspath(forkOptions.getClasspath());
         builder.sharedPackages(forkOptions.getSharedPackages());
         builder.setLoadApplicationInSystemClassLoader(true);
@@ -49,13 +62,14 @@ public class CompilerDaemonStarter {
         javaCommand.setMaxHeapSize(forkOptions.getMaxHeapSize());
         javaCommand.setJvmArgs(forkOptions.getJvmArgs());
         javaCommand.setWorkingDir(workingDir);
-        WorkerProcess process = builder.worker(new CompilerDaemonServer()).setBaseName("Gradle Compiler Daemon").build();
+        WorkerProcess process = builder.worker(new CompilerDaemonServer()).setBaseName("Gradle Compiler Daemon").build(messagingServer);
         process.start();
 
         CompilerDaemonServerProtocol server = process.getConnection().addOutgoing(CompilerDaemonServerProtocol.class);
-        CompilerDaemonClient client = new CompilerDaemonClient(forkOptions, process, server);
+        CompilerDaemonClient client = new CompilerDaemonClient(workingDir, forkOptions, logLevel, process, server);
         process.getConnection().addIncoming(CompilerDaemonClientProtocol.class, client);
         process.getConnection().connect();
+        client.setStartupTime(clock.getTimeInMs());
 
         LOG.info("Started Gradle compiler daemon ({}) with fork options {}.", clock.getTime(), forkOptions);
 
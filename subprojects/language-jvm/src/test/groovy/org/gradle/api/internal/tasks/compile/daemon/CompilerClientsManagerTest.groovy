@@ -16,6 +16,12 @@
 
 package org.gradle.api.internal.tasks.compile.daemon
 
+import org.gradle.api.logging.LogLevel
+import org.gradle.internal.TimeProvider
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.StoppableExecutor
+import org.gradle.messaging.remote.MessagingServer
 import org.gradle.util.ConcurrentSpecification
 import spock.lang.Subject
 
@@ -25,39 +31,63 @@ class CompilerClientsManagerTest extends ConcurrentSpecification {
 
     def options = Stub(DaemonForkOptions)
     def starter = Stub(CompilerDaemonStarter)
+    def server = Stub(MessagingServer)
+    def executorFactory = new DefaultExecutorFactory()
+    def timeProvider = Stub(TimeProvider)
 
-    @Subject manager = new CompilerClientsManager(starter)
+    @Subject manager = new CompilerClientsManager(executorFactory, server, timeProvider, 60000, 0.5)
+
+    def cleanup() {
+        manager.stop()
+        executorFactory.stop()
+    }
 
     def "does not reserve idle client when no clients"() {
         expect:
-        manager.reserveIdleClient(options) == null
+        manager.reserveIdleClient(workingDir, options, LogLevel.LIFECYCLE) == null
     }
 
     def "does not reserve idle client when no matching client found"() {
         def noMatch = Stub(CompilerDaemonClient) {
-            isCompatibleWith(_) >> false
+            isCompatibleWith(_, _, _) >> false
         }
 
         expect:
-        manager.reserveIdleClient(options, [noMatch]) == null
+        manager.reserveIdleClient(workingDir, options, LogLevel.LIFECYCLE, [noMatch]) == null
     }
 
     def "reserves idle client when match found"() {
-        def noMatch = Stub(CompilerDaemonClient) { isCompatibleWith(_) >> false }
-        def match = Stub(CompilerDaemonClient) { isCompatibleWith(_) >> true }
+        def noMatch = Stub(CompilerDaemonClient) { isCompatibleWith(_, _, _) >> false }
+        def match = Stub(CompilerDaemonClient) { isCompatibleWith(_, _, _) >> true }
         def input = [noMatch, match]
 
         expect:
-        manager.reserveIdleClient(options, input) == match
+        manager.reserveIdleClient(workingDir, options, LogLevel.LIFECYCLE, input) == match
         input == [noMatch] //match removed from input
     }
 
-    def "reserves new client"() {
+    def "does not reserve idle client that logs at a different level"() {
+        def client = Stub(CompilerDaemonClient) {
+            isCompatibleWith(workingDir, options, LogLevel.LIFECYCLE) >> true
+            isCompatibleWith(workingDir, options, LogLevel.DEBUG) >> false
+        }
+        starter.startDaemon(workingDir, options, server) >> client
+
+        when:
+        manager.reserveNewClient(starter, workingDir, options)
+        manager.release(client)
+
+        then:
+        manager.reserveIdleClient(workingDir, options, LogLevel.DEBUG) == null
+        manager.reserveIdleClient(workingDir, options, LogLevel.LIFECYCLE) == client
+    }
+
+    def "reserves new client connected through the messaging server"() {
         def newClient = Stub(CompilerDaemonClient)
-        starter.startDaemon(workingDir, options) >> newClient
+        starter.startDaemon(workingDir, options, server) >> newClient
 
         when:
-        def client = manager.reserveNewClient(workingDir, options)
+        def client = manager.reserveNewClient(starter, workingDir, options)
 
         then:
         newClient == client
@@ -66,11 +96,11 @@ class CompilerClientsManagerTest extends ConcurrentSpecification {
     def "can stop all created clients"() {
         def client1 = Mock(CompilerDaemonClient)
         def client2 = Mock(CompilerDaemonClient)
-        starter.startDaemon(workingDir, options) >>> [client1, client2]
+        starter.startDaemon(workingDir, options, server) >>> [client1, client2]
 
         when:
-        manager.reserveNewClient(workingDir, options)
-        manager.reserveNewClient(workingDir, options)
+        manager.reserveNewClient(starter, workingDir, options)
+        manager.reserveNewClient(starter, workingDir, options)
         manager.stop()
 
         then:
@@ -79,19 +109,78 @@ class CompilerClientsManagerTest extends ConcurrentSpecification {
     }
 
     def "clients can be released for further use"() {
-        def client = Mock(CompilerDaemonClient) { isCompatibleWith(_) >> true }
-        starter.startDaemon(workingDir, options) >> client
+        def client = Mock(CompilerDaemonClient) { isCompatibleWith(_, _, _) >> true }
+        starter.startDaemon(workingDir, options, server) >> client
 
         when:
-        manager.reserveNewClient(workingDir, options)
+        manager.reserveNewClient(starter, workingDir, options)
 
         then:
-        manager.reserveIdleClient(options) == null
+        manager.reserveIdleClient(workingDir, options, LogLevel.LIFECYCLE) == null
+
+        when:
+        manager.release(client)
+
+        then:
+        manager.reserveIdleClient(workingDir, options, LogLevel.LIFECYCLE) == client
+    }
+
+    def "stops client instead of releasing it when too much of its heap is in use"() {
+        def client = Mock(CompilerDaemonClient) {
+            isCompatibleWith(_, _, _) >> true
+            getHeapUsage() >> 0.9
+        }
+        starter.startDaemon(workingDir, options, server) >> client
 
         when:
+        manager.reserveNewClient(starter, workingDir, options)
         manager.release(client)
 
         then:
-        manager.reserveIdleClient(options) == client
+        1 * client.stop()
+
+        and:
+        manager.reserveIdleClient(workingDir, options, LogLevel.LIFECYCLE) == null
+    }
+
+    def "stops clients that have been idle for longer than the idle timeout"() {
+        def now = 1000L
+        def timeProvider = Stub(TimeProvider) {
+            getCurrentTime() >> { now }
+        }
+        // Expire clients only when the test asks for it
+        def executorFactory = Stub(ExecutorFactory) {
+            create(_) >> Stub(StoppableExecutor)
+        }
+        def manager = new CompilerClientsManager(executorFactory, server, timeProvider, 60000, 0.5)
+        def client = Mock(CompilerDaemonClient) {
+            isCompatibleWith(_, _, _) >> true
+        }
+        starter.startDaemon(workingDir, options, server) >> client
+
+        when:
+        manager.reserveNewClient(starter, workingDir, options)
+        manager.release(client)
+        now = 60999L
+        manager.stopExpiredClients()
+
+        then:
+        1 * client.setIdleSince(1000)
+        _ * client.getIdleSince() >> 1000
+        0 * client.stop()
+
+        when:
+        now = 61000L
+        manager.stopExpiredClients()
+
+        then:
+        _ * client.getIdleSince() >> 1000
+        1 * client.stop()
+
+        and:
+        manager.reserveIdleClient(workingDir, options, LogLevel.LIFECYCLE) == null
+
+        cleanup:
+        manager.stop()
     }
 }
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.compile.daemon
 
+import org.gradle.api.logging.LogLevel
 import org.gradle.language.base.internal.compile.CompileSpec
 import org.gradle.language.base.internal.compile.Compiler
 import spock.lang.Specification
@@ -24,9 +25,12 @@ import spock.lang.Subject
 class CompilerDaemonManagerTest extends Specification {
 
     def clientsManager = Mock(CompilerClientsManager)
+    def starter = Stub(CompilerDaemonStarter) {
+        getLogLevel() >> LogLevel.INFO
+    }
     def client = Mock(CompilerDaemonClient)
 
-    @Subject manager = new CompilerDaemonManager(clientsManager)
+    @Subject manager = new CompilerDaemonManager(clientsManager, starter, true)
 
     def workingDir = new File("some-dir")
     def compiler = Stub(Compiler)
@@ -46,10 +50,10 @@ class CompilerDaemonManagerTest extends Specification {
         manager.getDaemon(workingDir, options).execute(compiler, compileSpec)
 
         then:
-        1 * clientsManager.reserveIdleClient(options) >> null
+        1 * clientsManager.reserveIdleClient(workingDir, options, LogLevel.INFO) >> null
 
         then:
-        1 * clientsManager.reserveNewClient(workingDir, options) >> client
+        1 * clientsManager.reserveNewClient(starter, workingDir, options) >> client
 
         then:
         1 * client.execute(compiler, compileSpec)
@@ -64,7 +68,7 @@ class CompilerDaemonManagerTest extends Specification {
         manager.getDaemon(workingDir, options).execute(compiler, compileSpec)
 
         then:
-        1 * clientsManager.reserveIdleClient(options) >> client
+        1 * clientsManager.reserveIdleClient(workingDir, options, LogLevel.INFO) >> client
 
         then:
         1 * client.execute(compiler, compileSpec)
@@ -79,7 +83,7 @@ class CompilerDaemonManagerTest extends Specification {
         manager.getDaemon(workingDir, options).execute(compiler, compileSpec)
 
         then:
-        1 * clientsManager.reserveIdleClient(options) >> client
+        1 * clientsManager.reserveIdleClient(workingDir, options, LogLevel.INFO) >> client
 
         then:
         1 * client.execute(compiler, compileSpec) >> { throw new RuntimeException("Boo!") }
@@ -90,11 +94,21 @@ class CompilerDaemonManagerTest extends Specification {
         0 * _._
     }
 
-    def "stops clients"() {
+    def "stops the clients manager when it owns it"() {
         when:
         manager.stop()
 
         then:
-        clientsManager.stop()
+        1 * clientsManager.stop()
+    }
+
+    def "leaves a shared clients manager running when stopped"() {
+        def manager = new CompilerDaemonManager(clientsManager, starter, false)
+
+        when:
+        manager.stop()
+
+        then:
+        0 * clientsManager._
     }
 }
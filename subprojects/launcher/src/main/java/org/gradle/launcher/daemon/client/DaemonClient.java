@@ -35,6 +35,7 @@ import org.gradle.launcher.daemon.protocol.*;
 import org.gradle.launcher.daemon.server.api.DaemonStoppedException;
 import org.gradle.launcher.exec.BuildActionExecuter;
 import org.gradle.launcher.exec.BuildActionParameters;
+import org.gradle.logging.internal.OutputEvent;
 import org.gradle.logging.internal.OutputEventListener;
 import org.gradle.messaging.remote.internal.Connection;
 
@@ -189,6 +190,7 @@ public class DaemonClient implements BuildActionExecuter<BuildActionParameters>
             cancelForwarder.start();
             inputForwarder.start();
             int objectsReceived = 0;
+            int outputEventsReceived = 0;
 
             while (true) {
                 Message object = connection.receive();
@@ -197,10 +199,17 @@ public class DaemonClient implements BuildActionExecuter<BuildActionParameters>
                 if (object == null) {
                     return handleDaemonDisappearance(build, diagnostics);
                 } else if (object instanceof OutputMessage) {
+                    outputEventsReceived++;
                     outputEventListener.onOutput(((OutputMessage) object).getEvent());
+                } else if (object instanceof OutputMessageBatch) {
+                    for (OutputEvent event : ((OutputMessageBatch) object).getEvents()) {
+                        outputEventsReceived++;
+                        outputEventListener.onOutput(event);
+                    }
                 } else if (object instanceof BuildEvent) {
                     buildEventConsumer.dispatch(((BuildEvent)object).getPayload());
                 } else {
+                    LOGGER.debug("Received {} messages from the daemon, containing {} output events.", objectsReceived, outputEventsReceived);
                     return object;
                 }
             }
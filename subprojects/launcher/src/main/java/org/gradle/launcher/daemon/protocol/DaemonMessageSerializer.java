@@ -22,6 +22,7 @@ import org.gradle.internal.serialize.*;
 import org.gradle.logging.StyledTextOutput;
 import org.gradle.logging.internal.*;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class DaemonMessageSerializer {
@@ -46,7 +47,9 @@ public class DaemonMessageSerializer {
         outputEventRegistry.register(ProgressCompleteEvent.class, new ProgressCompleteEventSerializer());
         outputEventRegistry.register(ProgressEvent.class, new ProgressEventSerializer());
         outputEventRegistry.register(LogLevelChangeEvent.class, new LogLevelChangeEventSerializer(logLevelSerializer));
-        registry.register(OutputMessage.class, new OutputMessageSerializer(outputEventRegistry.build()));
+        Serializer<OutputEvent> outputEventSerializer = outputEventRegistry.build();
+        registry.register(OutputMessage.class, new OutputMessageSerializer(outputEventSerializer));
+        registry.register(OutputMessageBatch.class, new OutputMessageBatchSerializer(outputEventSerializer));
 
         // Default for everything else
         registry.useJavaSerialization(Message.class);
@@ -292,4 +295,30 @@ public class DaemonMessageSerializer {
             return new OutputMessage(eventSerializer.read(decoder));
         }
     }
+
+    private static class OutputMessageBatchSerializer implements Serializer<OutputMessageBatch> {
+        private final Serializer<OutputEvent> eventSerializer;
+
+        public OutputMessageBatchSerializer(Serializer<OutputEvent> eventSerializer) {
+            this.eventSerializer = eventSerializer;
+        }
+
+        @Override
+        public void write(Encoder encoder, OutputMessageBatch message) throws Exception {
+            encoder.writeSmallInt(message.getEvents().size());
+            for (OutputEvent event : message.getEvents()) {
+                eventSerializer.write(encoder, event);
+            }
+        }
+
+        @Override
+        public OutputMessageBatch read(Decoder decoder) throws Exception {
+            int count = decoder.readSmallInt();
+            List<OutputEvent> events = new ArrayList<OutputEvent>(count);
+            for (int i = 0; i < count; i++) {
+                events.add(eventSerializer.read(decoder));
+            }
+            return new OutputMessageBatch(events);
+        }
+    }
 }
@@ -29,7 +29,9 @@ import org.gradle.messaging.remote.internal.Connection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -45,6 +47,7 @@ public class DefaultDaemonConnection implements DaemonConnection {
     private final DisconnectQueue disconnectQueue;
     private final CancelQueue cancelQueue;
     private final ReceiveQueue receiveQueue;
+    private final OutputQueue outputQueue;
 
     public DefaultDaemonConnection(final Connection<Message> connection, ExecutorFactory executorFactory) {
         this.connection = connection;
@@ -52,6 +55,7 @@ public class DefaultDaemonConnection implements DaemonConnection {
         disconnectQueue = new DisconnectQueue();
         cancelQueue = new CancelQueue(executorFactory);
         receiveQueue = new ReceiveQueue();
+        outputQueue = new OutputQueue(connection, executorFactory);
         executor = executorFactory.create("Handler for " + connection.toString());
         executor.execute(new Runnable() {
             public void run() {
@@ -109,33 +113,38 @@ public class DefaultDaemonConnection implements DaemonConnection {
     }
 
     public void daemonUnavailable(DaemonUnavailable unavailable) {
+        outputQueue.flush();
         connection.dispatch(unavailable);
     }
 
     public void buildStarted(BuildStarted buildStarted) {
+        outputQueue.flush();
         connection.dispatch(buildStarted);
     }
 
     public void logEvent(OutputEvent logEvent) {
-        connection.dispatch(new OutputMessage(logEvent));
+        outputQueue.add(logEvent);
     }
 
     @Override
     public void event(Object event) {
+        outputQueue.flush();
         connection.dispatch(new BuildEvent(event));
     }
 
     public void completed(Result result) {
+        outputQueue.flush();
         connection.dispatch(result);
     }
 
     public void stop() {
         // 1. Stop handling disconnects. Blocks until the handler has finished.
-        // 2. Stop the connection. This means that the thread receiving from the connection will receive a null and finish up.
-        // 3. Stop receiving incoming messages. Blocks until the receive thread has finished. This will notify the stdin and receive queues to signal end of input.
-        // 4. Stop the receive queue, to unblock any threads blocked in receive().
-        // 5. Stop handling stdin. Blocks until the handler has finished. Discards any queued input.
-        CompositeStoppable.stoppable(disconnectQueue, connection, executor, receiveQueue, stdinQueue, cancelQueue).stop();
+        // 2. Stop forwarding output. Blocks until any queued output has been dispatched.
+        // 3. Stop the connection. This means that the thread receiving from the connection will receive a null and finish up.
+        // 4. Stop receiving incoming messages. Blocks until the receive thread has finished. This will notify the stdin and receive queues to signal end of input.
+        // 5. Stop the receive queue, to unblock any threads blocked in receive().
+        // 6. Stop handling stdin. Blocks until the handler has finished. Discards any queued input.
+        CompositeStoppable.stoppable(disconnectQueue, outputQueue, connection, executor, receiveQueue, stdinQueue, cancelQueue).stop();
     }
 
     private static abstract class CommandQueue<C extends Message, H> implements Stoppable {
@@ -392,6 +401,140 @@ public class DefaultDaemonConnection implements DaemonConnection {
         }
     }
 
+    /**
+     * Forwards output events to the client from a worker thread, so that the build does not block while the client reads its output. Any events that are
+     * queued while a message is being dispatched are sent together as a single {@link OutputMessageBatch}.
+     */
+    private static class OutputQueue implements Stoppable {
+        private static final int MAX_QUEUED_EVENTS = 1000;
+        private final Lock lock = new ReentrantLock();
+        private final Condition condition = lock.newCondition();
+        private final Connection<Message> connection;
+        private final ExecutorFactory executorFactory;
+        private List<OutputEvent> queue = new ArrayList<OutputEvent>();
+        private StoppableExecutor executor;
+        private boolean stopped;
+        private boolean failed;
+        // The number of events that have been queued and dispatched, used to find out when the events queued before a flush have been dispatched
+        private long queuedCount;
+        private long eventCount;
+        private long messageCount;
+
+        private OutputQueue(Connection<Message> connection, ExecutorFactory executorFactory) {
+            this.connection = connection;
+            this.executorFactory = executorFactory;
+        }
+
+        public void add(OutputEvent event) {
+            lock.lock();
+            try {
+                while (!stopped && !failed && queue.size() >= MAX_QUEUED_EVENTS) {
+                    // Apply back pressure when the client does not keep up
+                    await();
+                }
+                if (stopped || failed) {
+                    // Discard. The client has disconnected, so there is no point sending it any output
+                    return;
+                }
+                queue.add(event);
+                queuedCount++;
+                if (executor == null) {
+                    executor = executorFactory.create("Output forwarder for " + connection);
+                    executor.execute(new Runnable() {
+                        public void run() {
+                            forwardOutput();
+                        }
+                    });
+                }
+                condition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Blocks until the output queued before this method was called has been dispatched. Does not wait for output queued by other threads in the
+         * meantime, so that a steady stream of output cannot hold up the caller.
+         */
+        public void flush() {
+            lock.lock();
+            try {
+                long flushCount = queuedCount;
+                while (!failed && eventCount < flushCount) {
+                    await();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void forwardOutput() {
+            while (true) {
+                List<OutputEvent> events;
+                lock.lock();
+                try {
+                    while (!stopped && queue.isEmpty()) {
+                        await();
+                    }
+                    if (queue.isEmpty()) {
+                        return;
+                    }
+                    events = queue;
+                    queue = new ArrayList<OutputEvent>();
+                    condition.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+
+                boolean dispatched = false;
+                try {
+                    connection.dispatch(events.size() == 1 ? new OutputMessage(events.get(0)) : new OutputMessageBatch(events));
+                    dispatched = true;
+                } catch (Exception e) {
+                    LOGGER.debug("Could not forward output to client.", e);
+                } finally {
+                    lock.lock();
+                    try {
+                        if (dispatched) {
+                            eventCount += events.size();
+                            messageCount++;
+                        } else {
+                            failed = true;
+                            queue.clear();
+                        }
+                        condition.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        }
+
+        private void await() {
+            try {
+                condition.await();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        public void stop() {
+            StoppableExecutor executor;
+            lock.lock();
+            try {
+                stopped = true;
+                condition.signalAll();
+                executor = this.executor;
+            } finally {
+                lock.unlock();
+            }
+            if (executor != null) {
+                executor.stop();
+                LOGGER.debug("Forwarded {} output events to client in {} messages.", eventCount, messageCount);
+            }
+        }
+    }
+
     private static class ReceiveQueue implements Stoppable {
         private static final Object END = new Object();
         private final BlockingQueue<Object> queue = new LinkedBlockingQueue<Object>();
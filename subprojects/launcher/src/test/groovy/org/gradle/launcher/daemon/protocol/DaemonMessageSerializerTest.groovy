@@ -133,6 +133,21 @@ class DaemonMessageSerializerTest extends SerializerSpec {
         result.status == "status"
     }
 
+    def "can serialize OutputMessageBatch messages"() {
+        expect:
+        def message = new OutputMessageBatch([
+                new LogLevelChangeEvent(LogLevel.LIFECYCLE),
+                new ProgressEvent(new OperationIdentifier(1234L), 321L, "category", "status")])
+        def result = usesEfficientSerialization(message, serializer)
+        result instanceof OutputMessageBatch
+        result.events.size() == 2
+        result.events[0] instanceof LogLevelChangeEvent
+        result.events[0].newLogLevel == LogLevel.LIFECYCLE
+        result.events[1] instanceof ProgressEvent
+        result.events[1].operationId == new OperationIdentifier(1234L)
+        result.events[1].status == "status"
+    }
+
     def "can serialize Failure messages"() {
         expect:
         def failure = new RuntimeException()
@@ -16,12 +16,19 @@
 
 package org.gradle.launcher.daemon.server
 
+import org.gradle.api.logging.LogLevel
 import org.gradle.launcher.daemon.protocol.CloseInput
 import org.gradle.launcher.daemon.protocol.ForwardInput
+import org.gradle.launcher.daemon.protocol.OutputMessage
+import org.gradle.launcher.daemon.protocol.OutputMessageBatch
+import org.gradle.launcher.daemon.protocol.Success
 import org.gradle.launcher.daemon.server.api.StdinHandler
+import org.gradle.logging.internal.LogLevelChangeEvent
 import org.gradle.messaging.remote.internal.Connection
+import org.gradle.test.fixtures.ConcurrentTestUtil
 import org.gradle.util.ConcurrentSpecification
 
+import java.util.concurrent.CopyOnWriteArrayList
 import java.util.concurrent.CountDownLatch
 import java.util.concurrent.TimeUnit
 
@@ -346,15 +353,93 @@ class DefaultDaemonConnectionTest extends ConcurrentSpecification {
         result == ["incoming1", "incoming2"]
     }
 
+    def "forwards output events to client in order before the result"() {
+        def events = (1..20).collect { new LogLevelChangeEvent(LogLevel.INFO) }
+        def result = new Success("result")
+
+        when:
+        events.each { daemonConnection.logEvent(it) }
+        daemonConnection.completed(result)
+
+        then:
+        connection.dispatchedEvents() == events + [result]
+    }
+
+    def "completed does not wait for output queued after it was called"() {
+        def event1 = new LogLevelChangeEvent(LogLevel.INFO)
+        def event2 = new LogLevelChangeEvent(LogLevel.INFO)
+        def result = new Success("result")
+        def release1 = new CountDownLatch(1)
+        def release2 = new CountDownLatch(1)
+        connection.onDispatch = { message ->
+            if (message instanceof OutputMessage && message.event == event1) {
+                release1.await()
+            } else if (message instanceof OutputMessage && message.event == event2) {
+                release2.await()
+            }
+        }
+
+        when:
+        daemonConnection.logEvent(event1)
+        def completer = new Thread({ daemonConnection.completed(result) })
+        completer.start()
+        ConcurrentTestUtil.poll { assert completer.state == Thread.State.WAITING }
+        daemonConnection.logEvent(event2)
+        release1.countDown()
+        completer.join(20000)
+        def dispatchedBeforeRelease = connection.dispatchedEvents()
+        release2.countDown()
+
+        then:
+        !completer.alive
+        dispatchedBeforeRelease == [event1, result]
+    }
+
+    def "does not wait for output when it cannot be dispatched to client"() {
+        def event1 = new LogLevelChangeEvent(LogLevel.INFO)
+        def event2 = new LogLevelChangeEvent(LogLevel.INFO)
+        def result = new Success("result")
+        connection.onDispatch = { message ->
+            if (message instanceof OutputMessage || message instanceof OutputMessageBatch) {
+                throw new RuntimeException("broken")
+            }
+        }
+
+        when:
+        daemonConnection.logEvent(event1)
+        daemonConnection.completed(result)
+        daemonConnection.logEvent(event2)
+        daemonConnection.completed(result)
+
+        then:
+        connection.dispatchedEvents() == [result, result]
+    }
+
     static class TestConnection implements Connection<Object> {
         final Object lock = new Object()
         final Object endInput = new Object()
         final LinkedList<Object> receiveQueue = new LinkedList<Object>()
+        final List<Object> dispatched = new CopyOnWriteArrayList<Object>()
+        Closure onDispatch = {}
 
         void requestStop() {
         }
 
         void dispatch(Object message) {
+            onDispatch.call(message)
+            dispatched << message
+        }
+
+        List<Object> dispatchedEvents() {
+            return dispatched.collectMany { message ->
+                if (message instanceof OutputMessage) {
+                    return [message.event]
+                }
+                if (message instanceof OutputMessageBatch) {
+                    return message.events
+                }
+                return [message]
+            }
         }
 
         void queueIncoming(Object message) {
@@ -38,19 +38,19 @@ public class BroadcastDispatch<T> extends AbstractBroadcastDispatch<T> {
         return type;
     }
 
-    public boolean isEmpty() {
+    public synchronized boolean isEmpty() {
         return handlers.isEmpty();
     }
 
-    public void add(Dispatch<MethodInvocation> dispatch) {
+    public synchronized void add(Dispatch<MethodInvocation> dispatch) {
         handlers.put(dispatch, dispatch);
     }
 
-    public void add(T listener) {
+    public synchronized void add(T listener) {
         handlers.put(listener, new ReflectionDispatch(listener));
     }
 
-    public void add(String methodName, Action<?> action) {
+    public synchronized void add(String methodName, Action<?> action) {
         assertIsMethod(methodName);
         handlers.put(action, new ActionInvocationHandler(methodName, action));
     }
@@ -65,17 +65,20 @@ public class BroadcastDispatch<T> extends AbstractBroadcastDispatch<T> {
                 type.getSimpleName()));
     }
 
-    public void remove(Object listener) {
+    public synchronized void remove(Object listener) {
         handlers.remove(listener);
     }
 
-    public void removeAll() {
+    public synchronized void removeAll() {
         handlers.clear();
     }
 
     @Override
     public void dispatch(MethodInvocation message) {
-        Iterator<Dispatch<MethodInvocation>> iterator = new ArrayList<Dispatch<MethodInvocation>>(handlers.values()).iterator();
+        Iterator<Dispatch<MethodInvocation>> iterator;
+        synchronized (this) {
+            iterator = new ArrayList<Dispatch<MethodInvocation>>(handlers.values()).iterator();
+        }
         dispatch(message, iterator);
     }
 
@@ -37,6 +37,7 @@ import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class SocketConnection<T> implements RemoteConnection<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(SocketConnection.class);
@@ -45,8 +46,10 @@ public class SocketConnection<T> implements RemoteConnection<T> {
     private final SocketInetAddress remoteAddress;
     private final ObjectWriter<T> objectWriter;
     private final ObjectReader<T> objectReader;
-    private final InputStream instr;
-    private final OutputStream outstr;
+    private final SocketInputStream instr;
+    private final SocketOutputStream outstr;
+    private final AtomicLong messagesReceived = new AtomicLong();
+    private final AtomicLong messagesSent = new AtomicLong();
 
     public SocketConnection(SocketChannel socket, MessageSerializer<T> serializer) {
         this.socket = socket;
@@ -74,7 +77,9 @@ public class SocketConnection<T> implements RemoteConnection<T> {
 
     public T receive() throws MessageIOException {
         try {
-            return objectReader.read();
+            T message = objectReader.read();
+            messagesReceived.incrementAndGet();
+            return message;
         } catch (EOFException e) {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Discarding EOFException: {}", e.toString());
@@ -107,6 +112,7 @@ public class SocketConnection<T> implements RemoteConnection<T> {
         try {
             objectWriter.write(message);
             outstr.flush();
+            messagesSent.incrementAndGet();
         } catch (Exception e) {
             throw new MessageIOException(String.format("Could not write message %s to '%s'.", message, remoteAddress), e);
         }
@@ -117,6 +123,9 @@ public class SocketConnection<T> implements RemoteConnection<T> {
     }
 
     public void stop() {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Closing {}. Sent {} messages ({} bytes), received {} messages ({} bytes).", this, messagesSent.get(), outstr.bytesWritten, messagesReceived.get(), instr.bytesRead);
+        }
         CompositeStoppable.stoppable(instr, outstr, socket).stop();
     }
 
@@ -125,12 +134,13 @@ public class SocketConnection<T> implements RemoteConnection<T> {
         private final ByteBuffer buffer;
         private final SocketChannel socket;
         private final byte[] readBuffer = new byte[1];
+        private volatile long bytesRead;
 
         public SocketInputStream(SocketChannel socket) throws IOException {
             this.socket = socket;
             selector = Selector.open();
             socket.register(selector, SelectionKey.OP_READ);
-            buffer = ByteBuffer.allocateDirect(4096);
+            buffer = ByteBuffer.allocateDirect(32 * 1024);
             buffer.limit(0);
         }
 
@@ -176,6 +186,7 @@ public class SocketConnection<T> implements RemoteConnection<T> {
                 if (nread < 0) {
                     return -1;
                 }
+                bytesRead += nread;
             }
 
             int count = Math.min(buffer.remaining(), max);
@@ -195,6 +206,7 @@ public class SocketConnection<T> implements RemoteConnection<T> {
         private final SocketChannel socket;
         private final ByteBuffer buffer;
         private final byte[] writeBuffer = new byte[1];
+        private volatile long bytesWritten;
 
         public SocketOutputStream(SocketChannel socket) throws IOException {
             this.socket = socket;
@@ -209,6 +221,12 @@ public class SocketConnection<T> implements RemoteConnection<T> {
 
         @Override
         public void write(byte[] src, int offset, int max) throws IOException {
+            bytesWritten += max;
+            if (max > buffer.remaining()) {
+                // Write the buffered bytes and the source in a single gathering write, rather than copying the source through the buffer
+                writeWithBufferToChannel(ByteBuffer.wrap(src, offset, max));
+                return;
+            }
             int remaining = max;
             int currentPos = offset;
             while (remaining > 0) {
@@ -241,6 +259,20 @@ public class SocketConnection<T> implements RemoteConnection<T> {
             buffer.compact();
         }
 
+        private void writeWithBufferToChannel(ByteBuffer src) throws IOException {
+            buffer.flip();
+            ByteBuffer[] buffers = new ByteBuffer[]{buffer, src};
+            while (src.hasRemaining()) {
+                long count = socket.write(buffers);
+                if (count < 0) {
+                    throw new EOFException();
+                } else if (count == 0) {
+                    waitForWriteBufferToDrain();
+                }
+            }
+            buffer.clear();
+        }
+
         private int writeWithNonBlockingRetry() throws IOException {
             int count = 0;
             int retryCount = 0;
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.Factory;
+import org.gradle.internal.TimeProvider;
+import org.gradle.internal.TrueTimeProvider;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.messaging.actor.Actor;
+import org.gradle.messaging.actor.ActorFactory;
+import org.gradle.messaging.dispatch.DispatchException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Manages a set of parallel TestClassProcessors. Test classes are queued longest first, using the durations from a previous run where known, and a processor
+ * is given the next class from the queue each time it finishes one. This keeps every processor busy until the queue is empty, rather than leaving some idle
+ * while others work through a fixed share of slow classes.
+ *
+ * <p>Processors must report the start and completion of each test class as a child of the processor's root test suite.</p>
+ */
+public class BalancedParallelTestClassProcessor implements TestClassProcessor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BalancedParallelTestClassProcessor.class);
+    // Each processor holds a second class, so it can start on it without waiting for a round trip
+    private static final int MAX_CLASSES_PER_PROCESSOR = 2;
+    // When no processor has reported anything for this long, the remaining classes are handed out without waiting. A processor that is stuck, for example
+    // in a test that never returns, would otherwise hold up the queued classes forever. Handing them out only gives up the balancing, so this errs on the long side
+    private static final long DEFAULT_STALL_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+    private final int maxProcessors;
+    private final Factory<TestClassProcessor> factory;
+    private final ActorFactory actorFactory;
+    private final Map<String, Long> previousDurations;
+    private final TimeProvider timeProvider;
+    private final long stallTimeoutMillis;
+    private final Lock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+    private final PriorityQueue<QueuedTestClass> queue = new PriorityQueue<QueuedTestClass>();
+    private final List<ProcessorSlot> slots = new ArrayList<ProcessorSlot>();
+    private final List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
+    private final List<Actor> actors = new ArrayList<Actor>();
+    private TestResultProcessor resultProcessor;
+    private Actor resultProcessorActor;
+    private long queuedCount;
+    private long lastProgress;
+
+    /**
+     * @param previousDurations The duration in milliseconds of each test class in a previous run, keyed by class name.
+     */
+    public BalancedParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> previousDurations) {
+        this(maxProcessors, factory, actorFactory, previousDurations, new TrueTimeProvider(), DEFAULT_STALL_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param minStallTimeoutMillis The minimum time without test progress after which the remaining classes are handed out. This is raised to the longest
+     * previous class duration, as a test class may legitimately run that long without reporting anything.
+     */
+    BalancedParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> previousDurations, TimeProvider timeProvider, long minStallTimeoutMillis) {
+        this.maxProcessors = maxProcessors;
+        this.factory = factory;
+        this.actorFactory = actorFactory;
+        this.previousDurations = previousDurations;
+        this.timeProvider = timeProvider;
+        long stallTimeoutMillis = minStallTimeoutMillis;
+        for (Long duration : previousDurations.values()) {
+            stallTimeoutMillis = Math.max(stallTimeoutMillis, duration);
+        }
+        this.stallTimeoutMillis = stallTimeoutMillis;
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        resultProcessorActor = actorFactory.createActor(resultProcessor);
+        this.resultProcessor = resultProcessorActor.getProxy(TestResultProcessor.class);
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        Long duration = previousDurations.get(testClass.getTestClassName());
+        lock.lock();
+        try {
+            // Classes without a previous duration are new, so nothing is known about them. Start them early rather than risk them running last
+            queue.add(new QueuedTestClass(testClass, duration == null ? Long.MAX_VALUE : duration, queuedCount++));
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void stop() {
+        lock.lock();
+        try {
+            lastProgress = timeProvider.getCurrentTime();
+            while (true) {
+                dispatch();
+                if (queue.isEmpty() || !hasUsableProcessor()) {
+                    break;
+                }
+                long stalledFor = timeProvider.getCurrentTime() - lastProgress;
+                if (stalledFor >= stallTimeoutMillis) {
+                    LOGGER.info("No test progress reported for {} seconds. Assigning the remaining {} test classes.", TimeUnit.MILLISECONDS.toSeconds(stalledFor), queue.size());
+                    dispatchRemaining();
+                    break;
+                }
+                try {
+                    condition.await(stallTimeoutMillis - stalledFor, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
+        } catch (DispatchException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+    }
+
+    /**
+     * Hands queued classes to processors that have room for them. Must be called while holding the lock.
+     */
+    private void dispatch() {
+        while (!queue.isEmpty()) {
+            ProcessorSlot slot = nextAvailableSlot();
+            if (slot == null) {
+                return;
+            }
+            slot.process(queue.poll().testClass);
+        }
+    }
+
+    private void dispatchRemaining() {
+        List<ProcessorSlot> usableSlots = new ArrayList<ProcessorSlot>();
+        for (ProcessorSlot slot : slots) {
+            if (!slot.failed) {
+                usableSlots.add(slot);
+            }
+        }
+        int pos = 0;
+        while (!queue.isEmpty()) {
+            usableSlots.get(pos).process(queue.poll().testClass);
+            pos = (pos + 1) % usableSlots.size();
+        }
+    }
+
+    private ProcessorSlot nextAvailableSlot() {
+        ProcessorSlot best = null;
+        for (ProcessorSlot slot : slots) {
+            if (!slot.failed && slot.classesInProgress < MAX_CLASSES_PER_PROCESSOR && (best == null || slot.classesInProgress < best.classesInProgress)) {
+                best = slot;
+            }
+        }
+        if ((best == null || best.classesInProgress > 0) && slots.size() < maxProcessors) {
+            best = new ProcessorSlot();
+            slots.add(best);
+        }
+        return best;
+    }
+
+    private boolean hasUsableProcessor() {
+        if (slots.size() < maxProcessors) {
+            return true;
+        }
+        for (ProcessorSlot slot : slots) {
+            if (!slot.failed) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void progress() {
+        lastProgress = timeProvider.getCurrentTime();
+        condition.signalAll();
+    }
+
+    /**
+     * A processor along with the classes it is working on. Receives the test events of the processor, to find out when it finishes a class.
+     */
+    private class ProcessorSlot implements TestResultProcessor {
+        private final TestClassProcessor processor;
+        private final Set<Object> rootSuites = new HashSet<Object>();
+        private final Set<Object> testClasses = new HashSet<Object>();
+        private int classesInProgress;
+        private boolean failed;
+
+        ProcessorSlot() {
+            Actor actor = actorFactory.createActor(new FailureDetectingTestClassProcessor(factory.create(), this));
+            actors.add(actor);
+            processor = actor.getProxy(TestClassProcessor.class);
+            processors.add(processor);
+            processor.startProcessing(this);
+        }
+
+        void process(TestClassRunInfo testClass) {
+            classesInProgress++;
+            processor.processTestClass(testClass);
+        }
+
+        void failed() {
+            lock.lock();
+            try {
+                failed = true;
+                progress();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            lock.lock();
+            try {
+                if (event.getParentId() == null) {
+                    rootSuites.add(test.getId());
+                } else if (rootSuites.contains(event.getParentId())) {
+                    testClasses.add(test.getId());
+                }
+                progress();
+            } finally {
+                lock.unlock();
+            }
+            resultProcessor.started(test, event);
+        }
+
+        @Override
+        public void completed(Object testId, TestCompleteEvent event) {
+            resultProcessor.completed(testId, event);
+            lock.lock();
+            try {
+                if (testClasses.remove(testId)) {
+                    classesInProgress--;
+                    dispatch();
+                } else {
+                    rootSuites.remove(testId);
+                }
+                progress();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void output(Object testId, TestOutputEvent event) {
+            resultProcessor.output(testId, event);
+            lock.lock();
+            try {
+                progress();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void failure(Object testId, Throwable result) {
+            resultProcessor.failure(testId, result);
+        }
+    }
+
+    /**
+     * Marks the slot as failed when its processor fails, so that no further classes are waiting on it.
+     */
+    private static class FailureDetectingTestClassProcessor implements TestClassProcessor {
+        private final TestClassProcessor delegate;
+        private final ProcessorSlot slot;
+
+        FailureDetectingTestClassProcessor(TestClassProcessor delegate, ProcessorSlot slot) {
+            this.delegate = delegate;
+            this.slot = slot;
+        }
+
+        @Override
+        public void startProcessing(TestResultProcessor resultProcessor) {
+            delegate.startProcessing(resultProcessor);
+        }
+
+        @Override
+        public void processTestClass(TestClassRunInfo testClass) {
+            try {
+                delegate.processTestClass(testClass);
+            } catch (RuntimeException e) {
+                slot.failed();
+                throw e;
+            } catch (Error e) {
+                slot.failed();
+                throw e;
+            }
+        }
+
+        @Override
+        public void stop() {
+            delegate.stop();
+        }
+    }
+
+    private static class QueuedTestClass implements Comparable<QueuedTestClass> {
+        private final TestClassRunInfo testClass;
+        private final long estimatedDuration;
+        private final long sequence;
+
+        QueuedTestClass(TestClassRunInfo testClass, long estimatedDuration, long sequence) {
+            this.testClass = testClass;
+            this.estimatedDuration = estimatedDuration;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(QueuedTestClass other) {
+            if (estimatedDuration != other.estimatedDuration) {
+                return estimatedDuration > other.estimatedDuration ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : sequence == other.sequence ? 0 : 1;
+        }
+    }
+}
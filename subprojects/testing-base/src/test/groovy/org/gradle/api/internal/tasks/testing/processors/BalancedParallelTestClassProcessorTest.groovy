@@ -0,0 +1,196 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.DefaultTestSuiteDescriptor
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.internal.Factory
+import org.gradle.internal.TimeProvider
+import org.gradle.messaging.actor.Actor
+import org.gradle.messaging.actor.ActorFactory
+import spock.lang.Specification
+
+class BalancedParallelTestClassProcessorTest extends Specification {
+    private final List<FakeProcessor> forks = []
+    private final Factory<TestClassProcessor> factory = {
+        def fork = new FakeProcessor(forks.size())
+        forks << fork
+        fork
+    } as Factory<TestClassProcessor>
+    private final ActorFactory actorFactory = Stub(ActorFactory) {
+        createActor(_) >> { Object target -> directActor(target) }
+    }
+    private final TestResultProcessor resultProcessor = Mock()
+    private long now
+    private final TimeProvider timeProvider = Mock() {
+        getCurrentTime() >> { now }
+    }
+
+    def "gives a processor the longest queued class each time it finishes one"() {
+        def processor = new BalancedParallelTestClassProcessor(1, factory, actorFactory, [Short: 10L, Long: 100L, Medium: 50L])
+        processor.startProcessing(resultProcessor)
+
+        when:
+        ["A", "B", "Short", "Long", "Medium"].each { processor.processTestClass(testClass(it)) }
+
+        then:
+        forks.size() == 1
+        forks[0].received == ["A", "B"]
+
+        when:
+        forks[0].complete("A")
+
+        then:
+        forks[0].received == ["A", "B", "Long"]
+
+        when:
+        ["B", "Long"].each { forks[0].complete(it) }
+
+        then:
+        forks[0].received == ["A", "B", "Long", "Medium", "Short"]
+
+        when:
+        processor.stop()
+
+        then:
+        forks[0].stopped
+    }
+
+    def "starts another processor when the existing processors are busy"() {
+        def processor = new BalancedParallelTestClassProcessor(2, factory, actorFactory, [:])
+        processor.startProcessing(resultProcessor)
+
+        when:
+        ["A", "B", "C"].each { processor.processTestClass(testClass(it)) }
+
+        then:
+        forks.size() == 2
+        forks[0].received == ["A", "C"]
+        forks[1].received == ["B"]
+    }
+
+    def "forwards test events to the result processor"() {
+        def processor = new BalancedParallelTestClassProcessor(1, factory, actorFactory, [:])
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(testClass("A"))
+
+        when:
+        forks[0].complete("A")
+
+        then:
+        1 * resultProcessor.started({ it.className == "A" }, _)
+        1 * resultProcessor.completed("A", _)
+    }
+
+    def "does not wait for queued classes when every processor has failed"() {
+        def processor = new BalancedParallelTestClassProcessor(1, factory, actorFactory, [:])
+        processor.startProcessing(resultProcessor)
+
+        when:
+        processor.processTestClass(testClass("Broken"))
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        processor.processTestClass(testClass("A"))
+        processor.stop()
+
+        then:
+        forks[0].received == ["Broken"]
+        forks[0].stopped
+    }
+
+    def "hands out the remaining classes when no processor reports progress for the stall timeout"() {
+        def processor = new BalancedParallelTestClassProcessor(1, factory, actorFactory, [:], timeProvider, 100)
+        processor.startProcessing(resultProcessor)
+        ["A", "B", "C", "D"].each { processor.processTestClass(testClass(it)) }
+
+        when:
+        processor.stop()
+
+        then:
+        2 * timeProvider.getCurrentTime() >> { now += 100 }
+
+        and:
+        forks.size() == 1
+        forks[0].received == ["A", "B", "C", "D"]
+        forks[0].stopped
+    }
+
+    def "stall timeout is at least the longest previous class duration"() {
+        def processor = new BalancedParallelTestClassProcessor(1, factory, actorFactory, [Slow: 500L], timeProvider, 10)
+        processor.startProcessing(resultProcessor)
+        ["Slow", "A", "B"].each { processor.processTestClass(testClass(it)) }
+
+        when:
+        processor.stop()
+
+        then:
+        // Stop starts the stall clock, then checks it after 499ms, which is not long enough, and again after 998ms
+        3 * timeProvider.getCurrentTime() >> { now += 499 }
+
+        and:
+        forks[0].received == ["Slow", "A", "B"]
+    }
+
+    private static TestClassRunInfo testClass(String name) {
+        return new DefaultTestClassRunInfo(name)
+    }
+
+    private static Actor directActor(Object target) {
+        return [getProxy: { Class type -> target }, stop: {}] as Actor
+    }
+
+    private static class FakeProcessor implements TestClassProcessor {
+        final Object rootId
+        final List<String> received = []
+        TestResultProcessor resultProcessor
+        boolean stopped
+
+        FakeProcessor(int index) {
+            rootId = "worker" + index
+        }
+
+        void startProcessing(TestResultProcessor resultProcessor) {
+            this.resultProcessor = resultProcessor
+            resultProcessor.started(new DefaultTestSuiteDescriptor(rootId, "worker"), new TestStartEvent(0))
+        }
+
+        void processTestClass(TestClassRunInfo testClass) {
+            received << testClass.testClassName
+            if (testClass.testClassName == "Broken") {
+                throw new IllegalStateException("broken")
+            }
+        }
+
+        void complete(String className) {
+            resultProcessor.started(new DefaultTestClassDescriptor(className, className), new TestStartEvent(0, rootId))
+            resultProcessor.completed(className, new TestCompleteEvent(0))
+        }
+
+        void stop() {
+            stopped = true
+        }
+    }
+}
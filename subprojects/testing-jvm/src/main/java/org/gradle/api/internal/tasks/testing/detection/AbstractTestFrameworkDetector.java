@@ -19,6 +19,7 @@ package org.gradle.api.internal.tasks.testing.detection;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.gradle.api.GradleException;
+import org.gradle.api.Transformer;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
@@ -45,6 +46,8 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
 
     private File testClassesDirectory;
     private FileCollection testClasspath;
+    private TestClassInfoCache classInfoCache;
+    private Map<File, TestClassInfo> classInfos = Collections.emptyMap();
 
     protected AbstractTestFrameworkDetector(ClassFileExtractionManager classFileExtractionManager) {
         assert classFileExtractionManager != null;
@@ -111,6 +114,34 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         this.testClasspath = testClasspath;
     }
 
+    @Override
+    public void setClassInfoCache(TestClassInfoCache classInfoCache) {
+        this.classInfoCache = classInfoCache;
+    }
+
+    @Override
+    public void readTestClasses(List<File> testClassFiles) {
+        if (classInfoCache == null) {
+            return;
+        }
+        classInfos = classInfoCache.read(testClassFiles, getClass().getName(), new Transformer<TestClassInfo, File>() {
+            public TestClassInfo transform(File testClassFile) {
+                return TestClassInfo.of(classVisitor(testClassFile));
+            }
+        });
+    }
+
+    /**
+     * Returns the information for the given class file, using what {@link #readTestClasses(List)} read up front where possible.
+     */
+    protected TestClassInfo classInfo(File testClassFile) {
+        TestClassInfo classInfo = classInfos.get(testClassFile);
+        if (classInfo == null) {
+            classInfo = TestClassInfo.of(classVisitor(testClassFile));
+        }
+        return classInfo;
+    }
+
     protected TestClassVisitor classVisitor(final File testClassFile) {
         final TestClassVisitor classVisitor = createClassVisitor();
 
@@ -155,9 +186,9 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
      * In none super class mode a test class is published when the class is a test and it is not abstract. In super class mode it must not publish the class otherwise it will get published multiple
      * times (for each extending class).
      */
-    protected void publishTestClass(boolean isTest, TestClassVisitor classVisitor, boolean superClass) {
-        if (isTest && !classVisitor.isAbstract() && !superClass) {
-            String className = Type.getObjectType(classVisitor.getClassName()).getClassName();
+    protected void publishTestClass(boolean isTest, TestClassInfo classInfo, boolean superClass) {
+        if (isTest && !classInfo.isAbstract() && !superClass) {
+            String className = Type.getObjectType(classInfo.getClassName()).getClassName();
             testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
         }
     }
@@ -24,12 +24,18 @@ import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The default test class scanner. Depending on the availability of a test framework detector,
  * a detection or filename scan is performed to find test classes.
  */
 public class DefaultTestClassScanner implements Runnable {
+    // Class files are detected in chunks as they are found, so that the first test classes can start while the rest are still being scanned. A chunk
+    // is large enough for the detector to read its class files in parallel
+    static final int DETECTION_CHUNK_SIZE = 4 * TestClassInfoCache.BATCH_SIZE;
+
     private final FileTree candidateClassFiles;
     private final TestFrameworkDetector testFrameworkDetector;
     private final TestClassProcessor testClassProcessor;
@@ -52,11 +58,9 @@ public class DefaultTestClassScanner implements Runnable {
 
     private void detectionScan() {
         testFrameworkDetector.startDetection(testClassProcessor);
-        candidateClassFiles.visit(new ClassFileVisitor() {
-            public void visitClassFile(FileVisitDetails fileDetails) {
-                testFrameworkDetector.processTestClass(fileDetails.getFile());
-            }
-        });
+        DetectionVisitor visitor = new DetectionVisitor();
+        candidateClassFiles.visit(visitor);
+        visitor.detect();
     }
 
     private void filenameScan() {
@@ -69,6 +73,29 @@ public class DefaultTestClassScanner implements Runnable {
         });
     }
 
+    private class DetectionVisitor extends ClassFileVisitor {
+        private List<File> testClassFiles = new ArrayList<File>();
+
+        public void visitClassFile(FileVisitDetails fileDetails) {
+            testClassFiles.add(fileDetails.getFile());
+            if (testClassFiles.size() == DETECTION_CHUNK_SIZE) {
+                detect();
+            }
+        }
+
+        void detect() {
+            if (testClassFiles.isEmpty()) {
+                return;
+            }
+            List<File> chunk = testClassFiles;
+            testClassFiles = new ArrayList<File>();
+            testFrameworkDetector.readTestClasses(chunk);
+            for (File testClassFile : chunk) {
+                testFrameworkDetector.processTestClass(testClassFile);
+            }
+        }
+    }
+
     private abstract class ClassFileVisitor extends EmptyFileVisitor {
         @Override
         public void visitFile(FileVisitDetails fileDetails) {
@@ -16,11 +16,14 @@
 
 package org.gradle.api.internal.tasks.testing.detection;
 
+import org.gradle.api.Action;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
+import org.gradle.api.internal.tasks.testing.processors.BalancedParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
@@ -32,26 +35,58 @@ import org.gradle.internal.progress.OperationIdGenerator;
 import org.gradle.messaging.actor.ActorFactory;
 import org.gradle.process.internal.WorkerProcessBuilder;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * The default test class scanner factory.
  */
 public class DefaultTestExecuter implements TestExecuter {
     private final Factory<WorkerProcessBuilder> workerFactory;
     private final ActorFactory actorFactory;
+    private final Map<String, Long> previousClassDurations;
+    private final TestClassInfoCache classInfoCache;
 
     public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactory) {
+        this(workerFactory, actorFactory, Collections.<String, Long>emptyMap(), null);
+    }
+
+    /**
+     * @param previousClassDurations The duration in milliseconds of each test class in the previous run, keyed by class name.
+     * @param classInfoCache Remembers what was detected in class files across builds, or null to read every class file.
+     */
+    public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactory, Map<String, Long> previousClassDurations, TestClassInfoCache classInfoCache) {
         this.workerFactory = workerFactory;
         this.actorFactory = actorFactory;
+        this.previousClassDurations = previousClassDurations;
+        this.classInfoCache = classInfoCache;
+    }
+
+    /**
+     * Returns true when the given task schedules its test classes using the durations from the previous run.
+     */
+    public static boolean usesPreviousClassDurations(Test testTask) {
+        // JUnit reports the completion of each test class as it happens, so forks can be given a class each time they finish one
+        return testTask.getMaxParallelForks() > 1 && testTask.getTestFramework() instanceof JUnitTestFramework;
     }
 
     @Override
     public void execute(final Test testTask, TestResultProcessor testResultProcessor) {
         final TestFramework testFramework = testTask.getTestFramework();
         final WorkerTestClassProcessorFactory testInstanceFactory = testFramework.getProcessorFactory();
+        final Action<WorkerProcessBuilder> frameworkConfigurationAction = testFramework.getWorkerConfigurationAction();
+        // A test worker may run in a pooled process, unless each fork is expected to start from a fresh process or is to be debugged
+        final boolean reusable = testTask.getForkEvery() == 0 && !testTask.getDebug();
+        final Action<WorkerProcessBuilder> workerConfigurationAction = new Action<WorkerProcessBuilder>() {
+            public void execute(WorkerProcessBuilder workerProcessBuilder) {
+                workerProcessBuilder.setReusable(reusable);
+                frameworkConfigurationAction.execute(workerProcessBuilder);
+            }
+        };
         final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
             public TestClassProcessor create() {
                 return new ForkingTestClassProcessor(workerFactory, testInstanceFactory, testTask,
-                    testTask.getClasspath(), testFramework.getWorkerConfigurationAction());
+                    testTask.getClasspath(), workerConfigurationAction);
             }
         };
         Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
@@ -60,8 +95,12 @@ public class DefaultTestExecuter implements TestExecuter {
             }
         };
 
-        TestClassProcessor processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(),
-            reforkingProcessorFactory, actorFactory);
+        TestClassProcessor processor;
+        if (usesPreviousClassDurations(testTask)) {
+            processor = new BalancedParallelTestClassProcessor(testTask.getMaxParallelForks(), reforkingProcessorFactory, actorFactory, previousClassDurations);
+        } else {
+            processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(), reforkingProcessorFactory, actorFactory);
+        }
 
         final FileTree testClassFiles = testTask.getCandidateClassFiles();
 
@@ -70,6 +109,7 @@ public class DefaultTestExecuter implements TestExecuter {
             TestFrameworkDetector testFrameworkDetector = testTask.getTestFramework().getDetector();
             testFrameworkDetector.setTestClassesDirectory(testTask.getTestClassesDir());
             testFrameworkDetector.setTestClasspath(testTask.getClasspath());
+            testFrameworkDetector.setClassInfoCache(classInfoCache);
             detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor);
         } else {
             detector = new DefaultTestClassScanner(testClassFiles, null, processor);
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+/**
+ * What a {@link TestClassVisitor} found out about a single class file, without looking at its super classes.
+ */
+public class TestClassInfo {
+    public static final Serializer<TestClassInfo> SERIALIZER = new TestClassInfoSerializer();
+
+    private final String className;
+    private final String superClassName;
+    private final boolean test;
+    private final boolean isAbstract;
+
+    public TestClassInfo(String className, String superClassName, boolean test, boolean isAbstract) {
+        this.className = className;
+        this.superClassName = superClassName;
+        this.test = test;
+        this.isAbstract = isAbstract;
+    }
+
+    public static TestClassInfo of(TestClassVisitor classVisitor) {
+        return new TestClassInfo(classVisitor.getClassName(), classVisitor.getSuperClassName(), classVisitor.isTest(), classVisitor.isAbstract());
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getSuperClassName() {
+        return superClassName;
+    }
+
+    public boolean isTest() {
+        return test;
+    }
+
+    public boolean isAbstract() {
+        return isAbstract;
+    }
+
+    private static class TestClassInfoSerializer implements Serializer<TestClassInfo> {
+        public TestClassInfo read(Decoder decoder) throws Exception {
+            String className = decoder.readNullableString();
+            String superClassName = decoder.readNullableString();
+            boolean test = decoder.readBoolean();
+            boolean isAbstract = decoder.readBoolean();
+            return new TestClassInfo(className, superClassName, test, isAbstract);
+        }
+
+        public void write(Encoder encoder, TestClassInfo value) throws Exception {
+            encoder.writeNullableString(value.className);
+            encoder.writeNullableString(value.superClassName);
+            encoder.writeBoolean(value.test);
+            encoder.writeBoolean(value.isAbstract);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.gradle.api.Action;
+import org.gradle.api.Transformer;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.cache.internal.FileLockManager;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Remembers the {@link TestClassInfo} of class files across builds, keyed by the content hash of the class file. Class files are hashed, and those
+ * not in the cache are parsed, in parallel.
+ */
+public class TestClassInfoCache implements Closeable {
+    static final int BATCH_SIZE = 64;
+
+    private final CacheRepository cacheRepository;
+    private final BuildOperationProcessor buildOperationProcessor;
+    private PersistentCache cache;
+    private PersistentIndexedCache<String, TestClassInfo> classInfos;
+
+    public TestClassInfoCache(CacheRepository cacheRepository, BuildOperationProcessor buildOperationProcessor) {
+        this.cacheRepository = cacheRepository;
+        this.buildOperationProcessor = buildOperationProcessor;
+    }
+
+    /**
+     * Returns the information for each of the given class files.
+     *
+     * @param detectorName Identifies the detector the information is for, as different detectors look for different things.
+     * @param parser Reads the information from a class file that is not in the cache.
+     */
+    public Map<File, TestClassInfo> read(final List<File> classFiles, final String detectorName, final Transformer<TestClassInfo, File> parser) {
+        final PersistentCache cache = open();
+        final String[] keys = new String[classFiles.size()];
+        final TestClassInfo[] results = new TestClassInfo[classFiles.size()];
+
+        List<Integer> all = new ArrayList<Integer>(classFiles.size());
+        for (int i = 0; i < classFiles.size(); i++) {
+            all.add(i);
+        }
+        inParallel(all, new Action<Integer>() {
+            public void execute(Integer index) {
+                keys[index] = detectorName + ":" + HashUtil.createHash(classFiles.get(index), "MD5").asHexString();
+            }
+        });
+
+        final List<Integer> misses = new ArrayList<Integer>();
+        cache.useCache("look up test classes", new Runnable() {
+            public void run() {
+                for (int i = 0; i < keys.length; i++) {
+                    results[i] = classInfos.get(keys[i]);
+                    if (results[i] == null) {
+                        misses.add(i);
+                    }
+                }
+            }
+        });
+
+        if (!misses.isEmpty()) {
+            inParallel(misses, new Action<Integer>() {
+                public void execute(Integer index) {
+                    results[index] = parser.transform(classFiles.get(index));
+                }
+            });
+            cache.useCache("store test classes", new Runnable() {
+                public void run() {
+                    for (Integer index : misses) {
+                        classInfos.put(keys[index], results[index]);
+                    }
+                }
+            });
+        }
+
+        Map<File, TestClassInfo> classInfos = new LinkedHashMap<File, TestClassInfo>(classFiles.size());
+        for (int i = 0; i < results.length; i++) {
+            classInfos.put(classFiles.get(i), results[i]);
+        }
+        return classInfos;
+    }
+
+    private void inParallel(List<Integer> indexes, final Action<Integer> action) {
+        BuildOperationQueue<Batch> queue = buildOperationProcessor.newQueue(new BuildOperationWorker<Batch>() {
+            public String getDisplayName() {
+                return "test class detection";
+            }
+
+            public void execute(Batch batch) {
+                for (Integer index : batch.indexes) {
+                    action.execute(index);
+                }
+            }
+        }, null);
+        for (int start = 0; start < indexes.size(); start += BATCH_SIZE) {
+            queue.add(new Batch(indexes.subList(start, Math.min(indexes.size(), start + BATCH_SIZE))));
+        }
+        queue.waitForCompletion();
+    }
+
+    private synchronized PersistentCache open() {
+        if (cache == null) {
+            cache = cacheRepository
+                    .cache("testClassDetection")
+                    .withDisplayName("test class detection cache")
+                    .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
+                    .open();
+            classInfos = cache.createCache(new PersistentIndexedCacheParameters<String, TestClassInfo>("classInfos", String.class, TestClassInfo.SERIALIZER));
+        }
+        return cache;
+    }
+
+    public synchronized void close() {
+        if (cache != null) {
+            cache.close();
+            cache = null;
+            classInfos = null;
+        }
+    }
+
+    private static class Batch implements BuildOperation {
+        private final List<Integer> indexes;
+
+        Batch(List<Integer> indexes) {
+            this.indexes = indexes;
+        }
+
+        public String getDescription() {
+            return "detect test classes " + indexes.get(0) + " to " + indexes.get(indexes.size() - 1);
+        }
+    }
+}
@@ -19,13 +19,22 @@ import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 
 import java.io.File;
+import java.util.List;
 
 public interface TestFrameworkDetector {
     void startDetection(TestClassProcessor testClassProcessor);
 
+    /**
+     * Reads the given class files up front, before they are passed to {@link #processTestClass(File)} in the same order. Called once for each chunk of
+     * class files, as they are found.
+     */
+    void readTestClasses(List<File> testClassFiles);
+
     boolean processTestClass(File testClassFile);
 
     void setTestClassesDirectory(File testClassesDir);
 
     void setTestClasspath(FileCollection classpath);
+
+    void setClassInfoCache(TestClassInfoCache classInfoCache);
 }
@@ -23,6 +23,10 @@ import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.internal.operations.BuildOperation;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorker;
 import org.gradle.reporting.HtmlReportBuilder;
 import org.gradle.reporting.HtmlReportRenderer;
 import org.gradle.reporting.ReportRenderer;
@@ -36,6 +40,11 @@ import static org.gradle.api.tasks.testing.TestResult.ResultType.SKIPPED;
 
 public class DefaultTestReport implements TestReporter {
     private final static Logger LOG = Logging.getLogger(DefaultTestReport.class);
+    private final BuildOperationProcessor buildOperationProcessor;
+
+    public DefaultTestReport(BuildOperationProcessor buildOperationProcessor) {
+        this.buildOperationProcessor = buildOperationProcessor;
+    }
 
     @Override
     public void generateReport(TestResultsProvider resultsProvider, File reportDir) {
@@ -74,21 +83,44 @@ public class DefaultTestReport implements TestReporter {
             HtmlReportRenderer htmlRenderer = new HtmlReportRenderer();
             htmlRenderer.render(model, new ReportRenderer<AllTestResults, HtmlReportBuilder>() {
                 @Override
-                public void render(AllTestResults model, HtmlReportBuilder output) throws IOException {
+                public void render(AllTestResults model, final HtmlReportBuilder output) throws IOException {
                     PackagePageRenderer packagePageRenderer = new PackagePageRenderer();
-                    ClassPageRenderer classPageRenderer = new ClassPageRenderer(resultsProvider);
+
+                    // Class pages include the test output, so are by far the most expensive to render. Render them in parallel.
+                    BuildOperationQueue<ClassPage> classPages = buildOperationProcessor.newQueue(new BuildOperationWorker<ClassPage>() {
+                        public String getDisplayName() {
+                            return "HTML test report renderer";
+                        }
+
+                        public void execute(ClassPage classPage) {
+                            output.renderHtmlPage(classPage.results.getBaseUrl(), classPage.results, new ClassPageRenderer(resultsProvider));
+                        }
+                    }, null);
 
                     output.renderHtmlPage("index.html", model, new OverviewPageRenderer());
                     for (PackageTestResults packageResults : model.getPackages()) {
                         output.renderHtmlPage(packageResults.getBaseUrl(), packageResults, packagePageRenderer);
                         for (ClassTestResults classResults : packageResults.getClasses()) {
-                            output.renderHtmlPage(classResults.getBaseUrl(), classResults, classPageRenderer);
+                            classPages.add(new ClassPage(classResults));
                         }
                     }
+                    classPages.waitForCompletion();
                 }
             }, reportDir);
         } catch (Exception e) {
             throw new GradleException(String.format("Could not generate test report to '%s'.", reportDir), e);
         }
     }
+
+    private static class ClassPage implements BuildOperation {
+        private final ClassTestResults results;
+
+        private ClassPage(ClassTestResults results) {
+            this.results = results;
+        }
+
+        public String getDescription() {
+            return "Render HTML test report for " + results.getName();
+        }
+    }
 }
@@ -48,6 +48,8 @@ public class DefaultTestClassScannerTest {
             }
             one(detector).startDetection(processor)
             inSequence(sequence)
+            one(detector).readTestClasses([new File('class1.class'), new File('class2.class')])
+            inSequence(sequence)
             one(detector).processTestClass(new File('class1.class'))
             one(detector).processTestClass(new File('class2.class'))
             inSequence(sequence)
@@ -55,4 +57,33 @@ public class DefaultTestClassScannerTest {
         
         scanner.run()
     }
+
+    @Test
+    public void passesClassFilesToTestClassDetectorInChunksAsTheyAreFound() {
+        DefaultTestClassScanner scanner = new DefaultTestClassScanner(files, detector, processor)
+        int count = DefaultTestClassScanner.DETECTION_CHUNK_SIZE + 1
+        List<File> classFiles = (1..count).collect { new File("class${it}.class") }
+        List<String> events = []
+
+        context.checking {
+            one(files).visit(withParam(notNullValue()))
+            will { visitor ->
+                classFiles.each { file ->
+                    events << "visit " + file.name
+                    visitor.visitFile({file} as FileVisitDetails)
+                }
+            }
+            one(detector).startDetection(processor)
+            one(detector).readTestClasses(classFiles.subList(0, count - 1))
+            will { events << "read " + (count - 1) }
+            one(detector).readTestClasses([classFiles.last()])
+            will { events << "read 1" }
+            allowing(detector).processTestClass(withParam(notNullValue()))
+        }
+
+        scanner.run()
+
+        assertThat(events.indexOf("read " + (count - 1)), equalTo(count - 1))
+        assertThat(events.last(), equalTo("read 1"))
+    }
 }
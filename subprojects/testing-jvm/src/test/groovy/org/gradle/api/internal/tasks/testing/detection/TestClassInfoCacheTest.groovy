@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.api.Transformer
+import org.gradle.cache.internal.CacheScopeMapping
+import org.gradle.cache.internal.DefaultCacheRepository
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.DefaultBuildOperationProcessor
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.testfixtures.internal.InMemoryCacheFactory
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestClassInfoCacheTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    final CacheScopeMapping scopeMapping = Stub() {
+        getBaseDirectory(_, _, _) >> { tmpDir.file("caches") }
+    }
+    final DefaultBuildOperationProcessor buildOperationProcessor = new DefaultBuildOperationProcessor(new DefaultExecutorFactory(), 2)
+    final TestClassInfoCache cache = new TestClassInfoCache(new DefaultCacheRepository(scopeMapping, new InMemoryCacheFactory()), buildOperationProcessor)
+    final Transformer<TestClassInfo, File> parser = Mock()
+
+    def cleanup() {
+        cache.close()
+        buildOperationProcessor.stop()
+    }
+
+    def "reads class files in the order given"() {
+        def files = (1..150).collect { tmpDir.file("Class${it}.class") << "content ${it}" }
+
+        when:
+        def result = cache.read(files, "detector", parser)
+
+        then:
+        150 * parser.transform(_) >> { File file -> info(file.name - ".class") }
+        result.keySet() as List == files
+        result.values()*.className == (1..150).collect { "Class${it}" }
+    }
+
+    def "parses a class file only when its content has not been seen before"() {
+        def a = tmpDir.file("A.class") << "a"
+        def b = tmpDir.file("B.class") << "b"
+
+        when:
+        cache.read([a, b], "detector", parser)
+
+        then:
+        1 * parser.transform(a) >> info("A")
+        1 * parser.transform(b) >> info("B")
+
+        when:
+        b.text = "changed"
+        def result = cache.read([a, b], "detector", parser)
+
+        then:
+        1 * parser.transform(b) >> info("B2")
+        0 * parser._
+        result[a].className == "A"
+        result[b].className == "B2"
+    }
+
+    def "keeps information for different detectors apart"() {
+        def a = tmpDir.file("A.class") << "a"
+
+        when:
+        cache.read([a], "junit", parser)
+        def result = cache.read([a], "testng", parser)
+
+        then:
+        1 * parser.transform(a) >> info("JUnit")
+        1 * parser.transform(a) >> info("TestNG")
+        result[a].className == "TestNG"
+    }
+
+    private static TestClassInfo info(String className) {
+        return new TestClassInfo(className, "java/lang/Object", true, false)
+    }
+}
@@ -98,6 +98,27 @@ class TestOutputStoreSpec extends WorkspaceTest {
         reader.close()
     }
 
+    def "output can be read by several threads at the same time"() {
+        when:
+        def writer = output.writer()
+        (1..20).each { classId ->
+            (1..50).each { writer.onOutput(classId, 1, output(StdOut, "[${classId}-${it}]")) }
+        }
+        writer.close()
+        def reader = output.reader()
+        def results = Collections.synchronizedMap([:])
+        def threads = (1..20).collect { classId ->
+            Thread.start { results[classId] = collectAllOutput(reader, classId, StdOut) }
+        }
+        threads*.join()
+
+        then:
+        (1..20).every { classId -> results[classId] == (1..50).collect { "[${classId}-${it}]" }.join("") }
+
+        cleanup:
+        reader?.close()
+    }
+
     def DefaultTestOutputEvent output(TestOutputEvent.Destination destination, String msg) {
         new DefaultTestOutputEvent(destination, msg)
     }